@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner class is the entry point of the benchmarks jar.
+ * It accepts the usual JMH command line options (for example a regular expression of
+ * the benchmarks to run), and writes the results as JSON to jmh-result.json
+ * unless another result file or format is given.
+ * @author Rivka Sheiner
+ */
+public class BenchmarkRunner {
+    /**
+     * The default file of the results
+     */
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    /**
+     * The entry point of the benchmarks
+     * @param args - JMH command line options
+     * @throws RunnerException if the benchmarks failed
+     * @throws CommandLineOptionException if the options are not valid
+     * @throws IOException if the help can not be printed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        if (!commandLine.getResult().hasValue())
+            options.result(RESULT_FILE);
+
+        Runner runner = new Runner(options.build());
+        if (commandLine.shouldList())
+            runner.list();
+        else
+            runner.run();
+    }
+}
@@ -0,0 +1,200 @@
+package benchmarks;
+
+import geometries.*;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import primitives.*;
+import renderer.Camera;
+import scene.Scene;
+
+import java.util.Random;
+
+import static java.awt.Color.*;
+
+/**
+ * BenchmarkScenes class builds the scenes and the shapes which are used by the benchmarks.
+ * The scenes of reflection and refraction are the same as in ReflectionRefractionTests.
+ * @author Rivka Sheiner
+ */
+final class BenchmarkScenes {
+
+    /**
+     * The names of the scenes of reflection and refraction
+     */
+    static final String TWO_SPHERES = "twoSpheres";
+    static final String TWO_SPHERES_ON_MIRRORS = "twoSpheresOnMirrors";
+    static final String TRIANGLES_TRANSPARENT_SPHERE = "trianglesTransparentSphere";
+    static final String MY_PICTURE = "myPicture";
+
+    /**
+     * Private constructor - the class has only static methods
+     */
+    private BenchmarkScenes() {
+    }
+
+    /**
+     * Function createScene builds one of the scenes of reflection and refraction
+     * @param name - the name of the scene
+     * @return Scene
+     */
+    static Scene createScene(String name) {
+        Scene scene = new Scene(name);
+        switch (name) {
+            case TWO_SPHERES -> {
+                scene.geometries.add(
+                        new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(BLUE))
+                                .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(100).setKt(0.3)),
+                        new Sphere(new Point(0, 0, -50), 25d).setEmission(new Color(RED))
+                                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(100)));
+                scene.lights.add(
+                        new SpotLight(new Color(1000, 600, 0), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+                                .setKl(0.0004).setKq(0.0000006));
+            }
+            case TWO_SPHERES_ON_MIRRORS -> {
+                scene.setAmbient(new AmbientLight(new Color(255, 255, 255), new Double3(0.1)));
+                scene.geometries.add(
+                        new Sphere(new Point(-950, -900, -1000), 400d).setEmission(new Color(0, 0, 100))
+                                .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20).setKt(0.5)),
+                        new Sphere(new Point(-950, -900, -1000), 200d).setEmission(new Color(100, 20, 20))
+                                .setMaterial(new Material().setKd(0.25).setKs(0.25).setShininess(20)),
+                        new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500), new Point(670, 670, 3000))
+                                .setEmission(new Color(20, 20, 20))
+                                .setMaterial(new Material().setKr(1)),
+                        new Triangle(new Point(1500, -1500, -1500), new Point(-1500, 1500, -1500),
+                                new Point(-1500, -1500, -2000))
+                                .setEmission(new Color(20, 20, 20))
+                                .setMaterial(new Material().setKr(0.5)));
+                scene.lights.add(new SpotLight(new Color(1020, 400, 400), new Point(-750, -750, -150), new Vector(-1, -1, -4))
+                        .setKl(0.00001).setKq(0.000005));
+            }
+            case TRIANGLES_TRANSPARENT_SPHERE -> {
+                scene.setAmbient(new AmbientLight(new Color(WHITE), new Double3(0.15)));
+                scene.geometries.add(
+                        new Triangle(new Point(-150, -150, -115), new Point(150, -150, -135), new Point(75, 75, -150))
+                                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)),
+                        new Triangle(new Point(-150, -150, -115), new Point(-70, 70, -140), new Point(75, 75, -150))
+                                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(60)),
+                        new Sphere(new Point(60, 50, -50), 30d).setEmission(new Color(BLUE))
+                                .setMaterial(new Material().setKd(0.2).setKs(0.2).setShininess(30).setKt(0.6)));
+                scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 50, 0), new Vector(0, 0, -1))
+                        .setKl(4E-5).setKq(2E-7));
+            }
+            case MY_PICTURE -> {
+                scene.setAmbient(new AmbientLight(new Color(WHITE), new Double3(0.2)));
+                scene.geometries.add(
+                        new Sphere(new Point(0, -10, 50), 25d).setEmission(new Color(PINK))
+                                .setMaterial(new Material().setKd(0.4).setKs(0.3).setShininess(70)),
+                        new Sphere(new Point(50, -10, 50), 5d).setEmission(new Color(PINK))
+                                .setMaterial(new Material().setKd(0.2).setKs(0.4).setShininess(90)),
+                        new Triangle(new Point(100, -100, -100), new Point(-70, 70, -140), new Point(50, 50, 50))
+                                .setMaterial(new Material().setKd(0.7).setKs(0.1).setShininess(100)),
+                        new Sphere(new Point(50, -10, 50), 10d).setEmission(new Color(BLUE))
+                                .setMaterial(new Material().setKt(0.9).setKr(0.1).setShininess(90)));
+                scene.lights.add(
+                        new SpotLight(new Color(200, 0, 280), new Point(-100, -100, 500), new Vector(-1, -1, -2))
+                                .setKl(0.0004).setKq(0.0000006));
+            }
+            default -> throw new IllegalArgumentException("Unknown scene: " + name);
+        }
+        return scene;
+    }
+
+    /**
+     * Function createCamera builds the camera of one of the scenes of reflection and refraction
+     * @param name - the name of the scene
+     * @return Camera - the camera with view plane, without image writer and ray tracer
+     */
+    static Camera createCamera(String name) {
+        return switch (name) {
+            case TWO_SPHERES_ON_MIRRORS -> new Camera(new Point(0, 0, 10000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                    .setVPSize(2500, 2500).setVPDistance(10000);
+            case TRIANGLES_TRANSPARENT_SPHERE -> new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                    .setVPSize(200, 200).setVPDistance(1000);
+            default -> new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                    .setVPSize(150, 150).setVPDistance(1000);
+        };
+    }
+
+    /**
+     * Function createShape builds one shape of the given type around the origin,
+     * with size of about 2 units
+     * @param type - the simple name of the class of the shape
+     * @return Geometry
+     */
+    static Geometry createShape(String type) {
+        return switch (type) {
+            case "Sphere" -> new Sphere(new Point(0, 0, 0), 1);
+            case "Triangle" -> new Triangle(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(0, 1, 0));
+            case "Polygon" -> new Polygon(new Point(-1, -1, 0), new Point(1, -1, 0), new Point(1.2, 0.5, 0),
+                    new Point(0, 1, 0), new Point(-1.2, 0.5, 0));
+            case "Cylinder" -> new Cylinder(new Ray(new Point(0, 0, 0), new Vector(0, 1, 0)), 1, 2);
+            case "Cone" -> new Cone(2, 1, new Point(0, -1, 0));
+            case "Tube" -> new Tube(new Ray(new Point(0, 0, 0), new Vector(0, 1, 0)), 1);
+            default -> throw new IllegalArgumentException("Unknown shape: " + type);
+        };
+    }
+
+    /**
+     * Function createRays builds rays from random points around the origin, which
+     * are sent towards random points near the origin, so part of them hit shapes of
+     * size of about 2 units around the origin
+     * @param count - the number of rays
+     * @param seed - the seed of the random numbers
+     * @return array of Ray
+     */
+    static Ray[] createRays(int count, long seed) {
+        Random random = new Random(seed);
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; i++) {
+            Point head = new Point(random.nextDouble(-3, 3), random.nextDouble(-3, 3), 10);
+            Point target = new Point(random.nextDouble(-1.5, 1.5), random.nextDouble(-1.5, 1.5), random.nextDouble(-1, 1));
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+        return rays;
+    }
+
+    /**
+     * Function createShapes builds random spheres and triangles in a cube of side 200 around the origin
+     * @param count - the number of shapes
+     * @param seed - the seed of the random numbers
+     * @return array of Intersectable
+     */
+    static Intersectable[] createShapes(int count, long seed) {
+        Random random = new Random(seed);
+        Intersectable[] shapes = new Intersectable[count];
+        for (int i = 0; i < count; i++) {
+            Point center = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            shapes[i] = i % 2 == 0 ? new Sphere(center, random.nextDouble(0.5, 3))
+                    : new Triangle(center, center.add(new Vector(3, 0, 1)), center.add(new Vector(0, 3, 2)));
+        }
+        return shapes;
+    }
+
+    /**
+     * Function createMesh builds a wavy grid of triangles in a square of side 200 around the origin
+     * @param side - the number of squares (of two triangles) in each row and column of the grid
+     * @return Mesh
+     */
+    static Mesh createMesh(int side) {
+        int n = side + 1;
+        double[] vertices = new double[n * n * 3];
+        for (int y = 0, v = 0; y < n; y++)
+            for (int x = 0; x < n; x++, v += 3) {
+                vertices[v] = -100 + 200.0 * x / side;
+                vertices[v + 1] = -100 + 200.0 * y / side;
+                vertices[v + 2] = 10 * Math.sin(vertices[v] / 10) * Math.cos(vertices[v + 1] / 15);
+            }
+        int[] indices = new int[side * side * 6];
+        for (int y = 0, i = 0; y < side; y++)
+            for (int x = 0; x < side; x++, i += 6) {
+                int v = y * n + x;
+                indices[i] = v;
+                indices[i + 1] = v + 1;
+                indices[i + 2] = v + n + 1;
+                indices[i + 3] = v;
+                indices[i + 4] = v + n + 1;
+                indices[i + 5] = v + n;
+            }
+        return new Mesh(vertices, indices);
+    }
+}
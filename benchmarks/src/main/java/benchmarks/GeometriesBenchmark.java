@@ -0,0 +1,89 @@
+package benchmarks;
+
+import geometries.BVH;
+import geometries.Geometries;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the traversal of collections of shapes in several sizes,
+ * both as flat list (Geometries) and as bounding volume hierarchy (BVH).
+ * @author Rivka Sheiner
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(GeometriesBenchmark.NUM_RAYS)
+public class GeometriesBenchmark {
+    /**
+     * The number of rays which are sent in each invocation
+     */
+    static final int NUM_RAYS = 256;
+
+    /**
+     * The number of shapes in the collection
+     */
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    /**
+     * The kind of the collection - "flat" for Geometries or "bvh" for BVH
+     */
+    @Param({"flat", "bvh"})
+    public String container;
+
+    /**
+     * The collection of shapes
+     */
+    private Geometries geometries;
+    /**
+     * The rays which are sent to the collection
+     */
+    private Ray[] rays;
+
+    /**
+     * Builds the collection and the rays, and sends one ray so the collection
+     * prepares its boxes (and tree) before the measurement
+     */
+    @Setup
+    public void setup() {
+        geometries = container.equals("bvh") ? new BVH() : new Geometries();
+        geometries.add(BenchmarkScenes.createShapes(size, 1));
+
+        Random random = new Random(2);
+        rays = new Ray[NUM_RAYS];
+        for (int i = 0; i < NUM_RAYS; i++)
+            rays[i] = new Ray(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), 200),
+                    new Vector(random.nextDouble(-0.3, 0.3), random.nextDouble(-0.3, 0.3), -1));
+        geometries.findClosestGeoIntersection(rays[0]);
+    }
+
+    /**
+     * All the intersections of each ray with the collection
+     * @param blackhole - consumes the results
+     */
+    @Benchmark
+    public void findGeoIntersections(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(geometries.findGeoIntersections(ray));
+    }
+
+    /**
+     * The closest intersection of each ray with the collection
+     * @param blackhole - consumes the results
+     */
+    @Benchmark
+    public void findClosestGeoIntersection(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(geometries.findClosestGeoIntersection(ray));
+    }
+}
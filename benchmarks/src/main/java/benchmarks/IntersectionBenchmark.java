@@ -0,0 +1,71 @@
+package benchmarks;
+
+import geometries.Intersectable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Ray;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intersection of rays with a single shape of each type.
+ * Each invocation sends a fixed set of rays, part of them hit the shape.
+ * @author Rivka Sheiner
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(IntersectionBenchmark.NUM_RAYS)
+public class IntersectionBenchmark {
+    /**
+     * The number of rays which are sent in each invocation
+     */
+    static final int NUM_RAYS = 1024;
+
+    /**
+     * The type of the shape
+     */
+    @Param({"Sphere", "Triangle", "Polygon", "Cylinder", "Cone", "Tube"})
+    public String shape;
+
+    /**
+     * The shape which is intersected
+     */
+    private Intersectable geometry;
+    /**
+     * The rays which are sent to the shape
+     */
+    private Ray[] rays;
+
+    /**
+     * Builds the shape and the rays
+     */
+    @Setup
+    public void setup() {
+        geometry = BenchmarkScenes.createShape(shape);
+        rays = BenchmarkScenes.createRays(NUM_RAYS, 1);
+    }
+
+    /**
+     * All the intersections of each ray with the shape
+     * @param blackhole - consumes the results
+     */
+    @Benchmark
+    public void findGeoIntersections(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(geometry.findGeoIntersections(ray));
+    }
+
+    /**
+     * The closest intersection of each ray with the shape
+     * @param blackhole - consumes the results
+     */
+    @Benchmark
+    public void findClosestGeoIntersection(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(geometry.findClosestGeoIntersection(ray));
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import geometries.Mesh;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the intersection of rays with meshes of triangles in several sizes,
+ * with the scalar kernels and with the vector kernels of the triangles.
+ * The kernels are chosen once in each JVM, so each combination of parameters runs in its own fork,
+ * with the module of the Vector API (without it the vector kernels fall back to the scalar kernels).
+ * @author Rivka Sheiner
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@OperationsPerInvocation(MeshBenchmark.NUM_RAYS)
+public class MeshBenchmark {
+    /**
+     * The number of rays which are sent in each invocation
+     */
+    static final int NUM_RAYS = 256;
+
+    /**
+     * The number of squares in each row and column of the grid (two triangles in each square)
+     */
+    @Param({"10", "100", "500"})
+    public int side;
+
+    /**
+     * The kernels of the triangles - "scalar" or "vector"
+     */
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    /**
+     * The mesh
+     */
+    private Mesh mesh;
+    /**
+     * The rays which are sent to the mesh
+     */
+    private Ray[] rays;
+
+    /**
+     * Chooses the kernels, builds the mesh and the rays, and sends one ray so the mesh
+     * chooses its kernels before the measurement
+     */
+    @Setup
+    public void setup() {
+        System.setProperty("geometries.kernels", kernels);
+        mesh = BenchmarkScenes.createMesh(side);
+
+        Random random = new Random(2);
+        rays = new Ray[NUM_RAYS];
+        for (int i = 0; i < NUM_RAYS; i++)
+            rays[i] = new Ray(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), 200),
+                    new Vector(random.nextDouble(-0.3, 0.3), random.nextDouble(-0.3, 0.3), -1));
+        mesh.findClosestGeoIntersection(rays[0]);
+    }
+
+    /**
+     * The closest intersection of each ray with the mesh
+     * @param blackhole - consumes the results
+     */
+    @Benchmark
+    public void findClosestGeoIntersection(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(mesh.findClosestGeoIntersection(ray));
+    }
+
+    /**
+     * Whether each ray is blocked by the mesh before a distance, as in the shadow rays
+     * @param blackhole - consumes the results
+     */
+    @Benchmark
+    public void findTransparency(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(mesh.findTransparency(ray, 300, 0.001));
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Vector;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.RayTracerBasic;
+import scene.Scene;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of full rendering of an image (Camera.renderImage) in each mode of sampling.
+ * The image is not written to file.
+ * @author Rivka Sheiner
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RenderBenchmark {
+    /**
+     * The number of pixels in each axis of the image
+     */
+    private static final int IMAGE_SIZE = 200;
+
+    /**
+     * The mode of sampling - "basic" (one ray through each pixel), "antiAliasing",
+     * "adaptiveSuperSampling" or "depthOfField"
+     */
+    @Param({"basic", "antiAliasing", "adaptiveSuperSampling", "depthOfField"})
+    public String mode;
+
+    /**
+     * The number of samples in each pixel for the modes of super sampling
+     */
+    @Param({"16"})
+    public int numSamples;
+
+    /**
+     * The length of the side of the blocks of pixels which are traced as packets, 1 for no packets
+     */
+    @Param({"1", "8"})
+    public int packetSize;
+
+    /**
+     * The number of rendering threads, 0 for all the available processors
+     */
+    @Param({"0"})
+    public int numThreads;
+
+    /**
+     * The camera which renders the image
+     */
+    private Camera camera;
+
+    /**
+     * Builds the camera and the scene
+     */
+    @Setup
+    public void setup() {
+        Scene scene = BenchmarkScenes.createScene(BenchmarkScenes.TWO_SPHERES);
+        camera = switch (mode) {
+            case "basic" -> BenchmarkScenes.createCamera(BenchmarkScenes.TWO_SPHERES);
+            case "antiAliasing" -> BenchmarkScenes.createCamera(BenchmarkScenes.TWO_SPHERES).setNumSamples(numSamples);
+            case "adaptiveSuperSampling" -> BenchmarkScenes.createCamera(BenchmarkScenes.TWO_SPHERES)
+                    .setNumSamples(numSamples).setAdaptiveSuperSampling(true);
+            case "depthOfField" -> new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0),
+                    2, 1000, true, numSamples).setVPSize(150, 150).setVPDistance(1000);
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+        camera.setImageWriter(new ImageWriter("benchmark", IMAGE_SIZE, IMAGE_SIZE))
+                .setRayTracer(new RayTracerBasic(scene)).setPacketSize(packetSize);
+        if (numThreads > 0)
+            camera.setNumThreads(numThreads);
+    }
+
+    /**
+     * Renders the image
+     * @return Camera - returned so the rendering is not eliminated
+     */
+    @Benchmark
+    public Camera renderImage() {
+        return camera.renderImage();
+    }
+}
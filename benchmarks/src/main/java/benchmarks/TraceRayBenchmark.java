@@ -0,0 +1,67 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import primitives.Ray;
+import renderer.Camera;
+import renderer.RayTracerBasic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of RayTracerBasic.traceRay on the scenes of reflection and refraction.
+ * Each invocation traces the rays through the centers of a grid of pixels of the view plane.
+ * @author Rivka Sheiner
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(TraceRayBenchmark.GRID_SIZE * TraceRayBenchmark.GRID_SIZE)
+public class TraceRayBenchmark {
+    /**
+     * The number of pixels in each axis of the grid
+     */
+    static final int GRID_SIZE = 64;
+
+    /**
+     * The name of the scene
+     */
+    @Param({BenchmarkScenes.TWO_SPHERES, BenchmarkScenes.TWO_SPHERES_ON_MIRRORS,
+            BenchmarkScenes.TRIANGLES_TRANSPARENT_SPHERE, BenchmarkScenes.MY_PICTURE})
+    public String scene;
+
+    /**
+     * The ray tracer of the scene
+     */
+    private RayTracerBasic rayTracer;
+    /**
+     * The rays through the pixels of the grid
+     */
+    private Ray[] rays;
+
+    /**
+     * Builds the scene and the rays
+     */
+    @Setup
+    public void setup() {
+        rayTracer = new RayTracerBasic(BenchmarkScenes.createScene(scene));
+        Camera camera = BenchmarkScenes.createCamera(scene);
+        rays = new Ray[GRID_SIZE * GRID_SIZE];
+        for (int i = 0; i < GRID_SIZE; i++)
+            for (int j = 0; j < GRID_SIZE; j++)
+                rays[i * GRID_SIZE + j] = camera.constructRay(GRID_SIZE, GRID_SIZE, j, i);
+    }
+
+    /**
+     * Traces each ray of the grid
+     * @param blackhole - consumes the colors
+     */
+    @Benchmark
+    public void traceRay(Blackhole blackhole) {
+        for (Ray ray : rays)
+            blackhole.consume(rayTracer.traceRay(ray));
+    }
+}
@@ -0,0 +1,115 @@
+package geometries;
+
+import geometries.Intersectable.Hit;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorTriangleKernels class represents the kernels which test one ray against several triangles
+ * in each instruction, by the JDK Vector API - 4 triangles with AVX2 and 8 triangles with AVX-512 (or wider SVE).
+ * The calculations are the same as in TriangleArrays.intersect, in the same order of operations,
+ * so the results are equal to the results of the scalar kernels.
+ * The class needs the module jdk.incubator.vector for compiling and running
+ * (javac/java --add-modules jdk.incubator.vector), and it is loaded by TriangleKernels only
+ * when the module is available.
+ * @author Rivka Sheiner
+ */
+final class VectorTriangleKernels extends TriangleKernels {
+    /**
+     * The widest vector of doubles of the processor, up to TriangleArrays.MAX_LANES lanes (512 bits) - the arrays
+     * of the triangles are padded only for that number of lanes, so wider vectors (like SVE of 1024 or 2048 bits)
+     * would read past the padding at the end of a leaf
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED.length() <= TriangleArrays.MAX_LANES
+            ? DoubleVector.SPECIES_PREFERRED : DoubleVector.SPECIES_512;
+    /**
+     * The smallest number which is not zero by primitives.Util.isZero and alignZero (2^-40)
+     */
+    private static final double ZERO = 0x1p-40;
+
+    @Override
+    int findClosest(TriangleArrays triangles, int start, int end, double ox, double oy, double oz,
+                    double dx, double dy, double dz, Hit hit) {
+        int closest = -1;
+        for (int i = start; i < end; i += SPECIES.length()) {
+            DoubleVector t = intersect(triangles, i, end, ox, oy, oz, dx, dy, dz, hit.t);
+            double min = t.reduceLanes(VectorOperators.MIN);
+            if (min < hit.t) {
+                // the first triangle with the minimal distance, as in the scalar kernels
+                closest = i + t.compare(VectorOperators.EQ, min).firstTrue();
+                hit.t = min;
+            }
+        }
+        return closest;
+    }
+
+    @Override
+    boolean findAny(TriangleArrays triangles, int start, int end, double ox, double oy, double oz,
+                    double dx, double dy, double dz, double maxDistance) {
+        for (int i = start; i < end; i += SPECIES.length())
+            if (intersect(triangles, i, end, ox, oy, oz, dx, dy, dz, maxDistance)
+                    .compare(VectorOperators.LT, maxDistance).anyTrue())
+                return true;
+        return false;
+    }
+
+    @Override
+    String getName() {
+        return "vector-" + SPECIES.length();
+    }
+
+    /**
+     * Function intersect calculates the intersections of a ray with one vector of triangles
+     * by the Möller–Trumbore algorithm
+     * @param triangles - the triangles
+     * @param i - the index of the first triangle of the vector
+     * @param end - the index after the last triangle of the range, the lanes after it are ignored
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param dx - x coordinate of the ray's direction
+     * @param dy - y coordinate of the ray's direction
+     * @param dz - z coordinate of the ray's direction
+     * @param maxDistance - the max distance between the intersection point to the ray's head
+     * @return DoubleVector - the distance of the intersection with each triangle, or positive
+     * infinity in the lanes of triangles without intersection before max distance
+     */
+    private static DoubleVector intersect(TriangleArrays triangles, int i, int end, double ox, double oy, double oz,
+                                          double dx, double dy, double dz, double maxDistance) {
+        // the arrays are padded by the widest vector, so the loads are always inside them
+        DoubleVector ax = DoubleVector.fromArray(SPECIES, triangles.e1x, i);
+        DoubleVector ay = DoubleVector.fromArray(SPECIES, triangles.e1y, i);
+        DoubleVector az = DoubleVector.fromArray(SPECIES, triangles.e1z, i);
+        DoubleVector bx = DoubleVector.fromArray(SPECIES, triangles.e2x, i);
+        DoubleVector by = DoubleVector.fromArray(SPECIES, triangles.e2y, i);
+        DoubleVector bz = DoubleVector.fromArray(SPECIES, triangles.e2z, i);
+
+        // p = d x e2
+        DoubleVector px = bz.mul(dy).sub(by.mul(dz));
+        DoubleVector py = bx.mul(dz).sub(bz.mul(dx));
+        DoubleVector pz = by.mul(dx).sub(bx.mul(dy));
+        DoubleVector det = ax.mul(px).add(ay.mul(py)).add(az.mul(pz));
+        VectorMask<Double> valid = SPECIES.indexInRange(i, end)
+                .and(det.abs().compare(VectorOperators.GE, ZERO)); // the ray is not parallel to the triangle
+        DoubleVector inv = DoubleVector.broadcast(SPECIES, 1).div(det);
+
+        DoubleVector sx = DoubleVector.broadcast(SPECIES, ox).sub(DoubleVector.fromArray(SPECIES, triangles.p0x, i));
+        DoubleVector sy = DoubleVector.broadcast(SPECIES, oy).sub(DoubleVector.fromArray(SPECIES, triangles.p0y, i));
+        DoubleVector sz = DoubleVector.broadcast(SPECIES, oz).sub(DoubleVector.fromArray(SPECIES, triangles.p0z, i));
+        DoubleVector u = sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(inv);
+        valid = valid.and(u.compare(VectorOperators.GE, 0)).and(u.compare(VectorOperators.LE, 1));
+
+        // q = s x e1
+        DoubleVector qx = sy.mul(az).sub(sz.mul(ay));
+        DoubleVector qy = sz.mul(ax).sub(sx.mul(az));
+        DoubleVector qz = sx.mul(ay).sub(sy.mul(ax));
+        DoubleVector v = qx.mul(dx).add(qy.mul(dy)).add(qz.mul(dz)).mul(inv);
+        valid = valid.and(v.compare(VectorOperators.GE, 0)).and(u.add(v).compare(VectorOperators.LE, 1));
+
+        DoubleVector t = bx.mul(qx).add(by.mul(qy)).add(bz.mul(qz)).mul(inv);
+        valid = valid.and(t.compare(VectorOperators.GE, ZERO)).and(t.compare(VectorOperators.LT, maxDistance));
+        return DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY).blend(t, valid);
+    }
+}
@@ -0,0 +1,208 @@
+package geometries;
+
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * BVH class represents a collection of geometric shapes which is organized in
+ * bounding volume hierarchy - a binary tree of axis aligned bounding boxes.
+ * The tree is built with the surface area heuristic (SAH), so a ray is tested only
+ * against the shapes whose boxes it passes through.
+ * Shapes without bounding box (like planes and tubes) are kept aside and tested
+ * against every ray.
+ * @author Rivka Sheiner
+ */
+public class BVH extends Geometries {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * Indicates whether the tree was built for the current shapes in the collection - the tree is not
+     * serialized (it is built again after deserialization), so the serialized form does not depend on rendering
+     */
+    private transient volatile boolean isBuilt = false;
+    /**
+     * The tree of the boxes of the bounded shapes
+     */
+    private transient BVHTree tree;
+    /**
+     * The bounded shapes ordered by the leaves of the tree
+     */
+    private transient Intersectable[] bounded;
+    /**
+     * The shapes without bounding box
+     */
+    private transient List<Intersectable> unbounded;
+
+    /**
+     * BVH default constructor
+     */
+    public BVH() {
+        super();
+    }
+
+    /**
+     * BVH parameters constructor
+     * @param geometries the geometric shapes
+     */
+    public BVH(Intersectable... geometries) {
+        super(geometries);
+    }
+
+    @Override
+    public void add(Intersectable... geometries) {
+        super.add(geometries);
+        isBuilt = false;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        return findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * This method is used for finding the intersections points of ray with the shapes
+     * whose boxes are passed by the ray
+     * @param ray- the ray imposed on the geometric shape
+     * @param maxDistance - the max distance between the intersection point to the ray's head
+     * @return List of GeoPoint
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        buildIfNeeded();
+        List<GeoPoint> allPoints = new LinkedList<>();
+
+        double ox = ray.getP0().getXyz().getD1();
+        double oy = ray.getP0().getXyz().getD2();
+        double oz = ray.getP0().getXyz().getD3();
+        double ix = 1 / ray.getDir().getXyz().getD1();
+        double iy = 1 / ray.getDir().getXyz().getD2();
+        double iz = 1 / ray.getDir().getXyz().getD3();
+
+        tree.forEach(ox, oy, oz, ix, iy, iz, maxDistance, i -> {
+            addIntersections(bounded[i], ray, maxDistance, allPoints);
+            return false;
+        });
+
+        for (Intersectable geo : unbounded)
+            addIntersections(geo, ray, maxDistance, allPoints);
+
+        return allPoints.isEmpty() ? null : allPoints;
+    }
+
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        buildIfNeeded();
+        boolean isFound = false;
+
+        // the unbounded shapes are tested first, so their intersections can shorten the traversal
+        for (Intersectable geo : unbounded)
+            if (geo.findClosestIntersection(ray, hit))
+                isFound = true;
+
+        double ox = ray.getP0().getXyz().getD1();
+        double oy = ray.getP0().getXyz().getD2();
+        double oz = ray.getP0().getXyz().getD3();
+        double ix = 1 / ray.getDir().getXyz().getD1();
+        double iy = 1 / ray.getDir().getXyz().getD2();
+        double iz = 1 / ray.getDir().getXyz().getD3();
+
+        return tree.findClosest(ox, oy, oz, ix, iy, iz, hit, i -> bounded[i].findClosestIntersection(ray, hit))
+                || isFound;
+    }
+
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket packet, long mask) {
+        buildIfNeeded();
+        for (Intersectable geo : unbounded)
+            geo.findClosestIntersectionsHelper(packet, mask);
+
+        tree.findClosest(packet, mask, (start, end, leafMask) -> {
+            for (int i = start; i < end; i++)
+                bounded[i].findClosestIntersectionsHelper(packet, leafMask);
+        });
+    }
+
+    @Override
+    protected boolean findOcclusionHelper(Ray ray, Transparency transparency) {
+        buildIfNeeded();
+        for (Intersectable geo : unbounded)
+            if (geo.findOcclusion(ray, transparency))
+                return true;
+
+        double ox = ray.getP0().getXyz().getD1();
+        double oy = ray.getP0().getXyz().getD2();
+        double oz = ray.getP0().getXyz().getD3();
+        double ix = 1 / ray.getDir().getXyz().getD1();
+        double iy = 1 / ray.getDir().getXyz().getD2();
+        double iz = 1 / ray.getDir().getXyz().getD3();
+
+        // any blocker ends the search, so the order of the children does not matter
+        return tree.forEach(ox, oy, oz, ix, iy, iz, transparency.maxDistance,
+                i -> bounded[i].findOcclusion(ray, transparency));
+    }
+
+    /**
+     * Function addIntersections is help function which adds the intersections of the ray
+     * with one shape, which are not far from the ray's head more than max distance
+     * @param geo - the shape
+     * @param ray - the ray
+     * @param maxDistance - the max distance between the intersection point to the ray's head
+     * @param allPoints - the list to which the intersections are added
+     */
+    private void addIntersections(Intersectable geo, Ray ray, double maxDistance, List<GeoPoint> allPoints) {
+        List<GeoPoint> points = geo.findGeoIntersections(ray, maxDistance);
+        if (points != null)
+            allPoints.addAll(points);
+    }
+
+    //------------------------------------------ building -----------------------------------------------------
+
+    /**
+     * Function buildIfNeeded builds the tree if the shapes in the collection were changed
+     * since the last building. It is thread safe, so the tree is built once even when
+     * the first rays are traced from several threads.
+     */
+    private void buildIfNeeded() {
+        if (isBuilt)
+            return;
+        synchronized (this) {
+            if (!isBuilt) {
+                build();
+                isBuilt = true;
+            }
+        }
+    }
+
+    /**
+     * Function build builds the tree from the current shapes in the collection
+     */
+    private void build() {
+        List<Intersectable> boundedList = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        unbounded = new ArrayList<>();
+        for (Intersectable geo : geometries) {
+            BoundingBox box = geo.getBoundingBox();
+            if (box == null)
+                unbounded.add(geo);
+            else {
+                boundedList.add(geo);
+                boxes.add(box);
+            }
+        }
+
+        int n = boundedList.size();
+        double[] box = new double[n * 6];
+        for (int i = 0; i < n; i++)
+            boxes.get(i).writeTo(box, i);
+
+        tree = new BVHTree(box, n);
+        bounded = new Intersectable[n];
+        for (int i = 0; i < n; i++)
+            bounded[i] = boundedList.get(tree.order[i]);
+    }
+}
@@ -0,0 +1,556 @@
+package geometries;
+
+import java.util.Arrays;
+import java.io.Serializable;
+
+/**
+ * BVHTree class represents a bounding volume hierarchy over primitives which are given
+ * by their boxes - a binary tree of axis aligned boxes which is kept in flat arrays.
+ * The tree is built with the surface area heuristic (SAH) over bins of the centers of the boxes.
+ * It is used both for trees of shapes (BVH) and for trees of triangles of a mesh (Mesh),
+ * so it knows only the indices of the primitives, and the tests of the primitives
+ * themselves are given to the traversal functions.
+ * @author Rivka Sheiner
+ */
+final class BVHTree implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The number of bins used for evaluating the split candidates of each node
+     */
+    private static final int NUM_BINS = 16;
+    /**
+     * Nodes with this number of primitives or less are always leaves
+     */
+    private static final int MIN_LEAF_SIZE = 2;
+    /**
+     * Nodes with more primitives than this number are always split
+     */
+    private static final int MAX_LEAF_SIZE = 8;
+    /**
+     * The estimated cost of testing a ray against a bounding box of a node
+     */
+    private static final double TRAVERSAL_COST = 1.0;
+    /**
+     * The estimated cost of testing a ray against a primitive
+     */
+    private static final double INTERSECTION_COST = 4.0;
+
+    /**
+     * The boxes of the nodes - 6 values for each node (min x,y,z and max x,y,z)
+     */
+    double[] nodeBounds;
+    /**
+     * For a leaf - the position of its first primitive in the order array,
+     * for an inner node - the index of its left child (the right child follows it)
+     */
+    int[] nodeStart;
+    /**
+     * The number of primitives in each leaf, 0 for an inner node
+     */
+    int[] nodeCount;
+    /**
+     * The number of nodes in the tree
+     */
+    int numNodes;
+    /**
+     * The depth of the tree
+     */
+    int depth;
+    /**
+     * The indices of the primitives ordered by the leaves of the tree,
+     * so the primitives of each leaf are consecutive, null for a tree which was read prebuilt
+     * (whose primitives are already ordered by its leaves)
+     */
+    final int[] order;
+
+    /**
+     * PrimitiveTest interface represents a test of a ray against one primitive of the tree
+     */
+    @FunctionalInterface
+    interface PrimitiveTest {
+        /**
+         * The method tests the ray against one primitive
+         * @param position - the position of the primitive in the order of the leaves
+         * @return true if the test found what it searches for
+         */
+        boolean test(int position);
+    }
+
+    /**
+     * LeafTest interface represents a test of a ray against the primitives of one leaf of the tree
+     */
+    @FunctionalInterface
+    interface LeafTest {
+        /**
+         * The method tests the ray against the primitives of one leaf
+         * @param start - the position of the first primitive of the leaf in the order of the leaves
+         * @param end - the position after the last primitive of the leaf
+         * @return true if the test found what it searches for
+         */
+        boolean test(int start, int end);
+    }
+
+    /**
+     * BVHTree constructor - builds the tree over the given primitives
+     * @param box - the boxes of the primitives, 6 values for each primitive (min x,y,z and max x,y,z)
+     * @param n - the number of primitives
+     */
+    BVHTree(double[] box, int n) {
+        // a tree has at most 2n-1 nodes, but leaves usually hold several primitives,
+        // so the arrays start smaller and grow when needed
+        int capacity = Math.max(1, n);
+        nodeBounds = new double[capacity * 6];
+        nodeStart = new int[capacity];
+        nodeCount = new int[capacity];
+        order = new int[n];
+        if (n == 0)
+            return;
+
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+
+        numNodes = 1;
+        buildNode(0, 0, n, 1, order, box);
+
+        // the unused nodes are released
+        if (numNodes < nodeStart.length) {
+            nodeBounds = Arrays.copyOf(nodeBounds, numNodes * 6);
+            nodeStart = Arrays.copyOf(nodeStart, numNodes);
+            nodeCount = Arrays.copyOf(nodeCount, numNodes);
+        }
+    }
+
+    /**
+     * BVHTree constructor of a prebuilt tree, whose primitives are already ordered by its leaves
+     * @param nodeBounds - the boxes of the nodes - 6 values for each node
+     * @param nodeStart - the first primitive of each leaf, or the left child of each inner node
+     * @param nodeCount - the number of primitives in each leaf, 0 for an inner node
+     * @param depth - the depth of the tree
+     */
+    BVHTree(double[] nodeBounds, int[] nodeStart, int[] nodeCount, int depth) {
+        this.nodeBounds = nodeBounds;
+        this.nodeStart = nodeStart;
+        this.nodeCount = nodeCount;
+        this.numNodes = nodeStart.length;
+        this.depth = depth;
+        this.order = null;
+    }
+
+    /**
+     * Function forEach tests the ray against all the primitives whose boxes are
+     * passed by the ray, without any order
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param ix - inverse of x coordinate of the ray's direction
+     * @param iy - inverse of y coordinate of the ray's direction
+     * @param iz - inverse of z coordinate of the ray's direction
+     * @param maxDistance - the max distance from the ray's head
+     * @param test - the test of one primitive, the traversal stops when it returns true
+     * @return true if one of the tests returned true
+     */
+    boolean forEach(double ox, double oy, double oz, double ix, double iy, double iz,
+                    double maxDistance, PrimitiveTest test) {
+        return forEachLeaf(ox, oy, oz, ix, iy, iz, maxDistance, (start, end) -> {
+            for (int i = start; i < end; i++)
+                if (test.test(i))
+                    return true;
+            return false;
+        });
+    }
+
+    /**
+     * Function forEachLeaf tests the ray against all the leaves whose boxes are
+     * passed by the ray, without any order
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param ix - inverse of x coordinate of the ray's direction
+     * @param iy - inverse of y coordinate of the ray's direction
+     * @param iz - inverse of z coordinate of the ray's direction
+     * @param maxDistance - the max distance from the ray's head
+     * @param test - the test of one leaf, the traversal stops when it returns true
+     * @return true if one of the tests returned true
+     */
+    boolean forEachLeaf(double ox, double oy, double oz, double ix, double iy, double iz,
+                        double maxDistance, LeafTest test) {
+        if (numNodes == 0)
+            return false;
+
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!BoundingBox.intersects(nodeBounds, node, ox, oy, oz, ix, iy, iz, maxDistance))
+                continue;
+
+            if (nodeCount[node] > 0) { // leaf
+                if (test.test(nodeStart[node], nodeStart[node] + nodeCount[node]))
+                    return true;
+            } else {
+                stack[top++] = nodeStart[node] + 1;
+                stack[top++] = nodeStart[node];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Function findClosest searches the closest intersection of the ray with the primitives.
+     * The nearer child of each node is visited first, and nodes which are further than the
+     * closest intersection which was found so far are skipped.
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param ix - inverse of x coordinate of the ray's direction
+     * @param iy - inverse of y coordinate of the ray's direction
+     * @param iz - inverse of z coordinate of the ray's direction
+     * @param hit - the closest intersection which was found so far, updated by the test
+     * @param test - the test of one primitive, returns true if it updated the hit record
+     * @return true if a closer intersection was found
+     */
+    boolean findClosest(double ox, double oy, double oz, double ix, double iy, double iz,
+                        Intersectable.Hit hit, PrimitiveTest test) {
+        return findClosestLeaf(ox, oy, oz, ix, iy, iz, hit, (start, end) -> {
+            boolean isFound = false;
+            for (int i = start; i < end; i++)
+                if (test.test(i))
+                    isFound = true;
+            return isFound;
+        });
+    }
+
+    /**
+     * Function findClosestLeaf searches the closest intersection of the ray with the primitives,
+     * leaf after leaf. The nearer child of each node is visited first, and nodes which are further
+     * than the closest intersection which was found so far are skipped.
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param ix - inverse of x coordinate of the ray's direction
+     * @param iy - inverse of y coordinate of the ray's direction
+     * @param iz - inverse of z coordinate of the ray's direction
+     * @param hit - the closest intersection which was found so far, updated by the test
+     * @param test - the test of the primitives of one leaf, returns true if it updated the hit record
+     * @return true if a closer intersection was found
+     */
+    boolean findClosestLeaf(double ox, double oy, double oz, double ix, double iy, double iz,
+                            Intersectable.Hit hit, LeafTest test) {
+        if (numNodes == 0)
+            return false;
+
+        boolean isFound = false;
+        int[] stack = new int[depth + 1];
+        double[] stackDistance = new double[depth + 1];
+        int top = 0;
+        double rootDistance = BoundingBox.distance(nodeBounds, 0, ox, oy, oz, ix, iy, iz, hit.t);
+        if (rootDistance < 0)
+            return false;
+        stack[top] = 0;
+        stackDistance[top++] = rootDistance;
+
+        while (top > 0) {
+            int node = stack[--top];
+            // the node may be further than an intersection that was found after it was pushed
+            if (stackDistance[top] > hit.t)
+                continue;
+
+            if (nodeCount[node] > 0) { // leaf
+                if (test.test(nodeStart[node], nodeStart[node] + nodeCount[node]))
+                    isFound = true;
+                continue;
+            }
+
+            // the closer child is pushed last, so it is visited first
+            int left = nodeStart[node], right = left + 1;
+            double leftDistance = BoundingBox.distance(nodeBounds, left, ox, oy, oz, ix, iy, iz, hit.t);
+            double rightDistance = BoundingBox.distance(nodeBounds, right, ox, oy, oz, ix, iy, iz, hit.t);
+            if (leftDistance >= 0 && rightDistance >= 0) {
+                boolean isLeftCloser = leftDistance <= rightDistance;
+                stack[top] = isLeftCloser ? right : left;
+                stackDistance[top++] = isLeftCloser ? rightDistance : leftDistance;
+                stack[top] = isLeftCloser ? left : right;
+                stackDistance[top++] = isLeftCloser ? leftDistance : rightDistance;
+            } else if (leftDistance >= 0) {
+                stack[top] = left;
+                stackDistance[top++] = leftDistance;
+            } else if (rightDistance >= 0) {
+                stack[top] = right;
+                stackDistance[top++] = rightDistance;
+            }
+        }
+        return isFound;
+    }
+
+    /**
+     * PacketTest interface represents a test of rays of a packet against the primitives of one leaf
+     */
+    @FunctionalInterface
+    interface PacketTest {
+        /**
+         * The method tests the active rays of the packet against the primitives of one leaf
+         * @param start - the position of the first primitive of the leaf in the order of the leaves
+         * @param end - the position after the last primitive of the leaf
+         * @param mask - the rays which pass through the box of the leaf
+         */
+        void test(int start, int end, long mask);
+    }
+
+    /**
+     * Function findClosest searches the closest intersections of the rays of a packet with the
+     * primitives. Each node is tested once with all the active rays, and it is skipped when none
+     * of them passes through its box before its closest intersection. The children are visited
+     * in the order of the direction of the first active ray.
+     * @param packet - the rays, their hit records are updated by the test
+     * @param mask - the active rays of the packet
+     * @param test - the test of the rays against the primitives of one leaf
+     */
+    void findClosest(RayPacket packet, long mask, PacketTest test) {
+        if (numNodes == 0)
+            return;
+
+        int[] stack = new int[depth + 1];
+        long[] stackMask = new long[depth + 1];
+        int top = 0;
+        stack[top] = 0;
+        stackMask[top++] = mask;
+
+        while (top > 0) {
+            int node = stack[--top];
+            // the rays are tested when the node is visited, since their hits may be closer than when it was pushed
+            long nodeMask = packet.boxMask(nodeBounds, node, stackMask[top]);
+            if (nodeMask == 0)
+                continue;
+
+            if (nodeCount[node] > 0) { // leaf
+                test.test(nodeStart[node], nodeStart[node] + nodeCount[node], nodeMask);
+                continue;
+            }
+
+            // the children are ordered along the axis where their centers are apart the most,
+            // the closer child by the direction of the first ray is pushed last, so it is visited first
+            int left = nodeStart[node], right = left + 1;
+            int axis = 0;
+            double axisDistance = 0;
+            for (int k = 0; k < 3; k++) {
+                double distance = nodeBounds[right * 6 + k] + nodeBounds[right * 6 + k + 3]
+                        - nodeBounds[left * 6 + k] - nodeBounds[left * 6 + k + 3];
+                if (Math.abs(distance) > Math.abs(axisDistance)) {
+                    axis = k;
+                    axisDistance = distance;
+                }
+            }
+            int r = Long.numberOfTrailingZeros(nodeMask);
+            double direction = axis == 0 ? packet.dx[r] : axis == 1 ? packet.dy[r] : packet.dz[r];
+            boolean isLeftCloser = direction * axisDistance >= 0;
+            stack[top] = isLeftCloser ? right : left;
+            stackMask[top++] = nodeMask;
+            stack[top] = isLeftCloser ? left : right;
+            stackMask[top++] = nodeMask;
+        }
+    }
+
+    //------------------------------------------ building -----------------------------------------------------
+
+    /**
+     * Function buildNode builds recursively one node of the tree and its sub tree
+     * @param node - the index of the node
+     * @param start - the index of the first primitive of the node in the order array
+     * @param end - the index after the last primitive of the node in the order array
+     * @param level - the level of the node in the tree
+     * @param order - the indices of the primitives, it is reordered by the leaves of the tree
+     * @param box - the boxes of the primitives
+     */
+    private void buildNode(int node, int start, int end, int level, int[] order, double[] box) {
+        depth = Math.max(depth, level);
+        int b = node * 6;
+        // box of the node and box of the centers of its primitives
+        double[] centerBounds = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int k = 0; k < 3; k++) {
+            nodeBounds[b + k] = Double.POSITIVE_INFINITY;
+            nodeBounds[b + k + 3] = Double.NEGATIVE_INFINITY;
+        }
+        for (int i = start; i < end; i++) {
+            int s = order[i];
+            for (int k = 0; k < 3; k++) {
+                nodeBounds[b + k] = Math.min(nodeBounds[b + k], box[s * 6 + k]);
+                nodeBounds[b + k + 3] = Math.max(nodeBounds[b + k + 3], box[s * 6 + k + 3]);
+                centerBounds[k] = Math.min(centerBounds[k], center(box, s, k));
+                centerBounds[k + 3] = Math.max(centerBounds[k + 3], center(box, s, k));
+            }
+        }
+
+        int count = end - start;
+        // the split is done along the axis where the centers are spread the most
+        int axis = 0;
+        for (int k = 1; k < 3; k++)
+            if (centerBounds[k + 3] - centerBounds[k] > centerBounds[axis + 3] - centerBounds[axis])
+                axis = k;
+        double axisMin = centerBounds[axis], axisExtent = centerBounds[axis + 3] - axisMin;
+
+        if (count <= MIN_LEAF_SIZE || axisExtent <= 0) {
+            makeLeaf(node, start, count);
+            return;
+        }
+
+        // dividing the primitives into bins along the axis and evaluating the SAH cost
+        // of splitting between each two neighbouring bins
+        int[] binCount = new int[NUM_BINS];
+        double[] binBounds = new double[NUM_BINS * 6];
+        for (int i = 0; i < NUM_BINS; i++)
+            resetBounds(binBounds, i);
+        for (int i = start; i < end; i++) {
+            int s = order[i];
+            int bin = binOf(center(box, s, axis), axisMin, axisExtent);
+            binCount[bin]++;
+            growBounds(binBounds, bin, box, s);
+        }
+
+        double[] leftArea = new double[NUM_BINS - 1];
+        int[] leftCount = new int[NUM_BINS - 1];
+        double[] acc = new double[6];
+        resetBounds(acc, 0);
+        int accCount = 0;
+        for (int i = 0; i < NUM_BINS - 1; i++) {
+            accCount += binCount[i];
+            growBounds(acc, 0, binBounds, i);
+            leftCount[i] = accCount;
+            leftArea[i] = accCount == 0 ? 0 : area(acc);
+        }
+
+        double nodeArea = area(nodeBounds, node);
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestSplit = -1;
+        resetBounds(acc, 0);
+        accCount = 0;
+        for (int i = NUM_BINS - 1; i > 0; i--) {
+            accCount += binCount[i];
+            growBounds(acc, 0, binBounds, i);
+            int rightCount = accCount, lCount = leftCount[i - 1];
+            if (rightCount == 0 || lCount == 0)
+                continue;
+            double cost = TRAVERSAL_COST
+                    + INTERSECTION_COST * (lCount * leftArea[i - 1] + rightCount * area(acc)) / nodeArea;
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestSplit = i;
+            }
+        }
+
+        if (bestSplit < 0 || (bestCost >= INTERSECTION_COST * count && count <= MAX_LEAF_SIZE)) {
+            makeLeaf(node, start, count);
+            return;
+        }
+
+        // partitioning the primitives - the bins before the split go to the left child
+        int mid = start;
+        for (int i = start; i < end; i++) {
+            if (binOf(center(box, order[i], axis), axisMin, axisExtent) < bestSplit) {
+                int tmp = order[i];
+                order[i] = order[mid];
+                order[mid++] = tmp;
+            }
+        }
+
+        int left = numNodes;
+        numNodes += 2;
+        if (numNodes > nodeStart.length) {
+            int capacity = Math.max(numNodes, nodeStart.length + nodeStart.length / 2);
+            nodeBounds = Arrays.copyOf(nodeBounds, capacity * 6);
+            nodeStart = Arrays.copyOf(nodeStart, capacity);
+            nodeCount = Arrays.copyOf(nodeCount, capacity);
+        }
+        nodeStart[node] = left;
+        nodeCount[node] = 0;
+        buildNode(left, start, mid, level + 1, order, box);
+        buildNode(left + 1, mid, end, level + 1, order, box);
+    }
+
+    /**
+     * Function makeLeaf turns the node into a leaf with the given primitives
+     * @param node - the index of the node
+     * @param start - the index of the first primitive of the leaf
+     * @param count - the number of primitives in the leaf
+     */
+    private void makeLeaf(int node, int start, int count) {
+        nodeStart[node] = start;
+        nodeCount[node] = count;
+    }
+
+    /**
+     * Function center calculates the center of a box of primitive in one axis. The centers are not
+     * kept in array, since the box is read anyway and an array would add 3 values for each primitive.
+     * @param box - the boxes of the primitives
+     * @param s - the index of the primitive
+     * @param axis - 0 for x, 1 for y, 2 for z
+     * @return double - the center coordinate
+     */
+    private static double center(double[] box, int s, int axis) {
+        return (box[s * 6 + axis] + box[s * 6 + axis + 3]) / 2;
+    }
+
+    /**
+     * Function binOf calculates the bin of a center coordinate
+     * @param c - the center coordinate
+     * @param axisMin - the minimal center coordinate in the node
+     * @param axisExtent - the extent of the centers in the node
+     * @return int - the index of the bin
+     */
+    private static int binOf(double c, double axisMin, double axisExtent) {
+        int bin = (int) (NUM_BINS * (c - axisMin) / axisExtent);
+        return bin >= NUM_BINS ? NUM_BINS - 1 : bin;
+    }
+
+    /**
+     * Function resetBounds sets an empty box in array of boxes
+     * @param bounds - the array of boxes
+     * @param i - the index of the box
+     */
+    private static void resetBounds(double[] bounds, int i) {
+        for (int k = 0; k < 3; k++) {
+            bounds[i * 6 + k] = Double.POSITIVE_INFINITY;
+            bounds[i * 6 + k + 3] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Function growBounds grows a box in array of boxes, so it will contain another box
+     * @param bounds - the array of the growing box
+     * @param i - the index of the growing box
+     * @param other - the array of the other box
+     * @param j - the index of the other box
+     */
+    private static void growBounds(double[] bounds, int i, double[] other, int j) {
+        for (int k = 0; k < 3; k++) {
+            bounds[i * 6 + k] = Math.min(bounds[i * 6 + k], other[j * 6 + k]);
+            bounds[i * 6 + k + 3] = Math.max(bounds[i * 6 + k + 3], other[j * 6 + k + 3]);
+        }
+    }
+
+    /**
+     * Function area calculates the surface area of the first box in array of boxes
+     * @param bounds - the array of boxes
+     * @return double - the surface area
+     */
+    private static double area(double[] bounds) {
+        return area(bounds, 0);
+    }
+
+    /**
+     * Function area calculates the surface area of a box in array of boxes
+     * @param bounds - the array of boxes
+     * @param i - the index of the box
+     * @return double - the surface area
+     */
+    private static double area(double[] bounds, int i) {
+        double dx = bounds[i * 6 + 3] - bounds[i * 6];
+        double dy = bounds[i * 6 + 4] - bounds[i * 6 + 1];
+        double dz = bounds[i * 6 + 5] - bounds[i * 6 + 2];
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+}
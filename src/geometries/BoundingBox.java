@@ -0,0 +1,221 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import java.io.Serializable;
+
+/**
+ * BoundingBox class represents an axis aligned box which bounds a geometric shape
+ * in 3D Cartesian coordinate system
+ * @author Rivka Sheiner
+ */
+public class BoundingBox implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * Small padding which is added to each side of the box, so that flat shapes
+     * (for example polygons which lay in axis aligned plane) get a box with volume
+     */
+    static final double PADDING = 1e-6;
+
+    /**
+     * The minimal coordinates of the box
+     */
+    final double minX, minY, minZ;
+    /**
+     * The maximal coordinates of the box
+     */
+    final double maxX, maxY, maxZ;
+
+    /**
+     * BoundingBox parameters constructor based on the minimal and maximal coordinates
+     * @param minX - the minimal x coordinate
+     * @param minY - the minimal y coordinate
+     * @param minZ - the minimal z coordinate
+     * @param maxX - the maximal x coordinate
+     * @param maxY - the maximal y coordinate
+     * @param maxZ - the maximal z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX - PADDING;
+        this.minY = minY - PADDING;
+        this.minZ = minZ - PADDING;
+        this.maxX = maxX + PADDING;
+        this.maxY = maxY + PADDING;
+        this.maxZ = maxZ + PADDING;
+    }
+
+    /**
+     * BoundingBox constructor based on points which have to be inside the box
+     * @param points - the points which the box bounds
+     */
+    public BoundingBox(Point... points) {
+        double x1 = Double.POSITIVE_INFINITY, y1 = Double.POSITIVE_INFINITY, z1 = Double.POSITIVE_INFINITY;
+        double x2 = Double.NEGATIVE_INFINITY, y2 = Double.NEGATIVE_INFINITY, z2 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            double x = p.getXyz().getD1(), y = p.getXyz().getD2(), z = p.getXyz().getD3();
+            if (x < x1) x1 = x;
+            if (y < y1) y1 = y;
+            if (z < z1) z1 = z;
+            if (x > x2) x2 = x;
+            if (y > y2) y2 = y;
+            if (z > z2) z2 = z;
+        }
+        this.minX = x1 - PADDING;
+        this.minY = y1 - PADDING;
+        this.minZ = z1 - PADDING;
+        this.maxX = x2 + PADDING;
+        this.maxY = y2 + PADDING;
+        this.maxZ = z2 + PADDING;
+    }
+
+    /**
+     * This method returns the minimal corner of the box
+     * @return Point - the minimal corner
+     */
+    public Point getMin() {
+        return new Point(minX, minY, minZ);
+    }
+
+    /**
+     * This method returns the maximal corner of the box
+     * @return Point - the maximal corner
+     */
+    public Point getMax() {
+        return new Point(maxX, maxY, maxZ);
+    }
+
+    /**
+     * This method returns the surface area of the box, it is used for
+     * the surface area heuristic
+     * @return double - the surface area
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * This method is used for uniting this box with another box
+     * @param other - the other box
+     * @return BoundingBox - the smallest box which contains both of the boxes
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX) + PADDING, Math.min(minY, other.minY) + PADDING,
+                Math.min(minZ, other.minZ) + PADDING, Math.max(maxX, other.maxX) - PADDING,
+                Math.max(maxY, other.maxY) - PADDING, Math.max(maxZ, other.maxZ) - PADDING);
+    }
+
+    /**
+     * This method checks whether the ray passes through the box (slab test).
+     * The test does not allocate any objects.
+     * @param ray - the ray
+     * @param maxDistance - the max distance from the ray's head
+     * @return true if the ray passes through the box between its head and the max distance
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        return distance(minX, minY, minZ, maxX, maxY, maxZ, o.getD1(), o.getD2(), o.getD3(),
+                1 / d.getD1(), 1 / d.getD2(), 1 / d.getD3(), maxDistance) >= 0;
+    }
+
+    /**
+     * This method checks whether the ray passes through a box which is kept in array of boxes,
+     * 6 values for each box (min x,y,z and max x,y,z)
+     * @param bounds - the array of boxes
+     * @param i - the index of the box
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param ix - inverse of x coordinate of the ray's direction
+     * @param iy - inverse of y coordinate of the ray's direction
+     * @param iz - inverse of z coordinate of the ray's direction
+     * @param maxDistance - the max distance from the ray's head
+     * @return true if the ray passes through the box between its head and the max distance
+     */
+    static boolean intersects(double[] bounds, int i, double ox, double oy, double oz,
+                              double ix, double iy, double iz, double maxDistance) {
+        return distance(bounds, i, ox, oy, oz, ix, iy, iz, maxDistance) >= 0;
+    }
+
+    /**
+     * This method calculates the distance between the ray's head to the point where the ray
+     * enters a box which is kept in array of boxes, 6 values for each box (min x,y,z and max x,y,z)
+     * @param bounds - the array of boxes
+     * @param i - the index of the box
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param ix - inverse of x coordinate of the ray's direction
+     * @param iy - inverse of y coordinate of the ray's direction
+     * @param iz - inverse of z coordinate of the ray's direction
+     * @param maxDistance - the max distance from the ray's head
+     * @return double - the distance (0 if the ray's head is inside the box),
+     * or -1 if the ray does not pass through the box between its head and the max distance
+     */
+    static double distance(double[] bounds, int i, double ox, double oy, double oz,
+                           double ix, double iy, double iz, double maxDistance) {
+        int b = i * 6;
+        return distance(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5],
+                ox, oy, oz, ix, iy, iz, maxDistance);
+    }
+
+    /**
+     * This method calculates the distance between the ray's head to the point where the ray
+     * enters a box (slab test)
+     * @return double - the distance, or -1 if the ray does not pass through the box
+     */
+    private static double distance(double minX, double minY, double minZ,
+                                      double maxX, double maxY, double maxZ,
+                                      double ox, double oy, double oz,
+                                      double ix, double iy, double iz, double maxDistance) {
+        double tNear = 0, tFar = maxDistance;
+
+        double t1 = (minX - ox) * ix, t2 = (maxX - ox) * ix;
+        // comparisons are written so that NaN (0 * infinity) does not change the range
+        if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return -1;
+
+        t1 = (minY - oy) * iy;
+        t2 = (maxY - oy) * iy;
+        if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        if (tNear > tFar) return -1;
+
+        t1 = (minZ - oz) * iz;
+        t2 = (maxZ - oz) * iz;
+        if (t1 > t2) { double t = t1; t1 = t2; t2 = t; }
+        if (t1 > tNear) tNear = t1;
+        if (t2 < tFar) tFar = t2;
+        return tNear <= tFar ? tNear : -1;
+    }
+
+    /**
+     * This method writes the box into array of boxes, 6 values for each box
+     * @param bounds - the array of boxes
+     * @param i - the index of the box
+     */
+    void writeTo(double[] bounds, int i) {
+        bounds[i * 6] = minX;
+        bounds[i * 6 + 1] = minY;
+        bounds[i * 6 + 2] = minZ;
+        bounds[i * 6 + 3] = maxX;
+        bounds[i * 6 + 4] = maxY;
+        bounds[i * 6 + 5] = maxZ;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox{" +
+                "min=" + getMin() +
+                ", max=" + getMax() +
+                '}';
+    }
+}
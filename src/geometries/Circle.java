@@ -9,6 +9,10 @@ import java.util.List;
  * @author Rivka Sheiner
  */
 public class Circle extends Plane{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      *the maximal distance between the center and the points in the circle
@@ -55,6 +59,34 @@ public class Circle extends Plane{
         this.range = range;
     }
 
+    /**
+     * This method returns the radius of the circle
+     * @return double
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * This method returns the range of the circle (the minimal distance between the center and its points)
+     * @return double
+     */
+    public double getRange() {
+        return range;
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        // the extent of a disk in each axis is radius * sin of the angle between the axis and the normal
+        Double3 n = this.normal.getXyz();
+        Double3 c = this.q0.getXyz();
+        double ex = radius * Math.sqrt(Math.max(0, 1 - n.getD1() * n.getD1()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - n.getD2() * n.getD2()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - n.getD3() * n.getD3()));
+        return new BoundingBox(c.getD1() - ex, c.getD2() - ey, c.getD3() - ez,
+                c.getD1() + ex, c.getD2() + ey, c.getD3() + ez);
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
 
@@ -69,11 +101,32 @@ public class Circle extends Plane{
         + Math.pow(p.getD3()-this.q0.getXyz().getD3(),2);
 
         if(range * range <= distance && distance <= radius * radius)
-            return List.of(new GeoPoint(this, intersections.get(0).point));
+            return List.of(new GeoPoint(this, intersections.get(0).point, intersections.get(0).t));
 
         return null;
     }
 
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        double t = findIntersectionDistance(ray);
+        if (!(t < hit.t))
+            return false;
+
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        Double3 c = this.q0.getXyz();
+        double dx = o.getD1() + d.getD1() * t - c.getD1();
+        double dy = o.getD2() + d.getD2() * t - c.getD2();
+        double dz = o.getD3() + d.getD3() * t - c.getD3();
+        double distance = dx * dx + dy * dy + dz * dz;
+
+        if (range * range <= distance && distance <= radius * radius) {
+            hit.set(this, t);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * This method is used for finding the intersections points of ray with circle
      * @param ray- the ray imposed on the geometric shape
@@ -94,7 +147,7 @@ public class Circle extends Plane{
         + Math.pow(p.getD3()-this.q0.getXyz().getD3(),2);
 
         if(range * range <= distance && distance <= radius * radius)
-            return List.of(new GeoPoint(this, intersections.get(0).point));
+            return List.of(new GeoPoint(this, intersections.get(0).point, intersections.get(0).t));
 
         return null;
     }
@@ -12,6 +12,10 @@ import java.util.List;
  * @author Rivka Sheiner
  */
 public class Cone extends Geometry{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * the height of the cone (the distance between the top of the cone to the base of the cone)
@@ -39,6 +43,30 @@ public class Cone extends Geometry{
         this.center = center;
     }
 
+    /**
+     * This method returns the height of the cone
+     * @return double
+     */
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * This method returns the radius of the base of the cone
+     * @return double
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * This method returns the position of the top of the cone
+     * @return Point
+     */
+    public Point getCenter() {
+        return center;
+    }
+
     @Override
     public Vector getNormal(Point p) {
         double r = Math.sqrt((p.getXyz().getD1()-center.getXyz().getD1())*(p.getXyz().getD1()-center.getXyz().getD1()) + (p.getXyz().getD3()-center.getXyz().getD3())*(p.getXyz().getD3()-center.getXyz().getD3()));
@@ -47,6 +75,13 @@ public class Cone extends Geometry{
         return n;
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        Double3 c = center.getXyz();
+        return new BoundingBox(c.getD1() - radius, c.getD2(), c.getD3() - radius,
+                c.getD1() + radius, c.getD2() + height, c.getD3() + radius);
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
 
@@ -77,11 +112,45 @@ public class Cone extends Geometry{
         double r = pos.getD2() + t*dir.getXyz().getD2();
 
         if ((r > center.getXyz().getD2()) && (r < center.getXyz().getD2() + height))
-            return List.of(new GeoPoint(this, ray.getPoint(t)));
+            return List.of(new GeoPoint(this, ray.getPoint(t), t));
         else
             return null;
     }
 
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+
+        Double3 pos = ray.getP0().getXyz();
+        Double3 dir = ray.getDir().getXyz();
+        Double3 c0 = center.getXyz();
+
+        double A = pos.getD1() - c0.getD1();
+        double B = pos.getD3() - c0.getD3();
+        double D = this.height - pos.getD2() + c0.getD2();
+
+        double tan = (radius / height) * (radius / height);
+
+        double a = (dir.getD1() * dir.getD1()) + (dir.getD3() * dir.getD3()) - (tan*(dir.getD2() * dir.getD2()));
+        double b = (2*A*dir.getD1()) + (2*B*dir.getD3()) + (2*tan*D*dir.getD2());
+        double c = (A*A) + (B*B) - (tan*(D*D));
+
+        double delta = b*b - 4*(a*c);
+        if(Math.abs(delta) < 0.001) return false;
+        if(delta < 0.0) return false;
+
+        double t1 = (-b - Math.sqrt(delta))/(2*a);
+        double t2 = (-b + Math.sqrt(delta))/(2*a);
+        double t = Math.min(t1, t2);
+        if (t <= 0 || t >= hit.t) return false;
+
+        double r = pos.getD2() + t*dir.getD2();
+        if ((r > c0.getD2()) && (r < c0.getD2() + height)) {
+            hit.set(this, t);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
 
@@ -112,8 +181,9 @@ public class Cone extends Geometry{
         double r = pos.getD2() + t*dir.getXyz().getD2();
 
         if ((r > center.getXyz().getD2()) && (r < center.getXyz().getD2() + height))
-            if(ray.getPoint(t).distance(ray.getP0()) <= maxDistance)
-                return List.of(new GeoPoint(this, ray.getPoint(t)));
+            // the distance of a point behind the ray's head is the absolute value of its parameter
+            if(Math.abs(t) <= maxDistance)
+                return List.of(new GeoPoint(this, ray.getPoint(t), t));
         return null;
 
     }
@@ -13,6 +13,10 @@ import java.util.List;
  * @author Rivka Sheiner
  */
 public class Cylinder extends Tube {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
     The height of the cylinder
      */
@@ -42,6 +46,16 @@ public class Cylinder extends Tube {
         return super.toString()+" ,height=" + height;
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        // the intersection points are accepted up to this distance from the head of the axis ray
+        // (see findGeoIntersectionsHelper), so the box bounds the sphere of this radius
+        double max = Math.sqrt(Math.pow(this.height / 2, 2) + Math.pow(this.radius, 2));
+        Double3 c = this.axisRay.getP0().getXyz();
+        return new BoundingBox(c.getD1() - max, c.getD2() - max, c.getD3() - max,
+                c.getD1() + max, c.getD2() + max, c.getD3() + max);
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
         List<GeoPoint> intersections = new LinkedList<>();
@@ -72,12 +86,12 @@ public class Cylinder extends Tube {
         Vector len = point.subtract(this.axisRay.getP0());
 
         if (len.length() <= max)
-            intersections.add(new GeoPoint(this, point));
+            intersections.add(new GeoPoint(this, point, t1));
 
         point = ray.getPoint(t2);
         len = point.subtract(this.axisRay.getP0());
         if (len.length() <= max)
-            intersections.add(new GeoPoint(this, point));
+            intersections.add(new GeoPoint(this, point, t2));
 
         if(intersections.size() > 0)
             return intersections;
@@ -85,6 +99,18 @@ public class Cylinder extends Tube {
         return null;
     }
 
+    @Override
+    protected boolean isInRange(Ray ray, double t) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        Double3 a0 = this.axisRay.getP0().getXyz();
+        double lx = o.getD1() + d.getD1() * t - a0.getD1();
+        double ly = o.getD2() + d.getD2() * t - a0.getD2();
+        double lz = o.getD3() + d.getD3() * t - a0.getD3();
+        double maxSquared = Math.pow(this.height / 2, 2) + Math.pow(this.radius, 2); //pythagoras theorem
+        return lx * lx + ly * ly + lz * lz <= maxSquared;
+    }
+
     /**
      * This method is used for finding the intersections points of ray with cylinder
      * @param ray- the ray imposed on the geometric shape
@@ -117,18 +143,19 @@ public class Cylinder extends Tube {
 
         double max = Math.sqrt(Math.pow(this.height / 2, 2) + Math.pow(this.radius, 2)); //pythagoras theorem
 
-        Point point = ray.getPoint(t1);
-        Vector len = point.subtract(this.axisRay.getP0());
-
-        if (len.length() <= max)
-            if(point.distance(ray.getP0()) <= maxDistance)
-                intersections.add(new GeoPoint(this, point));
-
-        point = ray.getPoint(t2);
-        len = point.subtract(this.axisRay.getP0());
-        if (len.length() <= max)
-            if(point.distance(ray.getP0()) <= maxDistance)
-                intersections.add(new GeoPoint(this, point));
+        // the distance of a point behind the ray's head is the absolute value of its parameter,
+        // the points are created only for the intersections which are not further than max distance
+        if (Math.abs(t1) <= maxDistance) {
+            Point point = ray.getPoint(t1);
+            if (point.subtract(this.axisRay.getP0()).length() <= max)
+                intersections.add(new GeoPoint(this, point, t1));
+        }
+
+        if (Math.abs(t2) <= maxDistance) {
+            Point point = ray.getPoint(t2);
+            if (point.subtract(this.axisRay.getP0()).length() <= max)
+                intersections.add(new GeoPoint(this, point, t2));
+        }
 
         if(intersections.size() > 0)
             return intersections;
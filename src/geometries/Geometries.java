@@ -4,6 +4,7 @@ import primitives.Point;
 import primitives.Ray;
 
 import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -11,11 +12,24 @@ import java.util.List;
  * @author Rivka Sheiner
  */
 public class Geometries extends Intersectable{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The list of the geometric shapes
      */
-    private List<Intersectable> geometries;
+    protected List<Intersectable> geometries;
+    /**
+     * The boxes of the shapes in the collection - 6 values for each shape
+     * (min x,y,z and max x,y,z), calculated on the first search of intersections (also after deserialization)
+     */
+    private transient volatile double[] boxes;
+    /**
+     * Indicates for each shape in the collection whether it has a bounding box
+     */
+    private transient boolean[] isBounded;
 
     /**
      * Geometries default constructor
@@ -40,14 +54,78 @@ public class Geometries extends Intersectable{
         for(int i=0; i<geometries.length; i++) {
             this.geometries.add(geometries[i]);
         }
+        boxes = null;
+    }
+
+    /**
+     * This method returns the shapes in the collection
+     * @return unmodifiable list of the shapes
+     */
+    public List<Intersectable> getGeometries() {
+        return Collections.unmodifiableList(geometries);
+    }
+
+    /**
+     * The box of the collection is the union of the boxes of its shapes
+     * @return BoundingBox - the bounding box, or null if one of the shapes is not bounded
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        BoundingBox box = null;
+        for(Intersectable geo : geometries){
+            BoundingBox geoBox = geo.getBoundingBox();
+            if(geoBox == null)
+                return null;
+            box = box == null ? geoBox : box.union(geoBox);
+        }
+        return box;
+    }
+
+    /**
+     * This method calculates the boxes of the shapes in the collection,
+     * if they were not calculated since the last change of the collection
+     * @return the array of the boxes
+     */
+    private double[] getBoxes() {
+        double[] result = boxes;
+        if(result != null)
+            return result;
+        synchronized (this) {
+            if(boxes == null) {
+                double[] newBoxes = new double[geometries.size() * 6];
+                boolean[] newIsBounded = new boolean[geometries.size()];
+                int i = 0;
+                for(Intersectable geo : geometries){
+                    BoundingBox box = geo.getBoundingBox();
+                    if(box != null) {
+                        box.writeTo(newBoxes, i);
+                        newIsBounded[i] = true;
+                    }
+                    i++;
+                }
+                isBounded = newIsBounded;
+                boxes = newBoxes;
+            }
+            return boxes;
+        }
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        double[] bounds = getBoxes();
+        double ox = ray.getP0().getXyz().getD1(), oy = ray.getP0().getXyz().getD2(), oz = ray.getP0().getXyz().getD3();
+        double ix = 1 / ray.getDir().getXyz().getD1(), iy = 1 / ray.getDir().getXyz().getD2(), iz = 1 / ray.getDir().getXyz().getD3();
+
         List<GeoPoint> allPoints = new LinkedList<>();
         List<GeoPoint> points;
         int counter = 0;
+        int i = 0;
         for(Intersectable geo : geometries){
+            // the shape is skipped if the ray does not pass through its box
+            boolean isMissed = isBounded[i] && !BoundingBox.intersects(bounds, i, ox, oy, oz, ix, iy, iz, Double.POSITIVE_INFINITY);
+            i++;
+            if(isMissed)
+                continue;
             points = geo.findGeoIntersections(ray);
             if(points != null)
                 for(GeoPoint p : points){
@@ -70,17 +148,26 @@ public class Geometries extends Intersectable{
      */
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance){
+        double[] bounds = getBoxes();
+        double ox = ray.getP0().getXyz().getD1(), oy = ray.getP0().getXyz().getD2(), oz = ray.getP0().getXyz().getD3();
+        double ix = 1 / ray.getDir().getXyz().getD1(), iy = 1 / ray.getDir().getXyz().getD2(), iz = 1 / ray.getDir().getXyz().getD3();
+
         List<GeoPoint> allPoints = new LinkedList<>();
         List<GeoPoint> points;
         int counter = 0;
+        int i = 0;
         for(Intersectable geo : geometries){
-            points = geo.findGeoIntersections(ray);
+            // the shape is skipped if the ray does not pass through its box in the limited distance
+            boolean isMissed = isBounded[i] && !BoundingBox.intersects(bounds, i, ox, oy, oz, ix, iy, iz, maxDistance);
+            i++;
+            if(isMissed)
+                continue;
+            // each shape filters its intersections by their distance from the ray's head
+            points = geo.findGeoIntersections(ray, maxDistance);
             if(points != null)
                 for(GeoPoint p : points){
-                    if(p.point.distance(ray.getP0()) <= maxDistance){
-                        allPoints.add(p);
-                        counter++;
-                    }
+                    allPoints.add(p);
+                    counter++;
                 }
         }
 
@@ -89,4 +176,56 @@ public class Geometries extends Intersectable{
         return allPoints;
     }
 
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        double[] bounds = getBoxes();
+        double ox = ray.getP0().getXyz().getD1(), oy = ray.getP0().getXyz().getD2(), oz = ray.getP0().getXyz().getD3();
+        double ix = 1 / ray.getDir().getXyz().getD1(), iy = 1 / ray.getDir().getXyz().getD2(), iz = 1 / ray.getDir().getXyz().getD3();
+
+        boolean isFound = false;
+        int i = 0;
+        for(Intersectable geo : geometries){
+            // the shape is skipped if the ray does not pass through its box before the closest intersection
+            boolean isMissed = isBounded[i] && !BoundingBox.intersects(bounds, i, ox, oy, oz, ix, iy, iz, hit.t);
+            i++;
+            if(isMissed)
+                continue;
+            if(geo.findClosestIntersection(ray, hit))
+                isFound = true;
+        }
+        return isFound;
+    }
+
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket packet, long mask) {
+        double[] bounds = getBoxes();
+        int i = 0;
+        for(Intersectable geo : geometries){
+            // the shape is tested only with the rays which pass through its box before their closest intersection
+            long geoMask = isBounded[i] ? packet.boxMask(bounds, i, mask) : mask;
+            i++;
+            if(geoMask != 0)
+                geo.findClosestIntersectionsHelper(packet, geoMask);
+        }
+    }
+
+    @Override
+    protected boolean findOcclusionHelper(Ray ray, Transparency transparency) {
+        double[] bounds = getBoxes();
+        double ox = ray.getP0().getXyz().getD1(), oy = ray.getP0().getXyz().getD2(), oz = ray.getP0().getXyz().getD3();
+        double ix = 1 / ray.getDir().getXyz().getD1(), iy = 1 / ray.getDir().getXyz().getD2(), iz = 1 / ray.getDir().getXyz().getD3();
+
+        int i = 0;
+        for(Intersectable geo : geometries){
+            // the shape is skipped if the ray does not pass through its box in the limited distance
+            boolean isMissed = isBounded[i] && !BoundingBox.intersects(bounds, i, ox, oy, oz, ix, iy, iz, transparency.maxDistance);
+            i++;
+            if(isMissed)
+                continue;
+            if(geo.findOcclusion(ray, transparency))
+                return true;
+        }
+        return false;
+    }
+
 }
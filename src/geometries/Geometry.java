@@ -2,11 +2,17 @@ package geometries;
 
 import primitives.*;
 
+import java.util.List;
+
 /**
  * Geometry interface represents the behavior of all geometry objects
  *@author Rivka Sheiner
  */
 public abstract class Geometry extends Intersectable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The color of the light which is being emitted from the geometry
@@ -60,4 +66,29 @@ public abstract class Geometry extends Intersectable {
      * @return Vector - the normal vector to the object in this point
      */
     public abstract Vector getNormal(Point p);
+
+    /**
+     * The search for opaque geometry stops on its first intersection, without building
+     * the intersection points. Transparent geometry multiplies the transparency by its
+     * transparency factor for each of its intersections.
+     */
+    @Override
+    protected boolean findOcclusionHelper(Ray ray, Transparency transparency) {
+        double kT = material.kT.getD1();
+        if (kT == 0) {
+            transparency.hit.set(null, transparency.maxDistance);
+            if (findClosestIntersection(ray, transparency.hit)) {
+                transparency.k = 0.0;
+                return true;
+            }
+            return false;
+        }
+
+        List<GeoPoint> intersections = findGeoIntersections(ray, transparency.maxDistance);
+        if (intersections != null)
+            for (GeoPoint gp : intersections)
+                if (transparency.scale(kT))
+                    return true;
+        return false;
+    }
 }
@@ -2,12 +2,17 @@ package geometries;
 
 import primitives.*;
 import java.util.List;
+import java.io.Serializable;
 
 /**
  * Intersectable interface represents the behavior of all geometry objects
  *@author Rivka Sheiner
  */
-public abstract class Intersectable {
+public abstract class Intersectable implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * The method finds the intersection points of the geometry with the ray
      * @param ray - the ray imposed on the geometric shape
@@ -43,7 +48,10 @@ public abstract class Intersectable {
      * @return List of GeoPoint - the intersection geo points with the ray
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
-        return findGeoIntersectionsHelper(ray, maxDistance);
+        List<GeoPoint> points = findGeoIntersectionsHelper(ray, maxDistance);
+        if (IntersectionMetrics.isCounting)
+            IntersectionMetrics.count(this, points != null);
+        return points;
     }
 
     /**
@@ -54,6 +62,224 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+    /**
+     * The method finds the closest intersection geo point of the geometry with the ray
+     * @param ray - the ray imposed on the geometric shape
+     * @return GeoPoint - the closest intersection geo point, or null if there is no intersection
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * The method finds the closest intersection geo point of the geometry with the ray,
+     * which is not far away from the ray's head more than max distance.
+     * @param ray - the ray imposed on the geometric shape
+     * @param maxDistance - the max distance between the intersection point to the ray's head
+     * @return GeoPoint - the closest intersection geo point, or null if there is no intersection
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        Hit hit = new Hit(maxDistance);
+        return findClosestIntersection(ray, hit) ? hit.toGeoPoint(ray) : null;
+    }
+
+    /**
+     * The method finds the intersection of the geometry with the ray which is closer
+     * to the ray's head than the intersection in the hit record, and updates the record.
+     * @param ray - the ray imposed on the geometric shape
+     * @param hit - the closest intersection which was found so far
+     * @return true if a closer intersection was found and the hit record was updated
+     */
+    public final boolean findClosestIntersection(Ray ray, Hit hit) {
+        boolean isFound = findClosestIntersectionHelper(ray, hit);
+        if (IntersectionMetrics.isCounting)
+            IntersectionMetrics.count(this, isFound);
+        return isFound;
+    }
+
+    /**
+     * The method helps to find the intersection of the geometry with the ray which is
+     * closer to the ray's head than the intersection in the hit record.
+     * Intersections which are not in front of the ray's head are ignored.
+     * @param ray - the ray imposed on the geometric shape
+     * @param hit - the closest intersection which was found so far
+     * @return true if a closer intersection was found and the hit record was updated
+     */
+    protected abstract boolean findClosestIntersectionHelper(Ray ray, Hit hit);
+
+    /**
+     * The method finds the closest intersection of each ray of the packet with the geometry,
+     * and updates the hit records of the packet
+     * @param packet - the rays imposed on the geometric shape
+     */
+    public final void findClosestIntersections(RayPacket packet) {
+        findClosestIntersectionsHelper(packet, packet.mask());
+    }
+
+    /**
+     * The method helps to find the closest intersections of the active rays of the packet.
+     * By default each ray is tested separately, collections override it for testing
+     * their boxes once for all the rays.
+     * @param packet - the rays imposed on the geometric shape
+     * @param mask - the active rays of the packet (bit r for ray r)
+     */
+    protected void findClosestIntersectionsHelper(RayPacket packet, long mask) {
+        for (long m = mask; m != 0; m &= m - 1) {
+            int r = Long.numberOfTrailingZeros(m);
+            findClosestIntersection(packet.getRay(r), packet.hits[r]);
+        }
+    }
+
+    /**
+     * The method calculates the part of the light which passes along the ray up to max distance.
+     * Each intersection multiplies the transparency by the transparency factor (kT) of its geometry,
+     * and the search stops as soon as the transparency is lower than the minimal transparency.
+     * @param ray - the ray imposed on the geometric shapes
+     * @param maxDistance - the max distance between the intersection point to the ray's head
+     * @param minTransparency - the transparency under which the ray is considered as blocked
+     * @return double - the transparency along the ray, 0 if the ray is blocked
+     */
+    public final double findTransparency(Ray ray, double maxDistance, double minTransparency) {
+        Transparency transparency = new Transparency(maxDistance, minTransparency);
+        return findOcclusion(ray, transparency) ? 0.0 : transparency.k;
+    }
+
+    /**
+     * The method multiplies the transparency record by the transparency factors of
+     * the intersections of the geometry with the ray.
+     * @param ray - the ray imposed on the geometric shape
+     * @param transparency - the transparency which was accumulated so far
+     * @return true if the ray is blocked, so there is no need to continue the search
+     */
+    public final boolean findOcclusion(Ray ray, Transparency transparency) {
+        boolean isBlocked = findOcclusionHelper(ray, transparency);
+        if (IntersectionMetrics.isCounting)
+            IntersectionMetrics.count(this, isBlocked);
+        return isBlocked;
+    }
+
+    /**
+     * The method helps to multiply the transparency record by the transparency factors of
+     * the intersections of the geometry with the ray.
+     * @param ray - the ray imposed on the geometric shape
+     * @param transparency - the transparency which was accumulated so far
+     * @return true if the ray is blocked, so there is no need to continue the search
+     */
+    protected abstract boolean findOcclusionHelper(Ray ray, Transparency transparency);
+
+    /**
+     * This method returns the axis aligned box which bounds the geometry.
+     * Unbounded geometries (like planes and tubes) return null, so the
+     * collections of geometries treat them separately.
+     * @return BoundingBox - the bounding box, or null if the geometry is not bounded
+     */
+    public abstract BoundingBox getBoundingBox();
+
+    /**
+     * This method checks whether the geometry is bounded in a finite box
+     * @return true if the geometry has a bounding box
+     */
+    public boolean isBounded() {
+        return getBoundingBox() != null;
+    }
+
+
+    /**
+     * Hit class represents the closest intersection of a ray which was found so far.
+     * One record is passed to all the geometries which are tested against the ray,
+     * and each geometry updates it only if it has a closer intersection.
+     */
+    public static class Hit {
+        /**
+         * The geometry body of the closest intersection, null if there is no intersection yet
+         */
+        public Geometry geometry;
+        /**
+         * The distance between the ray's head to the closest intersection,
+         * intersections which are further than it are ignored
+         */
+        public double t;
+
+        /**
+         * Hit constructor - creates record without intersection
+         * @param maxDistance - the max distance between the intersection point to the ray's head
+         */
+        public Hit(double maxDistance) {
+            this.t = maxDistance;
+        }
+
+        /**
+         * This method updates the record with closer intersection
+         * @param geometry - the geometry body of the intersection
+         * @param t - the distance between the ray's head to the intersection
+         */
+        public void set(Geometry geometry, double t) {
+            this.geometry = geometry;
+            this.t = t;
+        }
+
+        /**
+         * This method creates the geo point of the closest intersection
+         * @param ray - the ray of the intersection
+         * @return GeoPoint - the geo point, or null if there is no intersection
+         */
+        public GeoPoint toGeoPoint(Ray ray) {
+            return geometry == null ? null : new GeoPoint(geometry, ray.getPoint(t), t);
+        }
+    }
+
+    /**
+     * Transparency class represents the part of the light which passes along a ray
+     * through the geometries which were tested so far.
+     * One record is passed to all the geometries which are tested against the ray.
+     */
+    public static class Transparency {
+        /**
+         * The product of the transparency factors of the intersections which were found so far
+         */
+        public double k = 1.0;
+        /**
+         * The max distance between the intersection point to the ray's head
+         */
+        public final double maxDistance;
+        /**
+         * The transparency under which the ray is considered as blocked
+         */
+        public final double minTransparency;
+        /**
+         * Hit record which is reused for searching intersections with opaque geometries
+         */
+        final Hit hit;
+
+        /**
+         * Transparency constructor - creates record of fully transparent ray
+         * @param maxDistance - the max distance between the intersection point to the ray's head
+         * @param minTransparency - the transparency under which the ray is considered as blocked
+         */
+        public Transparency(double maxDistance, double minTransparency) {
+            this.maxDistance = maxDistance;
+            this.minTransparency = minTransparency;
+            this.hit = new Hit(maxDistance);
+        }
+
+        /**
+         * This method multiplies the transparency by transparency factor of an intersection
+         * @param kT - the transparency factor of the geometry of the intersection
+         * @return true if the ray is blocked after the multiplication
+         */
+        public boolean scale(double kT) {
+            k *= kT;
+            return isBlocked();
+        }
+
+        /**
+         * This method checks whether the ray is blocked
+         * @return true if the transparency is lower than the minimal transparency
+         */
+        public boolean isBlocked() {
+            return k < minTransparency;
+        }
+    }
 
     /**
      * GeoPoint class represents a point on specific geometry body
@@ -67,6 +293,11 @@ public abstract class Intersectable {
          * The point itself
          */
         public Point point;
+        /**
+         * The distance between the head of the intersecting ray to the point along the ray
+         * (the parameter t of the point on the ray), NaN if the point was not created by a ray
+         */
+        public double t;
 
         /**
          * GeoPoint constructor based on geometry body and the point on it
@@ -74,8 +305,20 @@ public abstract class Intersectable {
          * @param point
          */
         public GeoPoint(Geometry geometry, Point point) {
+            this(geometry, point, Double.NaN);
+        }
+
+        /**
+         * GeoPoint constructor based on geometry body, the point on it and its distance
+         * from the head of the intersecting ray
+         * @param geometry - the geometry body
+         * @param point - the point on the geometry body
+         * @param t - the distance between the head of the ray to the point
+         */
+        public GeoPoint(Geometry geometry, Point point, double t) {
             this.geometry = geometry;
             this.point = point;
+            this.t = t;
         }
 
         @Override
@@ -95,6 +338,7 @@ public abstract class Intersectable {
             return "GeoPoint{" +
                     "geometry=" + geometry +
                     ", point=" + point +
+                    ", t=" + t +
                     '}';
         }
     }
@@ -0,0 +1,173 @@
+package geometries;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IntersectionMetrics class counts the intersection tests of rays with the geometries, and the tests
+ * which found intersections, for each class of geometry (collections are counted as their own classes).
+ * The counters are striped (LongAdder), so threads which count together do not contend on one variable,
+ * and when the metrics are disabled (the default) the tests only check one static flag.
+ * Besides the counters of the classes, the tests of each thread are counted for the cost heatmaps of
+ * renderings (see startThreadCounting), without enabling the counters of the classes.
+ * @author Rivka Sheiner
+ */
+public final class IntersectionMetrics {
+    /**
+     * Indicates whether the counters of the classes are counted - it is volatile, since it may be changed
+     * while rendering (by RenderMetrics, also by JMX)
+     */
+    static volatile boolean isEnabled = false;
+    /**
+     * Indicates whether the tests are counted at all - the metrics are enabled, or renderings count the tests
+     * of their threads. It is the only flag which is checked on each test, and it is volatile like isEnabled.
+     */
+    static volatile boolean isCounting = false;
+    /**
+     * The number of the renderings which count the tests of their threads
+     */
+    private static int numThreadCountings = 0;
+
+    /**
+     * The counters of all the classes which were counted
+     */
+    private static final ConcurrentMap<Class<?>, Counters> ALL_COUNTERS = new ConcurrentHashMap<>();
+    /**
+     * The counters of each class, found without hashing on each test
+     */
+    private static final ClassValue<Counters> COUNTERS = new ClassValue<>() {
+        @Override
+        protected Counters computeValue(Class<?> type) {
+            return ALL_COUNTERS.computeIfAbsent(type, t -> new Counters());
+        }
+    };
+    /**
+     * The number of intersection tests of each thread, for measuring the cost of the work of one thread
+     */
+    private static final ThreadLocal<long[]> THREAD_TESTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Counters class represents the counters of one class of geometry
+     */
+    private static final class Counters {
+        /**
+         * The number of intersection tests
+         */
+        final LongAdder tests = new LongAdder();
+        /**
+         * The number of tests which found intersection
+         */
+        final LongAdder hits = new LongAdder();
+    }
+
+    /**
+     * Private constructor - the class has only static methods
+     */
+    private IntersectionMetrics() {
+    }
+
+    /**
+     * This method turns on or off the counting of the intersection tests
+     * @param enabled - true for counting
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+        isCounting = enabled || numThreadCountings > 0;
+    }
+
+    /**
+     * This method starts to count the intersection tests of each thread (see getThreadTests) for a rendering,
+     * without enabling the counters of the classes. Each call must be followed by stopThreadCounting, and
+     * the tests are counted until all the renderings which started to count stopped.
+     */
+    public static synchronized void startThreadCounting() {
+        numThreadCountings++;
+        isCounting = true;
+    }
+
+    /**
+     * This method stops the counting of the intersection tests of each thread for one rendering
+     * (see startThreadCounting)
+     */
+    public static synchronized void stopThreadCounting() {
+        if (numThreadCountings > 0)
+            numThreadCountings--;
+        isCounting = isEnabled || numThreadCountings > 0;
+    }
+
+    /**
+     * This method checks whether the intersection tests are counted
+     * @return true if the tests are counted
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Function count counts one intersection test of a geometry
+     * @param geometry - the tested geometry
+     * @param hit - true if the test found intersection
+     */
+    static void count(Intersectable geometry, boolean hit) {
+        THREAD_TESTS.get()[0]++;
+        if (!isEnabled)
+            return;
+        Counters counters = COUNTERS.get(geometry.getClass());
+        counters.tests.increment();
+        if (hit)
+            counters.hits.increment();
+    }
+
+    /**
+     * This method returns the number of intersection tests of each class of geometry
+     * @return map from the name of the class to the number of tests, sorted by the names
+     */
+    public static Map<String, Long> getTests() {
+        Map<String, Long> tests = new TreeMap<>();
+        ALL_COUNTERS.forEach((type, counters) -> tests.merge(nameOf(type), counters.tests.sum(), Long::sum));
+        return tests;
+    }
+
+    /**
+     * This method returns the number of intersection tests which found intersection, of each class of geometry
+     * @return map from the name of the class to the number of hits, sorted by the names
+     */
+    public static Map<String, Long> getHits() {
+        Map<String, Long> hits = new TreeMap<>();
+        ALL_COUNTERS.forEach((type, counters) -> hits.merge(nameOf(type), counters.hits.sum(), Long::sum));
+        return hits;
+    }
+
+    /**
+     * This method returns the number of intersection tests which were counted in the current thread,
+     * while the metrics were enabled or renderings counted the tests of their threads.
+     * The number is not reset, so the cost of a work is the difference of the numbers before and after it.
+     * @return long
+     */
+    public static long getThreadTests() {
+        return THREAD_TESTS.get()[0];
+    }
+
+    /**
+     * This method resets all the counters to zero
+     */
+    public static void reset() {
+        for (Counters counters : ALL_COUNTERS.values()) {
+            counters.tests.reset();
+            counters.hits.reset();
+        }
+    }
+
+    /**
+     * This method returns the name of a class of geometry - the simple name, or the full name
+     * for anonymous classes
+     * @param type - the class
+     * @return String
+     */
+    private static String nameOf(Class<?> type) {
+        return type.isAnonymousClass() ? type.getName() : type.getSimpleName();
+    }
+}
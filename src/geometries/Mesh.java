@@ -0,0 +1,569 @@
+package geometries;
+
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Mesh class represents a surface which is made of many triangles with shared vertices.
+ * The positions of the vertices are kept in one flat array of coordinates, and the triangles
+ * are kept as an array of indices of their vertices (3 for each triangle), so a mesh with
+ * millions of triangles does not create any object for each triangle or vertex.
+ * The edges of the triangles are calculated once, and the triangles are organized in an
+ * internal bounding volume hierarchy, so a ray is tested only against the triangles whose
+ * boxes it passes through.
+ * The intersection points of the mesh hold a light face object of the hit triangle as their
+ * geometry, so the normal of the triangle is known without searching it again.
+ * @author Rivka Sheiner
+ */
+public class Mesh extends Geometry {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The coordinates of the vertices - 3 values (x,y,z) for each vertex
+     */
+    private final double[] vertices;
+    /**
+     * The indices of the vertices of the triangles - 3 values for each triangle,
+     * ordered by the leaves of the tree
+     */
+    private final int[] indices;
+    /**
+     * The first vertices and the edges of the triangles, ordered by the leaves of the tree
+     */
+    private final TriangleArrays triangles;
+    /**
+     * The number of triangles in the mesh
+     */
+    private final int numTriangles;
+    /**
+     * The tree of the boxes of the triangles
+     */
+    private final BVHTree tree;
+    /**
+     * The box which bounds all the triangles, null for empty mesh
+     */
+    private final BoundingBox boundingBox;
+
+    /**
+     * Mesh parameters constructor.
+     * The array of vertices is kept as is (without copying), so it must not be changed later.
+     * @param vertices the coordinates of the vertices - 3 values (x,y,z) for each vertex
+     * @param indices the indices of the vertices of the triangles - 3 values for each triangle
+     * @throws IllegalArgumentException if the arrays are not made of triples,
+     *                                  or one of the indices is not an index of a vertex
+     */
+    public Mesh(double[] vertices, int[] indices) {
+        this(vertices, indices, buildTree(vertices, indices));
+    }
+
+    /**
+     * Mesh constructor of triangles which are organized in a tree
+     * @param vertices the coordinates of the vertices - 3 values (x,y,z) for each vertex
+     * @param indices the indices of the vertices of the triangles - 3 values for each triangle
+     * @param tree the tree of the boxes of the triangles - if it was read prebuilt,
+     *             the triangles are already ordered by its leaves
+     */
+    private Mesh(double[] vertices, int[] indices, BVHTree tree) {
+        this.vertices = vertices;
+        this.numTriangles = indices.length / 3;
+        this.tree = tree;
+
+        // the triangles are ordered by the leaves of the tree, so the triangles of each leaf are consecutive
+        if (tree.order == null)
+            this.indices = indices;
+        else {
+            this.indices = new int[indices.length];
+            for (int i = 0; i < numTriangles; i++) {
+                int original = tree.order[i];
+                for (int k = 0; k < 3; k++)
+                    this.indices[i * 3 + k] = indices[original * 3 + k];
+            }
+        }
+        this.triangles = new TriangleArrays(numTriangles);
+        for (int i = 0; i < numTriangles; i++)
+            triangles.set(i, vertices, this.indices[i * 3], this.indices[i * 3 + 1], this.indices[i * 3 + 2]);
+
+        double[] bounds = tree.nodeBounds;
+        this.boundingBox = numTriangles == 0 ? null
+                : new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    /**
+     * Function buildTree checks the arrays of the mesh and builds the tree of the boxes of its triangles
+     * @param vertices the coordinates of the vertices - 3 values (x,y,z) for each vertex
+     * @param indices the indices of the vertices of the triangles - 3 values for each triangle
+     * @return BVHTree - the tree of the triangles
+     * @throws IllegalArgumentException if the arrays are not made of triples,
+     *                                  or one of the indices is not an index of a vertex
+     */
+    private static BVHTree buildTree(double[] vertices, int[] indices) {
+        checkArrays(vertices, indices);
+        int numTriangles = indices.length / 3;
+        double[] box = new double[numTriangles * 6];
+        for (int i = 0; i < numTriangles; i++)
+            writeBox(vertices, box, i, indices, i);
+        return new BVHTree(box, numTriangles);
+    }
+
+    /**
+     * Function checkArrays checks the arrays of vertices and triangles of a mesh
+     * @param vertices the coordinates of the vertices - 3 values (x,y,z) for each vertex
+     * @param indices the indices of the vertices of the triangles - 3 values for each triangle
+     * @throws IllegalArgumentException if the arrays are not made of triples,
+     *                                  or one of the indices is not an index of a vertex
+     */
+    private static void checkArrays(double[] vertices, int[] indices) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("The coordinates of the vertices must be triples");
+        if (indices.length % 3 != 0)
+            throw new IllegalArgumentException("The indices of the triangles must be triples");
+        int numVertices = vertices.length / 3;
+        for (int index : indices)
+            if (index < 0 || index >= numVertices)
+                throw new IllegalArgumentException("Index of vertex out of range: " + index);
+    }
+
+    /**
+     * Function readSection creates a mesh from its flat section (which was written by writeSection),
+     * with its prebuilt tree, so the tree is not built again.
+     * The arrays are copied from the buffer in bulk, so the buffer may be a mapped file.
+     * @param section - the section, little endian, from its position
+     * @return Mesh
+     * @throws IllegalArgumentException if the section is not a valid mesh (also if it is shorter than the
+     *                                  counts of its header), or the depth of its tree is not the depth of its nodes
+     */
+    public static Mesh readSection(ByteBuffer section) {
+        ByteBuffer in = section.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int numVertices = in.getInt(), numTriangles = in.getInt(), numNodes = in.getInt(), depth = in.getInt();
+        if (numVertices < 0 || numTriangles < 0 || numNodes < 0 || (numTriangles > 0) != (numNodes > 0))
+            throw new IllegalArgumentException("Wrong header of mesh section");
+        // the counts are checked against the length of the section before the arrays are allocated
+        if (((long) numVertices * 3 + (long) numNodes * 6) * Double.BYTES
+                + ((long) numTriangles * 3 + (long) numNodes * 2) * Integer.BYTES > in.remaining())
+            throw new IllegalArgumentException("The mesh section is shorter than its header");
+
+        double[] vertices = new double[numVertices * 3];
+        double[] nodeBounds = new double[numNodes * 6];
+        int[] indices = new int[numTriangles * 3];
+        int[] nodeStart = new int[numNodes];
+        int[] nodeCount = new int[numNodes];
+        in.asDoubleBuffer().get(vertices).get(nodeBounds);
+        in.position(in.position() + (vertices.length + nodeBounds.length) * Double.BYTES);
+        in.asIntBuffer().get(indices).get(nodeStart).get(nodeCount);
+
+        checkArrays(vertices, indices);
+        // the children of a node are after it, so the level of each node (the root is level 1)
+        // is known before its children are checked, and the depth sizes the stacks of the traversals
+        int[] levels = new int[numNodes];
+        int maxLevel = 0;
+        if (numNodes > 0)
+            levels[0] = 1;
+        for (int node = 0; node < numNodes; node++) {
+            if (nodeCount[node] == 0 ? nodeStart[node] <= node || nodeStart[node] + 1 >= numNodes
+                    : nodeCount[node] < 0 || nodeStart[node] < 0 || nodeCount[node] > numTriangles - nodeStart[node])
+                throw new IllegalArgumentException("Wrong node of tree in mesh section: " + node);
+            maxLevel = Math.max(maxLevel, levels[node]);
+            if (nodeCount[node] == 0 && levels[node] > 0)
+                for (int child = nodeStart[node]; child <= nodeStart[node] + 1; child++)
+                    levels[child] = Math.max(levels[child], levels[node] + 1);
+        }
+        if (depth != maxLevel)
+            throw new IllegalArgumentException("Wrong depth of tree in mesh section: " + depth);
+        return new Mesh(vertices, indices, new BVHTree(nodeBounds, nodeStart, nodeCount, depth));
+    }
+
+    /**
+     * Function writeSection writes the mesh as a flat section, with its tree:
+     * the number of vertices, triangles and nodes and the depth of the tree (int each), the coordinates
+     * of the vertices and the boxes of the nodes (double), the indices of the triangles (ordered by the
+     * leaves of the tree), and the first primitive (or child) and the number of primitives of each node
+     * (int), all in little endian
+     * @param channel - the file, whose position is aligned to 8 bytes
+     * @throws IOException if the writing failed
+     */
+    public void writeSection(WritableByteChannel channel) throws IOException {
+        int numNodes = tree.numNodes;
+        ByteBuffer out = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(vertices.length / 3).putInt(numTriangles).putInt(numNodes).putInt(tree.depth);
+        for (double value : vertices)
+            out = putDouble(channel, out, value);
+        for (int i = 0; i < numNodes * 6; i++)
+            out = putDouble(channel, out, tree.nodeBounds[i]);
+        for (int value : indices)
+            out = putInt(channel, out, value);
+        for (int i = 0; i < numNodes; i++)
+            out = putInt(channel, out, tree.nodeStart[i]);
+        for (int i = 0; i < numNodes; i++)
+            out = putInt(channel, out, tree.nodeCount[i]);
+        flush(channel, out);
+    }
+
+    /**
+     * This method puts a double into the buffer, and writes the buffer to the file when it is full
+     * @param channel - the file
+     * @param out - the buffer
+     * @param value - the value
+     * @return the buffer
+     * @throws IOException if the writing failed
+     */
+    private static ByteBuffer putDouble(WritableByteChannel channel, ByteBuffer out, double value) throws IOException {
+        if (out.remaining() < Double.BYTES)
+            flush(channel, out);
+        return out.putDouble(value);
+    }
+
+    /**
+     * This method puts an int into the buffer, and writes the buffer to the file when it is full
+     * @param channel - the file
+     * @param out - the buffer
+     * @param value - the value
+     * @return the buffer
+     * @throws IOException if the writing failed
+     */
+    private static ByteBuffer putInt(WritableByteChannel channel, ByteBuffer out, int value) throws IOException {
+        if (out.remaining() < Integer.BYTES)
+            flush(channel, out);
+        return out.putInt(value);
+    }
+
+    /**
+     * This method writes the content of the buffer to the file and clears it
+     * @param channel - the file
+     * @param out - the buffer
+     * @throws IOException if the writing failed
+     */
+    private static void flush(WritableByteChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining())
+            channel.write(out);
+        out.clear();
+    }
+
+    /**
+     * This method returns the number of triangles in the mesh
+     * @return int
+     */
+    public int getNumTriangles() {
+        return numTriangles;
+    }
+
+    /**
+     * This method returns the number of vertices in the mesh
+     * @return int
+     */
+    public int getNumVertices() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * The normal is the normal of the triangle on which the point is. The intersection points
+     * of the mesh already hold their triangle, so this method is needed only for points which
+     * were not found by intersection, and it searches all the triangles.
+     * @throws IllegalArgumentException if the point is not on any triangle of the mesh
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        Double3 xyz = p.getXyz();
+        for (int i = 0; i < numTriangles; i++)
+            if (isOnTriangle(i, xyz.getD1(), xyz.getD2(), xyz.getD3()))
+                return normalOf(i);
+        throw new IllegalArgumentException("The point is not on the mesh");
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return boundingBox;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        return findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        double ox = o.getD1(), oy = o.getD2(), oz = o.getD3();
+        double dx = d.getD1(), dy = d.getD2(), dz = d.getD3();
+        List<GeoPoint> points = new LinkedList<>();
+
+        tree.forEach(ox, oy, oz, 1 / dx, 1 / dy, 1 / dz, maxDistance, i -> {
+            double t = triangles.intersect(i, ox, oy, oz, dx, dy, dz, maxDistance);
+            if (t > 0)
+                points.add(new GeoPoint(new Face(i), ray.getPoint(t), t));
+            return false;
+        });
+        return points.isEmpty() ? null : points;
+    }
+
+    /**
+     * The closest triangle is searched in the tree without creating any object, the triangles
+     * of each leaf are tested together by the kernels, and only the face of the closest
+     * triangle is created.
+     */
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        double ox = o.getD1(), oy = o.getD2(), oz = o.getD3();
+        double dx = d.getD1(), dy = d.getD2(), dz = d.getD3();
+        int[] closest = { -1 };
+
+        tree.findClosestLeaf(ox, oy, oz, 1 / dx, 1 / dy, 1 / dz, hit, (start, end) -> {
+            int i = TriangleKernels.KERNELS.findClosest(triangles, start, end, ox, oy, oz, dx, dy, dz, hit);
+            if (i < 0)
+                return false;
+            closest[0] = i;
+            return true;
+        });
+
+        if (closest[0] < 0)
+            return false;
+        hit.set(new Face(closest[0]), hit.t);
+        return true;
+    }
+
+    /**
+     * The rays of the packet traverse the tree together, and only the faces of the
+     * closest triangles are created.
+     */
+    @Override
+    protected void findClosestIntersectionsHelper(RayPacket packet, long mask) {
+        int[] closest = new int[packet.size];
+        Arrays.fill(closest, -1);
+
+        tree.findClosest(packet, mask, (start, end, leafMask) -> {
+            for (long m = leafMask; m != 0; m &= m - 1) {
+                int r = Long.numberOfTrailingZeros(m);
+                int i = TriangleKernels.KERNELS.findClosest(triangles, start, end, packet.ox[r], packet.oy[r],
+                        packet.oz[r], packet.dx[r], packet.dy[r], packet.dz[r], packet.hits[r]);
+                if (i >= 0)
+                    closest[r] = i;
+            }
+        });
+
+        for (int r = 0; r < closest.length; r++)
+            if (closest[r] >= 0)
+                packet.hits[r].set(new Face(closest[r]), packet.hits[r].t);
+    }
+
+    /**
+     * For opaque mesh the search stops on the first triangle which is found between the ray's
+     * head and max distance, even if it is not the closest one.
+     */
+    @Override
+    protected boolean findOcclusionHelper(Ray ray, Transparency transparency) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        double ox = o.getD1(), oy = o.getD2(), oz = o.getD3();
+        double dx = d.getD1(), dy = d.getD2(), dz = d.getD3();
+        double maxDistance = transparency.maxDistance;
+        double kT = getMaterial().kT.getD1();
+
+        if (kT == 0) {
+            if (tree.forEachLeaf(ox, oy, oz, 1 / dx, 1 / dy, 1 / dz, maxDistance, (start, end) ->
+                    TriangleKernels.KERNELS.findAny(triangles, start, end, ox, oy, oz, dx, dy, dz, maxDistance))) {
+                transparency.k = 0.0;
+                return true;
+            }
+            return false;
+        }
+        return tree.forEach(ox, oy, oz, 1 / dx, 1 / dy, 1 / dz, maxDistance,
+                i -> triangles.intersect(i, ox, oy, oz, dx, dy, dz, maxDistance) > 0 && transparency.scale(kT));
+    }
+
+    @Override
+    public String toString() {
+        return "Mesh{" +
+                "vertices=" + getNumVertices() +
+                ", triangles=" + numTriangles +
+                '}';
+    }
+
+    /**
+     * Function isOnTriangle checks whether a point is on one triangle of the mesh
+     * @param i - the index of the triangle
+     * @param x - x coordinate of the point
+     * @param y - y coordinate of the point
+     * @param z - z coordinate of the point
+     * @return true if the point is on the plane of the triangle and inside it or on its edges
+     */
+    private boolean isOnTriangle(int i, double x, double y, double z) {
+        double e1x = triangles.e1x[i], e1y = triangles.e1y[i], e1z = triangles.e1z[i];
+        double e2x = triangles.e2x[i], e2y = triangles.e2y[i], e2z = triangles.e2z[i];
+        double sx = x - triangles.p0x[i], sy = y - triangles.p0y[i], sz = z - triangles.p0z[i];
+
+        double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        double nn = nx * nx + ny * ny + nz * nz;
+        if (isZero(nn) || !isZero((sx * nx + sy * ny + sz * nz) / Math.sqrt(nn)))
+            return false;
+
+        // barycentric coordinates of the point by the edges
+        double d11 = e1x * e1x + e1y * e1y + e1z * e1z;
+        double d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+        double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+        double s1 = sx * e1x + sy * e1y + sz * e1z;
+        double s2 = sx * e2x + sy * e2y + sz * e2z;
+        double denominator = d11 * d22 - d12 * d12;
+        double u = (d22 * s1 - d12 * s2) / denominator;
+        double v = (d11 * s2 - d12 * s1) / denominator;
+        return alignZero(u) >= 0 && alignZero(v) >= 0 && alignZero(1 - u - v) >= 0;
+    }
+
+    /**
+     * Function normalOf calculates the normal of one triangle of the mesh,
+     * in the same direction as the normal of Triangle with the same vertices
+     * @param i - the index of the triangle
+     * @return Vector - the normalized normal
+     */
+    private Vector normalOf(int i) {
+        double e1x = triangles.e1x[i], e1y = triangles.e1y[i], e1z = triangles.e1z[i];
+        double e2x = triangles.e2x[i], e2y = triangles.e2y[i], e2z = triangles.e2z[i];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    /**
+     * Function writeBox writes the box of a triangle into array of boxes
+     * @param vertices - the coordinates of the vertices
+     * @param box - the array of boxes
+     * @param b - the index of the box in the array
+     * @param indices - the indices of the vertices of the triangles
+     * @param i - the index of the triangle
+     */
+    private static void writeBox(double[] vertices, double[] box, int b, int[] indices, int i) {
+        int v0 = indices[i * 3] * 3, v1 = indices[i * 3 + 1] * 3, v2 = indices[i * 3 + 2] * 3;
+        for (int k = 0; k < 3; k++) {
+            double a = vertices[v0 + k], c1 = vertices[v1 + k], c2 = vertices[v2 + k];
+            box[b * 6 + k] = Math.min(a, Math.min(c1, c2)) - BoundingBox.PADDING;
+            box[b * 6 + k + 3] = Math.max(a, Math.max(c1, c2)) + BoundingBox.PADDING;
+        }
+    }
+
+    /**
+     * Face class represents one triangle of the mesh as geometry, it is the geometry of the
+     * intersection points of the mesh. It holds only the index of the triangle, and takes
+     * its material and emission from the mesh.
+     */
+    private final class Face extends Geometry {
+        /**
+         * The version of the serialized form of the class
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The index of the triangle in the mesh
+         */
+        private final int index;
+        /**
+         * The normal of the triangle, calculated on the first request
+         */
+        private Vector normal;
+
+        /**
+         * Face constructor
+         * @param index the index of the triangle in the mesh
+         */
+        private Face(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Vector getNormal(Point p) {
+            if (normal == null)
+                normal = normalOf(index);
+            return normal;
+        }
+
+        @Override
+        public Color getEmission() {
+            return Mesh.this.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return Mesh.this.getMaterial();
+        }
+
+        @Override
+        public BoundingBox getBoundingBox() {
+            double[] box = new double[6];
+            writeBox(vertices, box, 0, indices, index);
+            return new BoundingBox(box[0], box[1], box[2], box[3], box[4], box[5]);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+            return findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY);
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            double t = intersect(ray, maxDistance);
+            return t > 0 ? List.of(new GeoPoint(this, ray.getPoint(t), t)) : null;
+        }
+
+        @Override
+        protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+            double t = intersect(ray, hit.t);
+            if (t <= 0)
+                return false;
+            hit.set(this, t);
+            return true;
+        }
+
+        /**
+         * Function intersect calculates the intersection of the ray with the triangle of the face
+         * @param ray - the ray
+         * @param maxDistance - the max distance between the intersection point to the ray's head
+         * @return double - the distance of the intersection from the ray's head, or -1 if there is none
+         */
+        private double intersect(Ray ray, double maxDistance) {
+            Double3 o = ray.getP0().getXyz();
+            Double3 d = ray.getDir().getXyz();
+            return triangles.intersect(index, o.getD1(), o.getD2(), o.getD3(),
+                    d.getD1(), d.getD2(), d.getD3(), maxDistance);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Face other))
+                return false;
+            return index == other.index && mesh() == other.mesh();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(mesh()) + index;
+        }
+
+        /**
+         * This method returns the mesh of the face
+         * @return Mesh
+         */
+        private Mesh mesh() {
+            return Mesh.this;
+        }
+
+        @Override
+        public String toString() {
+            return "Face{" +
+                    "mesh=" + Mesh.this +
+                    ", index=" + index +
+                    '}';
+        }
+    }
+}
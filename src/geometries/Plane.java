@@ -2,7 +2,6 @@ package geometries;
 
 import primitives.*;
 
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -10,6 +9,10 @@ import java.util.List;
  * @author Rivka Sheiner
  */
 public class Plane extends Geometry {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * The reference point of the plane
      */
@@ -74,6 +77,15 @@ public class Plane extends Geometry {
         return this.normal;
     }
 
+    /**
+     * The plane is infinite, so it is not bounded in any box
+     * @return null
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
@@ -90,9 +102,40 @@ public class Plane extends Geometry {
         if(Util.isZero(t) || t < 0)
             return null;
 
-        List<Point> points = new LinkedList<>();
-        points.add(ray.getPoint(t));
-        return List.of(new GeoPoint(this, points.get(0)));
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
+    }
+
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        double t = findIntersectionDistance(ray);
+        if (!(t < hit.t))
+            return false;
+        hit.set(this, t);
+        return true;
+    }
+
+    /**
+     * This method calculates the distance between the ray's head to the intersection
+     * point of the ray with the plane, without creating any object.
+     * @param ray - the ray imposed on the plane
+     * @return double - the distance, or Double.NaN if the ray does not intersect the plane
+     */
+    double findIntersectionDistance(Ray ray) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        Double3 n = this.normal.getXyz();
+        Double3 q = this.q0.getXyz();
+
+        double denominator = n.getD1() * d.getD1() + n.getD2() * d.getD2() + n.getD3() * d.getD3();
+        if (Util.isZero(denominator))
+            return Double.NaN;
+
+        double numerator = n.getD1() * (q.getD1() - o.getD1()) + n.getD2() * (q.getD2() - o.getD2())
+                + n.getD3() * (q.getD3() - o.getD3());
+        double t = numerator / denominator;
+        if (Util.isZero(t) || t < 0)
+            return Double.NaN;
+        return t;
     }
 
     /**
@@ -116,12 +159,9 @@ public class Plane extends Geometry {
         if(Util.isZero(t) || t < 0)
             return null;
 
-        List<Point> points = new LinkedList<>();
-        points.add(ray.getPoint(t));
-
-        if(points.get(0).distance(ray.getP0()) > maxDistance)
+        if(t > maxDistance)
             return null;
 
-        return List.of(new GeoPoint(this, points.get(0)));
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
     }
 }
@@ -1,6 +1,5 @@
 package geometries;
 
-import java.util.LinkedList;
 import java.util.List;
 
 import primitives.*;
@@ -11,6 +10,10 @@ import static primitives.Util.*;
  * system
  */
 public class Polygon extends Geometry {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * List of polygon's vertices
      */
@@ -23,6 +26,16 @@ public class Polygon extends Geometry {
     * The number of vertices of the polygon
      */
     private int size;
+    /**
+     * The inner unit normals of the edges of the polygon - for each edge, the coordinates (x,y,z)
+     * of the vector in the plane of the polygon which is orthogonal to the edge and points into the polygon
+     */
+    private final double[] edgeNormals;
+    /**
+     * The offsets of the edges of the polygon - the dot product of the inner normal of each edge
+     * with the start of the edge
+     */
+    private final double[] edgeOffsets;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -53,6 +66,9 @@ public class Polygon extends Geometry {
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane = new Plane(vertices[0], vertices[1], vertices[2]);
+        edgeNormals = new double[vertices.length * 3];
+        edgeOffsets = new double[vertices.length];
+        calcEdges(vertices);
         if (vertices.length == 3)
             return; // no need for more tests for a Triangle
 
@@ -86,103 +102,95 @@ public class Polygon extends Geometry {
         size = vertices.length;
     }
 
+    /**
+     * This method returns the vertices of the polygon
+     * @return List<Point>
+     */
+    public List<Point> getVertices() {
+        return vertices;
+    }
+
     @Override
     public Vector getNormal(Point point) {
         return plane.getNormal();
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        return new BoundingBox(vertices.toArray(new Point[0]));
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> intersectionsPolygon = plane.findGeoIntersections(ray);
-        if(intersectionsPolygon == null || intersectionsPolygon.size() == 0)
+        double t = findIntersectionDistance(ray);
+        if(Double.isNaN(t))
             return null;
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
+    }
 
-        Point answer = intersectionsPolygon.get(0).point;
-
-        //check if the intersection point is into the polygon
-        Vector test_line = answer.subtract(this.vertices.get(0));
-        Vector test_axis = this.plane.getNormal().crossProduct(test_line);
-
-        boolean point_is_inside = false;
-
-        Vector test_point = this.vertices.get(1).subtract(answer);
-        boolean prev_point_ahead = test_line.dotProduct(test_point) > 0;
-        boolean prev_point_above = test_axis.dotProduct(test_point) > 0;
-
-        boolean this_point_ahead = false;
-        boolean this_point_above = false;
-
-        int index = 2;
-        while(index < this.vertices.size())
-        {
-            test_point = this.vertices.get(index).subtract(answer);
-            this_point_ahead = test_line.dotProduct(test_point) > 0;
-
-            if (prev_point_ahead || this_point_ahead)
-            {
-                this_point_above = test_axis.dotProduct(test_point) > 0;
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double t = findIntersectionDistance(ray);
+        if(!(t <= maxDistance))
+            return null;
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
+    }
 
-                if ((!prev_point_above && this_point_above) || (prev_point_above && !this_point_above))
-                {
-                    point_is_inside = !point_is_inside;
-                }
-            }
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        double t = findIntersectionDistance(ray);
+        if(!(t < hit.t))
+            return false;
+        hit.set(this, t);
+        return true;
+    }
 
-            prev_point_ahead = this_point_ahead;
-            prev_point_above = this_point_above;
-            index++;
+    /**
+     * This method calculates the inner normals and the offsets of the edges of the polygon.
+     * The vertices of a convex polygon turn around the normal of its plane in the same direction
+     * as its first three vertices, so the cross product of the normal with each edge points into the polygon.
+     * @param vertices - the vertices of the polygon according to their order by edge path
+     */
+    private void calcEdges(Point[] vertices) {
+        Double3 n = plane.getNormal().getXyz();
+        for (int i = 0; i < vertices.length; i++) {
+            Double3 from = vertices[i].getXyz();
+            Double3 to = vertices[(i + 1) % vertices.length].getXyz();
+            double ex = to.getD1() - from.getD1(), ey = to.getD2() - from.getD2(), ez = to.getD3() - from.getD3();
+            // m = n x e
+            double mx = n.getD2() * ez - n.getD3() * ey, my = n.getD3() * ex - n.getD1() * ez, mz = n.getD1() * ey - n.getD2() * ex;
+            double length = Math.sqrt(mx * mx + my * my + mz * mz);
+            if (length == 0) // co-located vertices, the constructor rejects the polygon
+                continue;
+            edgeNormals[i * 3] = mx / length;
+            edgeNormals[i * 3 + 1] = my / length;
+            edgeNormals[i * 3 + 2] = mz / length;
+            edgeOffsets[i] = (mx * from.getD1() + my * from.getD2() + mz * from.getD3()) / length;
         }
-
-        if(point_is_inside)
-            return intersectionsPolygon;
-        return null;
     }
 
-     @Override
-     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-         List<GeoPoint> intersectionsPolygon = plane.findGeoIntersections(ray, maxDistance);
-         if(intersectionsPolygon == null || intersectionsPolygon.size() == 0)
-             return null;
-
-         Point answer = intersectionsPolygon.get(0).point;
-
-         //check if the intersection point is into the polygon
-         Vector test_line = answer.subtract(this.vertices.get(0));
-         Vector test_axis = this.plane.getNormal().crossProduct(test_line);
-
-         boolean point_is_inside = false;
-
-         Vector test_point = this.vertices.get(1).subtract(answer);
-         boolean prev_point_ahead = test_line.dotProduct(test_point) > 0;
-         boolean prev_point_above = test_axis.dotProduct(test_point) > 0;
-
-         boolean this_point_ahead = false;
-         boolean this_point_above = false;
-
-         int index = 2;
-         while(index < this.vertices.size())
-         {
-             test_point = this.vertices.get(index).subtract(answer);
-             this_point_ahead = test_line.dotProduct(test_point) > 0;
-
-             if (prev_point_ahead || this_point_ahead)
-             {
-                 this_point_above = test_axis.dotProduct(test_point) > 0;
-
-                 if ((!prev_point_above && this_point_above) || (prev_point_above && !this_point_above))
-                 {
-                     point_is_inside = !point_is_inside;
-                 }
-             }
-
-             prev_point_ahead = this_point_ahead;
-             prev_point_above = this_point_above;
-             index++;
-         }
-
-         if(point_is_inside)
-             return intersectionsPolygon;
-         return null;
-     }
+    /**
+     * This method calculates the distance between the ray's head to the intersection point
+     * of the ray with the polygon - the intersection with the plane of the polygon, which is inside
+     * the inner sides of all the edges. It uses the normals of the edges which were calculated
+     * in the constructor, without creating any object.
+     * Points on the edges of the polygon are not inside the polygon.
+     * @param ray - the ray imposed on the polygon
+     * @return double - the distance, or Double.NaN if the ray does not intersect the polygon
+     */
+    double findIntersectionDistance(Ray ray) {
+        double t = plane.findIntersectionDistance(ray);
+        if(Double.isNaN(t))
+            return Double.NaN;
+
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        double px = o.getD1() + d.getD1() * t, py = o.getD2() + d.getD2() * t, pz = o.getD3() + d.getD3() * t;
+        for (int i = 0; i < edgeOffsets.length; i++)
+            if(alignZero(edgeNormals[i * 3] * px + edgeNormals[i * 3 + 1] * py + edgeNormals[i * 3 + 2] * pz
+                    - edgeOffsets[i]) <= 0)
+                return Double.NaN;
+        return t;
+    }
 
 }
@@ -0,0 +1,153 @@
+package geometries;
+
+import geometries.Intersectable.GeoPoint;
+import geometries.Intersectable.Hit;
+import primitives.Double3;
+import primitives.Ray;
+
+/**
+ * RayPacket class represents a group of up to 64 rays which are intersected together with
+ * the geometries. The heads and directions of the rays are kept as structure of arrays, and
+ * the rays which take part in each test are given by a mask of bits (bit r for ray r), so a
+ * hierarchy is traversed once for all the rays, and a node is skipped only when none
+ * of the active rays passes through its box.
+ * Packets are efficient for coherent rays - like the rays through neighbouring pixels,
+ * or the samples of one pixel - which pass through the same nodes.
+ * @author Rivka Sheiner
+ */
+public class RayPacket {
+    /**
+     * The max number of rays in a packet - the number of bits of the mask
+     */
+    public static final int MAX_SIZE = Long.SIZE;
+
+    /**
+     * The rays of the packet
+     */
+    final Ray[] rays;
+    /**
+     * The position of the first ray of the packet in the rays array
+     */
+    private final int from;
+    /**
+     * The number of rays in the packet
+     */
+    final int size;
+    /**
+     * The coordinates of the heads of the rays
+     */
+    final double[] ox, oy, oz;
+    /**
+     * The coordinates of the directions of the rays
+     */
+    final double[] dx, dy, dz;
+    /**
+     * The inverses of the coordinates of the directions of the rays
+     */
+    final double[] ix, iy, iz;
+    /**
+     * The closest intersection of each ray which was found so far
+     */
+    final Hit[] hits;
+
+    /**
+     * RayPacket constructor - creates packet of all the given rays
+     * @param rays - the rays, up to 64 rays
+     * @throws IllegalArgumentException if there are more than 64 rays
+     */
+    public RayPacket(Ray... rays) {
+        this(rays, 0, rays.length);
+    }
+
+    /**
+     * RayPacket constructor - creates packet of part of the given rays, without limit of distance
+     * @param rays - the array of rays
+     * @param from - the position of the first ray of the packet in the array
+     * @param size - the number of rays in the packet, up to 64
+     * @throws IllegalArgumentException if there are more than 64 rays
+     */
+    public RayPacket(Ray[] rays, int from, int size) {
+        if (size > MAX_SIZE)
+            throw new IllegalArgumentException("A packet can hold up to " + MAX_SIZE + " rays");
+
+        this.rays = rays;
+        this.from = from;
+        this.size = size;
+        ox = new double[size];
+        oy = new double[size];
+        oz = new double[size];
+        dx = new double[size];
+        dy = new double[size];
+        dz = new double[size];
+        ix = new double[size];
+        iy = new double[size];
+        iz = new double[size];
+        hits = new Hit[size];
+        for (int r = 0; r < size; r++) {
+            Double3 o = rays[from + r].getP0().getXyz();
+            Double3 d = rays[from + r].getDir().getXyz();
+            ox[r] = o.getD1();
+            oy[r] = o.getD2();
+            oz[r] = o.getD3();
+            dx[r] = d.getD1();
+            dy[r] = d.getD2();
+            dz[r] = d.getD3();
+            ix[r] = 1 / dx[r];
+            iy[r] = 1 / dy[r];
+            iz[r] = 1 / dz[r];
+            hits[r] = new Hit(Double.POSITIVE_INFINITY);
+        }
+    }
+
+    /**
+     * This method returns the number of rays in the packet
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns one ray of the packet
+     * @param r - the index of the ray in the packet
+     * @return Ray
+     */
+    public Ray getRay(int r) {
+        return rays[from + r];
+    }
+
+    /**
+     * This method returns the mask of all the rays of the packet
+     * @return long - bit for each ray of the packet
+     */
+    public long mask() {
+        return size == MAX_SIZE ? -1L : (1L << size) - 1;
+    }
+
+    /**
+     * This method returns the closest intersection of one ray of the packet which was found
+     * @param r - the index of the ray in the packet
+     * @return GeoPoint - the closest intersection, or null if the ray has no intersection
+     */
+    public GeoPoint getClosestIntersection(int r) {
+        return hits[r].toGeoPoint(getRay(r));
+    }
+
+    /**
+     * Function boxMask finds the active rays which pass through a box in array of boxes,
+     * before their closest intersection which was found so far
+     * @param bounds - the array of boxes
+     * @param i - the index of the box
+     * @param mask - the active rays
+     * @return long - the mask of the active rays which pass through the box
+     */
+    long boxMask(double[] bounds, int i, long mask) {
+        long result = 0;
+        for (long m = mask; m != 0; m &= m - 1) {
+            int r = Long.numberOfTrailingZeros(m);
+            if (BoundingBox.intersects(bounds, i, ox[r], oy[r], oz[r], ix[r], iy[r], iz[r], hits[r].t))
+                result |= 1L << r;
+        }
+        return result;
+    }
+}
@@ -11,6 +11,10 @@ import java.util.*;
  * @author Rivka Sheiner
  */
 public class Sphere extends Geometry{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * the center point of the sphere
      */
@@ -51,6 +55,12 @@ public class Sphere extends Geometry{
         return (p.subtract(this.center)).normalize();
     }
 
+    @Override
+    public BoundingBox getBoundingBox() {
+        double x = center.getXyz().getD1(), y = center.getXyz().getD2(), z = center.getXyz().getD3();
+        return new BoundingBox(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius);
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
 
@@ -65,24 +75,38 @@ public class Sphere extends Geometry{
         if(!t1gz && !t2gz)
             return null;
 
-        List<Point> points = new LinkedList<>();
+        List<GeoPoint> geoPoints = new LinkedList<GeoPoint>();
         if(t1gz)
-            if(ray.getDir().dotProduct(ray.getPoint(t1).subtract(this.center)) != 0)
-                points.add(ray.getPoint(t1));
+            addIntersection(ray, t1, geoPoints);
         if(t2gz)
-            if(ray.getDir().dotProduct(ray.getPoint(t2).subtract(this.center)) != 0)
-                points.add(ray.getPoint(t2));
+            addIntersection(ray, t2, geoPoints);
 
-        List<GeoPoint> geoPoints = new LinkedList<GeoPoint>();
-        if(points.size() > 0 ){
-            for(int i = 0; i < points.size(); i++){
-                geoPoints.add(new GeoPoint(this,points.get(i)));
-            }
-            return geoPoints;
-        }
+        return geoPoints.size() > 0 ? geoPoints : null;
 
-        return null;
+    }
 
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 dir = ray.getDir().getXyz();
+        Double3 c = this.center.getXyz();
+
+        double ux = c.getD1() - o.getD1(), uy = c.getD2() - o.getD2(), uz = c.getD3() - o.getD3();
+        double tm = dir.getD1() * ux + dir.getD2() * uy + dir.getD3() * uz;
+        double dSquared = ux * ux + uy * uy + uz * uz - tm * tm;
+        double thSquared = this.radius * this.radius - dSquared;
+        if (thSquared <= 0) // the ray's line is outside the sphere or tangent to it
+            return false;
+
+        double th = Math.sqrt(thSquared);
+        double t = tm - th; // the closer intersection
+        if (t <= 0)
+            t = tm + th;
+        if (t <= 0 || t >= hit.t)
+            return false;
+
+        hit.set(this, t);
+        return true;
     }
 
     /**
@@ -99,33 +123,31 @@ public class Sphere extends Geometry{
         double th = Math.sqrt(this.radius*this.radius - d*d);
         double t1 = tm + th;
         double t2 = tm - th;
-        boolean t1gz = t1 > 0, t2gz = t2 > 0;
+        // the points are created only for the intersections which are not further than max distance
+        boolean t1gz = t1 > 0 && t1 <= maxDistance, t2gz = t2 > 0 && t2 <= maxDistance;
 
         if(!t1gz && !t2gz)
             return null;
 
-        List<Point> points = new LinkedList<>();
+        List<GeoPoint> geoPoints = new LinkedList<GeoPoint>();
         if(t1gz)
-            if(ray.getDir().dotProduct(ray.getPoint(t1).subtract(this.center)) != 0)
-                points.add(ray.getPoint(t1));
+            addIntersection(ray, t1, geoPoints);
         if(t2gz)
-            if(ray.getDir().dotProduct(ray.getPoint(t2).subtract(this.center)) != 0)
-                points.add(ray.getPoint(t2));
+            addIntersection(ray, t2, geoPoints);
 
-        List<GeoPoint> geoPoints = new LinkedList<GeoPoint>();
-        int counter = 0;
-        if(points.size() > 0 ){
-            for(int i = 0; i < points.size(); i++){
-                if(points.get(i).distance(ray.getP0()) <= maxDistance){
-                    geoPoints.add(new GeoPoint(this,points.get(i)));
-                    counter++;
-                }
-            }
-            if(counter > 0)
-                return geoPoints;
-        }
-
-        return null;
+        return geoPoints.size() > 0 ? geoPoints : null;
+    }
 
+    /**
+     * Function addIntersection is help function which adds the intersection point of the ray
+     * in distance t to the list, unless the ray is tangent to the sphere in this point
+     * @param ray - the ray imposed on the sphere
+     * @param t - the distance between the ray's head to the intersection point
+     * @param geoPoints - the list to which the intersection is added
+     */
+    private void addIntersection(Ray ray, double t, List<GeoPoint> geoPoints) {
+        Point point = ray.getPoint(t);
+        if(ray.getDir().dotProduct(point.subtract(this.center)) != 0)
+            geoPoints.add(new GeoPoint(this, point, t));
     }
 }
@@ -1,17 +1,17 @@
 package geometries;
 
 import primitives.Point;
-import primitives.Ray;
-import primitives.Vector;
-
-import java.util.LinkedList;
-import java.util.List;
 
 /**
- * Square class represents a square in 3D Cartesian coordinate
+ * Square class represents a square in 3D Cartesian coordinate.
+ * The intersections are calculated by Polygon, by the edges which are calculated in its constructor.
  * @author Rivka Sheiner
  */
 public class Square extends Polygon{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * Square parameters constructor
@@ -25,80 +25,4 @@ public class Square extends Polygon{
             throw new IllegalArgumentException("Square has to be consist of 4 vertices");
     }
 
-    @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> points = new LinkedList<>();
-
-        List<GeoPoint> temp = new Triangle(vertices.get(0), vertices.get(2),vertices.get(3)).findGeoIntersectionsHelper(ray);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-        temp = new Triangle(vertices.get(0), vertices.get(1),vertices.get(2)).findGeoIntersectionsHelper(ray);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-
-        temp = new Triangle(vertices.get(3), vertices.get(0),vertices.get(1)).findGeoIntersectionsHelper(ray);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-
-        temp = new Triangle(vertices.get(1), vertices.get(2),vertices.get(3)).findGeoIntersectionsHelper(ray);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-
-        if(points.size() > 0) {
-            return points;
-        }
-
-        return null;
-    }
-
-    @Override
-    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        List<GeoPoint> points = new LinkedList<>();
-
-        List<GeoPoint> temp = new Triangle(vertices.get(0), vertices.get(2),vertices.get(3)).findGeoIntersectionsHelper(ray, maxDistance);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-        temp = new Triangle(vertices.get(0), vertices.get(1),vertices.get(2)).findGeoIntersectionsHelper(ray, maxDistance);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-
-        temp = new Triangle(vertices.get(3), vertices.get(0),vertices.get(1)).findGeoIntersectionsHelper(ray, maxDistance);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-
-        temp = new Triangle(vertices.get(1), vertices.get(2),vertices.get(3)).findGeoIntersectionsHelper(ray, maxDistance);
-        if(temp != null){
-            for (GeoPoint p: temp) {
-                points.add(new GeoPoint(this, p.point));
-            }
-        }
-
-        if(points.size() > 0) {
-            return points;
-        }
-
-        return null;
-    }
-
 }
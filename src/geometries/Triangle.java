@@ -4,11 +4,37 @@ import primitives.*;
 
 import java.util.List;
 
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
 /**
  * Triangle class represents a polygon with 3 vertices
  * @author Rivka Sheiner
  */
 public class Triangle extends Polygon {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The coordinates of the first vertex of the triangle
+     */
+    private final double p0x, p0y, p0z;
+    /**
+     * The coordinates of the edge from the first vertex to the second vertex
+     */
+    private final double e1x, e1y, e1z;
+    /**
+     * The coordinates of the edge from the first vertex to the third vertex
+     */
+    private final double e2x, e2y, e2z;
+    /**
+     * Indicate for each edge whether the points on it belong to the triangle when the ray sees the vertices
+     * counterclockwise (positive determinant) - the edge from the first vertex to the third vertex (u = 0),
+     * from the first vertex to the second vertex (v = 0) and from the second vertex to the third vertex
+     */
+    private final boolean ownsEdgeU, ownsEdgeV, ownsEdgeW;
+
     /**
      * Triangle parameters constructor
      * @param p1 first vertex of the triangle
@@ -17,79 +43,137 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3){
         super(p1,p2,p3);
+        Double3 v0 = p1.getXyz(), v1 = p2.getXyz(), v2 = p3.getXyz();
+        p0x = v0.getD1();
+        p0y = v0.getD2();
+        p0z = v0.getD3();
+        e1x = v1.getD1() - p0x;
+        e1y = v1.getD2() - p0y;
+        e1z = v1.getD3() - p0z;
+        e2x = v2.getD1() - p0x;
+        e2y = v2.getD2() - p0y;
+        e2z = v2.getD3() - p0z;
+        // a triangle owns the points on an edge if its third vertex is on the positive side of the edge,
+        // when the edge is directed from its smaller vertex - so another triangle with this edge,
+        // which is on the other side of it, does not own them, and there is no seam and no double hit
+        ownsEdgeU = !isSmaller(v2, v0);
+        ownsEdgeV = isSmaller(v1, v0);
+        ownsEdgeW = isSmaller(v2, v1);
+    }
+
+    /**
+     * Function isSmaller compares two vertices by their coordinates, the first coordinate first
+     * @param a - the first vertex
+     * @param b - the second vertex
+     * @return true if the first vertex is smaller
+     */
+    private static boolean isSmaller(Double3 a, Double3 b) {
+        if(a.getD1() != b.getD1())
+            return a.getD1() < b.getD1();
+        if(a.getD2() != b.getD2())
+            return a.getD2() < b.getD2();
+        return a.getD3() < b.getD3();
+    }
+
+    /**
+     * Function isOnEdge checks whether a point on an edge of the triangle (up to rounding) is inside
+     * the triangle - if the triangle owns the edge, or if the point is on the inner side of the edge,
+     * by the cross product of the edge and the vector from its first vertex to the point
+     * (the point is not on the inner side if it is exactly on the line of the edge)
+     * @param ownsEdge - true if the triangle owns the edge for the ray
+     * @param point - the intersection point of the ray with the plane of the triangle, found by the plane
+     * @param edge - the index of the first vertex of the edge
+     * @return true if the point is inside the triangle by this edge
+     */
+    private boolean isOnEdge(boolean ownsEdge, Point point, int edge) {
+        if(ownsEdge)
+            return true;
+        Double3 a = vertices.get(edge).getXyz(), b = vertices.get((edge + 1) % 3).getXyz(), p = point.getXyz();
+        double ex = b.getD1() - a.getD1(), ey = b.getD2() - a.getD2(), ez = b.getD3() - a.getD3();
+        double wx = p.getD1() - a.getD1(), wy = p.getD2() - a.getD2(), wz = p.getD3() - a.getD3();
+        double cx = ey * wz - ez * wy, cy = ez * wx - ex * wz, cz = ex * wy - ey * wx;
+        if(isZero(cx) && isZero(cy) && isZero(cz))
+            return false;
+        Double3 n = plane.getNormal().getXyz();
+        return n.getD1() * cx + n.getD2() * cy + n.getD3() * cz >= 0;
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> points = this.plane.findGeoIntersections(ray);
-        if(points == null)
-            return null;
-
-        GeoPoint p = points.get(0); // the intersection point with the plane of the triangle
-
-        try{
-            //edge 0
-            Vector c = new Vector(1,1,1);
-            Vector edge0 = this.vertices.get(1).subtract(this.vertices.get(0));
-            Vector vp0 = p.point.subtract(this.vertices.get(0));
-            c = edge0.crossProduct(vp0);
-            if(this.plane.getNormal().dotProduct(c) < 0) return null; //p is on the right side
-
-            //edge 1
-            Vector edge1 = this.vertices.get(2).subtract(this.vertices.get(1));
-            Vector vp1 = p.point.subtract(this.vertices.get(1));
-            c = edge1.crossProduct(vp1);
-            if(this.plane.getNormal().dotProduct(c) < 0) return null; //p is on the right side
-
-            //edge 2
-            Vector edge2 = this.vertices.get(0).subtract(this.vertices.get(2));
-            Vector vp2 = p.point.subtract(this.vertices.get(2));
-            c = edge2.crossProduct(vp2);
-            if(this.plane.getNormal().dotProduct(c) < 0) return null; //p is on the right side
-
-            return List.of(new GeoPoint(this, points.get(0).point));
-        }
-        catch(IllegalArgumentException ie){
+        double t = findIntersectionDistance(ray);
+        if(Double.isNaN(t))
             return null;
-        }
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance){
-        List<GeoPoint> points = this.plane.findGeoIntersections(ray);
-        if(points == null)
+        double t = findIntersectionDistance(ray);
+        if(!(t <= maxDistance))
             return null;
+        return List.of(new GeoPoint(this, ray.getPoint(t), t));
+    }
 
-        GeoPoint p = points.get(0); // the intersection point with the plane of the triangle
-
-        try{
-            //edge 0
-            Vector c = new Vector(1,1,1);
-            Vector edge0 = this.vertices.get(1).subtract(this.vertices.get(0));
-            Vector vp0 = p.point.subtract(this.vertices.get(0));
-            c = edge0.crossProduct(vp0);
-            if(this.plane.getNormal().dotProduct(c) < 0) return null; //p is on the right side
-
-            //edge 1
-            Vector edge1 = this.vertices.get(2).subtract(this.vertices.get(1));
-            Vector vp1 = p.point.subtract(this.vertices.get(1));
-            c = edge1.crossProduct(vp1);
-            if(this.plane.getNormal().dotProduct(c) < 0) return null; //p is on the right side
-
-            //edge 2
-            Vector edge2 = this.vertices.get(0).subtract(this.vertices.get(2));
-            Vector vp2 = p.point.subtract(this.vertices.get(2));
-            c = edge2.crossProduct(vp2);
-            if(this.plane.getNormal().dotProduct(c) < 0) return null; //p is on the right side
-
-            if(points.get(0).point.distance(ray.getP0()) <= maxDistance)
-                return List.of(new GeoPoint(this, points.get(0).point));
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        double t = findIntersectionDistance(ray);
+        if(!(t < hit.t))
+            return false;
+        hit.set(this, t);
+        return true;
+    }
 
-            return null;
-        }
-        catch(IllegalArgumentException ie){
-            return null;
+    /**
+     * This method calculates the distance between the ray's head to the intersection point
+     * of the ray with the triangle by the Möller–Trumbore algorithm, with the edges which were
+     * calculated in the constructor - one test of the barycentric coordinates of the point,
+     * without creating any object and without exceptions.
+     * A point on an edge (up to rounding) is inside the triangle which owns the edge - the one of the two
+     * triangles with this edge which is on its positive side, as the ray sees it - so a ray along a common
+     * edge always hits a triangle and the edges do not leave seams. In the other triangle it is inside
+     * only if it is on the inner side of the edge, and the points exactly on the edge are outside.
+     * @param ray - the ray imposed on the triangle
+     * @return double - the distance, or Double.NaN if the ray does not intersect the triangle
+     */
+    double findIntersectionDistance(Ray ray) {
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        double dx = d.getD1(), dy = d.getD2(), dz = d.getD3();
+
+        // p = d x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if(isZero(det)) // the ray is parallel to the triangle
+            return Double.NaN;
+        double inv = 1 / det;
+
+        double sx = o.getD1() - p0x, sy = o.getD2() - p0y, sz = o.getD3() - p0z;
+        double u = (sx * px + sy * py + sz * pz) * inv;
+        if(u < 0 && !isZero(u) || u > 1 && !isZero(u - 1))
+            return Double.NaN;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inv;
+        double w = 1 - u - v;
+        if(v < 0 && !isZero(v) || w < 0 && !isZero(w))
+            return Double.NaN;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        if(t <= 0)
+            return Double.NaN;
+
+        // the point is on an edge (up to rounding) - the edges of u, v and w begin in the third,
+        // the first and the second vertex
+        if(isZero(u) || isZero(v) || isZero(w)) {
+            boolean positive = det > 0;
+            Point point = ray.getPoint(plane.findIntersectionDistance(ray));
+            if(isZero(u) && !isOnEdge(ownsEdgeU == positive, point, 2)
+                    || isZero(v) && !isOnEdge(ownsEdgeV == positive, point, 0)
+                    || isZero(w) && !isOnEdge(ownsEdgeW == positive, point, 1))
+                return Double.NaN;
         }
+        return t;
     }
 
 }
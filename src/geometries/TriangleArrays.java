@@ -0,0 +1,122 @@
+package geometries;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+import java.io.Serializable;
+
+/**
+ * TriangleArrays class keeps triangles as structure of arrays - one array for each coordinate
+ * of the first vertex and of the two edges from it, so the same coordinate of consecutive
+ * triangles is consecutive in memory and can be loaded into one vector register.
+ * The arrays are padded by the widest vector after the last triangle, and the padding triangles
+ * are empty (all zeros), so vector kernels which start at any triangle never read outside the arrays.
+ * @author Rivka Sheiner
+ */
+final class TriangleArrays implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The max number of lanes of double in a vector register (AVX-512)
+     */
+    static final int MAX_LANES = 8;
+
+    /**
+     * The coordinates of the first vertex of the triangles
+     */
+    final double[] p0x, p0y, p0z;
+    /**
+     * The coordinates of the edge from the first vertex to the second vertex
+     */
+    final double[] e1x, e1y, e1z;
+    /**
+     * The coordinates of the edge from the first vertex to the third vertex
+     */
+    final double[] e2x, e2y, e2z;
+    /**
+     * The number of triangles
+     */
+    final int size;
+
+    /**
+     * TriangleArrays constructor - creates arrays of empty triangles
+     * @param size - the number of triangles
+     */
+    TriangleArrays(int size) {
+        this.size = size;
+        int length = size + MAX_LANES - 1;
+        p0x = new double[length];
+        p0y = new double[length];
+        p0z = new double[length];
+        e1x = new double[length];
+        e1y = new double[length];
+        e1z = new double[length];
+        e2x = new double[length];
+        e2y = new double[length];
+        e2z = new double[length];
+    }
+
+    /**
+     * This method sets one triangle by its vertices
+     * @param i - the index of the triangle
+     * @param vertices - the coordinates of the vertices - 3 values (x,y,z) for each vertex
+     * @param v0 - the index of the first vertex of the triangle
+     * @param v1 - the index of the second vertex of the triangle
+     * @param v2 - the index of the third vertex of the triangle
+     */
+    void set(int i, double[] vertices, int v0, int v1, int v2) {
+        p0x[i] = vertices[v0 * 3];
+        p0y[i] = vertices[v0 * 3 + 1];
+        p0z[i] = vertices[v0 * 3 + 2];
+        e1x[i] = vertices[v1 * 3] - p0x[i];
+        e1y[i] = vertices[v1 * 3 + 1] - p0y[i];
+        e1z[i] = vertices[v1 * 3 + 2] - p0z[i];
+        e2x[i] = vertices[v2 * 3] - p0x[i];
+        e2y[i] = vertices[v2 * 3 + 1] - p0y[i];
+        e2z[i] = vertices[v2 * 3 + 2] - p0z[i];
+    }
+
+    /**
+     * Function intersect calculates the intersection of a ray with one triangle
+     * by the Möller–Trumbore algorithm, with the edges which were calculated in advance.
+     * Points on the edges of the triangle are considered inside the triangle, so rays do not pass
+     * between neighbouring triangles of a mesh.
+     * @param i - the index of the triangle
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param dx - x coordinate of the ray's direction
+     * @param dy - y coordinate of the ray's direction
+     * @param dz - z coordinate of the ray's direction
+     * @param maxDistance - the max distance between the intersection point to the ray's head
+     * @return double - the distance of the intersection from the ray's head, or -1 if there is
+     * no intersection in front of the ray's head which is closer than max distance
+     */
+    double intersect(int i, double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance) {
+        double ax = e1x[i], ay = e1y[i], az = e1z[i];
+        double bx = e2x[i], by = e2y[i], bz = e2z[i];
+
+        // p = d x e2
+        double px = dy * bz - dz * by, py = dz * bx - dx * bz, pz = dx * by - dy * bx;
+        double det = ax * px + ay * py + az * pz;
+        if (isZero(det)) // the ray is parallel to the triangle
+            return -1;
+        double inv = 1 / det;
+
+        double sx = ox - p0x[i], sy = oy - p0y[i], sz = oz - p0z[i];
+        double u = (sx * px + sy * py + sz * pz) * inv;
+        if (u < 0 || u > 1)
+            return -1;
+
+        // q = s x e1
+        double qx = sy * az - sz * ay, qy = sz * ax - sx * az, qz = sx * ay - sy * ax;
+        double v = (dx * qx + dy * qy + dz * qz) * inv;
+        if (v < 0 || u + v > 1)
+            return -1;
+
+        double t = alignZero((bx * qx + by * qy + bz * qz) * inv);
+        return t > 0 && t < maxDistance ? t : -1;
+    }
+}
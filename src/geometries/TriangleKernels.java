@@ -0,0 +1,120 @@
+package geometries;
+
+import geometries.Intersectable.Hit;
+
+/**
+ * TriangleKernels class represents the tests of one ray against a range of triangles which are
+ * kept in TriangleArrays. The scalar kernels test the triangles one after the other.
+ * When the JDK Vector API (module jdk.incubator.vector) is available at run time, the vector
+ * kernels (class VectorTriangleKernels, in the optional source folder src-vector) test several
+ * triangles in each instruction, with the same results as the scalar kernels.
+ * The kernels are chosen once, and the scalar kernels can be forced by the system
+ * property geometries.kernels=scalar.
+ * @author Rivka Sheiner
+ */
+abstract class TriangleKernels {
+    /**
+     * The name of the class of the vector kernels
+     */
+    private static final String VECTOR_KERNELS = "geometries.VectorTriangleKernels";
+    /**
+     * The name of the module of the Vector API
+     */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The kernels which are used for the intersections of triangles
+     */
+    static final TriangleKernels KERNELS = load();
+
+    /**
+     * Function findClosest searches the closest intersection of the ray with a range of triangles,
+     * which is closer than the intersection in the hit record, and updates the distance of the record
+     * @param triangles - the triangles
+     * @param start - the index of the first triangle of the range
+     * @param end - the index after the last triangle of the range
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param dx - x coordinate of the ray's direction
+     * @param dy - y coordinate of the ray's direction
+     * @param dz - z coordinate of the ray's direction
+     * @param hit - the closest intersection which was found so far, its distance is updated
+     * @return int - the index of the closest triangle, or -1 if there is no closer intersection
+     */
+    abstract int findClosest(TriangleArrays triangles, int start, int end, double ox, double oy, double oz,
+                             double dx, double dy, double dz, Hit hit);
+
+    /**
+     * Function findAny checks whether the ray intersects one of a range of triangles before max distance
+     * @param triangles - the triangles
+     * @param start - the index of the first triangle of the range
+     * @param end - the index after the last triangle of the range
+     * @param ox - x coordinate of the ray's head
+     * @param oy - y coordinate of the ray's head
+     * @param oz - z coordinate of the ray's head
+     * @param dx - x coordinate of the ray's direction
+     * @param dy - y coordinate of the ray's direction
+     * @param dz - z coordinate of the ray's direction
+     * @param maxDistance - the max distance between the intersection point to the ray's head
+     * @return true if the ray intersects one of the triangles
+     */
+    abstract boolean findAny(TriangleArrays triangles, int start, int end, double ox, double oy, double oz,
+                             double dx, double dy, double dz, double maxDistance);
+
+    /**
+     * This method returns the name of the kernels, for reports of performance
+     * @return String
+     */
+    abstract String getName();
+
+    /**
+     * Function load chooses the kernels - the vector kernels if they were compiled and the module
+     * of the Vector API is loaded (java --add-modules jdk.incubator.vector), otherwise the scalar kernels
+     * @return TriangleKernels
+     */
+    private static TriangleKernels load() {
+        if (!"scalar".equals(System.getProperty("geometries.kernels"))
+                && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                return (TriangleKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // the vector kernels were not compiled into this build
+            }
+        }
+        return new Scalar();
+    }
+
+    /**
+     * Scalar class represents the kernels which test the triangles one after the other
+     */
+    static final class Scalar extends TriangleKernels {
+        @Override
+        int findClosest(TriangleArrays triangles, int start, int end, double ox, double oy, double oz,
+                        double dx, double dy, double dz, Hit hit) {
+            int closest = -1;
+            for (int i = start; i < end; i++) {
+                double t = triangles.intersect(i, ox, oy, oz, dx, dy, dz, hit.t);
+                if (t > 0) {
+                    hit.t = t;
+                    closest = i;
+                }
+            }
+            return closest;
+        }
+
+        @Override
+        boolean findAny(TriangleArrays triangles, int start, int end, double ox, double oy, double oz,
+                        double dx, double dy, double dz, double maxDistance) {
+            for (int i = start; i < end; i++)
+                if (triangles.intersect(i, ox, oy, oz, dx, dy, dz, maxDistance) > 0)
+                    return true;
+            return false;
+        }
+
+        @Override
+        String getName() {
+            return "scalar";
+        }
+    }
+}
@@ -11,6 +11,10 @@ import java.util.List;
  * @author Rivka Sheiner
  */
 public class Tube extends Geometry{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * the straight line in the center of the tube
      */
@@ -59,6 +63,15 @@ public class Tube extends Geometry{
         return p.subtract(o).normalize();
     }
 
+    /**
+     * The tube is infinite, so it is not bounded in any box
+     * @return null
+     */
+    @Override
+    public BoundingBox getBoundingBox() {
+        return null;
+    }
+
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
         double delta, a, b, c;
@@ -82,7 +95,63 @@ public class Tube extends Geometry{
 
         if (t2 < 0) return null;
 
-        return List.of(new GeoPoint(this, ray.getPoint(t1)),new GeoPoint(this, ray.getPoint(t2)));
+        return List.of(new GeoPoint(this, ray.getPoint(t1), t1),new GeoPoint(this, ray.getPoint(t2), t2));
+    }
+
+    @Override
+    protected boolean findClosestIntersectionHelper(Ray ray, Hit hit) {
+        // the same equation as in findGeoIntersectionsHelper, calculated without creating objects
+        Double3 o = ray.getP0().getXyz();
+        Double3 d = ray.getDir().getXyz();
+        Double3 rot = this.axisRay.getDir().getXyz();
+        Double3 a0 = this.axisRay.getP0().getXyz();
+
+        double wx = d.getD2() * rot.getD3() - d.getD3() * rot.getD2();
+        double wy = d.getD3() * rot.getD1() - d.getD1() * rot.getD3();
+        double wz = d.getD1() * rot.getD2() - d.getD2() * rot.getD1();
+        double wLength = Math.sqrt(wx * wx + wy * wy + wz * wz);
+        if (wLength == 0) // the ray is parallel to the axis
+            return false;
+        wx /= wLength;
+        wy /= wLength;
+        wz /= wLength;
+
+        double cx = o.getD1() - a0.getD1(), cy = o.getD2() - a0.getD2(), cz = o.getD3() - a0.getD3();
+        double kx = cy * rot.getD3() - cz * rot.getD2();
+        double ky = cz * rot.getD1() - cx * rot.getD3();
+        double kz = cx * rot.getD2() - cy * rot.getD1();
+
+        double a = wx * wx + wy * wy + wz * wz;
+        double b = 2 * (wx * kx + wy * ky + wz * kz);
+        double c = kx * kx + ky * ky + kz * kz - this.radius * this.radius;
+        double delta = b * b - 4 * c * a;
+        if (delta < 0)
+            return false;
+
+        double t1 = (-b - Math.sqrt(delta)) / (2 * a);
+        double t2 = (-b + Math.sqrt(delta)) / (2 * a);
+
+        if (t1 > 0 && t1 < hit.t && isInRange(ray, t1)) {
+            hit.set(this, t1);
+            return true;
+        }
+        if (t2 > 0 && t2 < hit.t && isInRange(ray, t2)) {
+            hit.set(this, t2);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method checks whether the point of the ray in distance t, which is on the
+     * surface of the tube, is in the part of the tube which belongs to the geometry.
+     * For infinite tube all the points belong to the geometry.
+     * @param ray - the ray
+     * @param t - the distance of the point from the ray's head
+     * @return true if the point belongs to the geometry
+     */
+    protected boolean isInRange(Ray ray, double t) {
+        return true;
     }
 
     /**
@@ -115,12 +184,11 @@ public class Tube extends Geometry{
         if (t2 < 0) return null;
 
         List<GeoPoint> intersections = new LinkedList<>();
-        Point point = ray.getPoint(t1);
-        if (point.distance(ray.getP0()) <= maxDistance)
-            intersections.add(new GeoPoint(this, point));
-        point = ray.getPoint(t2);
-        if (point.distance(ray.getP0()) <= maxDistance)
-            intersections.add(new GeoPoint(this, point));
+        // the distance of a point behind the ray's head is the absolute value of its parameter
+        if (Math.abs(t1) <= maxDistance)
+            intersections.add(new GeoPoint(this, ray.getPoint(t1), t1));
+        if (Math.abs(t2) <= maxDistance)
+            intersections.add(new GeoPoint(this, ray.getPoint(t2), t2));
 
         if (intersections.size() > 0)
             return intersections;
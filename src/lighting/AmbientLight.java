@@ -7,6 +7,10 @@ import primitives.*;
  * @author Rivka Sheiner
  */
 public class AmbientLight extends Light {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
 
     /**
@@ -7,6 +7,10 @@ import primitives.*;
  *  * @author Rivka Sheiner
  */
 public class DirectionalLight extends Light implements LightSource{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The direction vector of the directional light
@@ -23,6 +27,14 @@ public class DirectionalLight extends Light implements LightSource{
         this.direction = direction;
     }
 
+    /**
+     * This method returns the direction vector of the directional light
+     * @return Vector
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
     @Override
     public Color getIntensity(Point p){
         return this.getIntensity();
@@ -1,12 +1,17 @@
 package lighting;
 
 import primitives.*;
+import java.io.Serializable;
 
 /**
  * Light class represents a light in the scene
  * @author Rivka Sheiner
  */
-abstract class Light {
+abstract class Light implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The intensity of the light in the source
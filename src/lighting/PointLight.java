@@ -7,6 +7,10 @@ import primitives.*;
  * @author Rivka Sheiner
  */
 public class PointLight extends Light implements LightSource{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The location of the point light
@@ -68,6 +72,38 @@ public class PointLight extends Light implements LightSource{
         return this;
     }
 
+    /**
+     * This method returns the location of the point light
+     * @return Point
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * This method returns the constant factor of attenuation - kC
+     * @return double
+     */
+    public double getKc() {
+        return kC;
+    }
+
+    /**
+     * This method returns the linear factor of attenuation - kL
+     * @return double
+     */
+    public double getKl() {
+        return kL;
+    }
+
+    /**
+     * This method returns the quadratic factor of attenuation - kQ
+     * @return double
+     */
+    public double getKq() {
+        return kQ;
+    }
+
     @Override
     public Color getIntensity(Point p){
         double d = p.distance(position);
@@ -7,9 +7,13 @@ import primitives.*;
  * @author Rivka Sheiner
  */
 public class SpotLight extends PointLight{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
-     * The direction vector of the spotlight
+     * The direction vector of the spotlight (normalized)
      */
     private Vector direction;
 
@@ -21,12 +25,21 @@ public class SpotLight extends PointLight{
      */
     public SpotLight(Color intensity, Point position, Vector direction) {
         super(intensity, position);
-        this.direction = direction;
+        this.direction = direction.normalize();
+    }
+
+    /**
+     * This method returns the direction vector of the spotlight
+     * @return Vector
+     */
+    public Vector getDirection() {
+        return direction;
     }
 
     @Override
     public Color getIntensity(Point p){
-        double factor = Math.max(0, direction.normalize().dotProduct(getL(p).normalize()));
+        Vector l = getL(p);
+        double factor = Math.max(0, direction.dotProduct(l) / l.length());
         return super.getIntensity(p).scale(factor);
     }
 
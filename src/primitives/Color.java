@@ -1,5 +1,7 @@
 package primitives;
 
+import java.io.Serializable;
+
 /**
  * Wrapper class for java.jwt.Color The constructors operate with any
  * non-negative RGB values. The colors are maintained without upper limit of
@@ -8,7 +10,11 @@ package primitives;
  *
  * @author Dan Zilberstein
  */
-public class Color {
+public class Color implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * The internal fields tx`o maintain RGB components as double numbers from 0 to
      * whatever...
@@ -76,6 +82,15 @@ public class Color {
         return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
     }
 
+    /**
+     * RGB components getter - returns the components without the limit of 255
+     *
+     * @return Double3 of the Red/Green/Blue components
+     */
+    public Double3 getRgb() {
+        return rgb;
+    }
+
     /**
      * Operation of adding this and one or more other colors (by component)
      *
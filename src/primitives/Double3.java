@@ -5,12 +5,18 @@ package primitives;
 
 import static primitives.Util.*;
 
+import java.io.Serializable;
+
 /**
  * This class will serve all primitive classes based on three numbers
  *
  * @author Dan Zilberstein
  */
-public class Double3 {
+public class Double3 implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     final double d1;
     final double d2;
     final double d3;
@@ -1,10 +1,16 @@
 package primitives;
 
+import java.io.Serializable;
+
 /**
  * Material class represents the material from which a geometric body is made
  * @author Rivka Sheiner
  */
-public class Material {
+public class Material implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * Diffusional factor of attenuation of the material
      */
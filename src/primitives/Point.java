@@ -2,11 +2,17 @@ package primitives;
 
 import static primitives.Util.isZero;
 
+import java.io.Serializable;
+
 /**
  * Point class represents point with 3 coordinates
  * @author Rivka Sheiner
  */
-public class Point {
+public class Point implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * the point with 3 coordinates
      */
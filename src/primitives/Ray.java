@@ -2,12 +2,17 @@ package primitives;
 
 import java.util.List;
 import geometries.Intersectable.GeoPoint;
+import java.io.Serializable;
 
 /**
  * Ray class represents ש line drawn from a certain point to infinity in only one direction
  * @author Rivka Sheiner
  */
-public class Ray {
+public class Ray implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * the start point of the ray
      */
@@ -1,10 +1,16 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * Vector class represents a vector that starts in (0,0,0) and ends on specific point
  * @author Rivka Sheiner
  */
 public class Vector extends Point{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
     /**
      * Vector constructor based on 3 coordinates of the end point of the vector
      * @param x - first coordinate of end point
@@ -14,7 +20,7 @@ public class Vector extends Point{
      */
     public Vector(double x, double y, double z) throws IllegalArgumentException {
         super(x,y,z);
-        if(this.xyz.equals(Double3.ZERO))
+        if(isZero(x) && isZero(y) && isZero(z))
             throw new IllegalArgumentException("zero vector is illegal");
     }
 
@@ -25,7 +31,7 @@ public class Vector extends Point{
      */
     Vector(Double3 double3) throws IllegalArgumentException {
         super(double3);
-        if(double3.equals(Double3.ZERO))
+        if(isZero(double3.d1) && isZero(double3.d2) && isZero(double3.d3))
             throw new IllegalArgumentException("zero vector is illegal");
     }
 
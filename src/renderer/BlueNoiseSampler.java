@@ -0,0 +1,58 @@
+package renderer;
+
+import java.util.Random;
+
+/**
+ * BlueNoiseSampler class takes points with blue noise distribution - random points which are not close to
+ * each other - by the best candidate algorithm: each point is the farthest (toroidally) from the former
+ * points among several random candidates. The points are slower to create than the points of the other
+ * samplers (quadratic in their number), but they have no regular pattern.
+ * @author Rivka Sheiner
+ */
+public class BlueNoiseSampler extends Sampler {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The number of candidates for each point
+     */
+    private static final int CANDIDATES = 10;
+
+    @Override
+    protected void fill(Random random, int count, double[] points) {
+        for (int k = 0; k < count; k++) {
+            double bestX = 0, bestY = 0, bestDistance = -1;
+            for (int c = 0; c < CANDIDATES; c++) {
+                double x = random.nextDouble(), y = random.nextDouble();
+                double distance = closestDistance(points, k, x, y);
+                if (distance > bestDistance) {
+                    bestX = x;
+                    bestY = y;
+                    bestDistance = distance;
+                }
+            }
+            points[2 * k] = bestX;
+            points[2 * k + 1] = bestY;
+        }
+    }
+
+    /**
+     * Function closestDistance finds the squared toroidal distance of a candidate from the closest point
+     * @param points - the points
+     * @param count - the number of the points
+     * @param x - the X coordinate of the candidate
+     * @param y - the Y coordinate of the candidate
+     * @return double - the squared distance, infinity if there are no points
+     */
+    private static double closestDistance(double[] points, int count, double x, double y) {
+        double closest = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < count; k++) {
+            double dx = Math.abs(points[2 * k] - x), dy = Math.abs(points[2 * k + 1] - y);
+            dx = Math.min(dx, 1 - dx);
+            dy = Math.min(dy, 1 - dy);
+            closest = Math.min(closest, dx * dx + dy * dy);
+        }
+        return closest;
+    }
+}
@@ -1,21 +1,47 @@
 package renderer;
 
+import geometries.IntersectionMetrics;
+import geometries.RayPacket;
 import primitives.*;
 
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.PriorityQueue;
 import java.lang.UnsupportedOperationException;
 import java.util.Random;
-import java.util.stream.IntStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Camera class represents the camera which takes the picture
+ * Camera class represents the camera which takes the picture.
+ * The camera is serializable together with its ray tracer and scene, for rendering on other
+ * machines (RenderCoordinator), without its image writer and the state of its current rendering.
  * @author Rivka Sheiner
  */
-public class Camera {
+public class Camera implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     //------------------------------------------ fields -----------------------------------------------------
+    /**
+     * the maximal level of recursion of ASS, which keeps the indexes of the lattice of the corners in long
+     */
+    public static final int MAX_ADAPTIVE_DEPTH = 10;
     /**
      * the location of the camera
      */
@@ -47,7 +73,7 @@ public class Camera {
     /**
      * the producer of the picture
      */
-    private ImageWriter imageWriter;
+    private transient ImageWriter imageWriter;
     /**
      * the base of the ray tracing for the camera
      */
@@ -70,13 +96,26 @@ public class Camera {
      */
     private double focalLength;
     /**
-     * the number of threads used for rendering the pictures
+     * the number of threads used for rendering the pictures, all the available processors by default
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    /**
+     * the length of the side of the square tiles which are handed out to the rendering threads
      */
-    private int numThreads = 1;
+    private int tileSize = TileScheduler.DEFAULT_TILE_SIZE;
     /**
-     * the maximal level of multi threading which can be used for rendering the pictures
+     * the length of the side of the square blocks of pixels whose rays are traced together
+     * as one packet, 1 for tracing the ray of each pixel separately
      */
-    private final int MAX_NUM_THREADS = 4;
+    private int packetSize = 1;
+    /**
+     * indicates whether the progress percentage of rendering is printed
+     */
+    private boolean isPrintProgress = false;
+    /**
+     * the scheduler of the current (or last) rendering of this camera
+     */
+    private transient volatile TileScheduler scheduler;
     /**
      * indicates whether we use the method of adaptive super sampling or not
      */
@@ -85,134 +124,76 @@ public class Camera {
      * the maximal difference between the average color to the color of the sample
      * for stopping of sampling in ASS
      */
-    private final int MAX_DIF = 10;
-
-
-
+    private double adaptiveThreshold = 10;
     /**
-     * Pixel is a helper class. It is used for multi-threading in the renderer and
-     * for follow up its progress.<br/>
-     * There is a main follow-up object and several secondary objects - one in each
-     * thread.
-     *
-     * @author Dan
-     *
+     * the maximal level of recursion in sampling of subpixels in ASS
      */
-    class Pixel {
-        private static int maxRows = 0;
-        private static int maxCols = 0;
-        private static long totalPixels = 0l;
-
-        private static volatile int cRow = 0;
-        private static volatile int cCol = -1;
-        private static volatile long pixels = 0l;
-        private static volatile long last = -1l;
-        private static volatile int lastPrinted = -1;
-
-        private static boolean print = false;
-        private static long printInterval = 100l;
-        private static final String PRINT_FORMAT = "%5.1f%%\r";
-        private static Object mutexNext = new Object();
-        private static Object mutexPixels = new Object();
-
-        int row;
-        int col;
-
-        /**
-         * Initialize pixel data for multi-threading
-         *
-         * @param maxRows  the amount of pixel rows
-         * @param maxCols  the amount of pixel columns
-         * @param interval print time interval in seconds, 0 if printing is not required
-         */
-        static void initialize(int maxRows, int maxCols, double interval) {
-            Pixel.maxRows = maxRows;
-            Pixel.maxCols = maxCols;
-            Pixel.totalPixels = (long) maxRows * maxCols;
-            cRow = 0;
-            cCol = -1;
-            pixels = 0;
-            printInterval = (int) (interval * 1000);
-            print = printInterval != 0;
-            last = -1l;
-        }
-
-        /**
-         * Function for thread-safe manipulating of main follow-up Pixel object - this
-         * function is critical section for all the threads, and static data is the
-         * shared data of this critical section.<br/>
-         * The function provides next available pixel number each call.
-         *
-         * @return true if next pixel is allocated, false if there are no more pixels
-         */
-        public boolean nextPixel() {
-            synchronized (mutexNext) {
-                if (cRow == maxRows)
-                    return false;
-                ++cCol;
-                if (cCol < maxCols) {
-                    row = cRow;
-                    col = cCol;
-                    return true;
-                }
-                cCol = 0;
-                ++cRow;
-                if (cRow < maxRows) {
-                    row = cRow;
-                    col = cCol;
-                    return true;
-                }
-                return false;
-            }
-        }
-
-        /**
-         * Finish pixel processing
-         */
-        static void pixelDone() {
-            synchronized (mutexPixels) {
-                ++pixels;
-            }
-        }
-
-        /**
-         * Wait for all pixels to be done and print the progress percentage - must be
-         * run from the main thread
-         */
-        public static void waitToFinish() {
-            if (print)
-                System.out.printf(PRINT_FORMAT, 0d);
-
-            while (last < totalPixels) {
-                printPixel();
-                try {
-                    Thread.sleep(printInterval);
-                } catch (InterruptedException ignore) {
-                    if (print)
-                        System.out.print("");
-                }
-            }
-            if (print)
-                System.out.println("100.0%");
-        }
+    private int adaptiveMaxDepth = 5;
+    /**
+     * the minimal time in milliseconds between two intermediate images of progressive rendering,
+     * 0 for publishing the image after each pass
+     */
+    private long publishInterval = 0;
+    /**
+     * indicates whether the current progressive rendering of this camera was stopped
+     */
+    private volatile boolean isStopped;
+    /**
+     * the file of the checkpoints of renderImage, null for rendering without checkpoints
+     */
+    private transient Path checkpointFile;
+    /**
+     * the minimal time in milliseconds between two checkpoints
+     */
+    private long checkpointInterval;
+    /**
+     * the measure of the cost of the pixels for the heatmap of renderImage, null for rendering without heatmap
+     */
+    private CostHeatmap.Metric heatmapMetric;
+    /**
+     * the heatmap of the cost of the pixels of the last renderImage, null if it was not measured
+     */
+    private transient volatile CostHeatmap heatmap;
+    /**
+     * the pattern of the samples of anti aliasing and depth of field
+     */
+    private Sampler sampler = new StratifiedSampler();
+    /**
+     * the number of samples of the first batch of each pixel in variance driven sampling,
+     * 0 for taking all the samples of each pixel
+     */
+    private int pilotSamples = 0;
+    /**
+     * the standard error of the color of a pixel under which its sampling is stopped in variance driven sampling
+     */
+    private double targetNoise;
+    /**
+     * the average number of samples of a pixel in variance driven sampling, 0 for no limit except numSamples
+     */
+    private double sampleBudget = 0;
+    /**
+     * the samples of the budget which the tiles of the current rendering did not spend, for the next tiles,
+     * null if they are not shared
+     */
+    private transient AtomicLong spareSamples;
 
+    /**
+     * ProgressListener interface represents the receiver of the intermediate images of progressive
+     * rendering. It is called in the thread which called renderProgressive, after the image writer
+     * was updated with the average color of the samples of each pixel so far.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
         /**
-         * Print pixel progress percentage
+         * The method receives an intermediate image, for example by writing it (writeToImage)
+         * @param samples - the number of passes which were rendered, one sample for each pixel in each pass
+         * @return true for continuing the refinement, false for stopping it
          */
-        public static void printPixel() {
-            long current = pixels;
-            if (print && last != current) {
-                int percentage = (int) (1000l * current / totalPixels);
-                if (lastPrinted != percentage) {
-                    last = current;
-                    lastPrinted = percentage;
-                    System.out.printf(PRINT_FORMAT, percentage / 10d);
-                }
-            }
-        }
+        boolean imageUpdated(int samples);
     }
 
 
+
     //------------------------------------------ constructors -----------------------------------------------------
     /**
      * Camera parameters constructor
@@ -271,6 +252,22 @@ public class Camera {
     public int getNumSamples() {
         return numSamples;
     }
+    /**
+     * This method returns the part of the pixels which were rendered in the current
+     * (or last) rendering of this camera
+     * @return double - number between 0 and 1
+     */
+    public double getProgress() {
+        TileScheduler current = scheduler;
+        return current == null ? 0 : current.getProgress();
+    }
+    /**
+     * This method returns the heatmap of the cost of the pixels of the last renderImage
+     * @return CostHeatmap - null if the heatmap was not measured (setHeatmap)
+     */
+    public CostHeatmap getHeatmap() {
+        return heatmap;
+    }
 
 
     //------------------------------------------ setters -----------------------------------------------------
@@ -298,16 +295,107 @@ public class Camera {
     public Camera setNumThreads(int numThreads) {
         if(numThreads < 1 )
             throw new IllegalArgumentException("the level of multi threading must be positive number");
-        if(numThreads > MAX_NUM_THREADS )
-            throw new IllegalArgumentException("the level of multi threading can't be greater than 4");
 
         this.numThreads = numThreads;
         return this;
     }
+    public Camera setTileSize(int tileSize) {
+        if(tileSize < 1)
+            throw new IllegalArgumentException("the size of tile must be positive number");
+
+        this.tileSize = tileSize;
+        return this;
+    }
+    public Camera setPacketSize(int packetSize) {
+        if(packetSize < 1 || packetSize * packetSize > RayPacket.MAX_SIZE)
+            throw new IllegalArgumentException("the size of packet must be between 1 and 8");
+
+        this.packetSize = packetSize;
+        return this;
+    }
+    public Camera setPrintProgress(boolean printProgress) {
+        this.isPrintProgress = printProgress;
+        return this;
+    }
     public Camera setAdaptiveSuperSampling(boolean adaptiveSuperSampling) {
         this.isAdaptiveSuperSampling = adaptiveSuperSampling;
         return this;
     }
+    public Camera setAdaptiveThreshold(double adaptiveThreshold) {
+        if(adaptiveThreshold < 0)
+            throw new IllegalArgumentException("the threshold of adaptive super sampling must not be negative");
+
+        this.adaptiveThreshold = adaptiveThreshold;
+        return this;
+    }
+    public Camera setAdaptiveMaxDepth(int adaptiveMaxDepth) {
+        if(adaptiveMaxDepth < 0 || adaptiveMaxDepth > MAX_ADAPTIVE_DEPTH)
+            throw new IllegalArgumentException("the depth of adaptive super sampling must be between 0 and " + MAX_ADAPTIVE_DEPTH);
+
+        this.adaptiveMaxDepth = adaptiveMaxDepth;
+        return this;
+    }
+    public Camera setPublishInterval(long publishInterval) {
+        if(publishInterval < 0)
+            throw new IllegalArgumentException("the interval of publishing must not be negative");
+
+        this.publishInterval = publishInterval;
+        return this;
+    }
+    public Camera setCheckpoint(Path checkpointFile, long checkpointInterval) {
+        if(checkpointInterval < 0)
+            throw new IllegalArgumentException("the interval of checkpoints must not be negative");
+
+        this.checkpointFile = checkpointFile;
+        this.checkpointInterval = checkpointInterval;
+        return this;
+    }
+    public Camera setSampler(Sampler sampler) {
+        if(sampler == null)
+            throw new IllegalArgumentException("the sampler must not be null");
+
+        this.sampler = sampler;
+        return this;
+    }
+    /**
+     * Setter of variance driven sampling of anti aliasing and depth of field in renderImage (and in rendering
+     * in bands and by workers) - the samples are spent on the noisy pixels. It is not used by renderProgressive,
+     * whose passes give one more sample to every pixel.
+     * @param pilotSamples - the number of samples of the first batch of each pixel, 0 for disabling
+     * @param targetNoise - the standard error of the color of a pixel under which its sampling is stopped
+     * @return Camera
+     */
+    public Camera setVarianceSampling(int pilotSamples, double targetNoise) {
+        if(pilotSamples == 1 || pilotSamples < 0)
+            throw new IllegalArgumentException("the pilot batch must have at least 2 samples (or 0 for disabling)");
+        if(targetNoise < 0)
+            throw new IllegalArgumentException("the target noise must not be negative");
+
+        this.pilotSamples = pilotSamples;
+        this.targetNoise = targetNoise;
+        return this;
+    }
+    /**
+     * Setter of the budget of variance driven sampling - the average number of samples of a pixel
+     * in the whole image. Each tile may spend its share of the budget (by its number of pixels), and the
+     * samples which it does not need are left to the tiles which are rendered after it, so flat tiles give
+     * their samples to detailed ones. With several threads the order of the tiles, and therefore the image,
+     * may change a little between renderings. Each worker of RenderCoordinator shares the samples only
+     * inside its chunks.
+     * @param sampleBudget - the average number of samples of a pixel, 0 for no limit except numSamples
+     * @return Camera
+     */
+    public Camera setSampleBudget(double sampleBudget) {
+        if(sampleBudget < 0)
+            throw new IllegalArgumentException("the budget of samples must not be negative");
+
+        this.sampleBudget = sampleBudget;
+        return this;
+    }
+    public Camera setHeatmap(CostHeatmap.Metric heatmapMetric) {
+        this.heatmapMetric = heatmapMetric;
+        return this;
+    }
 
     //------------------------------------------ constructors of rays -----------------------------------------------------
     /**
@@ -341,7 +429,8 @@ public class Camera {
 
     /**
      * The function constructRaysForAntiAliasing is used for creation of numSamples rays through
-     * specific pixel in the view plane for anti aliasing in the picture.
+     * specific pixel in the view plane for anti aliasing in the picture. The points of the rays
+     * in the pixel are taken from the sampler of the camera.
      *
      * @param nX - the number of pixels in X axis
      * @param nY - the number of pixels in Y axis
@@ -350,35 +439,84 @@ public class Camera {
      * @return List of Ray
      */
     public List<Ray> constructRaysForAntiAliasing(int nX, int nY, int j, int i) {
-        // super sampling - random access
+        double[] points = new double[2 * numSamples];
+        sampler.samplePixel(j, i, numSamples, points);
+
+        List<Ray> rays = new ArrayList<>(numSamples); // the beam of rays
+        for (int k = 0; k < numSamples; k++)
+            rays.add(constructRayThroughPixel(nX, nY, j, i, points[2 * k], points[2 * k + 1]));
+
+        return rays;
+    }
 
+    /**
+     * Function constructRayThroughPixel is used for creation of ray through a point in
+     * specific pixel in the view plane.
+     *
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param j  - the index on X axis
+     * @param i  - the index on Y axis
+     * @param u  - the position of the point in the width of the pixel, from 0 (left) to 1 (right)
+     * @param v  - the position of the point in the height of the pixel, from 0 (top) to 1 (bottom)
+     * @return Ray
+     */
+    private Ray constructRayThroughPixel(int nX, int nY, int j, int i, double u, double v) {
         Point Pc = p0.add(vTo.scale(distance)); // the center point of the view plane
 
         double Ry = height / nY; // the height of pixel in the view plane
         double Rx = width / nX; // the width of pixel in the view plane
 
-        double Yi = (i - nY / 2d) * Ry + Ry / 2d;
-        double Xj = (j - nX / 2d) * Rx + Rx / 2d;
+        // the point is shifted right and down from the corner of pixel (j,i)
+        double Yi = (i - nY / 2d + v) * Ry;
+        double Xj = (j - nX / 2d + u) * Rx;
 
-        List<Ray> rays = new LinkedList<>(); // the beam of rays
+        Point Pij = shift(Pc, Xj, -Yi);
+        return new Ray(p0, Pij.subtract(p0).normalize());
+    }
 
-        Point p = Pc.add(vRight.scale(Xj)).subtract(vUp.scale(Yi)); // the center of pixel (j,i)
-        Point Pij;
+    /**
+     * Function shift moves a point in the plane of the view plane (or of the lens)
+     * @param p - the point
+     * @param right - the distance to move in the direction of vRight
+     * @param up - the distance to move in the direction of vUp
+     * @return Point
+     */
+    private Point shift(Point p, double right, double up) {
+        Double3 xyz = p.getXyz().add(vRight.getXyz().scale(right)).add(vUp.getXyz().scale(up));
+        return new Point(xyz.getD1(), xyz.getD2(), xyz.getD3());
+    }
 
-        double move1, move2;
-        Random random = new Random();
 
-        for (int k = 0; k < numSamples; k++) {
-            move1 = random.nextDouble(-Rx / 2, Rx / 2);
-            move2 = random.nextDouble(-Ry / 2, Ry / 2);
+    /**
+     * The function constructJitteredRay is used for creation of one ray through a random point
+     * in specific pixel in the view plane, as one sample of anti aliasing.
+     *
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param j  - the index on X axis
+     * @param i  - the index on Y axis
+     * @param random - the generator of the random point
+     * @return Ray
+     */
+    public Ray constructJitteredRay(int nX, int nY, int j, int i, Random random) {
+        Point Pc = p0.add(vTo.scale(distance));
 
-            Pij = new Point(p.getXyz().getD1() + move1, p.getXyz().getD2() + move2, p.getXyz().getD3());
-            rays.add(new Ray(p0, Pij.subtract(p0).normalize()));
-        }
+        double Ry = height / nY;
+        double Rx = width / nX;
 
-        return rays;
-    }
+        double Yi = -(i - (nY - 1) / 2d + random.nextDouble(-0.5, 0.5)) * Ry;
+        double Xj = (j - (nX - 1) / 2d + random.nextDouble(-0.5, 0.5)) * Rx;
 
+        Point Pij = Pc;
+
+        if (Xj != 0)
+            Pij = Pij.add(vRight.scale(Xj));
+        if (Yi != 0)
+            Pij = Pij.add(vUp.scale(Yi));
+
+        return new Ray(p0, Pij.subtract(p0));
+    }
 
     /**
      * Function findFocalPoint is used for finding the focal point with ray.
@@ -391,35 +529,59 @@ public class Camera {
         return ray.getPoint(focalLength);
     }
 
+    /**
+     * Function constructRaysForDepthOfField is used for constructing rays for
+     * the DOF effect, when the pixel of the ray is not known - the points in the lens
+     * are the points of the sampler of pixel (0,0).
+     * @param ray - the ray which passes through the center of the pixel
+     * @return List of Ray
+     */
+    public List<Ray> constructRaysForDepthOfField(Ray ray) {
+        return constructRaysForDepthOfField(ray, 0, 0);
+    }
+
     /**
      * Function constructRaysForDepthOfField is used for constructing rays for
      * the DOF effect.
      * It is done by creating of numSamples rays from the origin of the ray
-     * -which passes through the center of the pixel- shifted by random number
-     * -which is effected by the apertureSize- to the focal point of the camera.
+     * -which passes through the center of the pixel- shifted in the lens (the square
+     * of the size of the aperture) by the points of the sampler of the camera,
+     * to the focal point of the camera.
      * @param ray - the ray which passes through the center of the pixel
+     * @param j  - the index of the pixel on X axis
+     * @param i  - the index of the pixel on Y axis
      * @return List of Ray
      */
-    public List<Ray> constructRaysForDepthOfField(Ray ray) {
+    public List<Ray> constructRaysForDepthOfField(Ray ray, int j, int i) {
         Point focalPoint = this.findFocalPoint(ray); // the focal point of the camera
-        List<Ray> rays = new LinkedList<>();
-        Random random = new Random();
-        Vector multiVector;
-        Point originPoint;
+        double[] points = new double[2 * numSamples];
+        sampler.samplePixel(j, i, numSamples, points);
 
-        for(int i = 0; i < numSamples; i++){
-
-            // calculating of the vector for shifting the origin of the ray
-            multiVector = new Vector(random.nextDouble(-0.5,0.5),random.nextDouble(-0.5,0.5),random.nextDouble(-0.5,0.5));
-            multiVector.scale(apertureSize);
-
-            originPoint = ray.getP0().add(multiVector); // shifting the point of the origin of the ray
-            rays.add(new Ray(originPoint, focalPoint.subtract(originPoint))); // adding the shifted ray to the rays' list
+        List<Ray> rays = new ArrayList<>(numSamples);
+        for(int k = 0; k < numSamples; k++){
+            // adding the shifted ray to the rays' list
+            rays.add(constructRayForDepthOfField(ray, focalPoint, points[2 * k] - 0.5, points[2 * k + 1] - 0.5));
         }
 
         return rays;
     }
 
+    /**
+     * Function constructRayForDepthOfField is used for constructing one ray for the DOF effect -
+     * from the origin of the ray which passes through the center of the pixel, shifted in the lens,
+     * to the focal point of the camera.
+     * @param ray - the ray which passes through the center of the pixel
+     * @param focalPoint - the focal point of the ray
+     * @param right - the shift of the origin in the direction of vRight, between -0.5 and 0.5 of the aperture
+     * @param up - the shift of the origin in the direction of vUp, between -0.5 and 0.5 of the aperture
+     * @return Ray
+     */
+    private Ray constructRayForDepthOfField(Ray ray, Point focalPoint, double right, double up) {
+        // shifting the point of the origin of the ray in the lens, whose size is the size of the aperture
+        Point originPoint = shift(ray.getP0(), right * apertureSize, up * apertureSize);
+        return new Ray(originPoint, focalPoint.subtract(originPoint));
+    }
+
     /**
      * Function calcColor_AdaptiveSuperSampling is used for calculating the color of pixel using
      * adaptive super sampling
@@ -430,90 +592,88 @@ public class Camera {
      * @return Color of pixel (j,i)
      */
     public Color calcColor_AdaptiveSuperSampling(int nX, int nY, int j, int i){
-        Point Pc = p0.add(vTo.scale(distance)); // the center point of the view plane
-
-        double Ry = height / nY; // the height of pixel in the view plane
-        double Rx = width / nX; // the width of pixel in the view plane
-
-        double Yi = (i - nY / 2d) * Ry + Ry / 2d;
-        double Xj = (j - nX / 2d) * Rx + Rx / 2d;
-
-        Point p = Pc.add(vRight.scale(Xj)).subtract(vUp.scale(Yi)); // the center of pixel (j,i)
-
-        return calcColor_AdaptiveSuperSampling(Rx,Ry,5,p);
+        return calcColor_AdaptiveSuperSampling(nX, nY, j, i, new CornerCache(nX, 1 << adaptiveMaxDepth));
     }
 
     /**
      * Function calcColor_AdaptiveSuperSampling is used for calculating the color of pixel using
+     * adaptive super sampling. The corners of the subpixels are points of a lattice over the image
+     * (with 2^depth intervals in each axis of a pixel), and the colors of the corners are kept in a cache,
+     * so the corners which are shared by neighbouring subpixels and pixels are traced only once.
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param j  - the index on X axis
+     * @param i  - the index on Y axis
+     * @param cache - the colors of the corners which were traced
+     * @return Color of pixel (j,i)
+     */
+    private Color calcColor_AdaptiveSuperSampling(int nX, int nY, int j, int i, CornerCache cache){
+        int pixelSize = 1 << adaptiveMaxDepth; // the number of intervals of the lattice in a pixel
+        return calcColor_AdaptiveSuperSampling(nX, nY, cache, (long) j * pixelSize, (long) i * pixelSize,
+                pixelSize, adaptiveMaxDepth);
+    }
+
+    /**
+     * Function calcColor_AdaptiveSuperSampling is used for calculating the color of subpixel using
      * adaptive super sampling
-     * @param Rx - the height of subpixel in the view plane
-     * @param Ry - the width of subpixel in the view plane
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param cache - the colors of the corners which were traced
+     * @param x - the column of the upper left corner of the subpixel in the lattice
+     * @param y - the row of the upper left corner of the subpixel in the lattice
+     * @param size - the size of the subpixel in intervals of the lattice
      * @param depth - the maximal level of recursion in sampling of subpixel
-     * @param pc - the center point of the subpixel
-     * @return Color - the color of the pixel calculated by ASS
-     */
-    private Color calcColor_AdaptiveSuperSampling(double Rx, double Ry, int depth, Point pc){
-        List<Ray> rays = new LinkedList<>(); // the beam of rays through the samples
-        List<Color> colors = new LinkedList<>(); // list of the colors of the samples
-        Color avgColor = new Color (0,0,0); // the average color of the samples
-        Point newPc; // the center of the new subpixel
-
-        // taking of samples from the 4 corners of the subpixel
-        Point tmp = new Point(pc.getXyz().getD1() +Rx/2, pc.getXyz().getD2() + Ry/2, pc.getXyz().getD3());
-        rays.add(new Ray(p0, tmp.subtract(p0).normalize()));
-        tmp = new Point(pc.getXyz().getD1() +Rx/2, pc.getXyz().getD2() - Ry/2, pc.getXyz().getD3());
-        rays.add(new Ray(p0, tmp.subtract(p0).normalize()));
-        tmp = new Point(pc.getXyz().getD1() -Rx/2, pc.getXyz().getD2() + Ry/2, pc.getXyz().getD3());
-        rays.add(new Ray(p0, tmp.subtract(p0).normalize()));
-        tmp = new Point(pc.getXyz().getD1() -Rx/2, pc.getXyz().getD2() - Ry/2, pc.getXyz().getD3());
-        rays.add(new Ray(p0, tmp.subtract(p0).normalize()));
+     * @return Color - the color of the subpixel calculated by ASS
+     */
+    private Color calcColor_AdaptiveSuperSampling(int nX, int nY, CornerCache cache, long x, long y, long size,
+                                                  int depth){
+        // taking of samples from the 4 corners of the subpixel -
+        // upper right, lower right, upper left and lower left
+        Color[] colors = {
+                calcCornerColor(nX, nY, cache, x + size, y), calcCornerColor(nX, nY, cache, x + size, y + size),
+                calcCornerColor(nX, nY, cache, x, y), calcCornerColor(nX, nY, cache, x, y + size) };
 
         // calculating of the average color of the samples
-        for(int k = 0; k < rays.size(); k++){
-            colors.add(rayTracer.traceRay(rays.get(k)));
-            avgColor = avgColor.add(colors.get(k));
-        }
-        avgColor = avgColor.reduce(colors.size());
+        Color avgColor = colors[0].add(colors[1], colors[2], colors[3]).reduce(colors.length);
 
         if(depth == 0) // this is the max possible level of recursion
             return avgColor;
 
-        // If the color of the first sample is very different from the average color
-        // we will continue to sample in the upper right sub-pixel
-        if(Math.abs(avgColor.diff(colors.get(0))) > MAX_DIF){
-            newPc = new Point(pc.getXyz().getD1() +Rx/4, pc.getXyz().getD2() + Ry/4, pc.getXyz().getD3());;
-            colors.set(0, calcColor_AdaptiveSuperSampling(Rx/2, Ry/2,depth-1,  newPc));
-        }
-
-        // If the color of the second sample is very different from the average color
-        // we will continue to sample in the lower right sub-pixel
-        if(Math.abs(avgColor.diff(colors.get(1))) > MAX_DIF){
-            newPc = new Point(pc.getXyz().getD1() +Rx/4, pc.getXyz().getD2() - Ry/4, pc.getXyz().getD3());;
-            colors.set(1, calcColor_AdaptiveSuperSampling(Rx/2, Ry/2,depth-1,  newPc));
-        }
-
-        // If the color of the third sample is very different from the average color
-        // we will continue to sample in the upper left sub-pixel
-        if(Math.abs(avgColor.diff(colors.get(2))) > MAX_DIF){
-            newPc = new Point(pc.getXyz().getD1() -Rx/4, pc.getXyz().getD2() + Ry/4, pc.getXyz().getD3());;
-            colors.set(2, calcColor_AdaptiveSuperSampling(Rx/2, Ry/2,depth-1,  newPc));
-        }
-
-        // If the color of the fourth sample is very different from the average color
-        // we will continue to sample in the lower left sub-pixel
-        if(Math.abs(avgColor.diff(colors.get(3))) > MAX_DIF){
-            newPc = new Point(pc.getXyz().getD1() -Rx/4, pc.getXyz().getD2() - Ry/4, pc.getXyz().getD3());;
-            colors.set(3, calcColor_AdaptiveSuperSampling( Rx/2, Ry/2, depth-1,  newPc));
-        }
+        // If the color of a sample is very different from the average color
+        // we will continue to sample in the sub-pixel of its corner
+        long half = size / 2;
+        long[] subX = { x + half, x + half, x, x };
+        long[] subY = { y, y + half, y, y + half };
+        for (int k = 0; k < colors.length; k++)
+            if(Math.abs(avgColor.diff(colors[k])) > adaptiveThreshold)
+                colors[k] = calcColor_AdaptiveSuperSampling(nX, nY, cache, subX[k], subY[k], half, depth - 1);
 
         // calculating the average color of the samples
-        avgColor = new Color(0,0,0);
-        for(int k = 0; k < colors.size(); k++){
-            avgColor = avgColor.add(colors.get(k));
-        }
-        avgColor = avgColor.reduce(colors.size());
-        return avgColor;
+        return colors[0].add(colors[1], colors[2], colors[3]).reduce(colors.length);
+    }
 
+    /**
+     * Function calcCornerColor finds the color of the ray through a point of the lattice of ASS,
+     * from the cache, or by tracing the ray if it was not traced yet
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param cache - the colors of the corners which were traced
+     * @param x - the column of the point in the lattice
+     * @param y - the row of the point in the lattice
+     * @return Color
+     */
+    private Color calcCornerColor(int nX, int nY, CornerCache cache, long x, long y) {
+        Color color = cache.get(x, y);
+        if (color != null)
+            return color;
+
+        double pixelSize = 1 << adaptiveMaxDepth;
+        double Xj = (x / pixelSize - nX / 2d) * (width / nX);
+        double Yi = (y / pixelSize - nY / 2d) * (height / nY);
+        Point corner = shift(p0.add(vTo.scale(distance)), Xj, -Yi);
+        color = rayTracer.traceRay(new Ray(p0, corner.subtract(p0).normalize()));
+        cache.put(x, y, color);
+        return color;
     }
 
 
@@ -521,79 +681,549 @@ public class Camera {
     /**
      * Function renderImage is used for constructing a rays through each pixel
      * in the view plane and coloring the pixels of the image accordingly.
+     * If a checkpoint file was set (setCheckpoint), the finished tiles are saved into it while rendering,
+     * and the tiles which were saved in it by a former rendering of the same size and the same configuration
+     * (scene, view plane and sampling - see fingerprint) are not rendered again.
+     * The file is deleted after the whole image was rendered.
+     * If a measure of heatmap was set (setHeatmap), the cost of each pixel is measured into the heatmap
+     * of the camera (getHeatmap), and it is written by writeToImage next to the image. For measuring
+     * the intersection tests, the tests of the threads are counted during the rendering (without the metrics
+     * of the classes of geometries, see IntersectionMetrics.startThreadCounting).
      *
      * @return Camera
      * @throws MissingResourceException
      * @throws UnsupportedOperationException
+     * @throws IllegalStateException if the checkpoint file cannot be read or written
      */
-    public Camera renderImage() throws MissingResourceException, UnsupportedOperationException {
-        if (p0 == null || vTo == null || vUp == null || imageWriter == null || rayTracer == null)
-            throw new MissingResourceException("Can't render image because of lack of resources", "Camera", "");
+    public Camera renderImage() throws MissingResourceException, UnsupportedOperationException, IllegalStateException {
+        checkResources();
 
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
 
-        if (numSamples <= 1) {
-            for (int i = 0; i < nY; i++) {
-                for (int j = 0; j < nX; j++) {
-                    Ray ray = constructRay(nX, nY, j, i);
-                    imageWriter.writePixel(j, i, rayTracer.traceRay(ray));
+        TileScheduler tileScheduler = new TileScheduler(nX, nY, tileSize).setPrintProgress(isPrintProgress);
+        scheduler = tileScheduler;
+
+        FrameBuffer frameBuffer = imageWriter.getFrameBuffer();
+        spareSamples = new AtomicLong();
+        TileScheduler.TileRenderer renderer = (x0, y0, x1, y1) -> renderTile(nX, nY, x0, y0, x1, y1, frameBuffer, 0, 0);
+
+        heatmap = heatmapMetric == null ? null : new CostHeatmap(heatmapMetric, nX, nY);
+        boolean isCounting = heatmapMetric == CostHeatmap.Metric.INTERSECTION_TESTS;
+        if (isCounting)
+            IntersectionMetrics.startThreadCounting();
+        try {
+            // the tiles are rendered in multi threading for acceleration of performances
+            if (checkpointFile == null) {
+                tileScheduler.render(numThreads, renderer);
+                return this;
+            }
+
+            try (RenderCheckpoint checkpoint = new RenderCheckpoint(checkpointFile, tileSize, checkpointInterval,
+                    fingerprint(), frameBuffer)) {
+                tileScheduler.render(numThreads, (x0, y0, x1, y1) -> {
+                    if (checkpoint.isDone(x0, y0))
+                        return;
+                    renderer.renderTile(x0, y0, x1, y1);
+                    checkpoint.tileFinished(x0, y0, x1, y1, frameBuffer);
+                });
+            }
+        } finally {
+            if (isCounting)
+                IntersectionMetrics.stopThreadCounting();
+        }
+        try {
+            Files.deleteIfExists(checkpointFile);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error in deleting of checkpoint " + checkpointFile, e);
+        }
+        return this;
+    }
+
+    /**
+     * Function renderImage is used for rendering very big images - the image is rendered in bands
+     * of rows (of the height of a tile), from the top of the image to its bottom, and each band is handed
+     * to the streaming writer as soon as it is finished, so only a few bands are kept in memory.
+     * The image writer of the camera is not used, and the cost heatmap is not measured.
+     * The caller closes the streaming writer after the rendering.
+     *
+     * @param writer - the writer of the image, which determines the size of the image
+     * @return Camera
+     * @throws MissingResourceException
+     */
+    public Camera renderImage(StreamingImageWriter writer) throws MissingResourceException {
+        if (p0 == null || vTo == null || vUp == null || writer == null || rayTracer == null)
+            throw new MissingResourceException("Can't render image because of lack of resources", "Camera", "");
+
+        int nX = writer.getNx();
+        int nY = writer.getNy();
+        heatmap = null;
+        spareSamples = new AtomicLong();
+        for (int row = 0; row < nY; row += tileSize) {
+            FrameBuffer band = new FrameBuffer(nX, Math.min(tileSize, nY - row));
+            TileScheduler tileScheduler = new TileScheduler(nX, band.getNy(), tileSize);
+            scheduler = tileScheduler;
+            int top = row;
+            // the tiles of the band are rendered like the tiles of renderImage(), by all the modes of sampling
+            tileScheduler.render(numThreads, (x0, y0, x1, y1) -> renderTile(nX, nY, x0, top + y0, x1, top + y1, band, 0, top));
+            writer.writeRows(band);
+        }
+        return this;
+    }
+
+    /**
+     * Function renderTile renders one tile of the image into a frame buffer, which contains the tile
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param x0 - the index of the first column of the tile
+     * @param y0 - the index of the first row of the tile
+     * @param x1 - the index after the last column of the tile
+     * @param y1 - the index after the last row of the tile
+     * @param target - the frame buffer
+     * @param left - the index in the image of the first column of the frame buffer
+     * @param top - the index in the image of the first row of the frame buffer
+     */
+    void renderTile(int nX, int nY, int x0, int y0, int x1, int y1, FrameBuffer target, int left, int top) {
+        // the rays of neighbouring pixels are traced together as packets
+        if (numSamples <= 1 && packetSize > 1) {
+            renderPackets(nX, nY, x0, y0, x1, y1, target, left, top);
+            return;
+        }
+        // the samples are spent where the colors of the pixels of the tile are noisy
+        if (numSamples > 1 && pilotSamples > 0 && (isDepthOfField || !isAdaptiveSuperSampling)) {
+            renderVarianceTile(nX, nY, x0, y0, x1, y1, target, left, top);
+            return;
+        }
+        // the corners of adaptive super sampling are shared by the pixels of the tile
+        CornerCache cache = numSamples > 1 && !isDepthOfField && isAdaptiveSuperSampling
+                ? new CornerCache(nX, 1 << adaptiveMaxDepth) : null;
+        CostHeatmap costs = heatmap;
+        for (int i = y0; i < y1; i++)
+            for (int j = x0; j < x1; j++) {
+                if (costs == null) {
+                    target.setPixel(j - left, i - top, calcPixelColor(nX, nY, j, i, cache));
+                    continue;
                 }
+                long start = costs.start();
+                Color color = calcPixelColor(nX, nY, j, i, cache);
+                costs.record(j, i, start);
+                target.setPixel(j - left, i - top, color);
             }
+    }
+
+    /**
+     * Function calcPixelColor calculates the color of one pixel by the mode of sampling of the camera
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param j  - the index on X axis
+     * @param i  - the index on Y axis
+     * @param cache - the colors of the corners of adaptive super sampling, which are shared with the
+     *              neighbouring pixels, null for the corners of this pixel only
+     * @return Color of pixel (j,i)
+     */
+    private Color calcPixelColor(int nX, int nY, int j, int i, CornerCache cache) {
+        if (numSamples <= 1)
+            return rayTracer.traceRay(constructRay(nX, nY, j, i));
+        // super sampling
+        if (isDepthOfField) // depth of field
+            return calcColor(constructRaysForDepthOfField(constructRay(nX, nY, j, i), j, i));
+        if (isAdaptiveSuperSampling) // adaptive super sampling
+            return cache == null ? calcColor_AdaptiveSuperSampling(nX, nY, j, i)
+                    : calcColor_AdaptiveSuperSampling(nX, nY, j, i, cache);
+        // anti aliasing
+        return calcColor(constructRaysForAntiAliasing(nX, nY, j, i));
+    }
+
+    /**
+     * Function renderProgressive renders the image in passes - each pass adds one sample to each pixel
+     * of the whole image, and the average color of the samples so far is written into the image writer
+     * after the passes, not more than once in the interval of publishing (setPublishInterval).
+     * The first pass traces the ray through the center of each pixel, so the first image is available
+     * after the time of rendering without super sampling, and the next passes add random samples of
+     * anti aliasing (or of depth of field). The rendering stops after max samples passes, when the time
+     * is over (in the middle of a pass, the pixels of its unfinished tiles keep one sample less),
+     * when the listener returns false or when stopRendering is called.
+     * The last image is always written into the image writer.
+     *
+     * @param maxSamples - the max number of samples for each pixel
+     * @param maxTime - the max time of rendering in milliseconds, 0 for no limit of time
+     * @param listener - the receiver of the intermediate images, may be null
+     * @return Camera
+     * @throws MissingResourceException
+     * @throws IllegalArgumentException if the number of samples is not positive or the time is negative
+     */
+    public Camera renderProgressive(int maxSamples, long maxTime, ProgressListener listener)
+            throws MissingResourceException, IllegalArgumentException {
+        checkResources();
+        if (maxSamples < 1)
+            throw new IllegalArgumentException("the number of samples must be positive number");
+        if (maxTime < 0)
+            throw new IllegalArgumentException("the time of rendering must not be negative");
+
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        float[] sums = new float[nX * nY * 3]; // the sum of the samples of each pixel, RGB after RGB
+        int[] counts = new int[nX * nY]; // the number of samples of each pixel
+
+        long start = System.nanoTime();
+        long deadline = maxTime == 0 ? Long.MAX_VALUE : start + maxTime * 1_000_000;
+        long lastPublish = start;
+        isStopped = false;
+        for (int pass = 0; pass < maxSamples; pass++) {
+            TileScheduler tileScheduler = new TileScheduler(nX, nY, tileSize);
+            scheduler = tileScheduler;
+            boolean isFirst = pass == 0;
+            tileScheduler.render(numThreads, (x0, y0, x1, y1) -> {
+                // the time of rendering does not stop the first pass, so each pixel has at least one sample
+                if (!isFirst && (isStopped || System.nanoTime() - deadline > 0)) {
+                    tileScheduler.cancel();
+                    return;
+                }
+                Random random = ThreadLocalRandom.current();
+                for (int i = y0; i < y1; i++)
+                    for (int j = x0; j < x1; j++) {
+                        Color color = rayTracer.traceRay(constructSample(nX, nY, j, i, isFirst, random));
+                        Double3 rgb = color.getRgb();
+                        int pixel = i * nX + j;
+                        sums[pixel * 3] += rgb.getD1();
+                        sums[pixel * 3 + 1] += rgb.getD2();
+                        sums[pixel * 3 + 2] += rgb.getD3();
+                        counts[pixel]++;
+                    }
+            });
+
+            long now = System.nanoTime();
+            boolean isLast = pass == maxSamples - 1 || now - deadline >= 0 || isStopped;
+            if (!isLast && now - lastPublish < publishInterval * 1_000_000)
+                continue;
+            publish(sums, counts);
+            lastPublish = now;
+            if (listener != null && !listener.imageUpdated(pass + 1) || isLast)
+                break;
         }
-        else { // super sampling
-            // using in multi threading for acceleration of performances
-
-            if(isDepthOfField){ // depth of field
-                Pixel.initialize(nY, nX, Pixel.printInterval);
-                IntStream.range(0, nY).parallel().forEach(i -> {
-                    IntStream.range(0, nX).parallel().forEach(j -> {
-                        List<Ray> rays = constructRaysForDepthOfField(constructRay( nX,  nY, j,  i));
-                        imageWriter.writePixel(j, i, calcColor(rays));
-                        Pixel.pixelDone();
-                        Pixel.printPixel();
-                    });
-                });
+        return this;
+    }
+
+    /**
+     * This method stops the current rendering of this camera - the threads finish the tiles
+     * which are rendered now and do not take new tiles. It is used for stopping progressive
+     * rendering from another thread.
+     */
+    public void stopRendering() {
+        isStopped = true;
+        TileScheduler current = scheduler;
+        if (current != null)
+            current.cancel();
+    }
+
+    /**
+     * Function constructSample constructs the ray of one sample of progressive rendering
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param j  - the index on X axis
+     * @param i  - the index on Y axis
+     * @param isFirst - true for the first sample of the pixel
+     * @param random - the generator of the random samples
+     * @return Ray
+     */
+    private Ray constructSample(int nX, int nY, int j, int i, boolean isFirst, Random random) {
+        if (isDepthOfField) {
+            Ray ray = constructRay(nX, nY, j, i);
+            return constructRayForDepthOfField(ray, findFocalPoint(ray), random.nextDouble(-0.5, 0.5),
+                    random.nextDouble(-0.5, 0.5));
+        }
+        return isFirst ? constructRay(nX, nY, j, i) : constructJitteredRay(nX, nY, j, i, random);
+    }
+
+    /**
+     * Function publish writes the average color of the samples of each pixel into the image writer
+     * @param sums - the sum of the samples of each pixel, RGB after RGB
+     * @param counts - the number of samples of each pixel
+     */
+    private void publish(float[] sums, int[] counts) {
+        int nX = imageWriter.getNx();
+        for (int pixel = 0; pixel < counts.length; pixel++) {
+            float count = counts[pixel];
+            if (count == 0) // the first pass was stopped before this pixel
+                continue;
+            imageWriter.writePixel(pixel % nX, pixel / nX, sums[pixel * 3] / count,
+                    sums[pixel * 3 + 1] / count, sums[pixel * 3 + 2] / count);
+        }
+    }
+
+    /**
+     * This method returns the image writer of the camera
+     * @return ImageWriter
+     */
+    ImageWriter getImageWriter() {
+        return imageWriter;
+    }
+
+    /**
+     * This method returns the length of the side of the tiles of the camera
+     * @return int
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * This method checks that the camera has all the resources for rendering
+     * @throws MissingResourceException
+     */
+    void checkResources() throws MissingResourceException {
+        if (p0 == null || vTo == null || vUp == null || imageWriter == null || rayTracer == null)
+            throw new MissingResourceException("Can't render image because of lack of resources", "Camera", "");
+    }
+
+    /**
+     * Function fingerprint calculates a hash (the first 8 bytes of SHA-256) of the configuration which
+     * determines the rendered image - the view plane, the modes of sampling and the serialized ray tracer
+     * with its scene. The number of threads, the progress and the checkpoints themselves are not part of it.
+     * If the ray tracer is not serializable, only the name of its class is part of the hash.
+     * @return long
+     * @throws IllegalStateException if the configuration cannot be serialized
+     */
+    long fingerprint() throws IllegalStateException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (ObjectOutputStream out = new ObjectOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+                out.writeObject(p0);
+                out.writeObject(vTo);
+                out.writeObject(vUp);
+                out.writeDouble(width);
+                out.writeDouble(height);
+                out.writeDouble(distance);
+                out.writeInt(numSamples);
+                out.writeBoolean(isDepthOfField);
+                out.writeDouble(apertureSize);
+                out.writeDouble(focalLength);
+                out.writeInt(packetSize);
+                out.writeBoolean(isAdaptiveSuperSampling);
+                out.writeDouble(adaptiveThreshold);
+                out.writeInt(adaptiveMaxDepth);
+                out.writeObject(sampler);
+                out.writeInt(pilotSamples);
+                out.writeDouble(targetNoise);
+                out.writeDouble(sampleBudget);
             }
-            else if(isAdaptiveSuperSampling){ // adaptive super sampling
-                Pixel.initialize(nY, nX, Pixel.printInterval);
-                IntStream.range(0, nY).parallel().forEach(i -> {
-                    IntStream.range(0, nX).parallel().forEach(j -> {
-                        imageWriter.writePixel(j, i, calcColor_AdaptiveSuperSampling(nX, nY, j, i));
-                        Pixel.pixelDone();
-                        Pixel.printPixel();
-                    });
-                });
+            // the ray tracer (with its scene) is streamed into its own digest, which is dropped if it is not serializable
+            MessageDigest tracer = MessageDigest.getInstance("SHA-256");
+            try (ObjectOutputStream out = new ObjectOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), tracer))) {
+                out.writeObject(rayTracer);
+            } catch (NotSerializableException e) {
+                tracer.reset();
+                tracer.update(rayTracer.getClass().getName().getBytes(StandardCharsets.UTF_8));
             }
-            else{ // anti aliasing
-                Pixel.initialize(nY, nX, Pixel.printInterval);
-                IntStream.range(0, nY).parallel().forEach(i -> {
-                    IntStream.range(0, nX).parallel().forEach(j -> {
-                        List<Ray> rays = constructRaysForAntiAliasing(nX,nY,j,i);
-                        imageWriter.writePixel(j, i, calcColor(rays));
-                        Pixel.pixelDone();
-                        Pixel.printPixel();
-                    });
-                });
+            digest.update(tracer.digest());
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("cannot calculate the fingerprint of the camera", e);
+        }
+    }
+
+    /**
+     * Function renderVarianceTile renders one tile of the image by variance driven sampling of anti aliasing
+     * (or of depth of field). First each pixel gets a pilot batch of samples, and the standard error of its
+     * average color is estimated by the variance of the samples, and by the contrast with its neighbours
+     * (see contrastError). Then batches of samples are added, each time to the pixel with the highest error,
+     * until the errors of all the pixels are below the target noise, or each noisy pixel has numSamples
+     * samples, or the budget of the tile is spent. The budget of the tile is its share of the budget of
+     * the image, and when it is spent, the tile takes the samples which the former tiles left. The samples
+     * which the tile does not spend are left to the next tiles.
+     * The samples of each pixel are the first points of its pattern of numSamples points of the sampler
+     * (the pattern is deterministic, so it is created again for each batch instead of being kept).
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param x0 - the index of the first column of the tile
+     * @param y0 - the index of the first row of the tile
+     * @param x1 - the index after the last column of the tile
+     * @param y1 - the index after the last row of the tile
+     * @param target - the frame buffer, which contains the tile
+     * @param left - the index in the image of the first column of the frame buffer
+     * @param top - the index in the image of the first row of the frame buffer
+     */
+    private void renderVarianceTile(int nX, int nY, int x0, int y0, int x1, int y1, FrameBuffer target,
+                                    int left, int top) {
+        int tileWidth = x1 - x0, tileHeight = y1 - y0, numPixels = tileWidth * tileHeight;
+        int batch = Math.min(pilotSamples, numSamples);
+        double[] points = new double[2 * numSamples]; // the pattern of the samples of the current pixel
+        float[] means = new float[3 * numPixels]; // the average color of the samples of each pixel
+        float[] deviations = new float[3 * numPixels]; // the sum of the squared deviations of each component
+        float[] errors = new float[numPixels]; // the standard error of the color of each pixel
+        int[] counts = new int[numPixels]; // the number of samples of each pixel
+
+        long budget = sampleBudget == 0 ? Long.MAX_VALUE : Math.round(sampleBudget * numPixels);
+        PriorityQueue<Integer> noisy = new PriorityQueue<>(numPixels, (a, b) -> Float.compare(errors[b], errors[a]));
+        for (int p = 0; p < numPixels; p++) {
+            addSamples(nX, nY, x0, y0, tileWidth, p, batch, points, means, deviations, errors, counts);
+            budget -= batch;
+        }
+        for (int p = 0; p < numPixels; p++) {
+            errors[p] = Math.max(errors[p], contrastError(p, tileWidth, tileHeight, means, counts));
+            if (errors[p] > targetNoise && counts[p] < numSamples)
+                noisy.add(p);
+        }
+        AtomicLong spare = spareSamples;
+        while (!noisy.isEmpty()) {
+            if (budget <= 0 && (spare == null || (budget = takeSamples(spare, batch)) == 0))
+                break;
+            int p = noisy.poll();
+            int count = (int) Math.min(Math.min(batch, numSamples - counts[p]), budget);
+            addSamples(nX, nY, x0, y0, tileWidth, p, count, points, means, deviations, errors, counts);
+            errors[p] = Math.max(errors[p], contrastError(p, tileWidth, tileHeight, means, counts));
+            budget -= count;
+            if (errors[p] > targetNoise && counts[p] < numSamples)
+                noisy.add(p);
+        }
+
+        if (spare != null && sampleBudget != 0 && budget > 0)
+            spare.addAndGet(budget);
+
+        for (int p = 0; p < numPixels; p++)
+            target.setPixel(x0 + p % tileWidth - left, y0 + p / tileWidth - top,
+                    means[3 * p], means[3 * p + 1], means[3 * p + 2]);
+    }
+
+    /**
+     * Function takeSamples takes samples which former tiles did not spend
+     * @param spare - the samples which were not spent
+     * @param count - the number of samples which are needed
+     * @return long - the number of samples which were taken, 0 if there are no samples
+     */
+    private static long takeSamples(AtomicLong spare, long count) {
+        return Math.min(count, spare.getAndUpdate(samples -> Math.max(0, samples - count)));
+    }
+
+    /**
+     * Function contrastError estimates the standard error of a pixel by the contrast with its neighbours in the
+     * tile. The samples of a pixel may miss a thin feature, like an edge which covers a small part of the pixel,
+     * and then their variance is zero. But if the pixel differs from a neighbour by delta (in some component
+     * of the color), an edge of contrast delta may cross it, and the standard deviation of its samples may be
+     * up to delta / 2.
+     * @param p - the index of the pixel in the tile
+     * @param tileWidth - the number of columns of the tile
+     * @param tileHeight - the number of rows of the tile
+     * @param means - the average color of the samples of each pixel
+     * @param counts - the number of samples of each pixel
+     * @return float - the bound of the standard error of the pixel
+     */
+    private static float contrastError(int p, int tileWidth, int tileHeight, float[] means, int[] counts) {
+        int x = p % tileWidth, y = p / tileWidth;
+        float contrast = 0;
+        for (int ny = Math.max(0, y - 1); ny <= Math.min(tileHeight - 1, y + 1); ny++)
+            for (int nx = Math.max(0, x - 1); nx <= Math.min(tileWidth - 1, x + 1); nx++)
+                for (int c = 0; c < 3; c++)
+                    contrast = Math.max(contrast, Math.abs(means[3 * p + c] - means[3 * (ny * tileWidth + nx) + c]));
+        return (float) (contrast / 2 / Math.sqrt(counts[p]));
+    }
+
+    /**
+     * Function addSamples traces the next samples of one pixel of a tile of variance driven sampling,
+     * and updates the average color and the standard error of the pixel - the variance of each component
+     * is accumulated by Welford's algorithm, which is stable in float precision, and the error of the pixel
+     * is the error of its noisiest component
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param x0 - the index of the first column of the tile
+     * @param y0 - the index of the first row of the tile
+     * @param tileWidth - the number of columns of the tile
+     * @param p - the index of the pixel in the tile
+     * @param count - the number of the samples to add
+     * @param points - the array for the pattern of the samples of the pixel
+     * @param means - the average color of the samples of each pixel
+     * @param deviations - the sum of the squared deviations of each component of the samples of each pixel
+     * @param errors - the standard error of the color of each pixel
+     * @param counts - the number of samples of each pixel
+     */
+    private void addSamples(int nX, int nY, int x0, int y0, int tileWidth, int p, int count, double[] points,
+                            float[] means, float[] deviations, float[] errors, int[] counts) {
+        int j = x0 + p % tileWidth, i = y0 + p / tileWidth;
+        CostHeatmap costs = heatmap;
+        long start = costs == null ? 0 : costs.start();
+        sampler.samplePixel(j, i, numSamples, points);
+        Ray center = isDepthOfField ? constructRay(nX, nY, j, i) : null;
+        Point focalPoint = isDepthOfField ? findFocalPoint(center) : null;
+        double[] mean = { means[3 * p], means[3 * p + 1], means[3 * p + 2] };
+        double[] deviation = { deviations[3 * p], deviations[3 * p + 1], deviations[3 * p + 2] };
+        int n = counts[p];
+        for (int k = n; k < counts[p] + count; k++) {
+            double u = points[2 * k], v = points[2 * k + 1];
+            Ray ray = isDepthOfField ? constructRayForDepthOfField(center, focalPoint, u - 0.5, v - 0.5)
+                    : constructRayThroughPixel(nX, nY, j, i, u, v);
+            Double3 rgb = rayTracer.traceRay(ray).getRgb();
+            double[] sample = { rgb.getD1(), rgb.getD2(), rgb.getD3() };
+            n++;
+            for (int c = 0; c < 3; c++) {
+                double delta = sample[c] - mean[c];
+                mean[c] += delta / n;
+                deviation[c] += delta * (sample[c] - mean[c]);
             }
         }
+        if (costs != null)
+            costs.add(j, i, start);
+
+        counts[p] = n;
+        double maxDeviation = 0;
+        for (int c = 0; c < 3; c++) {
+            means[3 * p + c] = (float) mean[c];
+            deviations[3 * p + c] = (float) deviation[c];
+            maxDeviation = Math.max(maxDeviation, deviation[c]);
+        }
+        errors[p] = (float) Math.sqrt(maxDeviation / (n - 1) / n);
+    }
 
-        return this;
+    /**
+     * Function renderPackets renders one tile of the image, block after block. The rays through
+     * the pixels of each block (packetSize x packetSize pixels) are traced together as one packet,
+     * so in the heatmap the cost of the packet is divided between the pixels of the block.
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param x0 - the index of the first column of the tile
+     * @param y0 - the index of the first row of the tile
+     * @param x1 - the index after the last column of the tile
+     * @param y1 - the index after the last row of the tile
+     * @param target - the frame buffer, which contains the tile
+     * @param left - the index in the image of the first column of the frame buffer
+     * @param top - the index in the image of the first row of the frame buffer
+     */
+    private void renderPackets(int nX, int nY, int x0, int y0, int x1, int y1, FrameBuffer target, int left, int top) {
+        CostHeatmap costs = heatmap;
+        for (int by = y0; by < y1; by += packetSize)
+            for (int bx = x0; bx < x1; bx += packetSize) {
+                int width = Math.min(packetSize, x1 - bx), height = Math.min(packetSize, y1 - by);
+                long start = costs == null ? 0 : costs.start();
+                Ray[] rays = new Ray[width * height];
+                for (int i = 0; i < height; i++)
+                    for (int j = 0; j < width; j++)
+                        rays[i * width + j] = constructRay(nX, nY, bx + j, by + i);
+
+                Color[] colors = rayTracer.traceRays(rays);
+                if (costs != null)
+                    costs.record(bx, by, width, height, start);
+                for (int i = 0; i < height; i++)
+                    for (int j = 0; j < width; j++)
+                        target.setPixel(bx + j - left, by + i - top, colors[i * width + j]);
+            }
     }
 
     /**
      * The function calcColor is help function used for calculating the color of pixel
      * according to the average color of the rays which are being sent through
-     * the pixel.
+     * the pixel. In packet mode the rays of the pixel are traced together.
      * @param rays - List of rays through pixel
      * @return Color - the average color of the rays
      */
     private Color calcColor(List<Ray> rays) {
         Color avgColor = new Color(0, 0, 0);
 
-        for (Ray ray : rays) {
-            avgColor = avgColor.add(rayTracer.traceRay(ray));
-        }
+        if (packetSize > 1)
+            for (Color color : rayTracer.traceRays(rays.toArray(new Ray[0])))
+                avgColor = avgColor.add(color);
+        else
+            for (Ray ray : rays) {
+                avgColor = avgColor.add(rayTracer.traceRay(ray));
+            }
 
         avgColor = avgColor.reduce(rays.size());
         return avgColor;
@@ -621,7 +1251,8 @@ public class Camera {
     }
 
     /**
-     * Function writeToImage is used for producing the picture
+     * Function writeToImage is used for producing the picture, and the picture of its
+     * heatmap (with the suffix _heatmap) if it was measured
      *
      * @throws MissingResourceException
      */
@@ -629,6 +1260,9 @@ public class Camera {
         if (imageWriter == null)
             throw new MissingResourceException("Can't write to image, because of lack of producer to the picture", "Camera", "lack of imageWriter");
         this.imageWriter.writeToImage();
+        CostHeatmap costs = heatmap;
+        if (costs != null)
+            costs.toImage(imageWriter.getImageName() + "_heatmap").writeToImage();
     }
 
 
@@ -0,0 +1,109 @@
+package renderer;
+
+import primitives.Color;
+
+/**
+ * CornerCache class keeps the colors of the corners of the subpixels of adaptive super sampling, so each
+ * corner, which is shared by up to four subpixels (and pixels), is traced only once.
+ * The corners are the points of a lattice over the image, with (1 + 2^depth) points in each axis of
+ * a pixel, and the map is keyed by the index of the point in the lattice (open addressing, without
+ * boxing of the keys).
+ * @author Rivka Sheiner
+ */
+class CornerCache {
+    /**
+     * The initial number of entries of the map (a power of 2)
+     */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /**
+     * The number of lattice points in a row of the image
+     */
+    private final long rowLength;
+    /**
+     * The keys of the entries, key + 1 (so 0 is an empty entry)
+     */
+    private long[] keys = new long[INITIAL_CAPACITY];
+    /**
+     * The colors of the entries
+     */
+    private Color[] colors = new Color[INITIAL_CAPACITY];
+    /**
+     * The number of the entries which are used
+     */
+    private int size = 0;
+
+    /**
+     * Constructor of empty cache of the lattice of an image
+     * @param nX - the number of pixels in X axis of the image
+     * @param pixelSize - the number of intervals of the lattice in a pixel (2^depth)
+     */
+    CornerCache(int nX, int pixelSize) {
+        this.rowLength = (long) nX * pixelSize + 1;
+    }
+
+    /**
+     * Function get finds the color of a lattice point
+     * @param x - the column of the point in the lattice
+     * @param y - the row of the point in the lattice
+     * @return Color - null if the point was not traced
+     */
+    Color get(long x, long y) {
+        long key = y * rowLength + x + 1;
+        int mask = keys.length - 1;
+        for (int index = hash(key) & mask; keys[index] != 0; index = (index + 1) & mask)
+            if (keys[index] == key)
+                return colors[index];
+        return null;
+    }
+
+    /**
+     * Function put saves the color of a lattice point, which is not in the cache
+     * @param x - the column of the point in the lattice
+     * @param y - the row of the point in the lattice
+     * @param color - the color of the point
+     */
+    void put(long x, long y, Color color) {
+        if (2 * (size + 1) > keys.length)
+            grow();
+        insert(y * rowLength + x + 1, color);
+        size++;
+    }
+
+    /**
+     * Function insert puts an entry into the first empty place of its probing sequence
+     * @param key - the key of the entry
+     * @param color - the color of the entry
+     */
+    private void insert(long key, Color color) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != 0)
+            index = (index + 1) & mask;
+        keys[index] = key;
+        colors[index] = color;
+    }
+
+    /**
+     * Function grow doubles the capacity of the map
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Color[] oldColors = colors;
+        keys = new long[2 * oldKeys.length];
+        colors = new Color[2 * oldColors.length];
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldKeys[i] != 0)
+                insert(oldKeys[i], oldColors[i]);
+    }
+
+    /**
+     * Function hash mixes the bits of a key
+     * @param key - the key
+     * @return int
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,168 @@
+package renderer;
+
+import geometries.IntersectionMetrics;
+import primitives.Color;
+
+/**
+ * CostHeatmap class keeps the cost of the rendering of each pixel of an image - the time of
+ * its rendering or the number of intersection tests of its rays - and draws it as a false-color
+ * image, from dark blue for the cheapest pixels through cyan, green and yellow to red for
+ * the most expensive ones.
+ * @author Rivka Sheiner
+ */
+public class CostHeatmap {
+    /**
+     * Metric enum represents the measure of the cost of the pixels
+     */
+    public enum Metric {
+        /**
+         * The time of the rendering of the pixel, in nanoseconds
+         */
+        TIME,
+        /**
+         * The number of the intersection tests of the rays of the pixel with the geometries
+         */
+        INTERSECTION_TESTS
+    }
+
+    /**
+     * The colors of the false-color scale, from the cheapest cost to the most expensive
+     */
+    private static final Color[] SCALE = {
+            new Color(0, 0, 128), new Color(0, 0, 255), new Color(0, 255, 255),
+            new Color(0, 255, 0), new Color(255, 255, 0), new Color(255, 0, 0) };
+
+    /**
+     * The measure of the cost
+     */
+    private final Metric metric;
+    /**
+     * The number of columns of the image
+     */
+    private final int nX;
+    /**
+     * The number of rows of the image
+     */
+    private final int nY;
+    /**
+     * The cost of each pixel, row after row
+     */
+    private final long[] costs;
+
+    /**
+     * Constructor of heatmap with zero cost for all the pixels
+     * @param metric - the measure of the cost
+     * @param nX - the number of columns of the image
+     * @param nY - the number of rows of the image
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public CostHeatmap(Metric metric, int nX, int nY) throws IllegalArgumentException {
+        if (nX <= 0 || nY <= 0)
+            throw new IllegalArgumentException("the size of the heatmap must be positive");
+        this.metric = metric;
+        this.nX = nX;
+        this.nY = nY;
+        this.costs = new long[nX * nY];
+    }
+
+    /**
+     * Getter of the measure of the cost
+     * @return Metric
+     */
+    public Metric getMetric() {
+        return metric;
+    }
+
+    /**
+     * This method returns the cost of one pixel
+     * @param x - the column of the pixel
+     * @param y - the row of the pixel
+     * @return long
+     */
+    public long getCost(int x, int y) {
+        return costs[y * nX + x];
+    }
+
+    /**
+     * This method returns the cost of the most expensive pixel
+     * @return long
+     */
+    public long getMaxCost() {
+        long max = 0;
+        for (long cost : costs)
+            max = Math.max(max, cost);
+        return max;
+    }
+
+    /**
+     * Function start measures the current value of the cost in the current thread,
+     * before the rendering of pixels
+     * @return long - the value to pass to record after the rendering
+     */
+    long start() {
+        return metric == Metric.TIME ? System.nanoTime() : IntersectionMetrics.getThreadTests();
+    }
+
+    /**
+     * Function record saves the cost of the rendering of one pixel, since start was called
+     * @param x - the column of the pixel
+     * @param y - the row of the pixel
+     * @param start - the value returned by start
+     */
+    void record(int x, int y, long start) {
+        costs[y * nX + x] = start() - start;
+    }
+
+    /**
+     * Function add adds to the cost of one pixel the cost of a part of its rendering, since start was called
+     * @param x - the column of the pixel
+     * @param y - the row of the pixel
+     * @param start - the value returned by start
+     */
+    void add(int x, int y, long start) {
+        costs[y * nX + x] += start() - start;
+    }
+
+    /**
+     * Function record saves the cost of the rendering of a block of pixels, which were rendered
+     * together since start was called - the cost is divided equally between the pixels
+     * @param x0 - the column of the first pixel of the block
+     * @param y0 - the row of the first pixel of the block
+     * @param width - the number of columns of the block
+     * @param height - the number of rows of the block
+     * @param start - the value returned by start
+     */
+    void record(int x0, int y0, int width, int height, long start) {
+        long cost = (start() - start) / ((long) width * height);
+        for (int y = y0; y < y0 + height; y++)
+            for (int x = x0; x < x0 + width; x++)
+                costs[y * nX + x] = cost;
+    }
+
+    /**
+     * Function toImage draws the heatmap as a false-color image - the costs are scaled
+     * linearly, so the most expensive pixel is red
+     * @param imageName - the name of the image
+     * @return ImageWriter - the image, ready for writing
+     */
+    public ImageWriter toImage(String imageName) {
+        ImageWriter imageWriter = new ImageWriter(imageName, nX, nY);
+        double max = Math.max(1, getMaxCost());
+        for (int y = 0; y < nY; y++)
+            for (int x = 0; x < nX; x++)
+                imageWriter.writePixel(x, y, falseColor(costs[y * nX + x] / max));
+        return imageWriter;
+    }
+
+    /**
+     * Function falseColor interpolates the color of a cost on the false-color scale
+     * @param t - the cost, between 0 (the cheapest) and 1 (the most expensive)
+     * @return Color
+     */
+    static Color falseColor(double t) {
+        double position = Math.min(Math.max(t, 0), 1) * (SCALE.length - 1);
+        int index = Math.min((int) position, SCALE.length - 2);
+        double fraction = position - index;
+        return SCALE[index].scale(1 - fraction).add(SCALE[index + 1].scale(fraction));
+    }
+}
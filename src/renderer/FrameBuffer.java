@@ -0,0 +1,134 @@
+package renderer;
+
+import primitives.Color;
+import primitives.Double3;
+
+/**
+ * FrameBuffer class represents the pixels of a rendered image in high dynamic range -
+ * the red, green and blue components of each pixel are kept as float without upper limit,
+ * interleaved (RGB after RGB) in one primitive array, row after row.<br/>
+ * The rendering writes into the buffer without creating any object, and the tone mapping
+ * and the quantization into 8 bits are done later in one pass over the whole buffer.
+ * Different pixels may be written from different threads at the same time.
+ * @author Rivka Sheiner
+ */
+public class FrameBuffer {
+    /**
+     * The number of pixels in X axis
+     */
+    private final int nX;
+    /**
+     * The number of pixels in Y axis
+     */
+    private final int nY;
+    /**
+     * The components of the pixels, RGB after RGB
+     */
+    private final float[] rgb;
+
+    /**
+     * FrameBuffer constructor - creates black image
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @throws IllegalArgumentException if one of the sizes is not positive
+     */
+    public FrameBuffer(int nX, int nY) throws IllegalArgumentException {
+        if (nX < 1 || nY < 1)
+            throw new IllegalArgumentException("the size of the image must be positive");
+        this.nX = nX;
+        this.nY = nY;
+        this.rgb = new float[Math.multiplyExact(nX * 3, nY)];
+    }
+
+    /**
+     * This method returns the number of pixels in X axis
+     * @return int
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * This method returns the number of pixels in Y axis
+     * @return int
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * This method sets the color of one pixel
+     * @param x - the index of the pixel on X axis
+     * @param y - the index of the pixel on Y axis
+     * @param color - the color of the pixel
+     */
+    public void setPixel(int x, int y, Color color) {
+        Double3 components = color.getRgb();
+        setPixel(x, y, (float) components.getD1(), (float) components.getD2(), (float) components.getD3());
+    }
+
+    /**
+     * This method sets the components of the color of one pixel
+     * @param x - the index of the pixel on X axis
+     * @param y - the index of the pixel on Y axis
+     * @param r - the red component
+     * @param g - the green component
+     * @param b - the blue component
+     */
+    public void setPixel(int x, int y, float r, float g, float b) {
+        int i = (y * nX + x) * 3;
+        rgb[i] = r;
+        rgb[i + 1] = g;
+        rgb[i + 2] = b;
+    }
+
+    /**
+     * This method returns the color of one pixel
+     * @param x - the index of the pixel on X axis
+     * @param y - the index of the pixel on Y axis
+     * @return Color
+     */
+    public Color getPixel(int x, int y) {
+        int i = (y * nX + x) * 3;
+        return new Color(rgb[i], rgb[i + 1], rgb[i + 2]);
+    }
+
+    /**
+     * This method returns the components of the pixels, RGB after RGB, row after row
+     * @return the array of the components, which is kept by the buffer
+     */
+    float[] getComponents() {
+        return rgb;
+    }
+
+    /**
+     * Function toneMap maps the components of rows of pixels by the tone mapper, quantizes them
+     * into 8 bits and packs each pixel into one int (0xRRGGBB), as in java.awt.image.BufferedImage.TYPE_INT_RGB.
+     * The loop creates no objects, but it calls the tone mapper for each component and reads the pixels
+     * RGB after RGB, so it is not vectorized by the JIT compiler (splitting it into a loop of the curves of
+     * the built-in mappers over the components and a loop of packing was slower on JDK 17, which does not
+     * vectorize the conversion to int).
+     * @param mapper - the tone mapper
+     * @param fromRow - the index of the first row
+     * @param toRow - the index after the last row
+     * @param out - the packed pixels, row after row from the first row
+     * @param offset - the index in out of the first pixel
+     */
+    public void toneMap(ToneMapper mapper, int fromRow, int toRow, int[] out, int offset) {
+        int end = toRow * nX;
+        for (int pixel = fromRow * nX, i = offset; pixel < end; pixel++, i++)
+            out[i] = quantize(mapper.map(rgb[pixel * 3])) << 16
+                    | quantize(mapper.map(rgb[pixel * 3 + 1])) << 8
+                    | quantize(mapper.map(rgb[pixel * 3 + 2]));
+    }
+
+    /**
+     * Function quantize converts a component on the display into 8 bits - the fraction is truncated
+     * and the values out of 0 to 255 are clamped
+     * @param value - the component on the display
+     * @return int - number between 0 and 255
+     */
+    private static int quantize(float value) {
+        return Math.min(Math.max((int) value, 0), 255);
+    }
+}
@@ -0,0 +1,51 @@
+package renderer;
+
+import java.util.Random;
+
+/**
+ * HaltonSampler class takes the points of the Halton sequence in bases 2 and 3, which is a low-discrepancy
+ * sequence - each prefix of it covers the pixel evenly. The sequence of each pixel is shifted (toroidally)
+ * by a random offset of the pixel, so the patterns of neighbouring pixels are not the same.
+ * @author Rivka Sheiner
+ */
+public class HaltonSampler extends Sampler {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void fill(Random random, int count, double[] points) {
+        double offsetX = random.nextDouble(), offsetY = random.nextDouble();
+        for (int k = 0; k < count; k++) {
+            points[2 * k] = shift(radicalInverse(k + 1, 2), offsetX);
+            points[2 * k + 1] = shift(radicalInverse(k + 1, 3), offsetY);
+        }
+    }
+
+    /**
+     * Function radicalInverse mirrors the digits of a number around the point
+     * @param index - the number
+     * @param base - the base of the digits
+     * @return double - between 0 and 1
+     */
+    static double radicalInverse(int index, int base) {
+        double result = 0, fraction = 1d / base;
+        for (int n = index; n > 0; n /= base) {
+            result += (n % base) * fraction;
+            fraction /= base;
+        }
+        return result;
+    }
+
+    /**
+     * Function shift adds an offset to a coordinate, modulo 1
+     * @param value - the coordinate
+     * @param offset - the offset
+     * @return double - between 0 and 1
+     */
+    private static double shift(double value, double offset) {
+        double shifted = value + offset;
+        return shifted >= 1 ? shifted - 1 : shifted;
+    }
+}
@@ -2,6 +2,7 @@ package renderer;
 
 import primitives.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.util.logging.Level;
@@ -13,7 +14,9 @@ import javax.imageio.*;
  * Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible for holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution.
+ * The pixels are kept in high dynamic range (FrameBuffer), and they are tone mapped
+ * into 8 bits only when the image is written.
  *
  * @author Dan
  */
@@ -21,9 +24,10 @@ public class ImageWriter {
     private int nX;
     private int nY;
 
-    private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
+    static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
-    private BufferedImage image;
+    private FrameBuffer frameBuffer;
+    private ToneMapper toneMapper = ToneMapper.CLAMP;
     private String imageName;
 
     private Logger logger = Logger.getLogger("ImageWriter");
@@ -40,7 +44,7 @@ public class ImageWriter {
         this.nX = nX;
         this.nY = nY;
 
-        image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        frameBuffer = new FrameBuffer(nX, nY);
     }
 
     // ***************** Getters/Setters ********************** //
@@ -62,6 +66,35 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * The name of the image file, without the extension
+     *
+     * @return the name of the image
+     */
+    public String getImageName() {
+        return imageName;
+    }
+
+    /**
+     * The pixels of the image in high dynamic range
+     *
+     * @return the frame buffer
+     */
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    /**
+     * Setter of the tone mapping of the pixels when the image is written, clamping by default
+     *
+     * @param toneMapper the tone mapper
+     * @return the image writer
+     */
+    public ImageWriter setToneMapper(ToneMapper toneMapper) {
+        this.toneMapper = toneMapper;
+        return this;
+    }
+
     // ***************** Operations ******************** //
 
     /**
@@ -69,6 +102,10 @@ public class ImageWriter {
      * pixel color matrix in the directory of the project
      */
     public void writeToImage() {
+        BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        // the tone mapping writes directly into the pixels of the image
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        frameBuffer.toneMap(toneMapper, 0, nY, pixels, 0);
         try {
             File file = new File(FOLDER_PATH + '/' + imageName + ".png");
             ImageIO.write(image, "png", file);
@@ -88,7 +125,21 @@ public class ImageWriter {
      * @param color  final color of the pixel
      */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        frameBuffer.setPixel(xIndex, yIndex, color);
+    }
+
+    /**
+     * The function writePixel writes the components of a color of a specific pixel
+     * into pixel color matrix, without creating any object
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @param r      red component of the final color of the pixel
+     * @param g      green component of the final color of the pixel
+     * @param b      blue component of the final color of the pixel
+     */
+    public void writePixel(int xIndex, int yIndex, float r, float g, float b) {
+        frameBuffer.setPixel(xIndex, yIndex, r, g, b);
     }
 
 }
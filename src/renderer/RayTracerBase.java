@@ -2,13 +2,18 @@ package renderer;
 
 import primitives.*;
 import scene.*;
+import java.io.Serializable;
 
 /**
  * RayTracerBase class responsible for tracing the rays which are
  * sent to the scene.
  * @author Rivka Sheiner
  */
-public abstract class RayTracerBase {
+public abstract class RayTracerBase implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The scene to which the rays are sent
@@ -30,4 +35,19 @@ public abstract class RayTracerBase {
      * @return Color
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * Function traceRays is used for tracing group of rays which are sent together
+     * to the scene and calculating their colors.
+     * By default each ray is traced separately, ray tracers which can trace coherent
+     * rays together (like rays through neighbouring pixels) override it.
+     * @param rays - the rays which are sent to the scene
+     * @return array of Color - the color of each ray, in the order of the rays
+     */
+    public Color[] traceRays(Ray[] rays) {
+        Color[] colors = new Color[rays.length];
+        for (int i = 0; i < rays.length; i++)
+            colors[i] = traceRay(rays[i]);
+        return colors;
+    }
 }
@@ -3,10 +3,9 @@ package renderer;
 import primitives.*;
 import scene.Scene;
 import geometries.Intersectable.GeoPoint;
+import geometries.RayPacket;
 import lighting.*;
 
-import java.util.List;
-
 import static primitives.Util.alignZero;
 
 /**
@@ -15,6 +14,10 @@ import static primitives.Util.alignZero;
  * @author Rivka Sheiner
  */
 public class RayTracerBasic extends RayTracerBase{
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * Size of moving of the shadow rays
@@ -50,10 +53,35 @@ public class RayTracerBasic extends RayTracerBase{
      * @return Color
      */
     public Color traceRay(Ray ray) {
+        if (RenderMetrics.isEnabled)
+            RenderMetrics.countPrimaryRay();
         GeoPoint closestPoint = findClosestIntersection(ray);
         return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
     }
 
+    /**
+     * Function traceRays traces the rays in packets of up to 64 rays. The rays of each
+     * packet are intersected together with the geometries of the scene, and then the
+     * color of each intersection is calculated separately.
+     * @param rays - the rays which are sent to the scene
+     * @return array of Color - the color of each ray, in the order of the rays
+     */
+    @Override
+    public Color[] traceRays(Ray[] rays) {
+        Color[] colors = new Color[rays.length];
+        for (int from = 0; from < rays.length; from += RayPacket.MAX_SIZE) {
+            RayPacket packet = new RayPacket(rays, from, Math.min(RayPacket.MAX_SIZE, rays.length - from));
+            scene.geometries.findClosestIntersections(packet);
+            for (int r = 0; r < packet.size(); r++) {
+                if (RenderMetrics.isEnabled)
+                    RenderMetrics.countPrimaryRay();
+                GeoPoint closestPoint = packet.getClosestIntersection(r);
+                colors[from + r] = closestPoint == null ? scene.background : calcColor(closestPoint, rays[from + r]);
+            }
+        }
+        return colors;
+    }
+
     /**
      * Function calcColor is a wrap function used for calculating the
      * color of specific point on geometry body.
@@ -76,6 +104,8 @@ public class RayTracerBasic extends RayTracerBase{
      * @return Color
      */
     private Color calcColor(GeoPoint gp, Ray ray, int level, double k) {
+        if (RenderMetrics.isEnabled)
+            RenderMetrics.countDepth(MAX_CALC_COLOR_LEVEL - level + 1);
         Color color = calcLocalEffects(gp, ray, k);
         return 1 == level ? color : color.add(calcGlobalEffects(gp, ray, level, k));
     }
@@ -94,15 +124,20 @@ public class RayTracerBasic extends RayTracerBase{
         Vector n = gp.geometry.getNormal(gp.point);
         Material material = gp.geometry.getMaterial();
 
+        // the rays are constructed only for the effects which continue the recursion
         double kr = material.kR.getD1(), kkr = k * kr;
-        Ray reflectedRay = constructReflectedRay(gp.point, ray.getDir(),n);
         if (kkr > MIN_CALC_COLOR_K) {
+            Ray reflectedRay = constructReflectedRay(gp.point, ray.getDir(),n);
+            if (RenderMetrics.isEnabled)
+                RenderMetrics.countReflectedRay();
             color = color.add(calcGlobalEffect(reflectedRay, level, kr, kkr));
         }
 
         double kt = material.kT.getD1(), kkt = k * kt;
-        Ray refractedRay = constructRefractedRay(gp.point, ray.getDir(),n);
         if (kkt > MIN_CALC_COLOR_K) {
+            Ray refractedRay = constructRefractedRay(gp.point, ray.getDir(),n);
+            if (RenderMetrics.isEnabled)
+                RenderMetrics.countRefractedRay();
             color = color.add(calcGlobalEffect(refractedRay, level, kt, kkt));
         }
 
@@ -138,11 +173,17 @@ public class RayTracerBasic extends RayTracerBase{
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0) return Color.BLACK;
 
-        int nShininess = gp.geometry.getMaterial().nShininess;
-        double kd = gp.geometry.getMaterial().kD.getD1();
-        double ks = gp.geometry.getMaterial().kS.getD1();
+        Material material = gp.geometry.getMaterial();
+        int nShininess = material.nShininess;
+        double kd = material.kD.getD1();
+        double ks = material.kS.getD1();
+
+        // the lighting is calculated from cosines of angles between the vectors (v is normalized),
+        // so no vectors are created for the normalized and reflected vectors
+        double nLength = n.length();
+        double cosNV = n.dotProduct(v) / nLength;
 
-        Color color = Color.BLACK.add(gp.geometry.getEmission());
+        Color color = gp.geometry.getEmission();
 
         for (LightSource lightSource : scene.lights) {
             Vector l = lightSource.getL(gp.point);
@@ -151,9 +192,11 @@ public class RayTracerBasic extends RayTracerBase{
             if (nl * nv > 0) { // sign(nl) == sing(nv)
                 double ktr = transparency(gp, lightSource, l, n);
                 if(ktr * k > MIN_CALC_COLOR_K ) {
-                    Color lightIntensity = lightSource.getIntensity(gp.point).scale(ktr);
-                    color = color.add(calcDiffusive(kd, l, n, lightIntensity),
-                            calcSpecular(ks, l, n, v, nShininess, lightIntensity));
+                    double lLength = l.length();
+                    double cosNL = n.dotProduct(l) / (nLength * lLength);
+                    double cosVL = v.dotProduct(l) / lLength;
+                    double factor = calcDiffusive(kd, cosNL) + calcSpecular(ks, cosNL, cosNV, cosVL, nShininess);
+                    color = color.add(lightSource.getIntensity(gp.point).scale(ktr * factor));
                 }
             }
         }
@@ -161,37 +204,30 @@ public class RayTracerBasic extends RayTracerBase{
     }
 
     /**
-     * Function calcSpecular calculates the specular lighting of the body under the
+     * Function calcSpecular calculates the factor of the specular lighting of the body under the
      * influence of the light source.
+     * The reflected vector of the light is r = l - 2(l*n)n, so for normalized vectors
+     * -v*r = 2(l*n)(v*n) - v*l, and there is no need to create it.
      * @param ks - factor of attenuation of the material
-     * @param l - vector from the light source to the point on the geometric body
-     * @param n - the normal vector to the geometric body in the intersection point
-     * @param v - the direction vector of the ray which intersects the geometric body
+     * @param cosNL - cosine of the angle between the normal and the vector from the light source
+     * @param cosNV - cosine of the angle between the normal and the direction of the ray
+     * @param cosVL - cosine of the angle between the direction of the ray and the vector from the light source
      * @param nShininess - the size of shininess of the geometric body's material
-     * @param lightIntensity - the intensity of the external light source
-     * @return Color
+     * @return double - the factor of the intensity of the light source
      */
-    private Color calcSpecular(double ks, Vector l, Vector n, Vector v, int nShininess, Color lightIntensity) {
-        Vector lNormalized = l.normalize();
-        Vector nNormalized = n.normalize();
-
-        Vector r = lNormalized.subtract(nNormalized.scale(2*lNormalized.dotProduct(nNormalized)));
-        double factor = ks * Math.pow(Math.max(0, -v.normalize().dotProduct(r.normalize())), nShininess);
-        return lightIntensity.scale(factor);
+    private double calcSpecular(double ks, double cosNL, double cosNV, double cosVL, int nShininess) {
+        return ks * Math.pow(Math.max(0, 2 * cosNL * cosNV - cosVL), nShininess);
     }
 
     /**
-     * Function calcDiffusive calculates the diffuse illumination across the geometric
+     * Function calcDiffusive calculates the factor of the diffuse illumination across the geometric
      * body under the influence of the light source.
      * @param kd - factor of attenuation of the material
-     * @param l - vector from the light source to the point on the geometric body
-     * @param n - the normal vector to the geometric body in the intersection point
-     * @param lightIntensity - the intensity of the external light source
-     * @return Color
+     * @param cosNL - cosine of the angle between the normal and the vector from the light source
+     * @return double - the factor of the intensity of the light source
      */
-    private Color calcDiffusive(double kd, Vector l, Vector n, Color lightIntensity) {
-        double factor = kd * Math.abs(l.normalize().dotProduct(n.normalize()));
-        return lightIntensity.scale(factor);
+    private double calcDiffusive(double kd, double cosNL) {
+        return kd * Math.abs(cosNL);
     }
 
     /**
@@ -207,21 +243,12 @@ public class RayTracerBasic extends RayTracerBase{
         Vector lightDirection = l.scale(-1); // from point to light source
 
         Ray lightRay = new Ray(geopoint.point, lightDirection, n, DELTA);
+        if (RenderMetrics.isEnabled)
+            RenderMetrics.countShadowRay();
         double lightDistance = ls.getDistance(geopoint.point);
 
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay,lightDistance);
-        if (intersections == null) return 1.0;
-
-        double ktr = 1.0;
-        //loop over intersections and for each intersection which is closer to the
-        //point than the light source multiply ktr by kT of its geometry
-        for(GeoPoint gp : intersections){
-            if(alignZero( gp.point.distance(geopoint.point) - lightDistance ) <= 0){
-                ktr *= gp.geometry.getMaterial().kT.getD1();
-                if(ktr < MIN_CALC_COLOR_K) return 0.0;
-            }
-        }
-        return ktr;
+        // the search stops on the first opaque geometry between the point and the light source
+        return scene.geometries.findTransparency(lightRay, lightDistance, MIN_CALC_COLOR_K);
     }
 
     /**
@@ -263,9 +290,6 @@ public class RayTracerBasic extends RayTracerBase{
      * @return GeoPoint
      */
     private GeoPoint findClosestIntersection(Ray ray){
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        if(intersections == null)
-            return null;
-        return ray.findClosestGeoPoint(intersections);
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 }
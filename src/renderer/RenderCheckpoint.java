@@ -0,0 +1,240 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RenderCheckpoint class keeps the finished tiles of a rendering in a binary file, so a rendering
+ * which was stopped (for example when the JVM was killed) can be resumed without rendering them again.<br/>
+ * The file has a header (magic number, version, size of the image and of the tiles, and the fingerprint
+ * of the configuration of the rendering, so the file of another scene or camera is not used), one byte for
+ * each tile which tells whether it is finished, and the float components (RGB) of all the pixels,
+ * row after row. The pixels of each tile are written as soon as it is finished, and the bytes of the
+ * finished tiles are written in the checkpoints, only after the pixels were forced to the disk, so the
+ * file never tells that a tile is finished before its pixels are saved.
+ * @author Rivka Sheiner
+ */
+final class RenderCheckpoint implements AutoCloseable {
+    /**
+     * The magic number in the beginning of the file ("RTCP")
+     */
+    private static final int MAGIC = 0x52544350;
+    /**
+     * The version of the format of the file
+     */
+    private static final int VERSION = 2;
+    /**
+     * The size of the header - magic number, version, nX, nY, size of tile, fingerprint
+     */
+    private static final int HEADER_SIZE = 5 * Integer.BYTES + Long.BYTES;
+    /**
+     * The number of bytes of one pixel
+     */
+    private static final int PIXEL_SIZE = 3 * Float.BYTES;
+
+    /**
+     * The file
+     */
+    private final FileChannel channel;
+    /**
+     * The number of pixels in X axis
+     */
+    private final int nX;
+    /**
+     * The length of the side of a tile in pixels
+     */
+    private final int tileSize;
+    /**
+     * The number of tiles in X axis
+     */
+    private final int tilesX;
+    /**
+     * The tiles which were finished in the file
+     */
+    private final boolean[] done;
+    /**
+     * The tiles whose pixels were written and which are not marked as finished in the file yet
+     */
+    private final List<Integer> pending = new ArrayList<>();
+    /**
+     * The minimal time in nanoseconds between two checkpoints
+     */
+    private final long interval;
+    /**
+     * The time of the last checkpoint
+     */
+    private long lastCheckpoint = System.nanoTime();
+
+    /**
+     * RenderCheckpoint constructor - opens the file of the checkpoint, and if it belongs to rendering of
+     * the same size and the same configuration, the pixels of its finished tiles are copied into the frame
+     * buffer. Otherwise the file is created again without finished tiles.
+     * @param file - the file of the checkpoint
+     * @param tileSize - the length of the side of a tile in pixels
+     * @param interval - the minimal time in milliseconds between two checkpoints
+     * @param fingerprint - the hash of the configuration of the rendering
+     * @param frameBuffer - the pixels of the image
+     * @throws IllegalStateException if the file cannot be read or written
+     */
+    RenderCheckpoint(Path file, int tileSize, long interval, long fingerprint, FrameBuffer frameBuffer)
+            throws IllegalStateException {
+        this.nX = frameBuffer.getNx();
+        int nY = frameBuffer.getNy();
+        this.tileSize = tileSize;
+        this.tilesX = (nX + tileSize - 1) / tileSize;
+        this.done = new boolean[tilesX * ((nY + tileSize - 1) / tileSize)];
+        this.interval = interval * 1_000_000;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION)
+                    .putInt(nX).putInt(nY).putInt(tileSize).putLong(fingerprint).flip();
+            ByteBuffer existing = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(existing, 0);
+            if (existing.flip().equals(header))
+                restore(frameBuffer);
+            else {
+                channel.truncate(0);
+                channel.write(header, 0);
+                channel.write(ByteBuffer.allocate(done.length), HEADER_SIZE);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error in checkpoint " + file, e);
+        }
+    }
+
+    /**
+     * This method checks whether a tile was finished
+     * @param x0 - the index of the first column of the tile
+     * @param y0 - the index of the first row of the tile
+     * @return true if the tile was finished
+     */
+    boolean isDone(int x0, int y0) {
+        return done[tileIndex(x0, y0)];
+    }
+
+    /**
+     * Function tileFinished writes the pixels of a finished tile into the file, and makes a checkpoint
+     * if the interval passed since the last checkpoint. It is called from several threads at the same time.
+     * @param x0 - the index of the first column of the tile
+     * @param y0 - the index of the first row of the tile
+     * @param x1 - the index after the last column of the tile
+     * @param y1 - the index after the last row of the tile
+     * @param frameBuffer - the pixels of the image
+     * @throws IllegalStateException if the file cannot be written
+     */
+    void tileFinished(int x0, int y0, int x1, int y1, FrameBuffer frameBuffer) throws IllegalStateException {
+        float[] components = frameBuffer.getComponents();
+        ByteBuffer row = ByteBuffer.allocate((x1 - x0) * PIXEL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            for (int y = y0; y < y1; y++) {
+                row.clear();
+                for (int i = (y * nX + x0) * 3; i < (y * nX + x1) * 3; i++)
+                    row.putFloat(components[i]);
+                row.flip();
+                long position = pixelPosition(x0, y);
+                while (row.hasRemaining())
+                    position += channel.write(row, position);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error in checkpoint", e);
+        }
+
+        synchronized (this) {
+            pending.add(tileIndex(x0, y0));
+            if (System.nanoTime() - lastCheckpoint >= interval)
+                checkpoint();
+        }
+    }
+
+    /**
+     * Function checkpoint forces the pixels of the finished tiles to the disk, and then marks the tiles
+     * as finished in the file
+     * @throws IllegalStateException if the file cannot be written
+     */
+    synchronized void checkpoint() throws IllegalStateException {
+        if (pending.isEmpty())
+            return;
+        try {
+            channel.force(false);
+            ByteBuffer finished = ByteBuffer.wrap(new byte[] { 1 });
+            for (int tile : pending) {
+                channel.write(finished.rewind(), HEADER_SIZE + tile);
+                done[tile] = true;
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error in checkpoint", e);
+        }
+        pending.clear();
+        lastCheckpoint = System.nanoTime();
+    }
+
+    /**
+     * Function close makes the last checkpoint and closes the file
+     * @throws IllegalStateException if the file cannot be written
+     */
+    @Override
+    public void close() throws IllegalStateException {
+        try (channel) {
+            checkpoint();
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error in checkpoint", e);
+        }
+    }
+
+    /**
+     * Function restore reads the finished tiles from the file and copies their pixels into the frame buffer
+     * @param frameBuffer - the pixels of the image
+     * @throws IOException if the file cannot be read
+     */
+    private void restore(FrameBuffer frameBuffer) throws IOException {
+        ByteBuffer flags = ByteBuffer.allocate(done.length);
+        channel.read(flags, HEADER_SIZE);
+        int nY = frameBuffer.getNy();
+        float[] components = frameBuffer.getComponents();
+        ByteBuffer row = ByteBuffer.allocate(Math.min(tileSize, nX) * PIXEL_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int tile = 0; tile < done.length; tile++) {
+            if (flags.get(tile) == 0)
+                continue;
+            int x0 = (tile % tilesX) * tileSize, y0 = (tile / tilesX) * tileSize;
+            int x1 = Math.min(x0 + tileSize, nX), y1 = Math.min(y0 + tileSize, nY);
+            for (int y = y0; y < y1; y++) {
+                row.clear().limit((x1 - x0) * PIXEL_SIZE);
+                long position = pixelPosition(x0, y);
+                while (row.hasRemaining())
+                    if (channel.read(row, position + row.position()) < 0)
+                        throw new IOException("the checkpoint file is truncated");
+                row.flip();
+                for (int i = (y * nX + x0) * 3; i < (y * nX + x1) * 3; i++)
+                    components[i] = row.getFloat();
+            }
+            done[tile] = true;
+        }
+    }
+
+    /**
+     * Function tileIndex calculates the index of the tile which begins in a pixel
+     * @param x0 - the index of the first column of the tile
+     * @param y0 - the index of the first row of the tile
+     * @return int - the index of the tile (row * number of tiles in X axis + column)
+     */
+    private int tileIndex(int x0, int y0) {
+        return (y0 / tileSize) * tilesX + x0 / tileSize;
+    }
+
+    /**
+     * Function pixelPosition calculates the position of a pixel in the file
+     * @param x - the index of the pixel on X axis
+     * @param y - the index of the pixel on Y axis
+     * @return long - the position in bytes from the beginning of the file
+     */
+    private long pixelPosition(int x, int y) {
+        return HEADER_SIZE + done.length + ((long) y * nX + x) * PIXEL_SIZE;
+    }
+}
@@ -0,0 +1,402 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.MissingResourceException;
+
+/**
+ * RenderCoordinator class renders images on other JVMs (on this machine or on other machines) - the
+ * workers (RenderWorker) connect to the coordinator by TCP, and for each rendering the coordinator sends
+ * them the serialized camera (with its ray tracer and scene) once, and then hands out to them chunks of
+ * the image (squares of chunkSize x chunkSize pixels, in Morton order). Each worker renders its chunks in
+ * multi threading, and returns their pixels, which the coordinator writes into the image writer of the camera.<br/>
+ * Each worker gets the next chunk before it returns the current one, so it does not wait for the network.
+ * When a worker fails (its connection is closed or it does not answer in the timeout), its chunks are
+ * handed out to the other workers. Workers may connect at any time, also in the middle of a rendering.
+ * @author Rivka Sheiner
+ */
+public class RenderCoordinator implements AutoCloseable {
+    /**
+     * The type of the message of a new rendering - nX, nY, the length of the camera and the serialized camera
+     */
+    static final byte JOB = 1;
+    /**
+     * The type of the message of a chunk - x0, y0, x1, y1
+     */
+    static final byte CHUNK = 2;
+    /**
+     * The max length in bytes of a serialized camera
+     */
+    static final int MAX_CAMERA_SIZE = 256 << 20;
+    /**
+     * The max number of chunks which were handed out to one worker and were not returned yet
+     */
+    private static final int MAX_CHUNKS_IN_FLIGHT = 2;
+    /**
+     * The max number of workers which may fail in rendering of one chunk
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * The socket on which the workers connect
+     */
+    private final ServerSocket serverSocket;
+    /**
+     * The connections of the workers
+     */
+    private final List<Socket> workers = new ArrayList<>();
+    /**
+     * The current rendering, null between renderings
+     */
+    private Job job;
+    /**
+     * Indicates whether the coordinator was closed
+     */
+    private boolean isClosed = false;
+    /**
+     * The length of the side of the square chunks which are handed out to the workers
+     */
+    private int chunkSize = 64;
+    /**
+     * The max time in milliseconds of waiting for a chunk from a worker, 0 for no limit
+     */
+    private int workerTimeout = 0;
+
+    /**
+     * Job class represents one rendering of the coordinator
+     */
+    private static class Job {
+        /**
+         * The serialized camera
+         */
+        final byte[] camera;
+        /**
+         * The number of pixels in X axis
+         */
+        final int nX;
+        /**
+         * The number of pixels in Y axis
+         */
+        final int nY;
+        /**
+         * The pixels of the image
+         */
+        final FrameBuffer frameBuffer;
+        /**
+         * The chunks which were not handed out yet - x0, y0, x1, y1 and the number of failed attempts
+         */
+        final Deque<int[]> pending = new ArrayDeque<>();
+        /**
+         * The number of chunks which were not returned yet
+         */
+        int remaining;
+        /**
+         * The failure of the rendering, null if it did not fail
+         */
+        RuntimeException failure;
+
+        /**
+         * Job constructor - divides the image into chunks
+         * @param camera - the serialized camera
+         * @param imageWriter - the image writer of the camera
+         * @param chunkSize - the length of the side of the chunks
+         */
+        Job(byte[] camera, ImageWriter imageWriter, int chunkSize) {
+            this.camera = camera;
+            this.nX = imageWriter.getNx();
+            this.nY = imageWriter.getNy();
+            this.frameBuffer = imageWriter.getFrameBuffer();
+            int chunksX = (nX + chunkSize - 1) / chunkSize;
+            for (int chunk : TileScheduler.mortonOrder(chunksX, (nY + chunkSize - 1) / chunkSize)) {
+                int x0 = (chunk % chunksX) * chunkSize, y0 = (chunk / chunksX) * chunkSize;
+                pending.add(new int[] { x0, y0, Math.min(x0 + chunkSize, nX), Math.min(y0 + chunkSize, nY), 0 });
+            }
+            this.remaining = pending.size();
+        }
+    }
+
+    /**
+     * RenderCoordinator constructor - starts to accept the connections of the workers
+     * @param port - the port on which the workers connect, 0 for any free port
+     * @throws IllegalStateException if the port cannot be opened
+     */
+    public RenderCoordinator(int port) throws IllegalStateException {
+        try {
+            serverSocket = new ServerSocket(port);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot open port " + port, e);
+        }
+        Thread acceptor = new Thread(this::acceptWorkers, "render-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * This method returns the port on which the workers connect
+     * @return int
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * This method returns the number of the connected workers
+     * @return int
+     */
+    public synchronized int getNumWorkers() {
+        return workers.size();
+    }
+
+    /**
+     * Setter of the length of the side of the square chunks which are handed out to the workers
+     * @param chunkSize - the length of the side of a chunk in pixels
+     * @return RenderCoordinator
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public RenderCoordinator setChunkSize(int chunkSize) throws IllegalArgumentException {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("the size of chunk must be positive number");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Setter of the max time of waiting for a chunk from a worker - a worker which does not return
+     * a chunk in that time is considered as failed. It should be longer than the rendering of a chunk.
+     * @param workerTimeout - the time in milliseconds, 0 for no limit
+     * @return RenderCoordinator
+     * @throws IllegalArgumentException if the time is negative
+     */
+    public RenderCoordinator setWorkerTimeout(int workerTimeout) throws IllegalArgumentException {
+        if (workerTimeout < 0)
+            throw new IllegalArgumentException("the timeout of worker must not be negative");
+        this.workerTimeout = workerTimeout;
+        return this;
+    }
+
+    /**
+     * Function render renders the image of the camera on the workers and writes it into the image
+     * writer of the camera. It returns after all the chunks were returned, and it waits for workers
+     * while there are no connected workers.
+     * @param camera - the camera, with all the resources for rendering
+     * @throws MissingResourceException if the camera lacks resources
+     * @throws IllegalArgumentException if the camera (or its ray tracer or scene) is not serializable,
+     * or its serialized form is larger than MAX_CAMERA_SIZE
+     * @throws IllegalStateException if a chunk failed on several workers, or the coordinator is closed
+     */
+    public void render(Camera camera) throws MissingResourceException, IllegalArgumentException, IllegalStateException {
+        camera.checkResources();
+        Job current = new Job(serialize(camera), camera.getImageWriter(), chunkSize);
+        synchronized (this) {
+            if (job != null)
+                throw new IllegalStateException("the coordinator is already rendering");
+            job = current;
+            notifyAll();
+            try {
+                while (current.remaining > 0 && current.failure == null && !isClosed)
+                    wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("rendering was interrupted", e);
+            } finally {
+                job = null;
+            }
+        }
+        if (current.failure != null)
+            throw current.failure;
+        if (current.remaining > 0)
+            throw new IllegalStateException("the coordinator was closed while rendering");
+    }
+
+    /**
+     * Function close stops accepting workers and closes their connections, so they stop
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            isClosed = true;
+            notifyAll();
+        }
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // the socket is closed anyway
+        }
+        for (Socket socket : snapshotWorkers())
+            closeQuietly(socket);
+    }
+
+    /**
+     * Function serialize serializes the camera, with its ray tracer and scene
+     * @param camera - the camera
+     * @return the bytes of the serialized camera
+     * @throws IllegalArgumentException if the camera is not serializable or it is too large for the workers
+     */
+    private static byte[] serialize(Camera camera) throws IllegalArgumentException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(camera);
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException("the camera is not serializable: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new IllegalStateException("cannot serialize the camera", e);
+        }
+        if (bytes.size() > MAX_CAMERA_SIZE)
+            throw new IllegalArgumentException("the serialized camera is larger than " + MAX_CAMERA_SIZE + " bytes");
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Function acceptWorkers accepts the connections of the workers, and starts a thread
+     * which serves each of them, until the coordinator is closed
+     */
+    private void acceptWorkers() {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                synchronized (this) {
+                    if (isClosed) {
+                        closeQuietly(socket);
+                        return;
+                    }
+                    workers.add(socket);
+                }
+                Thread thread = new Thread(() -> serve(socket), "render-coordinator-" + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (SocketException e) {
+            // the coordinator was closed
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * Function serve hands out chunks of the renderings to one worker and receives their pixels,
+     * until the connection fails or the coordinator is closed
+     * @param socket - the connection of the worker
+     */
+    private void serve(Socket socket) {
+        Deque<int[]> inFlight = new ArrayDeque<>();
+        // the rendering of the chunks in flight, and the last rendering which was sent to the worker
+        Job owner = null, sentJob = null;
+        try (socket) {
+            socket.setSoTimeout(workerTimeout);
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                int[] next;
+                Job current;
+                synchronized (this) {
+                    while (!isClosed && inFlight.isEmpty() && (job == null || job.pending.isEmpty()))
+                        wait();
+                    if (isClosed)
+                        return;
+                    // the chunks in flight belong to the current job, since it is not finished before they return
+                    current = inFlight.isEmpty() ? job : owner;
+                    next = inFlight.size() < MAX_CHUNKS_IN_FLIGHT && current == job ? current.pending.poll() : null;
+                    if (next != null) {
+                        inFlight.add(next);
+                        owner = current;
+                    }
+                }
+
+                if (next != null) {
+                    if (current != sentJob) {
+                        out.writeByte(JOB);
+                        out.writeInt(current.nX);
+                        out.writeInt(current.nY);
+                        out.writeInt(current.camera.length);
+                        out.write(current.camera);
+                        sentJob = current;
+                    }
+                    out.writeByte(CHUNK);
+                    for (int i = 0; i < 4; i++)
+                        out.writeInt(next[i]);
+                    out.flush();
+                    continue;
+                }
+
+                receiveChunk(in, current, inFlight.peek());
+                inFlight.poll();
+                synchronized (this) {
+                    current.remaining--;
+                    notifyAll();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // the worker failed - its chunks are handed out to the other workers of their rendering
+            synchronized (this) {
+                for (int[] chunk : inFlight)
+                    if (++chunk[4] < MAX_ATTEMPTS)
+                        owner.pending.addFirst(chunk);
+                    else if (owner.failure == null)
+                        owner.failure = new IllegalStateException("chunk (" + chunk[0] + "," + chunk[1]
+                                + ") failed on " + MAX_ATTEMPTS + " workers", e);
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                workers.remove(socket);
+            }
+        }
+    }
+
+    /**
+     * Function receiveChunk reads the pixels of a chunk from a worker and writes them into the image
+     * @param in - the stream of the worker
+     * @param current - the rendering of the chunk
+     * @param chunk - the chunk which is expected from the worker
+     * @throws IOException if the connection failed or the worker sent other chunk
+     */
+    private static void receiveChunk(DataInputStream in, Job current, int[] chunk) throws IOException {
+        for (int i = 0; i < 4; i++)
+            if (in.readInt() != chunk[i])
+                throw new IOException("the worker sent unexpected chunk");
+        int width = chunk[2] - chunk[0];
+        byte[] bytes = new byte[width * (chunk[3] - chunk[1]) * 3 * Float.BYTES];
+        in.readFully(bytes);
+        ByteBuffer components = ByteBuffer.wrap(bytes);
+        for (int y = chunk[1]; y < chunk[3]; y++)
+            for (int x = chunk[0]; x < chunk[2]; x++)
+                current.frameBuffer.setPixel(x, y, components.getFloat(), components.getFloat(), components.getFloat());
+    }
+
+    /**
+     * This method returns a copy of the connections of the workers
+     * @return list of sockets
+     */
+    private synchronized List<Socket> snapshotWorkers() {
+        return new ArrayList<>(workers);
+    }
+
+    /**
+     * This method closes a connection and ignores its failure
+     * @param socket - the connection
+     */
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // the socket is closed anyway
+        }
+    }
+}
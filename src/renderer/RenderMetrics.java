@@ -0,0 +1,285 @@
+package renderer;
+
+import geometries.IntersectionMetrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RenderMetrics class counts the rays which are traced by {@link RayTracerBasic} - the primary,
+ * reflected, refracted and shadow rays - and the histogram of the depths of the recursion of
+ * the color calculation, together with the intersection tests of each class of geometry
+ * (see {@link IntersectionMetrics}).
+ * The counters are striped (LongAdder), so the rendering threads do not contend on them, and when
+ * the metrics are disabled (the default) the tracer only checks one static flag.
+ * The metrics can be read by the methods of the class, or by JMX after {@link #registerMBean()}.
+ * @author Rivka Sheiner
+ */
+public final class RenderMetrics {
+    /**
+     * The name of the MBean of the metrics
+     */
+    public static final String MBEAN_NAME = "renderer:type=RenderMetrics";
+    /**
+     * The number of buckets of the depth histogram - deeper recursion is counted in the last bucket
+     */
+    public static final int MAX_DEPTH = 32;
+
+    /**
+     * Indicates whether the metrics are counted - it is volatile, since it may be changed while rendering
+     * (also by JMX), and the threads of the rendering should see the change
+     */
+    static volatile boolean isEnabled = false;
+
+    /**
+     * The counter of the primary rays
+     */
+    private static final LongAdder primaryRays = new LongAdder();
+    /**
+     * The counter of the reflected rays
+     */
+    private static final LongAdder reflectedRays = new LongAdder();
+    /**
+     * The counter of the refracted rays
+     */
+    private static final LongAdder refractedRays = new LongAdder();
+    /**
+     * The counter of the shadow rays
+     */
+    private static final LongAdder shadowRays = new LongAdder();
+    /**
+     * The depth histogram - the counter of the calculations of color in each depth
+     */
+    private static final LongAdder[] depths = new LongAdder[MAX_DEPTH + 1];
+    /**
+     * The time of the last reset, in nanoseconds
+     */
+    private static volatile long resetTime = System.nanoTime();
+
+    static {
+        for (int i = 0; i < depths.length; i++)
+            depths[i] = new LongAdder();
+    }
+
+    /**
+     * Private constructor - the class has only static methods
+     */
+    private RenderMetrics() {
+    }
+
+    /**
+     * This method turns on or off the counting of the metrics, including the intersection tests
+     * @param enabled - true for counting
+     */
+    public static void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+        IntersectionMetrics.setEnabled(enabled);
+    }
+
+    /**
+     * This method checks whether the metrics are counted
+     * @return true if the metrics are counted
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Function countPrimaryRay counts one primary ray
+     */
+    static void countPrimaryRay() {
+        primaryRays.increment();
+    }
+
+    /**
+     * Function countReflectedRay counts one reflected ray
+     */
+    static void countReflectedRay() {
+        reflectedRays.increment();
+    }
+
+    /**
+     * Function countRefractedRay counts one refracted ray
+     */
+    static void countRefractedRay() {
+        refractedRays.increment();
+    }
+
+    /**
+     * Function countShadowRay counts one shadow ray
+     */
+    static void countShadowRay() {
+        shadowRays.increment();
+    }
+
+    /**
+     * Function countDepth counts one calculation of color in the given depth of the recursion
+     * @param depth - the depth, 1 for the intersections of the primary rays
+     */
+    static void countDepth(int depth) {
+        depths[Math.min(depth, MAX_DEPTH)].increment();
+    }
+
+    /**
+     * This method returns the number of primary rays which were traced
+     * @return long
+     */
+    public static long getPrimaryRays() {
+        return primaryRays.sum();
+    }
+
+    /**
+     * This method returns the number of reflected rays which were traced
+     * @return long
+     */
+    public static long getReflectedRays() {
+        return reflectedRays.sum();
+    }
+
+    /**
+     * This method returns the number of refracted rays which were traced
+     * @return long
+     */
+    public static long getRefractedRays() {
+        return refractedRays.sum();
+    }
+
+    /**
+     * This method returns the number of shadow rays which were traced
+     * @return long
+     */
+    public static long getShadowRays() {
+        return shadowRays.sum();
+    }
+
+    /**
+     * This method returns the number of rays of all kinds traced per second, since the last reset
+     * @return double
+     */
+    public static double getRaysPerSecond() {
+        double seconds = (System.nanoTime() - resetTime) / 1e9;
+        long rays = getPrimaryRays() + getReflectedRays() + getRefractedRays() + getShadowRays();
+        return seconds <= 0 ? 0 : rays / seconds;
+    }
+
+    /**
+     * This method returns the histogram of the depths of the recursion of the color calculation
+     * @return array of long - in index d, the number of intersections whose color was calculated
+     * in depth d (1 for the intersections of the primary rays, index 0 is not used)
+     */
+    public static long[] getDepthHistogram() {
+        long[] histogram = new long[depths.length];
+        for (int i = 0; i < depths.length; i++)
+            histogram[i] = depths[i].sum();
+        return histogram;
+    }
+
+    /**
+     * This method returns the number of intersection tests of each class of geometry
+     * @return map from the name of the class to the number of tests
+     */
+    public static Map<String, Long> getIntersectionTests() {
+        return IntersectionMetrics.getTests();
+    }
+
+    /**
+     * This method returns the number of intersection tests which found intersection, of each class of geometry
+     * @return map from the name of the class to the number of hits
+     */
+    public static Map<String, Long> getIntersectionHits() {
+        return IntersectionMetrics.getHits();
+    }
+
+    /**
+     * This method resets all the metrics to zero, including the intersection tests
+     */
+    public static void reset() {
+        primaryRays.reset();
+        reflectedRays.reset();
+        refractedRays.reset();
+        shadowRays.reset();
+        for (LongAdder depth : depths)
+            depth.reset();
+        IntersectionMetrics.reset();
+        resetTime = System.nanoTime();
+    }
+
+    /**
+     * This method registers the metrics in the platform MBean server under {@link #MBEAN_NAME},
+     * if they were not registered yet
+     * @throws IllegalStateException if the MBean cannot be registered
+     */
+    public static void registerMBean() throws IllegalStateException {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            // registered already
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the render metrics", e);
+        }
+    }
+
+    /**
+     * MXBean class exposes the static metrics by JMX
+     */
+    private static final class MXBean implements RenderMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return RenderMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            RenderMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public long getPrimaryRays() {
+            return RenderMetrics.getPrimaryRays();
+        }
+
+        @Override
+        public long getReflectedRays() {
+            return RenderMetrics.getReflectedRays();
+        }
+
+        @Override
+        public long getRefractedRays() {
+            return RenderMetrics.getRefractedRays();
+        }
+
+        @Override
+        public long getShadowRays() {
+            return RenderMetrics.getShadowRays();
+        }
+
+        @Override
+        public double getRaysPerSecond() {
+            return RenderMetrics.getRaysPerSecond();
+        }
+
+        @Override
+        public long[] getDepthHistogram() {
+            return RenderMetrics.getDepthHistogram();
+        }
+
+        @Override
+        public Map<String, Long> getIntersectionTests() {
+            return RenderMetrics.getIntersectionTests();
+        }
+
+        @Override
+        public Map<String, Long> getIntersectionHits() {
+            return RenderMetrics.getIntersectionHits();
+        }
+
+        @Override
+        public void reset() {
+            RenderMetrics.reset();
+        }
+    }
+}
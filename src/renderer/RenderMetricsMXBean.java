@@ -0,0 +1,75 @@
+package renderer;
+
+import java.util.Map;
+
+/**
+ * RenderMetricsMXBean interface is the management interface of the render metrics,
+ * which is registered in the platform MBean server by {@link RenderMetrics#registerMBean()}.
+ * @author Rivka Sheiner
+ */
+public interface RenderMetricsMXBean {
+    /**
+     * This method checks whether the metrics are counted
+     * @return true if the metrics are counted
+     */
+    boolean isEnabled();
+
+    /**
+     * This method turns on or off the counting of the metrics, also while rendering
+     * @param enabled - true for counting
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * This method returns the number of primary rays which were traced
+     * @return long
+     */
+    long getPrimaryRays();
+
+    /**
+     * This method returns the number of reflected rays which were traced
+     * @return long
+     */
+    long getReflectedRays();
+
+    /**
+     * This method returns the number of refracted rays which were traced
+     * @return long
+     */
+    long getRefractedRays();
+
+    /**
+     * This method returns the number of shadow rays which were traced
+     * @return long
+     */
+    long getShadowRays();
+
+    /**
+     * This method returns the number of rays traced per second, since the last reset
+     * @return double
+     */
+    double getRaysPerSecond();
+
+    /**
+     * This method returns the histogram of the depths of the recursion of the color calculation
+     * @return array of long - the number of intersections whose color was calculated in each depth
+     */
+    long[] getDepthHistogram();
+
+    /**
+     * This method returns the number of intersection tests of each class of geometry
+     * @return map from the name of the class to the number of tests
+     */
+    Map<String, Long> getIntersectionTests();
+
+    /**
+     * This method returns the number of intersection tests which found intersection, of each class of geometry
+     * @return map from the name of the class to the number of hits
+     */
+    Map<String, Long> getIntersectionHits();
+
+    /**
+     * This method resets all the metrics to zero
+     */
+    void reset();
+}
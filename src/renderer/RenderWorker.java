@@ -0,0 +1,148 @@
+package renderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * RenderWorker class renders chunks of images for a RenderCoordinator - it connects to the coordinator
+ * by TCP, receives the serialized camera of each rendering, and renders the chunks which the coordinator
+ * hands out to it in multi threading, until the coordinator closes the connection.<br/>
+ * A worker JVM is started by: java -cp &lt;classes&gt; renderer.RenderWorker &lt;host&gt; &lt;port&gt; [threads]
+ * @author Rivka Sheiner
+ */
+public class RenderWorker implements Runnable {
+    /**
+     * The filter of the serialized camera - only the classes of the project, and the JDK classes of their
+     * fields, are deserialized, in limited depth, size and length of arrays
+     */
+    private static final ObjectInputFilter CAMERA_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=100;maxbytes=" + RenderCoordinator.MAX_CAMERA_SIZE
+                    + ";maxarray=" + RenderCoordinator.MAX_CAMERA_SIZE / Integer.BYTES
+                    + ";geometries.*;lighting.*;primitives.*;renderer.*;scene.*"
+                    + ";java.lang.Object;java.lang.Number;java.lang.Double;java.lang.Integer;java.lang.Long"
+                    + ";java.lang.Boolean;java.lang.Enum;java.util.ArrayList;java.util.LinkedList;java.util.ArrayDeque"
+                    + ";java.util.CollSer;java.util.ImmutableCollections$*;!*");
+
+    /**
+     * The host of the coordinator
+     */
+    private final String host;
+    /**
+     * The port of the coordinator
+     */
+    private final int port;
+    /**
+     * The number of threads which render each chunk
+     */
+    private final int numThreads;
+
+    /**
+     * RenderWorker constructor
+     * @param host - the host of the coordinator
+     * @param port - the port of the coordinator
+     * @param numThreads - the number of threads which render each chunk
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public RenderWorker(String host, int port, int numThreads) throws IllegalArgumentException {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("the level of multi threading must be positive number");
+        this.host = host;
+        this.port = port;
+        this.numThreads = numThreads;
+    }
+
+    /**
+     * Function main starts a worker JVM
+     * @param args - the host and the port of the coordinator, and optionally the number of threads
+     * (the number of processors by default)
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("usage: RenderWorker <host> <port> [threads]");
+            System.exit(1);
+        }
+        int numThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        new RenderWorker(args[0], Integer.parseInt(args[1]), numThreads).run();
+    }
+
+    /**
+     * Function run connects to the coordinator and renders its chunks, until the coordinator
+     * closes the connection
+     * @throws IllegalStateException if the connection failed, the coordinator sent a wrong message
+     * (or a camera with classes which are not allowed), or a chunk could not be rendered
+     */
+    @Override
+    public void run() throws IllegalStateException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            Camera camera = null;
+            int nX = 0, nY = 0;
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    // the coordinator was closed
+                    return;
+                }
+                if (type == RenderCoordinator.JOB) {
+                    nX = in.readInt();
+                    nY = in.readInt();
+                    int length = in.readInt();
+                    if (length < 0 || length > RenderCoordinator.MAX_CAMERA_SIZE)
+                        throw new IllegalStateException("wrong length of camera from coordinator: " + length);
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                        objects.setObjectInputFilter(CAMERA_FILTER);
+                        if (!(objects.readObject() instanceof Camera received))
+                            throw new IllegalStateException("the coordinator sent an object which is not a camera");
+                        camera = received.setNumThreads(numThreads);
+                    }
+                } else if (type == RenderCoordinator.CHUNK && camera != null)
+                    renderChunk(camera, nX, nY, in, out);
+                else
+                    throw new IllegalStateException("unexpected message from coordinator");
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("connection to coordinator " + host + ":" + port + " failed", e);
+        }
+    }
+
+    /**
+     * Function renderChunk renders one chunk and sends its pixels to the coordinator
+     * @param camera - the camera of the rendering
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param in - the stream of the coordinator, after the type of the message
+     * @param out - the stream to the coordinator
+     * @throws IOException if the connection failed
+     */
+    private void renderChunk(Camera camera, int nX, int nY, DataInputStream in, DataOutputStream out) throws IOException {
+        int x0 = in.readInt(), y0 = in.readInt(), x1 = in.readInt(), y1 = in.readInt();
+        FrameBuffer chunk = new FrameBuffer(x1 - x0, y1 - y0);
+        new TileScheduler(x1 - x0, y1 - y0, camera.getTileSize()).render(numThreads, (a, b, c, d) ->
+                camera.renderTile(nX, nY, x0 + a, y0 + b, x0 + c, y0 + d, chunk, x0, y0));
+
+        out.writeInt(x0);
+        out.writeInt(y0);
+        out.writeInt(x1);
+        out.writeInt(y1);
+        float[] components = chunk.getComponents();
+        ByteBuffer bytes = ByteBuffer.allocate(components.length * Float.BYTES);
+        bytes.asFloatBuffer().put(components);
+        out.write(bytes.array());
+        out.flush();
+    }
+}
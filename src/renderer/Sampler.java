@@ -0,0 +1,91 @@
+package renderer;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Sampler class represents a pattern of sample points in the area of a pixel (or of the lens of the camera).
+ * The points of each pixel are deterministic - they depend only on the index of the pixel - so the same
+ * image is rendered in each rendering, in any number of threads, and the points of neighbouring pixels
+ * are not correlated. Each prefix of the points of a pixel is spread over the pixel, so adaptive sampling
+ * may use only the first points. The random generator of each thread is reseeded for each pixel, so sampling
+ * does not create any object.
+ * @author Rivka Sheiner
+ */
+public abstract class Sampler implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The random generator of each thread
+     */
+    private static final ThreadLocal<PixelRandom> RANDOM = ThreadLocal.withInitial(PixelRandom::new);
+
+    /**
+     * PixelRandom class is a random generator of one thread - the generator of SplitMix64, whose state
+     * is a plain long (java.util.Random updates its state atomically, which is several times slower)
+     */
+    private static final class PixelRandom extends Random {
+        /**
+         * The version of the serialized form of the class
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The state of the generator
+         */
+        private long state;
+
+        @Override
+        public void setSeed(long seed) {
+            state = seed;
+        }
+
+        @Override
+        protected int next(int bits) {
+            long z = state += 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return (int) ((z ^ (z >>> 31)) >>> (64 - bits));
+        }
+    }
+
+    /**
+     * Function samplePixel fills the sample points of one pixel. The coordinates of the points are
+     * between 0 (inclusive) and 1 (exclusive) in both axes of the pixel.
+     * @param j - the index of the pixel on X axis
+     * @param i - the index of the pixel on Y axis
+     * @param count - the number of points
+     * @param points - the array of the points, the coordinates of point k are in indexes 2k (X) and 2k+1 (Y)
+     * @throws IllegalArgumentException if the array is shorter than 2 * count
+     */
+    public void samplePixel(int j, int i, int count, double[] points) throws IllegalArgumentException {
+        if (points.length < 2 * count)
+            throw new IllegalArgumentException("the array is too short for the points");
+        fill(random(j, i), count, points);
+    }
+
+    /**
+     * Function fill fills the sample points of one pixel
+     * @param random - the random generator of the pixel
+     * @param count - the number of points
+     * @param points - the array of the points, the coordinates of point k are in indexes 2k (X) and 2k+1 (Y)
+     */
+    protected abstract void fill(Random random, int count, double[] points);
+
+    /**
+     * Function random returns the random generator of the current thread, seeded by the index of a pixel
+     * @param j - the index of the pixel on X axis
+     * @param i - the index of the pixel on Y axis
+     * @return Random
+     */
+    private static Random random(int j, int i) {
+        // the index is mixed (by the finalizer of MurmurHash3), so the seeds of neighbouring pixels are far
+        long seed = ((long) j << 32) ^ (i & 0xffffffffL);
+        seed = (seed ^ (seed >>> 33)) * 0xff51afd7ed558ccdL;
+        seed = (seed ^ (seed >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        PixelRandom random = RANDOM.get();
+        random.setSeed(seed ^ (seed >>> 33));
+        return random;
+    }
+}
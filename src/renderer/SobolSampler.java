@@ -0,0 +1,49 @@
+package renderer;
+
+import java.util.Random;
+
+/**
+ * SobolSampler class takes the points of the first two dimensions of the Sobol sequence, which is a
+ * (0,2)-sequence - each block of 2^m points has exactly one point in each of the elementary rectangles of
+ * area 2^-m. The bits of the points of each pixel are scrambled by a random mask of the pixel, which keeps
+ * this property and decorrelates neighbouring pixels.
+ * @author Rivka Sheiner
+ */
+public class SobolSampler extends Sampler {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * The direction numbers of the second dimension of the sequence (the first is the van der Corput sequence)
+     */
+    private static final int[] DIRECTIONS = new int[32];
+
+    static {
+        DIRECTIONS[0] = 1 << 31;
+        for (int b = 1; b < 32; b++)
+            DIRECTIONS[b] = DIRECTIONS[b - 1] ^ (DIRECTIONS[b - 1] >>> 1);
+    }
+
+    @Override
+    protected void fill(Random random, int count, double[] points) {
+        int maskX = random.nextInt(), maskY = random.nextInt();
+        for (int k = 0; k < count; k++) {
+            int x = Integer.reverse(k), y = 0;
+            for (int b = 0, n = k; n != 0; b++, n >>>= 1)
+                if ((n & 1) != 0)
+                    y ^= DIRECTIONS[b];
+            points[2 * k] = toDouble(x ^ maskX);
+            points[2 * k + 1] = toDouble(y ^ maskY);
+        }
+    }
+
+    /**
+     * Function toDouble converts the bits of a fraction into a double
+     * @param bits - the bits of the fraction, the most significant bit is 1/2
+     * @return double - between 0 and 1
+     */
+    private static double toDouble(int bits) {
+        return (bits >>> 8) * 0x1p-24;
+    }
+}
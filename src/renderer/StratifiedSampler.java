@@ -0,0 +1,38 @@
+package renderer;
+
+import java.util.Random;
+
+/**
+ * StratifiedSampler class divides the pixel into a grid of cells, with about the same number of cells in
+ * each axis, and takes one random (jittered) point in each cell, so the points cover the whole pixel.
+ * If the number of points is not a product of the sizes of the grid, the points of the last row of cells
+ * are random in their row.
+ * The cells are taken in random order, so each prefix of the points is spread over the pixel too.
+ * @author Rivka Sheiner
+ */
+public class StratifiedSampler extends Sampler {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void fill(Random random, int count, double[] points) {
+        int columns = (int) Math.ceil(Math.sqrt(count));
+        int rows = (count + columns - 1) / columns;
+        int last = count - (rows - 1) * columns; // the number of cells in the last row
+        for (int k = 0; k < count; k++) {
+            // the cell of point k is chosen by Fisher-Yates shuffle of the cells (inside out)
+            int swap = random.nextInt(k + 1);
+            points[2 * k] = points[2 * swap];
+            points[2 * swap] = k;
+        }
+        for (int k = 0; k < count; k++) {
+            int cell = (int) points[2 * k];
+            int row = cell / columns, column = cell % columns;
+            int width = row == rows - 1 ? last : columns;
+            points[2 * k] = (column + random.nextDouble()) / width;
+            points[2 * k + 1] = (row + random.nextDouble()) / rows;
+        }
+    }
+}
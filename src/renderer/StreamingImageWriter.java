@@ -0,0 +1,389 @@
+package renderer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * StreamingImageWriter class writes very big images to the disk while they are rendered -
+ * the rendering hands it bands of finished rows (from the top of the image to its bottom), and a
+ * background thread tone maps each band and appends it to a PNG file (compressed by deflate),
+ * and optionally writes its float components to a PFM file.<br/>
+ * Only a bounded number of bands are kept in memory at the same time, so the memory does not
+ * depend on the size of the image. When all the bands are handed over, close finishes the files.
+ * @author Rivka Sheiner
+ */
+public class StreamingImageWriter implements AutoCloseable {
+    /**
+     * The max number of bands which were handed over and are not written yet
+     */
+    private static final int MAX_BANDS_IN_FLIGHT = 2;
+    /**
+     * The max size of the data of one IDAT chunk of the PNG file
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+    /**
+     * The signature in the beginning of each PNG file
+     */
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    /**
+     * The number of pixels in X axis
+     */
+    private final int nX;
+    /**
+     * The number of pixels in Y axis
+     */
+    private final int nY;
+    /**
+     * The directory of the files
+     */
+    private final Path directory;
+    /**
+     * The name of the image, without the extension of the files
+     */
+    private final String imageName;
+    /**
+     * The tone mapping of the pixels of the PNG file
+     */
+    private ToneMapper toneMapper = ToneMapper.CLAMP;
+    /**
+     * Indicates whether the float components are written to a PFM file too
+     */
+    private boolean isPfm = false;
+
+    /**
+     * The background thread which writes the bands
+     */
+    private ExecutorService executor;
+    /**
+     * The permits of bands which may be handed over before they are written
+     */
+    private final Semaphore inFlight = new Semaphore(MAX_BANDS_IN_FLIGHT);
+    /**
+     * The compressor of the pixels of the PNG file
+     */
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    /**
+     * The compressed stream of the pixels of the PNG file
+     */
+    private DeflaterOutputStream png;
+    /**
+     * The PFM file, null if it is not written
+     */
+    private FileChannel pfm;
+    /**
+     * The number of rows which were handed over
+     */
+    private int rows = 0;
+    /**
+     * The first failure of the background thread - an I/O error, or an exception of the tone mapper
+     * or the frame buffer, which would be lost in the executor
+     */
+    private volatile Exception failure;
+
+    /**
+     * StreamingImageWriter constructor - the files are written to the directory of the images
+     * of the project, as in ImageWriter
+     * @param imageName - the name of the image, without extension
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     */
+    public StreamingImageWriter(String imageName, int nX, int nY) {
+        this(Path.of(ImageWriter.FOLDER_PATH), imageName, nX, nY);
+    }
+
+    /**
+     * StreamingImageWriter constructor
+     * @param directory - the directory of the files
+     * @param imageName - the name of the image, without extension
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @throws IllegalArgumentException if one of the sizes is not positive
+     */
+    public StreamingImageWriter(Path directory, String imageName, int nX, int nY) throws IllegalArgumentException {
+        if (nX < 1 || nY < 1)
+            throw new IllegalArgumentException("the size of the image must be positive");
+        this.directory = directory;
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+    }
+
+    /**
+     * This method returns the number of pixels in X axis
+     * @return int
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * This method returns the number of pixels in Y axis
+     * @return int
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * Setter of the tone mapping of the pixels of the PNG file, clamping by default
+     * @param toneMapper - the tone mapper
+     * @return StreamingImageWriter
+     */
+    public StreamingImageWriter setToneMapper(ToneMapper toneMapper) {
+        this.toneMapper = toneMapper;
+        return this;
+    }
+
+    /**
+     * Setter of writing of the float components to a PFM file (imageName.pfm) too,
+     * where 1 is the white of the display (255 in primitives.Color)
+     * @param pfm - true for writing PFM file
+     * @return StreamingImageWriter
+     */
+    public StreamingImageWriter setPfm(boolean pfm) {
+        this.isPfm = pfm;
+        return this;
+    }
+
+    /**
+     * Function writeRows hands over the next band of rows of the image. The band is written
+     * by the background thread, and the caller must not change it after that. The function
+     * waits while the max number of bands are not written yet.
+     * @param band - the pixels of the next rows, its width is the width of the image
+     * @throws IllegalArgumentException if the band is not of the width of the image or it is
+     * after the bottom of the image
+     * @throws IllegalStateException if the writing of the files failed
+     */
+    public void writeRows(FrameBuffer band) throws IllegalArgumentException, IllegalStateException {
+        if (band.getNx() != nX || rows + band.getNy() > nY)
+            throw new IllegalArgumentException("the band is out of the image");
+        checkFailure();
+        if (executor == null)
+            open();
+
+        int y0 = rows;
+        rows += band.getNy();
+        inFlight.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                if (failure == null)
+                    write(band, y0);
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * Function close waits until all the bands are written and finishes the files
+     * @throws IllegalStateException if not all the rows of the image were handed over,
+     * or the writing of the files failed
+     */
+    @Override
+    public void close() throws IllegalStateException {
+        if (executor == null)
+            open();
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // waiting for the last bands
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("writing of image was interrupted", e);
+        }
+        try {
+            png.close();
+            if (pfm != null)
+                pfm.close();
+        } catch (IOException e) {
+            if (failure == null)
+                failure = e;
+        } finally {
+            deflater.end();
+        }
+        checkFailure();
+        if (rows != nY)
+            throw new IllegalStateException("only " + rows + " rows of " + nY + " were written");
+    }
+
+    /**
+     * Function open creates the files and writes their headers, and starts the background thread
+     * @throws IllegalStateException if the files cannot be created
+     */
+    private void open() throws IllegalStateException {
+        try {
+            OutputStream file = new BufferedOutputStream(Files.newOutputStream(directory.resolve(imageName + ".png")));
+            file.write(PNG_SIGNATURE);
+            ByteBuffer header = ByteBuffer.allocate(13).putInt(nX).putInt(nY)
+                    .put((byte) 8) // bits of each component
+                    .put((byte) 2) // RGB
+                    .put((byte) 0).put((byte) 0).put((byte) 0); // deflate, filters of rows, no interlace
+            writeChunk(file, "IHDR", header.array(), header.position());
+            png = new DeflaterOutputStream(new IdatOutputStream(file), deflater, CHUNK_SIZE);
+
+            if (isPfm) {
+                pfm = FileChannel.open(directory.resolve(imageName + ".pfm"), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                // negative scale means little endian
+                pfm.write(ByteBuffer.wrap(pfmHeader().getBytes(StandardCharsets.US_ASCII)));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - may be missing directory " + directory, e);
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "image-writer-" + imageName));
+    }
+
+    /**
+     * This method returns the header of the PFM file
+     * @return String
+     */
+    private String pfmHeader() {
+        return "PF\n" + nX + " " + nY + "\n-1.0\n";
+    }
+
+    /**
+     * Function write writes one band into the files, in the background thread
+     * @param band - the pixels of the band
+     * @param y0 - the index of the first row of the band in the image
+     * @throws IOException if the writing failed
+     */
+    private void write(FrameBuffer band, int y0) throws IOException {
+        int height = band.getNy();
+        int[] pixels = new int[nX * height];
+        band.toneMap(toneMapper, 0, height, pixels, 0);
+        byte[] row = new byte[1 + nX * 3]; // the first byte of each row is its filter - none
+        for (int y = 0; y < height; y++) {
+            for (int x = 0, i = 1; x < nX; x++) {
+                int pixel = pixels[y * nX + x];
+                row[i++] = (byte) (pixel >> 16);
+                row[i++] = (byte) (pixel >> 8);
+                row[i++] = (byte) pixel;
+            }
+            png.write(row);
+        }
+
+        if (pfm != null) {
+            // the rows of PFM file are from the bottom of the image to its top
+            float[] components = band.getComponents();
+            ByteBuffer buffer = ByteBuffer.allocate(components.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = height - 1; y >= 0; y--)
+                for (int i = y * nX * 3; i < (y + 1) * nX * 3; i++)
+                    buffer.putFloat(components[i] / ToneMapper.WHITE);
+            buffer.flip();
+            long position = pfmHeader().length() + (long) (nY - y0 - height) * nX * 3 * Float.BYTES;
+            while (buffer.hasRemaining())
+                position += pfm.write(buffer, position);
+        }
+    }
+
+    /**
+     * Function writeChunk writes one chunk of PNG file
+     * @param out - the file
+     * @param type - the type of the chunk
+     * @param data - the data of the chunk
+     * @param length - the length of the data
+     * @throws IOException if the writing failed
+     */
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt(length).array());
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    /**
+     * This method throws the failure of the background thread, if there is
+     * @throws IllegalStateException if the writing of the files failed
+     */
+    private void checkFailure() throws IllegalStateException {
+        if (failure != null)
+            throw new IllegalStateException("error in writing of image " + imageName, failure);
+    }
+
+    /**
+     * IdatOutputStream class represents the stream of the compressed pixels of PNG file - it divides
+     * the data into IDAT chunks, and it writes the IEND chunk when it is closed
+     */
+    private static class IdatOutputStream extends OutputStream {
+        /**
+         * The file
+         */
+        private final OutputStream out;
+        /**
+         * The data of the current chunk
+         */
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+        /**
+         * The length of the data of the current chunk
+         */
+        private int length = 0;
+
+        /**
+         * IdatOutputStream constructor
+         * @param out - the file, after the header of the image
+         */
+        IdatOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == CHUNK_SIZE)
+                flushChunk();
+            chunk[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (length == CHUNK_SIZE)
+                    flushChunk();
+                int n = Math.min(len, CHUNK_SIZE - length);
+                System.arraycopy(b, off, chunk, length, n);
+                length += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+            writeChunk(out, "IEND", chunk, 0);
+            out.close();
+        }
+
+        /**
+         * Function flushChunk writes the data of the current chunk as IDAT chunk
+         * @throws IOException if the writing failed
+         */
+        private void flushChunk() throws IOException {
+            if (length > 0)
+                writeChunk(out, "IDAT", chunk, length);
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package renderer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * TileRenderedEvent class is the flight recorder event of the rendering of one tile of the image.
+ * The duration of the event is the time of the rendering of the tile. When the event is not
+ * enabled in a recording, creating and committing it costs almost nothing.
+ * @author Rivka Sheiner
+ */
+@Name("renderer.TileRendered")
+@Label("Tile Rendered")
+@Category("Renderer")
+@Description("Rendering of one tile of the image")
+final class TileRenderedEvent extends Event {
+    /**
+     * The column of the first pixel of the tile
+     */
+    @Label("Column")
+    int x;
+    /**
+     * The row of the first pixel of the tile
+     */
+    @Label("Row")
+    int y;
+    /**
+     * The number of columns of the tile
+     */
+    @Label("Width")
+    int width;
+    /**
+     * The number of rows of the tile
+     */
+    @Label("Height")
+    int height;
+}
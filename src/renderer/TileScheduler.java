@@ -0,0 +1,305 @@
+package renderer;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TileScheduler class divides the image into square tiles and hands them out to the
+ * rendering threads.<br/>
+ * The tiles are handed out in Morton (Z-order) curve, so tiles which are rendered
+ * at the same time are close to each other in the image and in the scene, and the
+ * next tile is taken by a lock-free atomic counter.<br/>
+ * All the state of the rendering progress belongs to the instance, so several
+ * images can be rendered at the same time.<br/>
+ * The rendering of each tile is recorded as a flight recorder event (renderer.TileRendered).
+ * @author Rivka Sheiner
+ */
+public class TileScheduler {
+    /**
+     * The default length of the side of a tile in pixels
+     */
+    public static final int DEFAULT_TILE_SIZE = 32;
+    /**
+     * The format of printing of the progress percentage
+     */
+    private static final String PRINT_FORMAT = "%5.1f%%\r";
+
+    /**
+     * The number of pixels in X axis
+     */
+    private final int nX;
+    /**
+     * The number of pixels in Y axis
+     */
+    private final int nY;
+    /**
+     * The length of the side of a tile in pixels
+     */
+    private final int tileSize;
+    /**
+     * The number of tiles in X axis
+     */
+    private final int tilesX;
+    /**
+     * The indices of the tiles (row * tilesX + column) in the order they are handed out
+     */
+    private final int[] order;
+    /**
+     * The position of the next tile in the order
+     */
+    private final AtomicInteger nextTile = new AtomicInteger();
+    /**
+     * The number of pixels which were rendered
+     */
+    private final AtomicLong donePixels = new AtomicLong();
+    /**
+     * The last printed progress in tenths of percent
+     */
+    private final AtomicInteger lastPrinted = new AtomicInteger(-1);
+    /**
+     * Indicates whether the progress percentage is printed
+     */
+    private boolean isPrintProgress = false;
+
+    /**
+     * PixelRenderer interface represents the rendering of one pixel of the image.
+     * It is called from several threads at the same time, each time with another pixel.
+     */
+    @FunctionalInterface
+    public interface PixelRenderer {
+        /**
+         * The method renders one pixel of the image
+         * @param col - the index of the pixel on X axis
+         * @param row - the index of the pixel on Y axis
+         */
+        void renderPixel(int col, int row);
+    }
+
+    /**
+     * TileRenderer interface represents the rendering of one tile of the image.
+     * It is called from several threads at the same time, each time with another tile.
+     */
+    @FunctionalInterface
+    public interface TileRenderer {
+        /**
+         * The method renders the pixels of one tile of the image
+         * @param x0 - the index of the first column of the tile
+         * @param y0 - the index of the first row of the tile
+         * @param x1 - the index after the last column of the tile
+         * @param y1 - the index after the last row of the tile
+         */
+        void renderTile(int x0, int y0, int x1, int y1);
+    }
+
+    /**
+     * TileScheduler parameters constructor
+     * @param nX - the number of pixels in X axis
+     * @param nY - the number of pixels in Y axis
+     * @param tileSize - the length of the side of a tile in pixels
+     * @throws IllegalArgumentException if one of the sizes is not positive
+     */
+    public TileScheduler(int nX, int nY, int tileSize) throws IllegalArgumentException {
+        if (nX < 1 || nY < 1)
+            throw new IllegalArgumentException("the size of the image must be positive");
+        if (tileSize < 1)
+            throw new IllegalArgumentException("the size of tile must be positive number");
+
+        this.nX = nX;
+        this.nY = nY;
+        this.tileSize = tileSize;
+        this.tilesX = (nX + tileSize - 1) / tileSize;
+        int tilesY = (nY + tileSize - 1) / tileSize;
+        this.order = mortonOrder(tilesX, tilesY);
+    }
+
+    /**
+     * This method is used for turning on or off the printing of the progress percentage
+     * @param isPrintProgress - true for printing the progress
+     * @return TileScheduler
+     */
+    public TileScheduler setPrintProgress(boolean isPrintProgress) {
+        this.isPrintProgress = isPrintProgress;
+        return this;
+    }
+
+    /**
+     * This method returns the number of tiles in the image
+     * @return int - the number of tiles
+     */
+    public int getNumTiles() {
+        return order.length;
+    }
+
+    /**
+     * This method returns the part of the pixels of the image which were rendered
+     * @return double - number between 0 and 1
+     */
+    public double getProgress() {
+        return (double) donePixels.get() / ((long) nX * nY);
+    }
+
+    /**
+     * This method returns the index of the tile which is handed out in the given position
+     * @param position - the position in the order of the tiles
+     * @return int - the index of the tile (row * number of tiles in X axis + column)
+     */
+    public int getTile(int position) {
+        return order[position];
+    }
+
+    /**
+     * This method stops handing out tiles, so the rendering returns after the tiles which are
+     * rendered now are finished. It may be called from any thread, also from the rendering itself.
+     */
+    public void cancel() {
+        nextTile.set(order.length);
+    }
+
+    /**
+     * Function render renders all the pixels of the image. The current thread renders
+     * tiles together with numThreads - 1 new threads, and the function returns after
+     * all the tiles were rendered.
+     * @param numThreads - the number of threads which render the image
+     * @param renderer - the rendering of one pixel
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public void render(int numThreads, PixelRenderer renderer) throws IllegalArgumentException {
+        render(numThreads, (x0, y0, x1, y1) -> {
+            for (int row = y0; row < y1; row++)
+                for (int col = x0; col < x1; col++)
+                    renderer.renderPixel(col, row);
+        });
+    }
+
+    /**
+     * Function render renders all the tiles of the image. The current thread renders
+     * tiles together with numThreads - 1 new threads, and the function returns after
+     * all the tiles were rendered.
+     * @param numThreads - the number of threads which render the image
+     * If the rendering of a tile fails (also by an Error, like StackOverflowError), the other threads stop
+     * taking tiles, and the first failure is thrown to the caller after all the threads finished.
+     * @param renderer - the rendering of one tile
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    public void render(int numThreads, TileRenderer renderer) throws IllegalArgumentException {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("the level of multi threading must be positive number");
+
+        AtomicInteger numFailures = new AtomicInteger();
+        Throwable[] failure = new Throwable[1];
+        Runnable worker = () -> {
+            try {
+                renderTiles(renderer);
+            } catch (Throwable e) {
+                // the other threads stop taking tiles after a failure
+                cancel();
+                if (numFailures.getAndIncrement() == 0)
+                    failure[0] = e;
+            }
+        };
+
+        Thread[] threads = new Thread[numThreads - 1];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(worker, "render-" + i);
+            threads[i].start();
+        }
+        worker.run();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("rendering was interrupted", e);
+            }
+        }
+
+        if (numFailures.get() > 0) {
+            if (failure[0] instanceof RuntimeException e)
+                throw e;
+            if (failure[0] instanceof Error e)
+                throw e;
+            throw new IllegalStateException("rendering failed", failure[0]);
+        }
+        if (isPrintProgress)
+            System.out.println("100.0%");
+    }
+
+    /**
+     * Function renderTiles takes tiles from the atomic counter and renders them,
+     * until there are no more tiles
+     * @param renderer - the rendering of one tile
+     */
+    private void renderTiles(TileRenderer renderer) {
+        for (int position = nextTile.getAndIncrement(); position < order.length;
+             position = nextTile.getAndIncrement()) {
+            int tile = order[position];
+            int x0 = (tile % tilesX) * tileSize, y0 = (tile / tilesX) * tileSize;
+            int x1 = Math.min(x0 + tileSize, nX), y1 = Math.min(y0 + tileSize, nY);
+
+            TileRenderedEvent event = new TileRenderedEvent();
+            event.begin();
+            renderer.renderTile(x0, y0, x1, y1);
+            if (event.shouldCommit()) {
+                event.x = x0;
+                event.y = y0;
+                event.width = x1 - x0;
+                event.height = y1 - y0;
+                event.commit();
+            }
+
+            long done = donePixels.addAndGet((long) (x1 - x0) * (y1 - y0));
+            if (isPrintProgress)
+                printProgress(done);
+        }
+    }
+
+    /**
+     * Function printProgress prints the progress percentage, if it was changed since
+     * the last printing. Only one thread prints each value.
+     * @param done - the number of pixels which were rendered
+     */
+    private void printProgress(long done) {
+        int percentage = (int) (1000L * done / ((long) nX * nY));
+        int last = lastPrinted.get();
+        if (percentage > last && lastPrinted.compareAndSet(last, percentage))
+            System.out.printf(PRINT_FORMAT, percentage / 10d);
+    }
+
+    /**
+     * Function mortonOrder arranges the tiles of the grid by their position on Morton
+     * (Z-order) curve, which interleaves the bits of the column and the row of the tile
+     * @param tilesX - the number of tiles in X axis
+     * @param tilesY - the number of tiles in Y axis
+     * @return the indices of the tiles (row * tilesX + column) in Morton order
+     */
+    static int[] mortonOrder(int tilesX, int tilesY) {
+        long[] keys = new long[tilesX * tilesY];
+        for (int row = 0; row < tilesY; row++)
+            for (int col = 0; col < tilesX; col++) {
+                int tile = row * tilesX + col;
+                // the code is kept in the high bits and the index of the tile in the low bits
+                keys[tile] = (interleave(col) | interleave(row) << 1) << 32 | tile;
+            }
+        Arrays.sort(keys);
+
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            order[i] = (int) keys[i];
+        return order;
+    }
+
+    /**
+     * Function interleave spreads the lower 15 bits of the number to the even bits
+     * @param n - the number
+     * @return long - the number with zero bit between each two of its bits
+     */
+    private static long interleave(int n) {
+        long x = n & 0x7FFF;
+        x = (x | x << 8) & 0x00FF00FFL;
+        x = (x | x << 4) & 0x0F0F0F0FL;
+        x = (x | x << 2) & 0x33333333L;
+        x = (x | x << 1) & 0x55555555L;
+        return x;
+    }
+}
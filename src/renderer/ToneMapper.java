@@ -0,0 +1,44 @@
+package renderer;
+
+/**
+ * ToneMapper interface represents the mapping of the linear components of the colors of the
+ * rendered image, which have no upper limit, into the range of the display (0 to 255).
+ * The mapping is done on the whole frame buffer when the image is written, after the rendering.
+ * @author Rivka Sheiner
+ */
+@FunctionalInterface
+public interface ToneMapper {
+    /**
+     * The max value of a component of color on the display
+     */
+    float WHITE = 255f;
+
+    /**
+     * Clamping - components bigger than 255 are set to 255, as in primitives.Color.getColor
+     */
+    ToneMapper CLAMP = value -> value;
+
+    /**
+     * Reinhard operator - x / (1 + x), where 255 is x = 1, so bright colors are compressed
+     * smoothly instead of being clamped
+     */
+    ToneMapper REINHARD = value -> {
+        float x = value / WHITE;
+        return WHITE * x / (1 + x);
+    };
+
+    /**
+     * ACES filmic curve (the fitting of Narkowicz), where 255 is x = 1
+     */
+    ToneMapper ACES = value -> {
+        float x = value / WHITE;
+        return WHITE * x * (2.51f * x + 0.03f) / (x * (2.43f * x + 0.59f) + 0.14f);
+    };
+
+    /**
+     * The method maps one component of color
+     * @param value - the linear component, 255 for white of the display
+     * @return float - the component on the display, values out of 0 to 255 are clamped by the caller
+     */
+    float map(float value);
+}
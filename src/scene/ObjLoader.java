@@ -0,0 +1,330 @@
+package scene;
+
+import geometries.Mesh;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * ObjLoader class reads triangle meshes from Wavefront OBJ files.
+ * The file is memory mapped and parsed in windows, directly into flat arrays of
+ * coordinates and indices, so no object is created for any line, vertex or face,
+ * and the heap holds only the arrays of the mesh.
+ * Only the positions of the vertices ("v") and the faces ("f") are read - faces with more
+ * than 3 vertices are divided into triangles as a fan, and all other statements
+ * (normals, texture coordinates, groups, materials, comments) are ignored.
+ * @author Rivka Sheiner
+ */
+public final class ObjLoader {
+    /**
+     * The size of the part of the file which is mapped at once
+     */
+    private static final int WINDOW_SIZE = 1 << 26;
+    /**
+     * The initial size of the arrays of coordinates and indices
+     */
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    /**
+     * Powers of 10 which are exactly represented in double, for the fast parsing of numbers
+     */
+    private static final double[] POWERS_OF_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    /**
+     * The max number of digits which are parsed exactly by the fast parsing of numbers
+     */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /**
+     * The coordinates of the vertices which were read so far - 3 values for each vertex
+     */
+    private double[] vertices = new double[INITIAL_CAPACITY * 3];
+    /**
+     * The number of values in the array of coordinates
+     */
+    private int numCoordinates = 0;
+    /**
+     * The indices of the vertices of the triangles which were read so far
+     */
+    private int[] indices = new int[INITIAL_CAPACITY * 3];
+    /**
+     * The number of values in the array of indices
+     */
+    private int numIndices = 0;
+    /**
+     * The mapped window of the file which is parsed now
+     */
+    private MappedByteBuffer buffer;
+    /**
+     * The position of the parser in the window
+     */
+    private int pos;
+    /**
+     * The end of the current line in the window
+     */
+    private int lineEnd;
+    /**
+     * The number of the current line in the file, for the error messages
+     */
+    private long lineNumber = 0;
+
+    /**
+     * Private constructor - a loader reads one file, it is used by the static methods only
+     */
+    private ObjLoader() {
+    }
+
+    /**
+     * Function load reads a mesh from OBJ file
+     * @param path - the path of the file
+     * @return Mesh - the triangles of the file
+     * @throws IllegalStateException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains wrong vertex or face
+     */
+    public static Mesh load(Path path) {
+        ObjLoader loader = new ObjLoader();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            loader.read(channel);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - cannot read the file " + path, e);
+        }
+        return new Mesh(Arrays.copyOf(loader.vertices, loader.numCoordinates),
+                Arrays.copyOf(loader.indices, loader.numIndices));
+    }
+
+    /**
+     * Function load reads a mesh from OBJ file and adds it to the geometries of the scene
+     * @param scene - the scene
+     * @param path - the path of the file
+     * @return Mesh - the triangles of the file, so their emission and material can be updated
+     * @throws IllegalStateException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains wrong vertex or face
+     */
+    public static Mesh load(Scene scene, Path path) {
+        Mesh mesh = load(path);
+        scene.geometries.add(mesh);
+        return mesh;
+    }
+
+    /**
+     * Function read parses the whole file window after window.
+     * Each window starts at the beginning of a line, and the last line of a window
+     * which is not complete is parsed again at the beginning of the next window.
+     * @param channel - the channel of the file
+     * @throws IOException if the file cannot be read
+     */
+    private void read(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        while (offset < size) {
+            int length = (int) Math.min(WINDOW_SIZE, size - offset);
+            boolean isLast = offset + length == size;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            int end = parseWindow(length, isLast);
+            if (end == 0)
+                throw new IllegalArgumentException("Line " + (lineNumber + 1) + " is too long");
+            offset += end;
+        }
+    }
+
+    /**
+     * Function parseWindow parses the complete lines of the current window
+     * @param length - the length of the window
+     * @param isLast - whether the window ends at the end of the file
+     * @return int - the position after the last line which was parsed
+     */
+    private int parseWindow(int length, boolean isLast) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            lineEnd = lineStart;
+            while (lineEnd < length && buffer.get(lineEnd) != '\n')
+                lineEnd++;
+            if (lineEnd == length && !isLast)
+                return lineStart; // the line continues in the next window
+
+            lineNumber++;
+            pos = lineStart;
+            parseLine();
+            lineStart = lineEnd + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Function parseLine parses one line of the file - vertex, face or an ignored statement
+     */
+    private void parseLine() {
+        skipSpaces();
+        if (pos + 1 >= lineEnd || !isSpace(buffer.get(pos + 1)))
+            return;
+        byte type = buffer.get(pos);
+        pos++;
+        if (type == 'v')
+            parseVertex();
+        else if (type == 'f')
+            parseFace();
+    }
+
+    /**
+     * Function parseVertex reads the 3 coordinates of a vertex, the optional weight is ignored
+     */
+    private void parseVertex() {
+        if (numCoordinates + 3 > vertices.length)
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        for (int k = 0; k < 3; k++) {
+            skipSpaces();
+            vertices[numCoordinates + k] = parseDouble();
+        }
+        numCoordinates += 3;
+    }
+
+    /**
+     * Function parseFace reads the vertices of a face and adds its triangles.
+     * Only the index of the position of each vertex is used, the indices of the
+     * texture coordinate and the normal (after '/') are ignored.
+     */
+    private void parseFace() {
+        int numVertices = numCoordinates / 3;
+        int first = -1, previous = -1, count = 0;
+        while (true) {
+            skipSpaces();
+            if (pos >= lineEnd || buffer.get(pos) == '#')
+                break;
+            int index = parseIndex(numVertices);
+            while (pos < lineEnd && !isSpace(buffer.get(pos)))
+                pos++;
+
+            if (count == 0)
+                first = index;
+            else if (count >= 2) {
+                if (numIndices + 3 > indices.length)
+                    indices = Arrays.copyOf(indices, indices.length * 2);
+                indices[numIndices++] = first;
+                indices[numIndices++] = previous;
+                indices[numIndices++] = index;
+            }
+            previous = index;
+            count++;
+        }
+        if (count < 3)
+            throw new IllegalArgumentException("Face with less than 3 vertices in line " + lineNumber);
+    }
+
+    /**
+     * Function parseIndex reads an index of vertex in face - positive indices count from 1,
+     * and negative indices count backwards from the last vertex which was read
+     * @param numVertices - the number of vertices which were read so far
+     * @return int - the index of the vertex in the array of vertices (from 0)
+     */
+    private int parseIndex(int numVertices) {
+        boolean isNegative = buffer.get(pos) == '-';
+        if (isNegative)
+            pos++;
+        int start = pos;
+        long value = 0;
+        while (pos < lineEnd && isDigit(buffer.get(pos)) && value <= Integer.MAX_VALUE)
+            value = value * 10 + (buffer.get(pos++) - '0');
+        if (pos == start)
+            throw new IllegalArgumentException("Bad index of vertex in line " + lineNumber);
+
+        long index = isNegative ? numVertices - value : value - 1;
+        if (value == 0 || index < 0 || index >= numVertices)
+            throw new IllegalArgumentException("Index of vertex out of range in line " + lineNumber);
+        return (int) index;
+    }
+
+    /**
+     * Function parseDouble reads a decimal number. Numbers with up to 15 significant digits and
+     * small exponent (as in almost all OBJ files) are calculated exactly from the digits,
+     * other numbers are passed to Double.parseDouble.
+     * @return double - the number
+     */
+    private double parseDouble() {
+        int start = pos;
+        boolean isNegative = false;
+        if (pos < lineEnd && (buffer.get(pos) == '-' || buffer.get(pos) == '+'))
+            isNegative = buffer.get(pos++) == '-';
+
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean hasDigits = false;
+        while (pos < lineEnd && isDigit(buffer.get(pos))) {
+            hasDigits = true;
+            if (mantissa != 0 || buffer.get(pos) != '0')
+                digits++;
+            mantissa = mantissa * 10 + (buffer.get(pos++) - '0');
+            if (digits > MAX_EXACT_DIGITS)
+                return parseSlowly(start);
+        }
+        if (pos < lineEnd && buffer.get(pos) == '.') {
+            pos++;
+            while (pos < lineEnd && isDigit(buffer.get(pos))) {
+                hasDigits = true;
+                if (mantissa != 0 || buffer.get(pos) != '0')
+                    digits++;
+                mantissa = mantissa * 10 + (buffer.get(pos++) - '0');
+                exponent--;
+                if (digits > MAX_EXACT_DIGITS)
+                    return parseSlowly(start);
+            }
+        }
+        if (!hasDigits)
+            throw new IllegalArgumentException("Bad coordinate of vertex in line " + lineNumber);
+        if (pos < lineEnd && (buffer.get(pos) == 'e' || buffer.get(pos) == 'E'))
+            return parseSlowly(start);
+
+        if (-exponent >= POWERS_OF_10.length)
+            return parseSlowly(start);
+        double value = mantissa / POWERS_OF_10[-exponent];
+        return isNegative ? -value : value;
+    }
+
+    /**
+     * Function parseSlowly reads a decimal number with Double.parseDouble
+     * @param start - the position of the number in the window
+     * @return double - the number
+     */
+    private double parseSlowly(int start) {
+        pos = start;
+        while (pos < lineEnd && !isSpace(buffer.get(pos)))
+            pos++;
+        byte[] bytes = new byte[pos - start];
+        buffer.get(start, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad coordinate of vertex in line " + lineNumber, e);
+        }
+    }
+
+    /**
+     * Function skipSpaces moves the parser to the next character which is not a space in the line
+     */
+    private void skipSpaces() {
+        while (pos < lineEnd && isSpace(buffer.get(pos)))
+            pos++;
+    }
+
+    /**
+     * Function isSpace checks whether a character separates the parts of a line
+     * @param c - the character
+     * @return true for space, tab and carriage return
+     */
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    /**
+     * Function isDigit checks whether a character is a decimal digit
+     * @param c - the character
+     * @return true for '0' to '9'
+     */
+    private static boolean isDigit(byte c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -7,12 +7,17 @@ import lighting.*;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.io.Serializable;
 
 /**
  * Class scene is used to create a scene that the camera captures
  * @author Rivka Sheiner
  */
-public class Scene {
+public class Scene implements Serializable {
+    /**
+     * The version of the serialized form of the class
+     */
+    private static final long serialVersionUID = 1L;
 
     /**
      * The name of the scene
@@ -39,14 +44,14 @@ public class Scene {
     /**
      * Scene parameters constructor
      * initializes the ambient light and the background color to black
-     * initializes the 3D model without shapes
+     * initializes the 3D model without shapes, organized in bounding volume hierarchy
      * @param name - String
      */
     public Scene(String name) {
         this.name = name;
         this.background = Color.BLACK;
         this.ambient = new AmbientLight();
-        this.geometries = new Geometries();
+        this.geometries = new BVH();
         this.lights = new LinkedList<>();
     }
 
@@ -0,0 +1,582 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SceneFile class writes scenes into a compact binary file and reads them back.
+ * The file is made of flat sections of numbers (little endian), each section is aligned to 8 bytes:
+ * <ul>
+ * <li>The header - magic number, version, number of sections, and for each section its type,
+ * number of items, position and length</li>
+ * <li>SCENE - the background and ambient colors and the name of the scene</li>
+ * <li>MATERIALS - the table of the materials of the geometries, each material is written once</li>
+ * <li>LIGHTS - a record of fixed size for each light source</li>
+ * <li>GEOMETRIES - a record of fixed size for each geometry and collection, in preorder - each record
+ * holds the index of its collection, the index of its material, its emission and its parameters</li>
+ * <li>VERTICES - the vertices of the polygons</li>
+ * <li>MESH - one section for each mesh, with its prebuilt tree (see Mesh.writeSection)</li>
+ * </ul>
+ * The reader maps each section of the file and copies its arrays in bulk, so the meshes do not parse
+ * anything and do not build their trees again.
+ * @author Rivka Sheiner
+ */
+public final class SceneFile {
+    /**
+     * The magic number in the beginning of the file ("RTSF")
+     */
+    private static final int MAGIC = 0x52545346;
+    /**
+     * The version of the format of the file
+     */
+    private static final int VERSION = 1;
+    /**
+     * The size of the header without the table of the sections
+     */
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    /**
+     * The size of the entry of one section in the table of the sections - type, count, position, length
+     */
+    private static final int ENTRY_SIZE = 2 * Integer.BYTES + 2 * Long.BYTES;
+
+    // the types of the sections
+    private static final int SCENE = 1, MATERIALS = 2, LIGHTS = 3, GEOMETRIES = 4, VERTICES = 5, MESH = 6;
+    // the types of the records of the geometries
+    private static final int GROUP = 1, BVH_GROUP = 2, SPHERE = 3, PLANE = 4, TRIANGLE = 5, POLYGON = 6,
+            SQUARE = 7, TUBE = 8, CYLINDER = 9, CONE = 10, CIRCLE = 11, MESH_GEOMETRY = 12;
+    // the types of the records of the lights
+    private static final int DIRECTIONAL = 1, POINT = 2, SPOT = 3;
+
+    /**
+     * The number of values in the record of a material - kD, kS, kT, kR and shininess
+     */
+    private static final int MATERIAL_SIZE = 13;
+    /**
+     * The number of values in the record of a light - type, intensity, position, direction, kC, kL, kQ
+     */
+    private static final int LIGHT_SIZE = 13;
+    /**
+     * The number of values in the record of a geometry - type, collection, material, emission
+     * and 10 parameters
+     */
+    private static final int GEOMETRY_SIZE = 16;
+    /**
+     * The index of the first parameter in the record of a geometry
+     */
+    private static final int PARAMS = 6;
+
+    /**
+     * The records of the geometries which were collected so far
+     */
+    private final List<double[]> geometries = new ArrayList<>();
+    /**
+     * The indices of the materials which were collected so far
+     */
+    private final Map<Material, Integer> materials = new IdentityHashMap<>();
+    /**
+     * The vertices of the polygons which were collected so far
+     */
+    private final List<Point> vertices = new ArrayList<>();
+    /**
+     * The meshes which were collected so far
+     */
+    private final List<Mesh> meshes = new ArrayList<>();
+
+    /**
+     * Private constructor - the writer collects the records of one scene, it is used by the static methods only
+     */
+    private SceneFile() {
+    }
+
+    /**
+     * Function write writes a scene into a file
+     * @param scene - the scene
+     * @param path - the path of the file
+     * @throws IllegalArgumentException if the scene contains a geometry or light of unknown type
+     * @throws IllegalStateException if the file cannot be written
+     */
+    public static void write(Scene scene, Path path) {
+        SceneFile writer = new SceneFile();
+        writer.collect(scene.geometries, -1);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            int numSections = 5 + writer.meshes.size();
+            ByteBuffer table = ByteBuffer.allocate(HEADER_SIZE + numSections * ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            table.putInt(MAGIC).putInt(VERSION).putInt(numSections).putInt(0);
+            channel.position(align(table.capacity()));
+
+            // scene
+            byte[] name = scene.name.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate(6 * Double.BYTES + Integer.BYTES + name.length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            putColor(header, scene.background);
+            putColor(header, scene.ambient.getIntensity());
+            header.putInt(name.length).put(name);
+            writeSection(channel, table, SCENE, 1, header.flip());
+
+            // materials, in the order of their indices
+            double[][] materialRecords = new double[writer.materials.size()][];
+            for (Map.Entry<Material, Integer> entry : writer.materials.entrySet()) {
+                Material m = entry.getKey();
+                double[] record = new double[MATERIAL_SIZE];
+                putDouble3(record, 0, m.kD);
+                putDouble3(record, 3, m.kS);
+                putDouble3(record, 6, m.kT);
+                putDouble3(record, 9, m.kR);
+                record[12] = m.nShininess;
+                materialRecords[entry.getValue()] = record;
+            }
+            writeSection(channel, table, MATERIALS, materialRecords.length, toBuffer(List.of(materialRecords), MATERIAL_SIZE));
+
+            List<double[]> lightRecords = new ArrayList<>();
+            for (LightSource light : scene.lights)
+                lightRecords.add(lightRecord(light));
+            writeSection(channel, table, LIGHTS, lightRecords.size(), toBuffer(lightRecords, LIGHT_SIZE));
+
+            writeSection(channel, table, GEOMETRIES, writer.geometries.size(), toBuffer(writer.geometries, GEOMETRY_SIZE));
+
+            List<double[]> points = new ArrayList<>();
+            for (Point p : writer.vertices)
+                points.add(new double[] { p.getXyz().getD1(), p.getXyz().getD2(), p.getXyz().getD3() });
+            writeSection(channel, table, VERTICES, points.size(), toBuffer(points, 3));
+
+            for (Mesh mesh : writer.meshes) {
+                long position = channel.position();
+                mesh.writeSection(channel);
+                endSection(channel, table, MESH, mesh.getNumTriangles(), position);
+            }
+
+            channel.write(table.flip(), 0);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - cannot write the file " + path, e);
+        }
+    }
+
+    /**
+     * Function read reads a scene from a file which was written by write
+     * @param path - the path of the file
+     * @return Scene
+     * @throws IllegalArgumentException if the file is not a scene file of this version, or it is corrupted
+     * @throws IllegalStateException if the file cannot be read
+     */
+    public static Scene read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            if (header.getInt(0) != MAGIC)
+                throw new IllegalArgumentException("The file is not a scene file: " + path);
+            if (header.getInt(4) != VERSION)
+                throw new IllegalArgumentException("Unsupported version of scene file: " + header.getInt(4));
+            int numSections = header.getInt(8);
+            if (numSections < 5 || (long) numSections * ENTRY_SIZE > channel.size())
+                throw new IllegalArgumentException("Wrong number of sections in scene file: " + numSections);
+            ByteBuffer table = ByteBuffer.allocate(numSections * ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, table, HEADER_SIZE);
+
+            ByteBuffer[] sections = new ByteBuffer[numSections];
+            int[] types = new int[numSections], counts = new int[numSections];
+            for (int i = 0; i < numSections; i++) {
+                types[i] = table.getInt();
+                counts[i] = table.getInt();
+                long position = table.getLong(), length = table.getLong();
+                if (counts[i] < 0 || position < 0 || length < 0 || position + length > channel.size())
+                    throw new IllegalArgumentException("Wrong section in scene file: " + i);
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            if (types[0] != SCENE || types[1] != MATERIALS || types[2] != LIGHTS || types[3] != GEOMETRIES
+                    || types[4] != VERTICES)
+                throw new IllegalArgumentException("Wrong order of sections in scene file");
+            Mesh[] meshes = new Mesh[numSections - 5];
+            for (int i = 0; i < meshes.length; i++) {
+                if (types[i + 5] != MESH)
+                    throw new IllegalArgumentException("Unknown section in scene file: " + types[i + 5]);
+                meshes[i] = Mesh.readSection(sections[i + 5]);
+            }
+
+            ByteBuffer sceneSection = sections[0];
+            Color background = getColor(sceneSection), ambient = getColor(sceneSection);
+            int nameLength = sceneSection.getInt();
+            if (nameLength < 0 || nameLength > sceneSection.remaining())
+                throw new IllegalArgumentException("Wrong length of name in scene file: " + nameLength);
+            byte[] name = new byte[nameLength];
+            sceneSection.get(name);
+            Scene scene = new Scene(new String(name, StandardCharsets.UTF_8)).setBackground(background)
+                    .setAmbient(new AmbientLight(ambient, new Double3(1)));
+
+            double[] materialValues = getDoubles(sections[1], counts[1], MATERIAL_SIZE);
+            Material[] materialTable = new Material[counts[1]];
+            for (int i = 0; i < materialTable.length; i++) {
+                Material m = materialTable[i] = new Material();
+                m.kD = getDouble3(materialValues, i * MATERIAL_SIZE);
+                m.kS = getDouble3(materialValues, i * MATERIAL_SIZE + 3);
+                m.kT = getDouble3(materialValues, i * MATERIAL_SIZE + 6);
+                m.kR = getDouble3(materialValues, i * MATERIAL_SIZE + 9);
+                m.nShininess = (int) materialValues[i * MATERIAL_SIZE + 12];
+            }
+
+            double[] lightValues = getDoubles(sections[2], counts[2], LIGHT_SIZE);
+            for (int i = 0; i < counts[2]; i++)
+                scene.lights.add(readLight(lightValues, i * LIGHT_SIZE));
+
+            double[] points = getDoubles(sections[4], counts[4], 3);
+            double[] records = getDoubles(sections[3], counts[3], GEOMETRY_SIZE);
+            scene.setGeometries(readGeometries(records, counts[3], materialTable, points, meshes));
+            return scene;
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - cannot read the file " + path, e);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("The scene file is corrupted: " + path, e);
+        }
+    }
+
+    /**
+     * Function collect adds the records of a geometry (and of its shapes, if it is a collection)
+     * @param geometry - the geometry
+     * @param parent - the index of the record of the collection of the geometry, -1 for the root
+     * @throws IllegalArgumentException if the geometry is of unknown type
+     */
+    private void collect(Intersectable geometry, int parent) {
+        double[] record = new double[GEOMETRY_SIZE];
+        int index = geometries.size();
+        geometries.add(record);
+        record[1] = parent;
+        record[2] = -1;
+
+        if (geometry instanceof Geometries collection) {
+            Class<?> type = collection.getClass();
+            if (type != Geometries.class && type != BVH.class)
+                throw new IllegalArgumentException("Unknown type of collection: " + type.getName());
+            record[0] = type == BVH.class ? BVH_GROUP : GROUP;
+            for (Intersectable shape : collection.getGeometries())
+                collect(shape, index);
+            return;
+        }
+        if (!(geometry instanceof Geometry shape))
+            throw new IllegalArgumentException("Unknown type of geometry: " + geometry.getClass().getName());
+
+        record[2] = materials.computeIfAbsent(shape.getMaterial(), m -> materials.size());
+        putDouble3(record, 3, shape.getEmission().getRgb());
+        Class<?> type = shape.getClass();
+        if (type == Sphere.class) {
+            Sphere sphere = (Sphere) shape;
+            record[0] = SPHERE;
+            putPoint(record, PARAMS, sphere.getCenter());
+            record[PARAMS + 3] = sphere.getRadius();
+        } else if (type == Plane.class) {
+            Plane plane = (Plane) shape;
+            record[0] = PLANE;
+            putPoint(record, PARAMS, plane.getQ0());
+            putPoint(record, PARAMS + 3, plane.getNormal());
+        } else if (type == Triangle.class || type == Polygon.class || type == Square.class) {
+            List<Point> polygon = ((Polygon) shape).getVertices();
+            record[0] = type == Triangle.class ? TRIANGLE : type == Square.class ? SQUARE : POLYGON;
+            record[PARAMS] = vertices.size();
+            record[PARAMS + 1] = polygon.size();
+            vertices.addAll(polygon);
+        } else if (type == Tube.class || type == Cylinder.class) {
+            Tube tube = (Tube) shape;
+            record[0] = type == Tube.class ? TUBE : CYLINDER;
+            putPoint(record, PARAMS, tube.getAxisRay().getP0());
+            putPoint(record, PARAMS + 3, tube.getAxisRay().getDir());
+            record[PARAMS + 6] = tube.getRadius();
+            if (type == Cylinder.class)
+                record[PARAMS + 7] = ((Cylinder) tube).getHeight();
+        } else if (type == Cone.class) {
+            Cone cone = (Cone) shape;
+            record[0] = CONE;
+            putPoint(record, PARAMS, cone.getCenter());
+            record[PARAMS + 3] = cone.getHeight();
+            record[PARAMS + 4] = cone.getRadius();
+        } else if (type == Circle.class) {
+            Circle circle = (Circle) shape;
+            record[0] = CIRCLE;
+            putPoint(record, PARAMS, circle.getQ0());
+            putPoint(record, PARAMS + 3, circle.getNormal());
+            record[PARAMS + 6] = circle.getRadius();
+            record[PARAMS + 7] = circle.getRange();
+        } else if (type == Mesh.class) {
+            record[0] = MESH_GEOMETRY;
+            record[PARAMS] = meshes.size();
+            meshes.add((Mesh) shape);
+        } else
+            throw new IllegalArgumentException("Unknown type of geometry: " + type.getName());
+    }
+
+    /**
+     * Function readGeometries creates the geometries of the records, and adds each of them to its collection
+     * @param records - the records of the geometries
+     * @param count - the number of records
+     * @param materialTable - the materials
+     * @param points - the coordinates of the vertices of the polygons
+     * @param meshes - the meshes
+     * @return Geometries - the root collection
+     * @throws IllegalArgumentException if a record is wrong
+     */
+    private static Geometries readGeometries(double[] records, int count, Material[] materialTable,
+                                             double[] points, Mesh[] meshes) {
+        Intersectable[] shapes = new Intersectable[count];
+        for (int i = 0; i < count; i++) {
+            int r = i * GEOMETRY_SIZE, type = (int) records[r], parent = (int) records[r + 1];
+            int p = r + PARAMS;
+            Intersectable shape = switch (type) {
+                case GROUP -> new Geometries();
+                case BVH_GROUP -> new BVH();
+                case SPHERE -> new Sphere(getPoint(records, p), records[p + 3]);
+                case PLANE -> new Plane(getPoint(records, p), getVector(records, p + 3));
+                case TRIANGLE, POLYGON, SQUARE -> {
+                    int numVertices = (int) records[p + 1];
+                    if (numVertices < 3 || numVertices > points.length / 3)
+                        throw new IllegalArgumentException("Wrong number of vertices of polygon in scene file: " + numVertices);
+                    Point[] polygon = new Point[numVertices];
+                    for (int k = 0; k < polygon.length; k++)
+                        polygon[k] = getPoint(points, ((int) records[p] + k) * 3);
+                    yield type == TRIANGLE ? new Triangle(polygon[0], polygon[1], polygon[2])
+                            : type == SQUARE ? new Square(polygon) : new Polygon(polygon);
+                }
+                case TUBE -> new Tube(new Ray(getPoint(records, p), getVector(records, p + 3)), records[p + 6]);
+                case CYLINDER -> new Cylinder(new Ray(getPoint(records, p), getVector(records, p + 3)),
+                        records[p + 6], records[p + 7]);
+                case CONE -> new Cone(records[p + 3], records[p + 4], getPoint(records, p));
+                case CIRCLE -> new Circle(getPoint(records, p), getVector(records, p + 3), records[p + 6], records[p + 7]);
+                case MESH_GEOMETRY -> meshes[(int) records[p]];
+                default -> throw new IllegalArgumentException("Unknown type of geometry in scene file: " + type);
+            };
+            if (shape instanceof Geometry geometry)
+                geometry.setEmission(new Color(records[r + 3], records[r + 4], records[r + 5]))
+                        .setMaterial(materialTable[(int) records[r + 2]]);
+
+            if (i == 0 ? parent != -1 : parent < 0 || parent >= i || !(shapes[parent] instanceof Geometries))
+                throw new IllegalArgumentException("Wrong collection of geometry in scene file: " + i);
+            if (i > 0)
+                ((Geometries) shapes[parent]).add(shape);
+            shapes[i] = shape;
+        }
+        if (count == 0 || !(shapes[0] instanceof Geometries root))
+            throw new IllegalArgumentException("The scene file has no collection of geometries");
+        return root;
+    }
+
+    /**
+     * Function lightRecord creates the record of a light source
+     * @param light - the light source
+     * @return the record
+     * @throws IllegalArgumentException if the light is of unknown type
+     */
+    private static double[] lightRecord(LightSource light) {
+        double[] record = new double[LIGHT_SIZE];
+        Class<?> type = light.getClass();
+        if (type == DirectionalLight.class) {
+            DirectionalLight directional = (DirectionalLight) light;
+            record[0] = DIRECTIONAL;
+            putDouble3(record, 1, directional.getIntensity().getRgb());
+            putPoint(record, 7, directional.getDirection());
+        } else if (type == PointLight.class || type == SpotLight.class) {
+            PointLight point = (PointLight) light;
+            record[0] = type == PointLight.class ? POINT : SPOT;
+            putDouble3(record, 1, point.getIntensity().getRgb());
+            putPoint(record, 4, point.getPosition());
+            if (type == SpotLight.class)
+                putPoint(record, 7, ((SpotLight) point).getDirection());
+            record[10] = point.getKc();
+            record[11] = point.getKl();
+            record[12] = point.getKq();
+        } else
+            throw new IllegalArgumentException("Unknown type of light: " + type.getName());
+        return record;
+    }
+
+    /**
+     * Function readLight creates the light source of a record
+     * @param values - the records of the lights
+     * @param r - the index of the record in the array
+     * @return LightSource
+     * @throws IllegalArgumentException if the record is wrong
+     */
+    private static LightSource readLight(double[] values, int r) {
+        Color intensity = new Color(values[r + 1], values[r + 2], values[r + 3]);
+        return switch ((int) values[r]) {
+            case DIRECTIONAL -> new DirectionalLight(intensity, getVector(values, r + 7));
+            case POINT -> new PointLight(intensity, getPoint(values, r + 4))
+                    .setKc(values[r + 10]).setKl(values[r + 11]).setKq(values[r + 12]);
+            case SPOT -> new SpotLight(intensity, getPoint(values, r + 4), getVector(values, r + 7))
+                    .setKc(values[r + 10]).setKl(values[r + 11]).setKq(values[r + 12]);
+            default -> throw new IllegalArgumentException("Unknown type of light in scene file: " + (int) values[r]);
+        };
+    }
+
+    /**
+     * Function writeSection writes a section to the end of the file and adds it to the table of the sections
+     * @param channel - the file
+     * @param table - the table of the sections
+     * @param type - the type of the section
+     * @param count - the number of items in the section
+     * @param content - the content of the section
+     * @throws IOException if the writing failed
+     */
+    private static void writeSection(FileChannel channel, ByteBuffer table, int type, int count, ByteBuffer content)
+            throws IOException {
+        long position = channel.position();
+        while (content.hasRemaining())
+            channel.write(content);
+        endSection(channel, table, type, count, position);
+    }
+
+    /**
+     * Function endSection adds a section which was written to the table of the sections,
+     * and aligns the end of the file to 8 bytes
+     * @param channel - the file, after the section
+     * @param table - the table of the sections
+     * @param type - the type of the section
+     * @param count - the number of items in the section
+     * @param position - the position of the section in the file
+     * @throws IOException if the writing failed
+     */
+    private static void endSection(FileChannel channel, ByteBuffer table, int type, int count, long position)
+            throws IOException {
+        long end = channel.position();
+        table.putInt(type).putInt(count).putLong(position).putLong(end - position);
+        channel.position(align(end));
+    }
+
+    /**
+     * Function toBuffer puts records of numbers into a buffer
+     * @param records - the records
+     * @param size - the number of values in each record
+     * @return the buffer, ready for writing
+     */
+    private static ByteBuffer toBuffer(List<double[]> records, int size) {
+        ByteBuffer buffer = ByteBuffer.allocate(records.size() * size * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        DoubleBuffer values = buffer.asDoubleBuffer();
+        for (double[] record : records)
+            values.put(record, 0, size);
+        return buffer;
+    }
+
+    /**
+     * Function getDoubles copies the numbers of the records of a section in bulk. The number of records
+     * (from the table of the sections) is checked against the length of the section before the allocation.
+     * @param section - the section
+     * @param count - the number of records
+     * @param recordSize - the number of values of each record
+     * @return array of the values
+     * @throws IllegalArgumentException if the section is shorter than its records
+     */
+    private static double[] getDoubles(ByteBuffer section, int count, int recordSize) {
+        if (count > section.remaining() / ((long) recordSize * Double.BYTES))
+            throw new IllegalArgumentException("Wrong number of records in section of scene file: " + count);
+        double[] values = new double[count * recordSize];
+        section.asDoubleBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * This method reads the bytes of the file from a position until the buffer is full
+     * @param channel - the file
+     * @param buffer - the buffer
+     * @param position - the position in the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file ends before
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IllegalArgumentException("The scene file is truncated");
+        buffer.flip();
+    }
+
+    /**
+     * This method rounds a position up to a multiple of 8
+     * @param position - the position
+     * @return the aligned position
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * This method puts the components of a color into a buffer
+     * @param buffer - the buffer
+     * @param color - the color
+     */
+    private static void putColor(ByteBuffer buffer, Color color) {
+        Double3 rgb = color.getRgb();
+        buffer.putDouble(rgb.getD1()).putDouble(rgb.getD2()).putDouble(rgb.getD3());
+    }
+
+    /**
+     * This method reads the components of a color from a buffer
+     * @param buffer - the buffer
+     * @return Color
+     */
+    private static Color getColor(ByteBuffer buffer) {
+        return new Color(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * This method puts three numbers into a record
+     * @param record - the record
+     * @param i - the index of the first number in the record
+     * @param value - the numbers
+     */
+    private static void putDouble3(double[] record, int i, Double3 value) {
+        record[i] = value.getD1();
+        record[i + 1] = value.getD2();
+        record[i + 2] = value.getD3();
+    }
+
+    /**
+     * This method puts the coordinates of a point (or vector) into a record
+     * @param record - the record
+     * @param i - the index of the first coordinate in the record
+     * @param point - the point
+     */
+    private static void putPoint(double[] record, int i, Point point) {
+        putDouble3(record, i, point.getXyz());
+    }
+
+    /**
+     * This method reads three numbers from an array
+     * @param values - the array
+     * @param i - the index of the first number
+     * @return Double3
+     */
+    private static Double3 getDouble3(double[] values, int i) {
+        return new Double3(values[i], values[i + 1], values[i + 2]);
+    }
+
+    /**
+     * This method reads a point from an array
+     * @param values - the array
+     * @param i - the index of the first coordinate
+     * @return Point
+     */
+    private static Point getPoint(double[] values, int i) {
+        return new Point(values[i], values[i + 1], values[i + 2]);
+    }
+
+    /**
+     * This method reads a vector from an array
+     * @param values - the array
+     * @param i - the index of the first coordinate
+     * @return Vector
+     */
+    private static Vector getVector(double[] values, int i) {
+        return new Vector(values[i], values[i + 1], values[i + 2]);
+    }
+}
@@ -0,0 +1,198 @@
+package unittests.geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import geometries.*;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for geometries.BVH class
+ * @author Rivka Sheiner
+ */
+public class BVHTests {
+
+    /**
+     * Test method for {@link geometries.BVH#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    public void testFindIntersections() {
+        BVH bvh = new BVH(new Plane(new Point(1,0,0), new Vector(0,0,1))
+                , new Triangle(new Point(0,0,1), new Point(5,0,1),new Point(0,0,5))
+                , new Sphere(new Point(2,0,0), 1));
+        List<Point> result;
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Ray intersects some shapes in the collection
+        result = bvh.findIntersections(new Ray(new Point(2,-0.5,0), new Vector(0,0,1)));
+        assertEquals(1, result.size(),"Wrong number of points");
+
+        // TC02: Many shapes - the hierarchy finds the same points as the flat collection
+        Random random = new Random(1);
+        BVH bigBvh = new BVH();
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < 300; i++) {
+            Point center = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            Intersectable shape = i % 2 == 0 ? new Sphere(center, random.nextDouble(1, 5))
+                    : new Triangle(center, center.add(new Vector(4, 0, 1)), center.add(new Vector(0, 4, 2)));
+            bigBvh.add(shape);
+            geometries.add(shape);
+        }
+        for (int i = 0; i < 200; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), 200),
+                    new Vector(random.nextDouble(-0.3, 0.3), random.nextDouble(-0.3, 0.3), -1));
+            List<Point> expected = geometries.findIntersections(ray);
+            List<Point> actual = bigBvh.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), actual == null ? 0 : actual.size(),
+                    "Wrong number of points in hierarchy");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Empty hierarchy (0 points)
+        assertNull(new BVH().findIntersections(new Ray(new Point(1,1,1), new Vector(2,2,2))),
+                "Empty hierarchy - no intersections");
+
+        // TC12: Ray does not intersect any shape in the hierarchy (0 points)
+        assertNull(bvh.findIntersections(new Ray(new Point(0,0,10), new Vector(0,0,2))),
+                "Ray does not intersect any geometry");
+
+        // TC13: Shape added after the hierarchy was built (1 point)
+        BVH added = new BVH();
+        added.add(new Sphere(new Point(0,0,0), 1));
+        assertNull(added.findIntersections(new Ray(new Point(5,0,-5), new Vector(0,0,1))),
+                "Ray misses the first sphere");
+        added.add(new Sphere(new Point(5,0,0), 1));
+        assertEquals(2, added.findIntersections(new Ray(new Point(5,0,-5), new Vector(0,0,1))).size(),
+                "Ray crosses the sphere which was added later");
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findGeoIntersections(primitives.Ray,double)}.
+     */
+    @Test
+    void testFindIntersectionsWithDistance() {
+        BVH bvh = new BVH(new Plane(new Point(1,0,0), new Vector(0,0,1))
+                , new Triangle(new Point(0,0,1), new Point(5,0,1),new Point(0,0,5))
+                , new Sphere(new Point(2,0,0), 1));
+        List<Intersectable.GeoPoint> result;
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01: The point of intersection is more than max distance (0 points)
+        result = bvh.findGeoIntersections(new Ray(new Point(2.1,0.1,0), new Vector(0,1,0)),0.1);
+        assertNull( result, "Ray does not intersect the geometries in the limited distance");
+
+        //TC02: The point of intersection is less than max distance (1 point)
+        result = bvh.findGeoIntersections(new Ray(new Point(2.1,0.1,0), new Vector(0,1,0)),5);
+        assertEquals(1, result.size(), "Ray intersects 1 geometry in the limited distance");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Sphere near = new Sphere(new Point(0,0,-5), 1);
+        Sphere far = new Sphere(new Point(0,0,-20), 1);
+        BVH bvh = new BVH(far, new Plane(new Point(0,0,-50), new Vector(0,0,1)), near);
+        Intersectable.GeoPoint result;
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Ray crosses some shapes - the nearest point is found
+        result = bvh.findClosestGeoIntersection(new Ray(new Point(0,0,0), new Vector(0,0,-1)));
+        assertEquals(near, result.geometry, "Wrong closest geometry");
+        assertEquals(new Point(0,0,-4), result.point, "Wrong closest point");
+
+        // TC02: Ray starts inside the nearest shape
+        result = bvh.findClosestGeoIntersection(new Ray(new Point(0,0,-5), new Vector(0,0,-1)));
+        assertEquals(new Point(0,0,-6), result.point, "Wrong closest point from inside the sphere");
+
+        // TC03: Many shapes - the hierarchy finds the same point as the closest of the flat list
+        Random random = new Random(2);
+        BVH bigBvh = new BVH();
+        Geometries geometries = new Geometries();
+        for (int i = 0; i < 300; i++) {
+            Point center = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            Intersectable shape = i % 2 == 0 ? new Sphere(center, random.nextDouble(1, 5))
+                    : new Triangle(center, center.add(new Vector(4, 0, 1)), center.add(new Vector(0, 4, 2)));
+            bigBvh.add(shape);
+            geometries.add(shape);
+        }
+        for (int i = 0; i < 200; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), 200),
+                    new Vector(random.nextDouble(-0.3, 0.3), random.nextDouble(-0.3, 0.3), -1));
+            List<Point> points = geometries.findIntersections(ray);
+            Intersectable.GeoPoint actual = bigBvh.findClosestGeoIntersection(ray);
+            if (points == null)
+                assertNull(actual, "Ray does not intersect the hierarchy");
+            else
+                assertEquals(ray.findClosestPoint(points), actual.point, "Wrong closest point in hierarchy");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: The nearest point is further than max distance (0 points)
+        assertNull(bvh.findClosestGeoIntersection(new Ray(new Point(0,0,0), new Vector(0,0,-1)), 3),
+                "The closest point is further than max distance");
+
+        // TC12: Ray does not intersect any shape in the hierarchy
+        assertNull(bvh.findClosestGeoIntersection(new Ray(new Point(0,0,0), new Vector(0,0,1))),
+                "Ray does not intersect any geometry");
+    }
+
+    /**
+     * Test method for {@link geometries.BVH#findClosestIntersections(geometries.RayPacket)}.
+     */
+    @Test
+    void testFindClosestIntersections() {
+        Random random = new Random(3);
+        BVH bvh = new BVH();
+        bvh.add(new Plane(new Point(0,0,-150), new Vector(0,0,1)));
+        for (int i = 0; i < 300; i++) {
+            Point center = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            bvh.add(i % 2 == 0 ? new Sphere(center, random.nextDouble(1, 5))
+                    : new Triangle(center, center.add(new Vector(4, 0, 1)), center.add(new Vector(0, 4, 2))));
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Packet of coherent rays - each ray gets the same closest point as when traced alone
+        Ray[] rays = new Ray[64];
+        for (int i = 0; i < rays.length; i++)
+            rays[i] = new Ray(new Point(0,0,300), new Vector((i % 8 - 3.5) * 0.05, (i / 8 - 3.5) * 0.05, -1));
+        RayPacket packet = new RayPacket(rays);
+        bvh.findClosestIntersections(packet);
+        for (int i = 0; i < rays.length; i++)
+            assertEquals(bvh.findClosestGeoIntersection(rays[i]), packet.getClosestIntersection(i),
+                    "Wrong closest point of ray in packet");
+
+        // TC02: Packet of incoherent rays
+        for (int i = 0; i < 20; i++)
+            rays[i] = new Ray(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), 200),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+        packet = new RayPacket(rays, 0, 20);
+        bvh.findClosestIntersections(packet);
+        for (int i = 0; i < 20; i++)
+            assertEquals(bvh.findClosestGeoIntersection(rays[i]), packet.getClosestIntersection(i),
+                    "Wrong closest point of incoherent ray in packet");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Packet with one ray which does not intersect any shape
+        packet = new RayPacket(new Ray(new Point(0,0,0), new Vector(0,0,1)));
+        bvh.findClosestIntersections(packet);
+        assertNull(packet.getClosestIntersection(0), "Ray does not intersect any geometry");
+
+        // TC12: Packet with more than 64 rays
+        assertThrows(IllegalArgumentException.class, () -> new RayPacket(new Ray[65]),
+                "Constructed packet with more than 64 rays");
+    }
+}
@@ -0,0 +1,75 @@
+package unittests.geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import geometries.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.BoundingBox class
+ * @author Rivka Sheiner
+ */
+public class BoundingBoxTests {
+
+    /**
+     * Test method for {@link geometries.BoundingBox#intersects(primitives.Ray, double)}.
+     */
+    @Test
+    void testIntersects() {
+        BoundingBox box = new BoundingBox(0, 0, 0, 2, 2, 2);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Ray passes through the box
+        assertTrue(box.intersects(new Ray(new Point(-1, 1, 1), new Vector(1, 0.1, 0)), Double.POSITIVE_INFINITY),
+                "Ray passes through the box");
+        // TC02: Ray misses the box
+        assertFalse(box.intersects(new Ray(new Point(-1, 5, 1), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray misses the box");
+        // TC03: The box is behind the ray
+        assertFalse(box.intersects(new Ray(new Point(-1, 1, 1), new Vector(-1, 0, 0)), Double.POSITIVE_INFINITY),
+                "The box is behind the ray");
+        // TC04: Ray starts inside the box
+        assertTrue(box.intersects(new Ray(new Point(1, 1, 1), new Vector(1, 1, 1)), Double.POSITIVE_INFINITY),
+                "Ray starts inside the box");
+        // TC05: The box is further than max distance
+        assertFalse(box.intersects(new Ray(new Point(-5, 1, 1), new Vector(1, 0, 0)), 3),
+                "The box is further than max distance");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Ray is parallel to a face of the box and outside of it
+        assertFalse(box.intersects(new Ray(new Point(-1, 3, 1), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "Ray is parallel to a face and outside the box");
+        // TC12: Ray lays on a face of flat box (box of a polygon in axis aligned plane)
+        BoundingBox flat = new Square(new Point(0, 0, 0), new Point(1, 0, 0), new Point(1, 1, 0), new Point(0, 1, 0))
+                .getBoundingBox();
+        assertTrue(flat.intersects(new Ray(new Point(0.5, 0.5, 1), new Vector(0, 0, -1)), Double.POSITIVE_INFINITY),
+                "Ray crosses flat box");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#getBoundingBox()}.
+     */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Bounded shapes
+        Sphere sphere = new Sphere(new Point(1, 1, 1), 1);
+        assertTrue(sphere.isBounded(), "Sphere is bounded");
+        assertTrue(sphere.getBoundingBox().intersects(new Ray(new Point(1, 1, -5), new Vector(0, 0, 1)), 10),
+                "Ray passes through the box of the sphere");
+
+        // TC02: Unbounded shapes
+        assertFalse(new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)).isBounded(), "Plane is unbounded");
+        assertFalse(new Tube(new Ray(new Point(0, 0, 0), new Vector(0, 0, 1)), 1).isBounded(), "Tube is unbounded");
+
+        // TC03: Collection is unbounded if one of its shapes is unbounded
+        assertTrue(new Geometries(sphere, new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0)))
+                .isBounded(), "Collection of bounded shapes is bounded");
+        assertFalse(new Geometries(sphere, new Plane(new Point(0, 0, 0), new Vector(0, 0, 1))).isBounded(),
+                "Collection with plane is unbounded");
+    }
+}
@@ -69,5 +69,52 @@ public class GeometriesTests {
         result = geometries.findGeoIntersections(new Ray(new Point(2.1,0.1,0), new Vector(0,1,0)),5);
         assertEquals(1, result.size(), "Ray intersects 1 geometry in the limited distance");
 
+        //TC03: The intersection keeps its distance from the ray's head
+        Ray ray = new Ray(new Point(2,0,-3), new Vector(0,0,1));
+        result = geometries.findGeoIntersections(ray, 10);
+        assertEquals(3, result.size(), "Ray crosses the sphere and the plane");
+        for (Intersectable.GeoPoint gp : result)
+            assertEquals(gp.point.distance(ray.getP0()), gp.t, 0.00001, "Wrong distance of intersection");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11: Max distance is between the two intersections with the sphere (1 point)
+        result = geometries.findGeoIntersections(ray, 2.5);
+        assertEquals(1, result.size(), "Only the nearer intersection with the sphere is in the limited distance");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(primitives.Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        Geometry glass = new Sphere(new Point(0,0,-5), 1).setMaterial(new Material().setKt(0.5));
+        Geometry wall = new Plane(new Point(0,0,-10), new Vector(0,0,1));
+        Geometries geometries = new Geometries(glass, wall);
+        Ray ray = new Ray(new Point(0,0,0), new Vector(0,0,-1));
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Ray crosses only transparent shape (2 intersections)
+        assertEquals(0.25, geometries.findTransparency(ray, 8, 0.001), 0.00001,
+                "Wrong transparency through transparent sphere");
+
+        // TC02: Ray is blocked by opaque shape
+        assertEquals(0, geometries.findTransparency(ray, 20, 0.001), 0.00001,
+                "Ray is blocked by opaque plane");
+
+        // TC03: Ray does not cross any shape
+        assertEquals(1, geometries.findTransparency(new Ray(new Point(0,0,0), new Vector(0,0,1)), 20, 0.001),
+                0.00001, "Ray does not cross any shape");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Transparency is lower than the minimal transparency
+        assertEquals(0, geometries.findTransparency(ray, 8, 0.3), 0.00001,
+                "Transparency under the minimum blocks the ray");
+
+        // TC12: The shapes are further than max distance
+        assertEquals(1, geometries.findTransparency(ray, 3, 0.001), 0.00001,
+                "The shapes are further than max distance");
     }
 }
@@ -0,0 +1,217 @@
+package unittests.geometries;
+
+import primitives.*;
+import geometries.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.Mesh class
+ * @author Rivka Sheiner
+ */
+public class MeshTests {
+    /**
+     * Square of two triangles in the plane z=0, between (0,0) and (2,2)
+     */
+    private final Mesh square = new Mesh(new double[] { 0,0,0, 2,0,0, 2,2,0, 0,2,0 },
+            new int[] { 0,1,2, 0,2,3 });
+
+    /**
+     * Test method for {@link geometries.Mesh#Mesh(double[], int[])}.
+     */
+    @Test
+    public void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Correct mesh
+        assertEquals(2, square.getNumTriangles(), "Wrong number of triangles");
+        assertEquals(4, square.getNumVertices(), "Wrong number of vertices");
+
+        // TC02: Coordinates which are not triples
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[] { 0,0,0, 1,0 }, new int[0]),
+                "Constructed a mesh with coordinates which are not triples");
+
+        // TC03: Index of vertex which does not exist
+        assertThrows(IllegalArgumentException.class, () -> new Mesh(new double[] { 0,0,0, 1,0,0, 0,1,0 },
+                new int[] { 0,1,3 }), "Constructed a mesh with wrong index of vertex");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Empty mesh
+        assertNull(new Mesh(new double[0], new int[0]).getBoundingBox(), "Empty mesh is not bounded");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#getNormal(primitives.Point)}.
+     */
+    @Test
+    public void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The normal of a point on the mesh, in the direction of the normal of Triangle
+        assertEquals(new Vector(0,0,1), square.getNormal(new Point(1.5,0.5,0)), "Bad normal to mesh");
+
+        // TC02: The normal of an intersection point is taken from its triangle
+        Intersectable.GeoPoint gp = square.findClosestGeoIntersection(new Ray(new Point(0.5,1.5,-1), new Vector(0,0,1)));
+        assertEquals(new Vector(0,0,1), gp.geometry.getNormal(gp.point), "Bad normal to intersection point");
+        assertEquals(square.getMaterial(), gp.geometry.getMaterial(), "Intersection point without the mesh's material");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Point which is not on the mesh
+        assertThrows(IllegalArgumentException.class, () -> square.getNormal(new Point(1,1,1)),
+                "Normal to point which is not on the mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    public void testFindIntersections() {
+        List<Point> result;
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Ray intersects one triangle (1 point)
+        result = square.findIntersections(new Ray(new Point(1.5,0.5,-1), new Vector(0,0,1)));
+        assertEquals(List.of(new Point(1.5,0.5,0)), result, "Ray intersects the mesh");
+
+        // TC02: Ray is outside the mesh (0 points)
+        assertNull(square.findIntersections(new Ray(new Point(3,1,-1), new Vector(0,0,1))),
+                "Ray is outside the mesh");
+
+        // TC03: Ray starts after the mesh (0 points)
+        assertNull(square.findIntersections(new Ray(new Point(1,0.5,1), new Vector(0,0,1))),
+                "Ray starts after the mesh");
+
+        // TC04: Many triangles - the mesh finds the same points as separate triangles
+        Random random = new Random(1);
+        int n = 300;
+        double[] vertices = new double[n * 9];
+        int[] indices = new int[n * 3];
+        Geometries triangles = new Geometries();
+        for (int i = 0; i < n; i++) {
+            Point center = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            Point[] points = { center, center.add(new Vector(4, 0, 1)), center.add(new Vector(0, 4, 2)) };
+            for (int k = 0; k < 3; k++) {
+                vertices[i * 9 + k * 3] = points[k].getXyz().getD1();
+                vertices[i * 9 + k * 3 + 1] = points[k].getXyz().getD2();
+                vertices[i * 9 + k * 3 + 2] = points[k].getXyz().getD3();
+                indices[i * 3 + k] = i * 3 + k;
+            }
+            triangles.add(new Triangle(points[0], points[1], points[2]));
+        }
+        Mesh mesh = new Mesh(vertices, indices);
+        for (int i = 0; i < 200; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), 200),
+                    new Vector(random.nextDouble(-0.3, 0.3), random.nextDouble(-0.3, 0.3), -1));
+            List<Point> expected = triangles.findIntersections(ray);
+            List<Point> actual = mesh.findIntersections(ray);
+            assertEquals(expected == null ? 0 : expected.size(), actual == null ? 0 : actual.size(),
+                    "Wrong number of points in mesh");
+            Intersectable.GeoPoint closest = mesh.findClosestGeoIntersection(ray);
+            Intersectable.GeoPoint expectedClosest = triangles.findClosestGeoIntersection(ray);
+            assertEquals(expectedClosest == null ? null : expectedClosest.point, closest == null ? null : closest.point,
+                    "Wrong closest point in mesh");
+        }
+
+        // TC05: Packet of rays - each ray gets the same closest point as when traced alone
+        Ray[] rays = new Ray[64];
+        for (int i = 0; i < rays.length; i++)
+            rays[i] = new Ray(new Point(0,0,300), new Vector((i % 8 - 3.5) * 0.05, (i / 8 - 3.5) * 0.05, -1));
+        RayPacket packet = new RayPacket(rays);
+        mesh.findClosestIntersections(packet);
+        for (int i = 0; i < rays.length; i++)
+            assertEquals(mesh.findClosestGeoIntersection(rays[i]), packet.getClosestIntersection(i),
+                    "Wrong closest point of ray in packet");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Ray through the shared edge of two triangles (1 point)
+        result = square.findIntersections(new Ray(new Point(1,1,-1), new Vector(0,0,1)));
+        assertNotNull(result, "Ray through shared edge passes between the triangles");
+
+        // TC12: Ray parallel to the mesh (0 points)
+        assertNull(square.findIntersections(new Ray(new Point(1,0.5,1), new Vector(1,0,0))),
+                "Ray parallel to the mesh");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#findTransparency(primitives.Ray, double, double)}.
+     */
+    @Test
+    public void testFindTransparency() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Opaque mesh blocks the ray
+        assertEquals(0, square.findTransparency(new Ray(new Point(1.5,0.5,-1), new Vector(0,0,1)), 5, 0.001),
+                0.00001, "Opaque mesh does not block the ray");
+
+        // TC02: Mesh after max distance does not block the ray
+        assertEquals(1, square.findTransparency(new Ray(new Point(1.5,0.5,-1), new Vector(0,0,1)), 0.5, 0.001),
+                0.00001, "Mesh after max distance blocks the ray");
+    }
+
+    /**
+     * Test method for {@link geometries.Mesh#readSection(java.nio.ByteBuffer)}.
+     * @throws IOException if the section cannot be written
+     */
+    @Test
+    public void testReadSection() throws IOException {
+        // a mesh of a grid of 20x20 squares, whose tree has several levels
+        int n = 20;
+        double[] vertices = new double[(n + 1) * (n + 1) * 3];
+        int[] indices = new int[n * n * 6];
+        for (int i = 0; i <= n; i++)
+            for (int j = 0; j <= n; j++) {
+                vertices[(i * (n + 1) + j) * 3] = j;
+                vertices[(i * (n + 1) + j) * 3 + 1] = i;
+            }
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++) {
+                int v = i * (n + 1) + j, k = (i * n + j) * 6;
+                indices[k] = v;
+                indices[k + 1] = v + 1;
+                indices[k + 2] = v + n + 2;
+                indices[k + 3] = v;
+                indices[k + 4] = v + n + 2;
+                indices[k + 5] = v + n + 1;
+            }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new Mesh(vertices, indices).writeSection(Channels.newChannel(bytes));
+        ByteBuffer section = ByteBuffer.wrap(bytes.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        int depth = section.getInt(12);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The mesh is read with its tree
+        Mesh read = Mesh.readSection(section);
+        assertEquals(n * n * 2, read.getNumTriangles(), "Wrong number of triangles");
+        assertEquals(List.of(new Point(7.5, 3.25, 0)),
+                read.findIntersections(new Ray(new Point(7.5, 3.25, 5), new Vector(0, 0, -1))), "Wrong intersection");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Negative depth of the tree
+        section.putInt(12, -1);
+        assertThrows(IllegalArgumentException.class, () -> Mesh.readSection(section), "Read tree of negative depth");
+
+        // TC12: Depth of the tree which is smaller than the depth of its nodes
+        section.putInt(12, depth - 1);
+        assertThrows(IllegalArgumentException.class, () -> Mesh.readSection(section), "Read tree of smaller depth");
+
+        // TC13: Number of vertices which is larger than the section (and overflows the size of the array)
+        section.putInt(12, depth);
+        section.putInt(0, Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> Mesh.readSection(section), "Read too many vertices");
+    }
+}
@@ -94,6 +94,23 @@ public class PolygonTests {
         result = poly.findIntersections(new Ray(new Point(0,0.5,-1), new Vector(0,0,1)));
         p = new Point(0,0.5,0);
         assertEquals(List.of(p),result,"Ray crosses the polygon");
+
+        //TC03: Ray crosses a square in the common point of its diagonals (1 point)
+        Square square = new Square(new Point(1,1,0),new Point(-1,1,0),new Point(-1,-1,0),new Point(1,-1,0));
+        result = square.findIntersections(new Ray(new Point(0,0,-1), new Vector(0,0,1)));
+        assertEquals(List.of(new Point(0,0,0)),result,"Ray crosses the square in more than one point");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Ray crosses the plane on edge (0 points)
+        assertNull(poly.findIntersections(new Ray(new Point(0.5,0.5,-1), new Vector(0,0,1))),
+                "Ray crosses the plane on edge");
+        // TC12: Ray crosses the plane in vertex (0 points)
+        assertNull(poly.findIntersections(new Ray(new Point(1,0,-1), new Vector(0,0,1))),
+                "Ray crosses the plane in vertex");
+        // TC13: Ray crosses the plane on edge's continuation (0 points)
+        assertNull(poly.findIntersections(new Ray(new Point(2,1,-1), new Vector(0,0,1))),
+                "Ray crosses the plane on edge's continuation");
     }
 
     /**
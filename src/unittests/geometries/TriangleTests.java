@@ -50,6 +50,24 @@ public class TriangleTests {
         assertNull(triangle.findIntersections(new Ray(new Point(0,0,4), new Vector(0,0,1))),
                 "Ray begins on edge's continuation");
 
+        // **** Group: The ray crosses the plane of the triangle
+        // TC14: Ray crosses the plane on edge (0 points)
+        assertNull(triangle1.findIntersections(new Ray(new Point(0,1,-1), new Vector(0,0,1))),
+                "Ray crosses the plane on edge");
+        // TC15: Ray crosses the plane in vertex (0 points)
+        assertNull(triangle1.findIntersections(new Ray(new Point(3,0,-1), new Vector(0,0,1))),
+                "Ray crosses the plane in vertex");
+        // TC16: Ray crosses the plane on edge's continuation (0 points)
+        assertNull(triangle1.findIntersections(new Ray(new Point(0,5,-1), new Vector(0,0,1))),
+                "Ray crosses the plane on edge's continuation");
+        // TC17: Ray crosses the plane on an edge which is common to two triangles (1 point in one of them)
+        Triangle triangle2 = new Triangle(new Point(0,-3,0), new Point(0,3,0), new Point(-3,0,0));
+        for (Ray ray : List.of(new Ray(new Point(0,1,-1), new Vector(0,0,1)), new Ray(new Point(0,1,1), new Vector(0,0,-1)))) {
+            List<Point> result1 = triangle1.findIntersections(ray), result2 = triangle2.findIntersections(ray);
+            assertEquals(1, (result1 == null ? 0 : result1.size()) + (result2 == null ? 0 : result2.size()),
+                    "Ray crosses the plane on a common edge");
+        }
+
     }
 
     /**
@@ -3,9 +3,26 @@ package unittests.renderer;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import geometries.BVH;
+import geometries.IntersectionMetrics;
+import geometries.Sphere;
+import lighting.PointLight;
 import renderer.Camera;
+import renderer.CostHeatmap;
+import renderer.ImageWriter;
+import renderer.RayTracerBase;
+import renderer.RayTracerBasic;
 import primitives.*;
+import scene.Scene;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Testing Camera Class
@@ -16,6 +33,68 @@ import primitives.*;
 class CameraTest {
     static final Point ZERO_POINT = new Point(0, 0, 0);
 
+    /**
+     * KilledTracer class is a ray tracer of a scene which fails after a number of rays, like a killed rendering.
+     * Its counters are transient, so they are not part of the fingerprint of the camera.
+     */
+    private static class KilledTracer extends RayTracerBasic {
+        /**
+         * The version of the serialized form of the class
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * The number of the traced rays
+         */
+        private final transient AtomicInteger numRays = new AtomicInteger();
+        /**
+         * The number of rays after which the tracer fails
+         */
+        private transient int killAfter = Integer.MAX_VALUE;
+
+        /**
+         * KilledTracer constructor
+         * @param scene - the scene
+         */
+        KilledTracer(Scene scene) {
+            super(scene);
+        }
+
+        @Override
+        public Color traceRay(Ray ray) {
+            if (numRays.incrementAndGet() > killAfter)
+                throw new IllegalStateException("killed");
+            return super.traceRay(ray);
+        }
+    }
+
+    /**
+     * This method creates a ray tracer which counts the traced rays and colors each ray by a function
+     * @param numRays - the counter of the rays
+     * @param color - the color of a ray
+     * @return RayTracerBase
+     */
+    private static RayTracerBase countingTracer(AtomicInteger numRays, Function<Ray, Color> color) {
+        return new RayTracerBase(new Scene("counting")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                numRays.incrementAndGet();
+                return color.apply(ray);
+            }
+        };
+    }
+
+    /**
+     * This method creates a camera in the origin toward -z, with a square view plane in distance 10
+     * @param size - the width and the height of the view plane
+     * @param imageWriter - the image writer of the camera
+     * @param tracer - the ray tracer of the camera
+     * @return Camera
+     */
+    private static Camera createCamera(double size, ImageWriter imageWriter, RayTracerBase tracer) {
+        return new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0)).setVPSize(size, size)
+                .setVPDistance(10).setImageWriter(imageWriter).setRayTracer(tracer);
+    }
+
     /**
      * Test method for
      * {@link renderer.Camera#constructRay(int, int, int, int)}.
@@ -57,5 +136,314 @@ class CameraTest {
 
     }
 
-}
+    /**
+     * Test method for
+     * {@link renderer.Camera#constructRaysForDepthOfField(primitives.Ray)}.
+     */
+    @Test
+    void testConstructRaysForDepthOfField() {
+        Ray center = new Ray(ZERO_POINT, new Vector(0, 0, -1));
+        Point focalPoint = new Point(0, 0, -100);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The origins of the rays are spread in the lens of the size of the aperture, toward the focal point
+        List<Ray> rays = new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0), 4, 100, true, 16)
+                .constructRaysForDepthOfField(center);
+        assertEquals(16, rays.size(), "Wrong number of rays");
+        double maxShift = 0;
+        for (Ray ray : rays) {
+            Double3 origin = ray.getP0().getXyz();
+            assertEquals(0, origin.getD3(), 1e-10, "The origin of a ray is out of the lens");
+            assertTrue(Math.abs(origin.getD1()) <= 2 && Math.abs(origin.getD2()) <= 2,
+                    "The origin of a ray is out of the aperture");
+            maxShift = Math.max(maxShift, Math.max(Math.abs(origin.getD1()), Math.abs(origin.getD2())));
+            assertEquals(0, ray.getPoint(ray.getP0().distance(focalPoint)).distance(focalPoint), 1e-9,
+                    "The ray does not pass through the focal point");
+        }
+        assertTrue(maxShift > 1, "The lens was not scaled by the aperture");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Aperture of size zero - all the rays start in the center of the lens
+        for (Ray ray : new Camera(ZERO_POINT, new Vector(0, 0, -1), new Vector(0, 1, 0), 0, 100, true, 4)
+                .constructRaysForDepthOfField(center))
+            assertEquals(ZERO_POINT, ray.getP0(), "The origin of a ray is out of aperture of size zero");
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#renderProgressive(int, long, renderer.Camera.ProgressListener)}.
+     */
+    @Test
+    void testRenderProgressive() {
+        AtomicInteger numRays = new AtomicInteger();
+        Camera camera = createCamera(10, new ImageWriter("progressive", 10, 10),
+                countingTracer(numRays, ray -> new Color(10, 20, 30)));
+        List<Integer> images = new ArrayList<>();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: All the passes - an image after each pass, one sample for each pixel in each pass
+        camera.renderProgressive(4, 0, images::add);
+        assertEquals(List.of(1, 2, 3, 4), images, "Wrong intermediate images");
+        assertEquals(4 * 100, numRays.get(), "Wrong number of samples");
+
+        // TC02: The listener stops the refinement after the second image
+        images.clear();
+        numRays.set(0);
+        camera.renderProgressive(4, 0, samples -> images.add(samples) && samples < 2);
+        assertEquals(List.of(1, 2), images, "The listener did not stop the refinement");
+        assertEquals(2 * 100, numRays.get(), "Wrong number of samples after stop");
+
+        // TC03: Long interval of publishing - only the last image is published
+        images.clear();
+        camera.setPublishInterval(3_600_000).renderProgressive(4, 0, images::add);
+        assertEquals(List.of(4), images, "Intermediate images were published before the interval");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: The time is over during the first pass - the first pass is completed and no more
+        images.clear();
+        numRays.set(0);
+        RayTracerBase slow = countingTracer(numRays, ray -> {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Color.BLACK;
+        });
+        camera.setRayTracer(slow).setNumThreads(1).setPublishInterval(0).renderProgressive(4, 1, images::add);
+        assertEquals(List.of(1), images, "Rendering did not stop when the time was over");
+        assertEquals(100, numRays.get(), "The first pass was not completed");
+
+        // TC12: No samples
+        assertThrows(IllegalArgumentException.class, () -> camera.renderProgressive(0, 0, null),
+                "Rendered without samples");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setCheckpoint(java.nio.file.Path, long)}.
+     * @param directory - the directory of the checkpoint file
+     */
+    @Test
+    void testRenderImageCheckpoint(@TempDir Path directory) {
+        Path file = directory.resolve("checkpoint.bin");
+        AtomicInteger numRays = new AtomicInteger();
+        AtomicInteger killAfter = new AtomicInteger(Integer.MAX_VALUE);
+        RayTracerBase tracer = countingTracer(numRays, ray -> {
+            if (numRays.get() > killAfter.get())
+                throw new IllegalStateException("killed");
+            Double3 d = ray.getDir().getXyz();
+            return new Color(Math.abs(d.getD1()) * 500, Math.abs(d.getD2()) * 500, 100);
+        });
+        ImageWriter expected = new ImageWriter("expected", 20, 20);
+        createCamera(10, expected, tracer).setTileSize(8).renderImage();
+
+        Camera camera = createCamera(10, new ImageWriter("killed", 20, 20), tracer)
+                .setTileSize(8).setNumThreads(1).setCheckpoint(file, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The rendering was stopped - the finished tiles were saved
+        // (the rendering is stopped in the middle of the fourth tile)
+        numRays.set(0);
+        killAfter.set(3 * 64 + 10);
+        assertThrows(IllegalStateException.class, camera::renderImage, "The rendering was not stopped");
+        assertTrue(Files.exists(file), "The checkpoint was not saved");
 
+        // TC02: The rendering is resumed - only the unfinished tiles are rendered, into the same image
+        numRays.set(0);
+        killAfter.set(Integer.MAX_VALUE);
+        ImageWriter resumed = new ImageWriter("resumed", 20, 20);
+        camera.setImageWriter(resumed).renderImage();
+        assertEquals(20 * 20 - 3 * 64, numRays.get(), "The finished tiles were rendered again");
+        for (int i = 0; i < 20; i++)
+            for (int j = 0; j < 20; j++)
+                assertEquals(expected.getFrameBuffer().getPixel(j, i).getRgb(),
+                        resumed.getFrameBuffer().getPixel(j, i).getRgb(), "Wrong resumed pixel");
+        assertFalse(Files.exists(file), "The checkpoint was not deleted after the rendering");
+
+        // TC03: The rendering of a scene in bounding volume hierarchy is resumed in the same JVM -
+        // the hierarchy which was built by the stopped rendering does not change the fingerprint
+        Scene scene = new Scene("checkpoint");
+        scene.geometries.add(new BVH(new Sphere(new Point(-2, 0, -20), 2d).setEmission(new Color(0, 0, 100)),
+                new Sphere(new Point(2, 0, -20), 2d).setEmission(new Color(100, 0, 0))));
+        KilledTracer killed = new KilledTracer(scene);
+        killed.killAfter = 3 * 64 + 10;
+        camera.setImageWriter(new ImageWriter("killed", 20, 20)).setRayTracer(killed);
+        assertThrows(IllegalStateException.class, camera::renderImage, "The rendering was not stopped");
+        killed.numRays.set(0);
+        killed.killAfter = Integer.MAX_VALUE;
+        ImageWriter resumedScene = new ImageWriter("resumed", 20, 20);
+        camera.setImageWriter(resumedScene).renderImage();
+        assertEquals(20 * 20 - 3 * 64, killed.numRays.get(), "The finished tiles of the scene were rendered again");
+        ImageWriter expectedScene = new ImageWriter("expected", 20, 20);
+        createCamera(10, expectedScene, new RayTracerBasic(scene)).setTileSize(8).renderImage();
+        for (int i = 0; i < 20; i++)
+            for (int j = 0; j < 20; j++)
+                assertEquals(expectedScene.getFrameBuffer().getPixel(j, i).getRgb(),
+                        resumedScene.getFrameBuffer().getPixel(j, i).getRgb(), "Wrong resumed pixel of the scene");
+        camera.setRayTracer(tracer);
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Checkpoint of image of other size - the whole image is rendered
+        numRays.set(0);
+        killAfter.set(3 * 64 + 10);
+        camera.setImageWriter(new ImageWriter("other", 20, 20));
+        assertThrows(IllegalStateException.class, camera::renderImage, "The rendering was not stopped");
+        numRays.set(0);
+        killAfter.set(Integer.MAX_VALUE);
+        camera.setImageWriter(new ImageWriter("other", 30, 20)).renderImage();
+        assertEquals(30 * 20, numRays.get(), "Tiles of checkpoint of other image were not rendered");
+
+        // TC12: Checkpoint of image of the same size from another camera - the whole image is rendered
+        numRays.set(0);
+        killAfter.set(3 * 64 + 10);
+        camera.setImageWriter(new ImageWriter("other", 20, 20));
+        assertThrows(IllegalStateException.class, camera::renderImage, "The rendering was not stopped");
+        numRays.set(0);
+        killAfter.set(Integer.MAX_VALUE);
+        camera.setVPDistance(20).renderImage();
+        assertEquals(20 * 20, numRays.get(), "Tiles of checkpoint of other camera were used");
+    }
+
+
+    /**
+     * Test method for {@link renderer.Camera#getHeatmap()}.
+     */
+    @Test
+    void testRenderImageHeatmap() {
+        Scene scene = new Scene("heatmap");
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 3d).setEmission(new Color(0, 0, 100)));
+        scene.lights.add(new PointLight(new Color(500, 300, 0), new Point(0, 0, 0)));
+        Camera camera = createCamera(10, new ImageWriter("heatmap", 20, 20), new RayTracerBasic(scene))
+                .setTileSize(8).setNumThreads(1);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The pixels of the sphere test intersections of shadow rays, the pixels of the background do not,
+        // and the counters of the classes of geometries are not changed by the heatmap
+        IntersectionMetrics.reset();
+        CostHeatmap heatmap = camera.setHeatmap(CostHeatmap.Metric.INTERSECTION_TESTS).renderImage().getHeatmap();
+        assertTrue(heatmap.getCost(0, 0) > 0, "The tests of pixel of background were not counted");
+        assertTrue(heatmap.getCost(10, 10) > heatmap.getCost(0, 0), "The shadow rays were not counted");
+        assertFalse(IntersectionMetrics.isEnabled(), "The metrics were enabled by the heatmap");
+        assertEquals(0L, IntersectionMetrics.getTests().values().stream().mapToLong(Long::longValue).sum(),
+                "The heatmap changed the counters of the classes of geometries");
+
+        // TC02: The most expensive pixel is red in the image of the heatmap, and the cheapest is dark blue
+        ImageWriter image = heatmap.toImage("heatmap_heatmap");
+        assertEquals(new Double3(255, 0, 0), image.getFrameBuffer().getPixel(10, 10).getRgb(),
+                "Wrong color of expensive pixel");
+        assertTrue(image.getFrameBuffer().getPixel(0, 0).getRgb().getD3() > 0, "Wrong color of cheap pixel");
+
+        // TC03: In packets, the cost of a packet is divided between its pixels
+        heatmap = camera.setPacketSize(4).renderImage().getHeatmap();
+        assertEquals(heatmap.getCost(8, 8), heatmap.getCost(11, 11), "The cost of packet was not divided");
+
+        // TC04: The time of the rendering of the pixels
+        heatmap = camera.setPacketSize(1).setHeatmap(CostHeatmap.Metric.TIME).renderImage().getHeatmap();
+        assertTrue(heatmap.getMaxCost() > 0, "The time of the pixels was not measured");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Rendering without heatmap
+        assertNull(camera.setHeatmap(null).renderImage().getHeatmap(), "Measured heatmap without measure");
+
+        // TC12: A heatmap is finished while another rendering counts the tests of its threads - the tests of
+        // the other rendering are still counted
+        IntersectionMetrics.startThreadCounting();
+        try {
+            camera.setHeatmap(CostHeatmap.Metric.INTERSECTION_TESTS).renderImage();
+            long tests = IntersectionMetrics.getThreadTests();
+            scene.geometries.findGeoIntersections(new Ray(ZERO_POINT, new Vector(0, 0, -1)));
+            assertEquals(tests + 2, IntersectionMetrics.getThreadTests(),
+                    "The tests of the other rendering were not counted");
+        } finally {
+            IntersectionMetrics.stopThreadCounting();
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#calcColor_AdaptiveSuperSampling(int, int, int, int)}.
+     */
+    @Test
+    void testAdaptiveSuperSampling() {
+        AtomicInteger numRays = new AtomicInteger();
+        // the left half of the view plane is black, and its right half is white
+        Camera camera = createCamera(16, new ImageWriter("adaptive", 16, 16), countingTracer(numRays,
+                        ray -> ray.getDir().getXyz().getD1() < 0.01 ? Color.BLACK : new Color(255, 255, 255)))
+                .setTileSize(8).setNumThreads(1).setNumSamples(4).setAdaptiveSuperSampling(true);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Without subdivision, each corner of the pixels of a tile is traced once
+        camera.setAdaptiveThreshold(1000).renderImage();
+        assertEquals(4 * 9 * 9, numRays.get(), "Wrong number of rays without subdivision");
+
+        // TC02: The subpixels of the edge are subdivided, and the corners are shared by the pixels
+        numRays.set(0);
+        ImageWriter imageWriter = new ImageWriter("adaptive", 16, 16);
+        camera.setAdaptiveThreshold(10).setAdaptiveMaxDepth(2).setImageWriter(imageWriter).renderImage();
+        int numShared = numRays.get();
+        for (int i = 0; i < 16; i++)
+            for (int j = 0; j < 16; j++)
+                assertEquals(camera.calcColor_AdaptiveSuperSampling(16, 16, j, i).getRgb(),
+                        imageWriter.getFrameBuffer().getPixel(j, i).getRgb(), "Wrong pixel (" + j + "," + i + ")");
+        assertTrue(numRays.get() - numShared > 2 * numShared, "The corners of the tile were not shared");
+        double edge = imageWriter.getFrameBuffer().getPixel(8, 0).getRgb().getD1();
+        assertTrue(edge > 0 && edge < 255, "The pixel of the edge was not anti aliased");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Depth of recursion out of range
+        assertThrows(IllegalArgumentException.class, () -> camera.setAdaptiveMaxDepth(Camera.MAX_ADAPTIVE_DEPTH + 1),
+                "Set too deep recursion");
+        assertThrows(IllegalArgumentException.class, () -> camera.setAdaptiveThreshold(-1), "Set negative threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#setVarianceSampling(int, double)}.
+     */
+    @Test
+    void testVarianceSampling() {
+        AtomicInteger numRays = new AtomicInteger();
+        // the view plane is black left of the middle of column 8 of the image, and white right of it
+        ImageWriter imageWriter = new ImageWriter("variance", 16, 16);
+        Camera camera = createCamera(16, imageWriter, countingTracer(numRays,
+                        ray -> ray.getDir().getXyz().getD1() < 0.05 ? Color.BLACK : new Color(255, 255, 255)))
+                .setTileSize(8).setNumThreads(1).setNumSamples(64).setVarianceSampling(4, 0.5);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The flat pixels get only the pilot batch, and the pixels of the edge get more samples
+        camera.renderImage();
+        assertTrue(numRays.get() > 4 * 16 * 16, "The pixels of the edge did not get more samples");
+        assertTrue(numRays.get() < 64 * 16 * 16 / 4, "The flat pixels got too many samples");
+        assertEquals(new Double3(255), imageWriter.getFrameBuffer().getPixel(15, 3).getRgb(), "Wrong white pixel");
+        assertEquals(Double3.ZERO, imageWriter.getFrameBuffer().getPixel(0, 3).getRgb(), "Wrong black pixel");
+        double edge = imageWriter.getFrameBuffer().getPixel(8, 3).getRgb().getD1();
+        assertTrue(edge > 0 && edge < 255, "The pixel of the edge was not anti aliased");
+
+        // TC02: The budget of the samples is not exceeded
+        numRays.set(0);
+        camera.setSampleBudget(5).renderImage();
+        assertTrue(numRays.get() <= 5 * 16 * 16, "The budget of the samples was exceeded");
+
+        // TC03: The samples which the flat tiles (left) did not spend are spent by the tiles of the edge (right),
+        // which need more samples than their share
+        assertEquals(5 * 16 * 16, numRays.get(), "The samples of the flat tiles were not spent");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Pilot batch of one sample, which has no variance
+        assertThrows(IllegalArgumentException.class, () -> camera.setVarianceSampling(1, 0.5), "Set pilot of one sample");
+
+        // TC12: Negative noise and budget
+        assertThrows(IllegalArgumentException.class, () -> camera.setVarianceSampling(4, -1), "Set negative noise");
+        assertThrows(IllegalArgumentException.class, () -> camera.setSampleBudget(-1), "Set negative budget");
+    }
+}
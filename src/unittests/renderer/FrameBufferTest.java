@@ -0,0 +1,52 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Color;
+import renderer.FrameBuffer;
+import renderer.ToneMapper;
+
+/**
+ * Testing FrameBuffer Class
+ * @author Rivka Sheiner
+ */
+class FrameBufferTest {
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#toneMap(renderer.ToneMapper, int, int, int[], int)}.
+     */
+    @Test
+    void testToneMap() {
+        FrameBuffer frameBuffer = new FrameBuffer(3, 2);
+        frameBuffer.setPixel(0, 0, new Color(300, 127.9, 0));
+        frameBuffer.setPixel(1, 0, 255, 255, 255);
+        frameBuffer.setPixel(2, 1, 1e6f, 0, 0);
+        int[] out = new int[6];
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Clamping - components above 255 are clamped, the fraction is truncated as in Color.getColor
+        frameBuffer.toneMap(ToneMapper.CLAMP, 0, 2, out, 0);
+        assertArrayEquals(new int[] { 0xFF7F00, 0xFFFFFF, 0, 0, 0, 0xFF0000 }, out, "Wrong clamping");
+
+        // TC02: Reinhard - white of the display is mapped to its half
+        frameBuffer.toneMap(ToneMapper.REINHARD, 0, 1, out, 0);
+        assertEquals(0x7F7F7F, out[1], "Wrong Reinhard mapping");
+
+        // TC03: ACES - very bright color is mapped to white, and black stays black
+        frameBuffer.toneMap(ToneMapper.ACES, 1, 2, out, 3);
+        assertEquals(0xFF0000, out[5], "Wrong ACES mapping of bright color");
+        assertEquals(0, out[3], "Wrong ACES mapping of black");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: The colors are kept without upper limit
+        assertEquals(new Color(300, 127.9f, 0).getRgb(), frameBuffer.getPixel(0, 0).getRgb(),
+                "The frame buffer does not keep high dynamic range");
+
+        // TC12: Empty image
+        assertThrows(IllegalArgumentException.class, () -> new FrameBuffer(0, 5), "Created empty frame buffer");
+    }
+}
@@ -0,0 +1,233 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import renderer.*;
+import scene.Scene;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.MissingResourceException;
+
+/**
+ * Testing RenderCoordinator and RenderWorker Classes
+ * @author Rivka Sheiner
+ */
+class RenderCoordinatorTest {
+
+    /**
+     * This method creates a camera of a lighted sphere and triangle
+     * @param imageWriter - the image writer of the camera
+     * @return Camera
+     */
+    private static Camera createCamera(ImageWriter imageWriter) {
+        return createCamera(imageWriter, 0);
+    }
+
+    /**
+     * This method creates a camera of a lighted sphere and triangle, with triangles behind the camera which
+     * do not change the image but enlarge the serialized camera
+     * @param imageWriter - the image writer of the camera
+     * @param numHidden - the number of the triangles behind the camera
+     * @return Camera
+     */
+    private static Camera createCamera(ImageWriter imageWriter, int numHidden) {
+        Scene scene = new Scene("farm");
+        for (int i = 0; i < numHidden; i++)
+            scene.geometries.add(new Triangle(new Point(i, 0, 2000), new Point(i + 1, 0, 2000), new Point(i, 1, 2000)));
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(0, 0, 100))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(300)),
+                new Triangle(new Point(-150, -150, -110), new Point(150, -150, -135), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKd(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 300, 0), new Point(-50, -50, 50)).setKl(0.001).setKq(0.0002));
+        return new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(150, 150).setVPDistance(1000).setTileSize(8)
+                .setImageWriter(imageWriter).setRayTracer(new RayTracerBasic(scene));
+    }
+
+    /**
+     * This method starts a worker in a new thread of this JVM
+     * @param coordinator - the coordinator of the worker
+     */
+    private static void startWorker(RenderCoordinator coordinator) {
+        Thread thread = new Thread(new RenderWorker("localhost", coordinator.getPort(), 2));
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * This method checks that two images have the same pixels
+     * @param expected - the expected image
+     * @param actual - the actual image
+     */
+    private static void assertSameImage(ImageWriter expected, ImageWriter actual) {
+        for (int i = 0; i < expected.getNy(); i++)
+            for (int j = 0; j < expected.getNx(); j++)
+                assertEquals(expected.getFrameBuffer().getPixel(j, i).getRgb(),
+                        actual.getFrameBuffer().getPixel(j, i).getRgb(), "Wrong pixel (" + j + "," + i + ")");
+    }
+
+    /**
+     * Test method for {@link renderer.RenderCoordinator#render(renderer.Camera)}.
+     * @throws Exception if the failing worker cannot connect
+     */
+    @Test
+    void testRender() throws Exception {
+        ImageWriter expected = new ImageWriter("farm", 100, 70);
+        createCamera(expected).renderImage();
+
+        try (RenderCoordinator coordinator = new RenderCoordinator(0).setChunkSize(16)) {
+
+            // ============ Equivalence Partitions Tests ==============
+
+            // TC01: Two workers render the same image as the camera
+            startWorker(coordinator);
+            startWorker(coordinator);
+            ImageWriter farm = new ImageWriter("farm", 100, 70);
+            coordinator.render(createCamera(farm));
+            assertSameImage(expected, farm);
+
+            // TC02: A worker fails in the middle of the rendering - its chunks are rendered by the other worker
+            try (RenderCoordinator failing = new RenderCoordinator(0).setChunkSize(16)) {
+                Socket dying = new Socket("localhost", failing.getPort());
+                ImageWriter reassigned = new ImageWriter("farm", 100, 70);
+                Thread render = new Thread(() -> failing.render(createCamera(reassigned)));
+                render.start();
+                // the dying worker gets the first chunks, and fails without returning them
+                try {
+                    InputStream in = dying.getInputStream();
+                    assertTrue(in.read() >= 0, "The worker did not get the rendering");
+                } finally {
+                    dying.close();
+                }
+                startWorker(failing);
+                render.join(60_000);
+                assertFalse(render.isAlive(), "The chunks of the failed worker were not reassigned");
+                assertSameImage(expected, reassigned);
+            }
+
+            // TC03: A worker disconnects before it gets the rendering, whose camera is larger than the buffer
+            // of the connection - the chunks are rendered by the other worker, also in the next rendering
+            try (RenderCoordinator failing = new RenderCoordinator(0).setChunkSize(16)) {
+                Socket dying = new Socket("localhost", failing.getPort());
+                while (failing.getNumWorkers() == 0)
+                    Thread.sleep(10);
+                // the connection is reset, so the coordinator fails in writing the camera
+                dying.setSoLinger(true, 0);
+                dying.close();
+                Thread.sleep(100);
+                for (int i = 0; i < 2; i++) {
+                    ImageWriter reassigned = new ImageWriter("farm", 100, 70);
+                    Thread render = new Thread(() -> failing.render(createCamera(reassigned, 500)));
+                    render.start();
+                    if (i == 0)
+                        startWorker(failing);
+                    render.join(60_000);
+                    assertFalse(render.isAlive(), "The chunks of the disconnected worker were not reassigned");
+                    assertSameImage(expected, reassigned);
+                }
+            }
+
+            // =============== Boundary Values Tests ==================
+
+            // TC11: Ray tracer which is not serializable
+            Camera camera = createCamera(new ImageWriter("farm", 10, 10)).setRayTracer(new RayTracerBase(new Scene("local")) {
+                @Override
+                public Color traceRay(Ray ray) {
+                    return Color.BLACK;
+                }
+            });
+            assertThrows(IllegalArgumentException.class, () -> coordinator.render(camera),
+                    "Rendered camera which is not serializable");
+
+            // TC12: Camera without image writer
+            assertThrows(MissingResourceException.class,
+                    () -> coordinator.render(createCamera(null)), "Rendered camera without image writer");
+        }
+    }
+
+    /**
+     * This method creates the message of a new rendering with a serialized object instead of the camera
+     * @param length - the length of the serialized object in the message, or null for its real length
+     * @param object - the object
+     * @return the bytes of the message
+     * @throws IOException if the object cannot be serialized
+     */
+    private static byte[] createJob(Integer length, Serializable object) throws IOException {
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(object);
+        }
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(message);
+        out.writeByte(1);
+        out.writeInt(10);
+        out.writeInt(10);
+        out.writeInt(length == null ? serialized.size() : length);
+        out.write(serialized.toByteArray());
+        return message.toByteArray();
+    }
+
+    /**
+     * This method checks that a worker rejects a message of a coordinator
+     * @param message - the message of the coordinator
+     * @param text - the text of the failure
+     * @return the failure of the worker
+     * @throws IOException if the coordinator cannot be opened
+     */
+    private static IllegalStateException assertRejected(byte[] message, String text) throws IOException {
+        try (ServerSocket server = new ServerSocket(0)) {
+            Thread coordinator = new Thread(() -> {
+                try (Socket socket = server.accept()) {
+                    socket.getOutputStream().write(message);
+                    // wait until the worker closes the connection
+                    socket.getInputStream().read();
+                } catch (IOException e) {
+                    // the worker closed the connection
+                }
+            });
+            coordinator.setDaemon(true);
+            coordinator.start();
+            return assertThrows(IllegalStateException.class, new RenderWorker("localhost", server.getLocalPort(), 1)::run, text);
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.RenderWorker#run()}.
+     * @throws IOException if the coordinator cannot be opened
+     */
+    @Test
+    void testRunWorker() throws IOException {
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Camera with a class which is not allowed
+        assertInstanceOf(InvalidClassException.class,
+                assertRejected(createJob(null, new HashMap<String, String>()), "Deserialized class which is not allowed").getCause(),
+                "The class was not rejected by the filter");
+
+        // TC02: Object of the project which is not a camera
+        assertRejected(createJob(null, new Point(1, 2, 3)), "Rendered object which is not a camera");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Negative length of camera
+        assertRejected(createJob(Integer.MIN_VALUE, new Point(1, 2, 3)), "Read camera of negative length");
+
+        // TC12: Length of camera which is larger than the limit
+        assertRejected(createJob(Integer.MAX_VALUE, new Point(1, 2, 3)), "Read camera which is too large");
+    }
+}
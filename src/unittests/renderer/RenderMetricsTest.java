@@ -0,0 +1,108 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import renderer.*;
+import scene.Scene;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Testing RenderMetrics Class
+ * @author Rivka Sheiner
+ */
+class RenderMetricsTest {
+    /**
+     * Folder for the recording of the test
+     */
+    @TempDir
+    Path folder;
+
+    /**
+     * This method creates a camera of a reflecting sphere in front of a transparent triangle
+     * @param nX - the number of columns of the image
+     * @param nY - the number of rows of the image
+     * @return Camera
+     */
+    private static Camera createCamera(int nX, int nY) {
+        Scene scene = new Scene("metrics");
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 50d).setEmission(new Color(0, 0, 100))
+                        .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(300).setKr(0.3)),
+                new Triangle(new Point(-150, -150, -110), new Point(150, -150, -135), new Point(75, 75, -150))
+                        .setMaterial(new Material().setKd(0.5).setKt(0.5)));
+        scene.lights.add(new PointLight(new Color(500, 300, 0), new Point(-50, -50, 50)).setKl(0.001).setKq(0.0002));
+        return new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(150, 150).setVPDistance(1000).setTileSize(8).setNumThreads(1)
+                .setImageWriter(new ImageWriter("metrics", nX, nY)).setRayTracer(new RayTracerBasic(scene));
+    }
+
+    /**
+     * Test method for {@link renderer.RenderMetrics#getPrimaryRays()} and the other metrics.
+     * @throws Exception if the MBean or the recording cannot be read
+     */
+    @Test
+    void testMetrics() throws Exception {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The rays of each kind and the intersection tests are counted
+        RenderMetrics.setEnabled(true);
+        RenderMetrics.reset();
+        try {
+            createCamera(40, 30).renderImage();
+        } finally {
+            RenderMetrics.setEnabled(false);
+        }
+        assertEquals(40 * 30, RenderMetrics.getPrimaryRays(), "Wrong number of primary rays");
+        assertTrue(RenderMetrics.getReflectedRays() > 0, "The reflected rays were not counted");
+        assertTrue(RenderMetrics.getRefractedRays() > 0, "The refracted rays were not counted");
+        assertTrue(RenderMetrics.getShadowRays() > 0, "The shadow rays were not counted");
+        long[] histogram = RenderMetrics.getDepthHistogram();
+        assertTrue(histogram[1] > 0 && histogram[1] <= 40 * 30, "Wrong number of intersections of primary rays");
+        assertTrue(histogram[2] > 0 && histogram[2] <= histogram[1], "Wrong number of intersections in depth 2");
+        Map<String, Long> tests = RenderMetrics.getIntersectionTests(), hits = RenderMetrics.getIntersectionHits();
+        assertTrue(tests.get("Sphere") > 0 && tests.get("Triangle") > 0, "The intersection tests were not counted");
+        for (String name : tests.keySet())
+            assertTrue(hits.get(name) <= tests.get(name), "More hits than tests of " + name);
+
+        // TC02: The metrics are read by JMX
+        RenderMetrics.registerMBean();
+        RenderMetrics.registerMBean();
+        ObjectName name = new ObjectName(RenderMetrics.MBEAN_NAME);
+        assertEquals(40L * 30, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "PrimaryRays"),
+                "Wrong number of primary rays by JMX");
+
+        // TC03: The rendering of each tile is recorded as an event
+        Path file = folder.resolve("tiles.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("renderer.TileRendered");
+            recording.start();
+            createCamera(40, 30).renderImage();
+            recording.stop();
+            recording.dump(file);
+        }
+        long events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals("renderer.TileRendered")).count();
+        assertEquals(5 * 4, events, "Wrong number of events of tiles");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Disabled metrics are not counted
+        RenderMetrics.reset();
+        createCamera(10, 10).renderImage();
+        assertEquals(0, RenderMetrics.getPrimaryRays(), "Counted rays when disabled");
+        assertTrue(RenderMetrics.getIntersectionTests().values().stream().allMatch(n -> n == 0),
+                "Counted intersection tests when disabled");
+    }
+}
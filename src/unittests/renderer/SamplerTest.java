@@ -0,0 +1,87 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import renderer.*;
+
+/**
+ * Testing Sampler Classes
+ * @author Rivka Sheiner
+ */
+class SamplerTest {
+    /**
+     * The samplers of the tests
+     */
+    private static final Sampler[] SAMPLERS = {
+            new StratifiedSampler(), new HaltonSampler(), new SobolSampler(), new BlueNoiseSampler() };
+
+    /**
+     * This method checks that each cell of a grid over the pixel contains one point
+     * @param points - the points
+     * @param columns - the number of columns of the grid
+     * @param rows - the number of rows of the grid
+     * @param message - the message of failure
+     */
+    private static void assertStratified(double[] points, int columns, int rows, String message) {
+        boolean[] isTaken = new boolean[columns * rows];
+        for (int k = 0; k < columns * rows; k++) {
+            int cell = (int) (points[2 * k + 1] * rows) * columns + (int) (points[2 * k] * columns);
+            assertFalse(isTaken[cell], message);
+            isTaken[cell] = true;
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Sampler#samplePixel(int, int, int, double[])}.
+     */
+    @Test
+    void testSamplePixel() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The points are in the pixel, the same for the same pixel and different for other pixel
+        for (Sampler sampler : SAMPLERS) {
+            String name = sampler.getClass().getSimpleName();
+            double[] points = new double[50], again = new double[50], other = new double[50];
+            sampler.samplePixel(3, 7, 25, points);
+            sampler.samplePixel(3, 7, 25, again);
+            sampler.samplePixel(4, 7, 25, other);
+            for (double coordinate : points)
+                assertTrue(coordinate >= 0 && coordinate < 1, "Point out of pixel of " + name);
+            assertArrayEquals(points, again, "Different points of the same pixel of " + name);
+            assertFalse(java.util.Arrays.equals(points, other), "Same points of different pixels of " + name);
+        }
+
+        // TC02: Stratified points - one point in each cell of the grid
+        double[] points = new double[32];
+        new StratifiedSampler().samplePixel(5, 5, 16, points);
+        assertStratified(points, 4, 4, "Two stratified points in the same cell");
+
+        // TC03: Sobol points - one point in each elementary rectangle
+        new SobolSampler().samplePixel(5, 5, 16, points);
+        assertStratified(points, 4, 4, "Two Sobol points in the same square");
+        assertStratified(points, 16, 1, "Two Sobol points in the same column");
+        assertStratified(points, 2, 8, "Two Sobol points in the same rectangle");
+
+        // TC04: Blue noise points - no two points are close
+        new BlueNoiseSampler().samplePixel(5, 5, 16, points);
+        for (int a = 0; a < 16; a++)
+            for (int b = a + 1; b < 16; b++) {
+                double dx = Math.abs(points[2 * a] - points[2 * b]), dy = Math.abs(points[2 * a + 1] - points[2 * b + 1]);
+                dx = Math.min(dx, 1 - dx);
+                dy = Math.min(dy, 1 - dy);
+                assertTrue(Math.sqrt(dx * dx + dy * dy) > 0.05, "Close blue noise points");
+            }
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Number of points which is not a square
+        new StratifiedSampler().samplePixel(0, 0, 6, points);
+        assertStratified(points, 3, 2, "Two stratified points in the same cell");
+
+        // TC12: Array which is too short
+        assertThrows(IllegalArgumentException.class, () -> new HaltonSampler().samplePixel(0, 0, 17, new double[32]),
+                "Filled array which is too short");
+    }
+}
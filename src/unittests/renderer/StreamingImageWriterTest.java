@@ -0,0 +1,140 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import primitives.*;
+import renderer.*;
+import scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Testing StreamingImageWriter Class
+ * @author Rivka Sheiner
+ */
+class StreamingImageWriterTest {
+    /**
+     * The directory of the images of the tests
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Test method for {@link renderer.StreamingImageWriter#writeRows(renderer.FrameBuffer)}.
+     * @throws IOException if the images cannot be read
+     */
+    @Test
+    void testWriteRows() throws IOException {
+        int nX = 50, nY = 37;
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Bands of rows are written to PNG and PFM files, with the last band shorter than the others
+        try (StreamingImageWriter writer = new StreamingImageWriter(directory, "bands", nX, nY).setPfm(true)) {
+            for (int y0 = 0; y0 < nY; y0 += 16) {
+                FrameBuffer band = new FrameBuffer(nX, Math.min(16, nY - y0));
+                for (int y = 0; y < band.getNy(); y++)
+                    for (int x = 0; x < nX; x++)
+                        band.setPixel(x, y, x * 5, (y0 + y) * 7, 300);
+                writer.writeRows(band);
+            }
+        }
+        BufferedImage png = ImageIO.read(directory.resolve("bands.png").toFile());
+        assertEquals(nX, png.getWidth(), "Wrong width of PNG");
+        assertEquals(nY, png.getHeight(), "Wrong height of PNG");
+        for (int y = 0; y < nY; y++)
+            for (int x = 0; x < nX; x++)
+                assertEquals((x * 5) << 16 | (y * 7) << 8 | 255, png.getRGB(x, y) & 0xFFFFFF, "Wrong pixel in PNG");
+
+        byte[] pfm = Files.readAllBytes(directory.resolve("bands.pfm"));
+        String header = "PF\n50 37\n-1.0\n";
+        assertEquals(header.length() + nX * nY * 3 * 4, pfm.length, "Wrong size of PFM");
+        // the rows of PFM are from the bottom, so the first row of the image is the last row of the file
+        ByteBuffer components = ByteBuffer.wrap(pfm, header.length() + (nY - 1) * nX * 12 + 7 * 12, 12)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(35 / 255f, components.getFloat(), 1e-6, "Wrong red component in PFM");
+        assertEquals(0, components.getFloat(), 1e-6, "Wrong green component in PFM");
+        assertEquals(300 / 255f, components.getFloat(), 1e-6, "The PFM does not keep high dynamic range");
+
+        // TC02: The camera renders in bands the same image as with the image writer
+        RayTracerBase tracer = new RayTracerBase(new Scene("streaming")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                Double3 d = ray.getDir().getXyz();
+                return new Color(Math.abs(d.getD1()) * 500, Math.abs(d.getD2()) * 500, 100);
+            }
+        };
+        ImageWriter imageWriter = new ImageWriter("streaming", nX, nY);
+        Camera camera = new Camera(new Point(0, 0, 0), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(10, 10).setVPDistance(10).setTileSize(8).setImageWriter(imageWriter).setRayTracer(tracer);
+        assertStreamedImage(camera, imageWriter, "streaming");
+
+        // TC03: The camera renders in bands the same image with packets of rays, with adaptive super sampling
+        // and with variance sampling, which are used in tiles
+        camera.setRayTracer(new RayTracerBase(new Scene("stripes")) {
+            @Override
+            public Color traceRay(Ray ray) {
+                Double3 d = ray.getDir().getXyz();
+                return Math.sin((d.getD1() + d.getD2() * 0.3) * 40) > 0 ? new Color(255, 255, 255) : Color.BLACK;
+            }
+        });
+        assertStreamedImage(camera.setPacketSize(4), imageWriter, "packets");
+        assertStreamedImage(camera.setPacketSize(1).setNumSamples(16).setAdaptiveSuperSampling(true),
+                imageWriter, "adaptive");
+        assertStreamedImage(camera.setAdaptiveSuperSampling(false).setVarianceSampling(4, 0.01),
+                imageWriter, "variance");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Band which is wider than the image
+        try (StreamingImageWriter writer = new StreamingImageWriter(directory, "wide", nX, 1)) {
+            assertThrows(IllegalArgumentException.class, () -> writer.writeRows(new FrameBuffer(nX + 1, 1)),
+                    "Wrote band which is wider than the image");
+            writer.writeRows(new FrameBuffer(nX, 1));
+        }
+
+        // TC12: The writer is closed before all the rows were written
+        StreamingImageWriter partial = new StreamingImageWriter(directory, "partial", nX, nY);
+        partial.writeRows(new FrameBuffer(nX, 10));
+        assertThrows(IllegalStateException.class, partial::close, "Closed image without all its rows");
+
+        // TC13: The tone mapper fails in the background thread
+        StreamingImageWriter failing = new StreamingImageWriter(directory, "failing", nX, 1).setToneMapper(value -> {
+            throw new ArithmeticException("tone mapping failed");
+        });
+        failing.writeRows(new FrameBuffer(nX, 1));
+        IllegalStateException exception = assertThrows(IllegalStateException.class, failing::close,
+                "Closed image which failed in tone mapping");
+        assertInstanceOf(ArithmeticException.class, exception.getCause(), "Wrong cause of the failure");
+    }
+
+    /**
+     * Function assertStreamedImage checks that the camera renders in bands the same image as with its image writer
+     * @param camera - the camera
+     * @param imageWriter - the image writer of the camera
+     * @param imageName - the name of the streamed image
+     * @throws IOException if the image cannot be read
+     */
+    private void assertStreamedImage(Camera camera, ImageWriter imageWriter, String imageName) throws IOException {
+        int nX = imageWriter.getNx(), nY = imageWriter.getNy();
+        camera.renderImage();
+        try (StreamingImageWriter writer = new StreamingImageWriter(directory, imageName, nX, nY)) {
+            camera.renderImage(writer);
+        }
+        int[] expected = new int[nX * nY];
+        imageWriter.getFrameBuffer().toneMap(ToneMapper.CLAMP, 0, nY, expected, 0);
+        BufferedImage png = ImageIO.read(directory.resolve(imageName + ".png").toFile());
+        for (int y = 0; y < nY; y++)
+            for (int x = 0; x < nX; x++)
+                assertEquals(expected[y * nX + x], png.getRGB(x, y) & 0xFFFFFF, "Wrong pixel rendered in bands of " + imageName);
+    }
+}
@@ -0,0 +1,123 @@
+package unittests.renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import renderer.TileScheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Testing TileScheduler Class
+ * @author Rivka Sheiner
+ */
+class TileSchedulerTest {
+
+    /**
+     * Test method for {@link renderer.TileScheduler#render(int, renderer.TileScheduler.PixelRenderer)}.
+     */
+    @Test
+    void testRender() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Several threads render each pixel exactly once (image is not divided into whole tiles)
+        int nX = 101, nY = 67;
+        AtomicIntegerArray counts = new AtomicIntegerArray(nX * nY);
+        TileScheduler scheduler = new TileScheduler(nX, nY, 16);
+        scheduler.render(4, (col, row) -> counts.incrementAndGet(row * nX + col));
+        for (int i = 0; i < counts.length(); i++)
+            assertEquals(1, counts.get(i), "Pixel was not rendered exactly once");
+        assertEquals(1, scheduler.getProgress(), 0.00001, "Wrong progress after rendering");
+
+        // TC02: Two images are rendered at the same time, each one with its own progress
+        AtomicIntegerArray first = new AtomicIntegerArray(50 * 50);
+        AtomicIntegerArray second = new AtomicIntegerArray(30 * 40);
+        TileScheduler firstScheduler = new TileScheduler(50, 50, 8);
+        TileScheduler secondScheduler = new TileScheduler(30, 40, 8);
+        Thread thread = new Thread(() -> firstScheduler.render(2, (col, row) -> first.incrementAndGet(row * 50 + col)));
+        thread.start();
+        secondScheduler.render(2, (col, row) -> second.incrementAndGet(row * 30 + col));
+        assertDoesNotThrow(() -> thread.join());
+        for (int i = 0; i < first.length(); i++)
+            assertEquals(1, first.get(i), "Pixel of the first image was not rendered exactly once");
+        for (int i = 0; i < second.length(); i++)
+            assertEquals(1, second.get(i), "Pixel of the second image was not rendered exactly once");
+
+        // TC03: Failure in rendering of a pixel is thrown to the caller
+        assertThrows(IllegalStateException.class,
+                () -> new TileScheduler(20, 20, 4).render(3, (col, row) -> {
+                    if (col == 10 && row == 10)
+                        throw new IllegalStateException("failure");
+                }),
+                "Failure in rendering was not thrown");
+
+        // TC04: Cancel in the middle of rendering - the tiles in progress are finished, no new tile is taken
+        TileScheduler cancelled = new TileScheduler(64, 64, 8);
+        AtomicIntegerArray partial = new AtomicIntegerArray(64 * 64);
+        cancelled.render(1, (x0, y0, x1, y1) -> {
+            for (int row = y0; row < y1; row++)
+                for (int col = x0; col < x1; col++)
+                    partial.incrementAndGet(row * 64 + col);
+            if (cancelled.getProgress() >= 0.25)
+                cancelled.cancel();
+        });
+        int rendered = 0;
+        for (int i = 0; i < partial.length(); i++)
+            rendered += partial.get(i);
+        assertEquals(64 * 64 / 4 + 64, rendered, "Wrong number of pixels after cancel");
+
+        // TC05: Error in rendering of a tile by another thread is thrown to the caller, and the other threads stop
+        Thread caller = Thread.currentThread();
+        CountDownLatch failed = new CountDownLatch(1);
+        assertThrows(StackOverflowError.class,
+                () -> new TileScheduler(20, 20, 4).render(2, (x0, y0, x1, y1) -> {
+                    if (Thread.currentThread() != caller) {
+                        failed.countDown();
+                        throw new StackOverflowError();
+                    }
+                    // the caller renders its first tile until the other thread fails
+                    while (failed.getCount() > 0)
+                        Thread.yield();
+                }),
+                "Error in rendering by another thread was not thrown");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: One thread and one tile which is bigger than the image
+        AtomicIntegerArray single = new AtomicIntegerArray(5 * 3);
+        new TileScheduler(5, 3, 32).render(1, (col, row) -> single.incrementAndGet(row * 5 + col));
+        for (int i = 0; i < single.length(); i++)
+            assertEquals(1, single.get(i), "Pixel was not rendered exactly once");
+
+        // TC12: Zero threads
+        assertThrows(IllegalArgumentException.class, () -> new TileScheduler(5, 5, 2).render(0, (col, row) -> { }),
+                "Number of threads must be positive");
+    }
+
+    /**
+     * Test method for {@link renderer.TileScheduler#getTile(int)}.
+     */
+    @Test
+    void testGetTile() {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: The tiles are handed out in Morton order - each 2x2 block before the next one
+        TileScheduler scheduler = new TileScheduler(64, 64, 16); // 4x4 tiles
+        int[] expected = {0, 1, 4, 5, 2, 3, 6, 7, 8, 9, 12, 13, 10, 11, 14, 15};
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], scheduler.getTile(i), "Wrong order of tiles");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Grid which is not square - each tile is handed out exactly once
+        scheduler = new TileScheduler(100, 20, 16); // 7x2 tiles
+        assertEquals(14, scheduler.getNumTiles(), "Wrong number of tiles");
+        boolean[] isHandedOut = new boolean[14];
+        for (int i = 0; i < 14; i++) {
+            assertFalse(isHandedOut[scheduler.getTile(i)], "Tile was handed out twice");
+            isHandedOut[scheduler.getTile(i)] = true;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package unittests.scene;
+
+import geometries.Mesh;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.*;
+import scene.ObjLoader;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.ObjLoader class
+ * @author Rivka Sheiner
+ */
+public class ObjLoaderTests {
+    /**
+     * Folder for the files of the tests
+     */
+    @TempDir
+    Path folder;
+
+    /**
+     * Function write writes OBJ file for a test
+     * @param text - the content of the file
+     * @return Path - the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path write(String text) throws IOException {
+        Path path = folder.resolve("test.obj");
+        Files.writeString(path, text);
+        return path;
+    }
+
+    /**
+     * Test method for {@link scene.ObjLoader#load(scene.Scene, java.nio.file.Path)}.
+     */
+    @Test
+    public void testLoad() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Square as quad face with normals, texture coordinates and comments
+        Scene scene = new Scene("Test scene");
+        Mesh mesh = ObjLoader.load(scene, write("""
+                # square
+                mtllib square.mtl
+                o square
+                v 0 0 0
+                v 2.0 0 0
+                v 2 2.5e0 0
+                v -0 +2.5 -0.0
+                vt 0 0
+                vn 0 0 1
+                f 1/1/1 2/1/1 3/1/1 4/1/1 # quad
+                """));
+        assertEquals(2, mesh.getNumTriangles(), "Quad is not divided into 2 triangles");
+        assertEquals(4, mesh.getNumVertices(), "Wrong number of vertices");
+        assertEquals(List.of(new Point(1, 2, 0)),
+                scene.geometries.findIntersections(new Ray(new Point(1, 2, -1), new Vector(0, 0, 1))),
+                "The mesh is not added to the scene");
+
+        // TC02: Negative (relative) indices and windows line ends
+        mesh = ObjLoader.load(write("v 0 0 0\r\nv 1 0 0\r\nv 0 1 0\r\nf -3 -2 -1\r\n"));
+        assertEquals(1, mesh.getNumTriangles(), "Wrong number of triangles with relative indices");
+
+        // TC03: Face with index of vertex which does not exist
+        Path wrongIndex = write("v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n");
+        assertThrows(IllegalArgumentException.class, () -> ObjLoader.load(wrongIndex),
+                "Loaded face with wrong index of vertex");
+
+        // TC04: Vertex with wrong coordinate
+        Path wrongVertex = write("v 0 0 x\n");
+        assertThrows(IllegalArgumentException.class, () -> ObjLoader.load(wrongVertex),
+                "Loaded vertex with wrong coordinate");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Empty file
+        assertEquals(0, ObjLoader.load(write("")).getNumTriangles(), "Empty file is not empty mesh");
+
+        // TC12: Last line without line end, number with many digits
+        mesh = ObjLoader.load(write("v 0.12345678901234567890 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3"));
+        assertEquals(1, mesh.getNumTriangles(), "Last line without line end is not read");
+
+        // TC13: Face with 2 vertices
+        Path shortFace = write("v 0 0 0\nv 1 0 0\nf 1 2\n");
+        assertThrows(IllegalArgumentException.class, () -> ObjLoader.load(shortFace),
+                "Loaded face with 2 vertices");
+    }
+}
@@ -0,0 +1,135 @@
+package unittests.scene;
+
+import geometries.*;
+import lighting.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.*;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.RayTracerBasic;
+import scene.SceneFile;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.SceneFile class
+ * @author Rivka Sheiner
+ */
+public class SceneFileTests {
+    /**
+     * Folder for the files of the tests
+     */
+    @TempDir
+    Path folder;
+
+    /**
+     * Function createScene creates a scene with all the types of geometries and lights
+     * @return Scene
+     */
+    private static Scene createScene() {
+        Scene scene = new Scene("All types").setBackground(new Color(10, 20, 30))
+                .setAmbient(new AmbientLight(new Color(255, 255, 255), new Double3(0.1)));
+        Material shiny = new Material().setKd(0.5).setKs(0.5).setShininess(100);
+        Geometries group = new Geometries(
+                new Plane(new Point(0, 0, -300), new Vector(0, 0.1, 1)).setMaterial(shiny),
+                new Circle(new Point(60, 60, -100), new Vector(0, 0, 1), 20, 5).setEmission(new Color(0, 80, 0)));
+        scene.geometries.add(group,
+                new Sphere(new Point(0, 0, -100), 30d).setEmission(new Color(0, 0, 100)).setMaterial(shiny),
+                new Triangle(new Point(-80, -80, -150), new Point(-20, -80, -150), new Point(-50, -20, -150)),
+                new Polygon(new Point(20, -80, -150), new Point(80, -80, -150), new Point(80, -40, -150),
+                        new Point(50, -20, -150)).setMaterial(new Material().setKd(0.8)),
+                new Square(new Point(-80, 20, -160), new Point(-40, 20, -160), new Point(-40, 60, -160),
+                        new Point(-80, 60, -160)),
+                new Tube(new Ray(new Point(-60, 0, -200), new Vector(0, 1, 0)), 5),
+                new Cylinder(new Ray(new Point(60, -20, -200), new Vector(0, 1, 0)), 8, 30),
+                new Cone(20, 10, new Point(0, 60, -120)),
+                new Mesh(new double[] { -20, -60, -90, 20, -60, -90, 20, -30, -90, -20, -30, -90 },
+                        new int[] { 0, 1, 2, 0, 2, 3 }).setEmission(new Color(70, 0, 0)).setMaterial(shiny));
+        scene.lights.add(new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1)));
+        scene.lights.add(new PointLight(new Color(300, 200, 100), new Point(50, 50, 0)).setKl(0.001).setKq(0.0001));
+        scene.lights.add(new SpotLight(new Color(400, 400, 400), new Point(-50, 50, 0), new Vector(1, -1, -2))
+                .setKq(0.00005));
+        return scene;
+    }
+
+    /**
+     * Function render renders a scene into an image
+     * @param scene - the scene
+     * @return ImageWriter - the image
+     */
+    private static ImageWriter render(Scene scene) {
+        ImageWriter imageWriter = new ImageWriter("scene file", 60, 60);
+        new Camera(new Point(0, 0, 1000), new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVPSize(200, 200).setVPDistance(1000).setNumThreads(1)
+                .setImageWriter(imageWriter).setRayTracer(new RayTracerBasic(scene)).renderImage();
+        return imageWriter;
+    }
+
+    /**
+     * Test method for {@link scene.SceneFile#read(java.nio.file.Path)}.
+     * @throws IOException if the file of the test cannot be written
+     */
+    @Test
+    public void testRead() throws IOException {
+        Path path = folder.resolve("scene.rts");
+
+        // ============ Equivalence Partitions Tests ==============
+
+        // TC01: Scene with all the types of geometries and lights is rendered the same after reading
+        Scene scene = createScene();
+        SceneFile.write(scene, path);
+        Scene read = SceneFile.read(path);
+        assertEquals("All types", read.name, "Wrong name of scene");
+        assertEquals(scene.background.getRgb(), read.background.getRgb(), "Wrong background");
+        assertEquals(3, read.lights.size(), "Wrong number of lights");
+        assertInstanceOf(BVH.class, read.geometries, "Wrong type of collection");
+        assertEquals(9, read.geometries.getGeometries().size(), "Wrong number of geometries");
+        ImageWriter expected = render(scene), actual = render(read);
+        for (int i = 0; i < 60; i++)
+            for (int j = 0; j < 60; j++)
+                assertEquals(expected.getFrameBuffer().getPixel(j, i).getRgb(),
+                        actual.getFrameBuffer().getPixel(j, i).getRgb(), "Wrong pixel (" + j + "," + i + ")");
+
+        // TC02: Each material is written once, and the geometries of one material share it after reading
+        Geometry sphere = (Geometry) read.geometries.getGeometries().get(1);
+        Geometry mesh = (Geometry) read.geometries.getGeometries().get(8);
+        assertSame(sphere.getMaterial(), mesh.getMaterial(), "The material is not shared");
+        assertEquals(2, ((Mesh) mesh).getNumTriangles(), "Wrong number of triangles of mesh");
+
+        // =============== Boundary Values Tests ==================
+
+        // TC11: Empty scene
+        SceneFile.write(new Scene("empty"), path);
+        assertTrue(SceneFile.read(path).geometries.getGeometries().isEmpty(), "Wrong empty scene");
+
+        // TC12: Geometry of unknown type
+        Scene unknown = new Scene("unknown");
+        unknown.geometries.add(new Sphere(new Point(0, 0, 0), 1) {
+        });
+        assertThrows(IllegalArgumentException.class, () -> SceneFile.write(unknown, path),
+                "Wrote geometry of unknown type");
+
+        // TC13: File which is not a scene file
+        Files.writeString(path, "v 0 0 0\nf 1 1 1\n");
+        assertThrows(IllegalArgumentException.class, () -> SceneFile.read(path), "Read file which is not a scene");
+
+        // TC14: Number of materials which is larger than their section (and overflows the size of the array)
+        SceneFile.write(scene, path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // the count of the second entry of the table of the sections, after the header of 16 bytes
+            channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(0, Integer.MAX_VALUE), 16 + 24 + 4);
+        }
+        assertThrows(IllegalArgumentException.class, () -> SceneFile.read(path), "Read too many materials");
+    }
+}